@@ -0,0 +1,65 @@
+import { Summary } from './harness'
+
+export interface BenchmarkReport {
+  environment: {
+    node: string
+    platform: string
+    arch: string
+    cpu: string
+    commit: string | null
+    date: string
+  }
+  options: { warmup: number; iterations: number }
+  results: Summary[]
+  skipped: { [suite: string]: string }
+}
+
+export type ComparisonStatus = 'improved' | 'regressed' | 'unchanged' | 'new'
+
+export interface Comparison {
+  name: string
+  status: ComparisonStatus
+  baseline: number | null
+  current: number
+  /**
+   * Relative change of the median time, in percent. Negative is faster.
+   */
+  change: number | null
+}
+
+/**
+ * Compares median times against a baseline report.
+ * A change is only significant if it exceeds both the threshold and the
+ * combined margins of error of the two measurements.
+ * @param threshold minimum relative change in percent
+ */
+export const compare = (
+  report: BenchmarkReport,
+  baseline: BenchmarkReport,
+  threshold: number
+): Comparison[] => {
+  const previous = new Map(baseline.results.map(result => [result.name, result]))
+
+  return report.results.map(result => {
+    const old = previous.get(result.name)
+    if (old === undefined) {
+      return {
+        name: result.name,
+        status: 'new',
+        baseline: null,
+        current: result.median,
+        change: null
+      }
+    }
+
+    const change = ((result.median - old.median) / old.median) * 100
+    const noise = Math.max(threshold, result.rme + old.rme)
+    let status: ComparisonStatus = 'unchanged'
+    if (change > noise) {
+      status = 'regressed'
+    } else if (change < -noise) {
+      status = 'improved'
+    }
+    return { name: result.name, status, baseline: old.median, current: result.median, change }
+  })
+}
@@ -0,0 +1,36 @@
+public class Main {
+  public static int calls;
+
+  public int x;
+  public int y;
+
+  public Main(int x, int y) {
+    this.x = x;
+    this.y = y;
+  }
+
+  public int dot(Main other) {
+    calls = calls + 1;
+    return this.x * other.x + this.y * other.y;
+  }
+
+  public static int square(int n) {
+    calls = calls + 1;
+    return n * n;
+  }
+
+  public static int sumOfSquares(int a, int b, int c) {
+    return square(a) + square(b) + square(c);
+  }
+
+  public static void main(String[] args) {
+    Main p = new Main(1, 2);
+    Main q = new Main(3, 4);
+    int r = p.dot(q) + q.dot(p);
+    r = r + sumOfSquares(r, r % 7, r / 3);
+    r = r + sumOfSquares(p.x, p.y, q.x) * sumOfSquares(q.y, 5, 6);
+    Main s = new Main(r % 10, r / 10);
+    r = r + s.dot(p) + s.dot(q) + s.dot(s);
+    r = r + sumOfSquares(s.x, s.y, r % 13);
+  }
+}
@@ -0,0 +1,25 @@
+public class Main {
+  static class Node {
+    final int value;
+    final Node next;
+
+    Node(int value, Node next) {
+      this.value = value;
+      this.next = next;
+    }
+  }
+
+  public static void main(String[] args) {
+    long sum = 0;
+    for (int round = 0; round < 20; round++) {
+      Node head = null;
+      for (int i = 0; i < 2000; i++) {
+        head = new Node(i, head);
+      }
+      for (Node n = head; n != null; n = n.next) {
+        sum += n.value;
+      }
+    }
+    System.out.println(sum);
+  }
+}
@@ -0,0 +1,13 @@
+public class Main {
+  public static void main(String[] args) {
+    int acc = 0;
+    long wide = 1;
+    double real = 0;
+    for (int i = 1; i <= 200000; i++) {
+      acc += (i * 31) ^ (acc >>> 3);
+      wide = wide * 6364136223846793005L + i;
+      real += (double) i / (acc | 1);
+    }
+    System.out.println(acc + " " + wide + " " + (real > 0));
+  }
+}
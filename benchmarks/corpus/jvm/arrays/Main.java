@@ -0,0 +1,35 @@
+public class Main {
+  public static void main(String[] args) {
+    int[] values = new int[5000];
+    int seed = 12345;
+    for (int i = 0; i < values.length; i++) {
+      seed = seed * 1103515245 + 12345;
+      values[i] = (seed >>> 16) & 0x7fff;
+    }
+
+    // insertion sort on a prefix keeps the workload quadratic but bounded
+    for (int i = 1; i < 1500; i++) {
+      int key = values[i];
+      int j = i - 1;
+      while (j >= 0 && values[j] > key) {
+        values[j + 1] = values[j];
+        j--;
+      }
+      values[j + 1] = key;
+    }
+
+    int[][] grid = new int[64][64];
+    for (int y = 0; y < 64; y++) {
+      for (int x = 0; x < 64; x++) {
+        grid[y][x] = values[(y * 64 + x) % values.length];
+      }
+    }
+    long total = 0;
+    for (int[] row : grid) {
+      for (int cell : row) {
+        total += cell;
+      }
+    }
+    System.out.println(values[0] + " " + values[1499] + " " + total);
+  }
+}
@@ -0,0 +1,19 @@
+public class Main {
+  static int fib(int n) {
+    return n < 2 ? n : fib(n - 1) + fib(n - 2);
+  }
+
+  static int ackermann(int m, int n) {
+    if (m == 0) {
+      return n + 1;
+    }
+    if (n == 0) {
+      return ackermann(m - 1, 1);
+    }
+    return ackermann(m - 1, ackermann(m, n - 1));
+  }
+
+  public static void main(String[] args) {
+    System.out.println(fib(22) + " " + ackermann(2, 200));
+  }
+}
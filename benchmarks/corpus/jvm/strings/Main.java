@@ -0,0 +1,20 @@
+public class Main {
+  public static void main(String[] args) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 3000; i++) {
+      sb.append(i).append(',');
+    }
+    String joined = sb.toString();
+    int commas = 0;
+    for (int i = 0; i < joined.length(); i++) {
+      if (joined.charAt(i) == ',') {
+        commas++;
+      }
+    }
+    String concat = "";
+    for (int i = 0; i < 200; i++) {
+      concat = concat + (char) ('a' + i % 26);
+    }
+    System.out.println(commas + " " + joined.length() + " " + concat.hashCode());
+  }
+}
@@ -0,0 +1,26 @@
+public class Main {
+  static int counter = 0;
+  static final Object lock = new Object();
+
+  static class Worker extends Thread {
+    public void run() {
+      for (int i = 0; i < 2000; i++) {
+        synchronized (lock) {
+          counter++;
+        }
+      }
+    }
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    Worker[] workers = new Worker[4];
+    for (int i = 0; i < workers.length; i++) {
+      workers[i] = new Worker();
+      workers[i].start();
+    }
+    for (Worker worker : workers) {
+      worker.join();
+    }
+    System.out.println(counter);
+  }
+}
@@ -0,0 +1,41 @@
+public class Main {
+  public static void sort(int[] a) {
+    for (int i = 0; i < a.length; i++) {
+      for (int j = 0; j < a.length - i - 1; j++) {
+        if (a[j] > a[j + 1]) {
+          int t = a[j];
+          a[j] = a[j + 1];
+          a[j + 1] = t;
+        }
+      }
+    }
+  }
+
+  public static int search(int[] a, int key) {
+    int lo = 0;
+    int hi = a.length - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) / 2;
+      if (a[mid] == key) {
+        return mid;
+      } else if (a[mid] < key) {
+        lo = mid + 1;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    return -1;
+  }
+
+  public static void main(String[] args) {
+    int[] a = {9, 4, 7, 1, 8, 2, 6, 3, 5, 0};
+    sort(a);
+    int found = 0;
+    for (int i = 0; i < 10; i++) {
+      if (search(a, i) == i) {
+        found++;
+      }
+    }
+    System.out.println(found);
+  }
+}
@@ -0,0 +1,33 @@
+public class Main {
+  public static int sumOfSquares(int n) {
+    int sum = 0;
+    for (int i = 1; i <= n; i++) {
+      sum += i * i;
+    }
+    return sum;
+  }
+
+  public static int collatz(int n) {
+    int steps = 0;
+    while (n != 1) {
+      if (n % 2 == 0) {
+        n = n / 2;
+      } else {
+        n = 3 * n + 1;
+      }
+      steps++;
+    }
+    return steps;
+  }
+
+  public static void main(String[] args) {
+    int total = 0;
+    int i = 1;
+    do {
+      total += collatz(i);
+      i++;
+    } while (i < 100);
+    System.out.println(sumOfSquares(100));
+    System.out.println(total);
+  }
+}
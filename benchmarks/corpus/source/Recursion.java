@@ -0,0 +1,32 @@
+public class Main {
+  public static int fib(int n) {
+    if (n < 2) {
+      return n;
+    }
+    return fib(n - 1) + fib(n - 2);
+  }
+
+  public static int gcd(int a, int b) {
+    if (b == 0) {
+      return a;
+    }
+    return gcd(b, a % b);
+  }
+
+  public static int power(int base, int exp) {
+    if (exp == 0) {
+      return 1;
+    }
+    int half = power(base, exp / 2);
+    if (exp % 2 == 0) {
+      return half * half;
+    }
+    return half * half * base;
+  }
+
+  public static void main(String[] args) {
+    System.out.println(fib(15));
+    System.out.println(gcd(1071, 462));
+    System.out.println(power(3, 7));
+  }
+}
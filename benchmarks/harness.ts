@@ -0,0 +1,146 @@
+import { performance } from 'node:perf_hooks'
+
+export interface Benchmark {
+  /**
+   * Unique name, prefixed with the suite, e.g. jvm/recursion
+   */
+  name: string
+  /**
+   * Unit of the work counts returned by run, e.g. steps or bytes.
+   * Throughput is only reported when set.
+   */
+  unit?: string
+  /**
+   * Overrides the iteration counts of the run options, for slow benchmarks.
+   */
+  warmup?: number
+  iterations?: number
+  setup?: () => Promise<void> | void
+  /**
+   * Runs one iteration.
+   * @returns units of work done in this iteration, when unit is set
+   */
+  run: () => Promise<number | void> | number | void
+  teardown?: () => Promise<void> | void
+}
+
+export interface Suite {
+  name: string
+  /**
+   * Creates the benchmarks of the suite.
+   * @returns reason the suite cannot run, e.g. a missing class path
+   */
+  create: (options: RunOptions) => Promise<Benchmark[] | string> | Benchmark[] | string
+  /**
+   * Called after all benchmarks of the suite have run.
+   */
+  teardown?: () => void
+}
+
+export interface RunOptions {
+  warmup: number
+  iterations: number
+  filter: RegExp | null
+  classPath: string | null
+  archive: string | null
+}
+
+export interface Summary {
+  name: string
+  samples: number
+  /**
+   * Times of an iteration in milliseconds.
+   */
+  mean: number
+  median: number
+  stddev: number
+  min: number
+  max: number
+  p95: number
+  /**
+   * Relative margin of error of the mean at 95% confidence, in percent.
+   */
+  rme: number
+  unit?: string
+  /**
+   * Units of work per second, computed from the median.
+   */
+  throughput?: number
+}
+
+// two-tailed 95% critical values of the t distribution, indexed by degrees of freedom
+// prettier-ignore
+const T_TABLE = [
+  NaN, 12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+  2.201, 2.179, 2.16, 2.145, 2.131, 2.12, 2.11, 2.101, 2.093, 2.086,
+  2.08, 2.074, 2.069, 2.064, 2.06, 2.056, 2.052, 2.048, 2.045, 2.042
+]
+
+const percentile = (sorted: number[], p: number) => {
+  const index = (sorted.length - 1) * p
+  const lower = Math.floor(index)
+  const upper = Math.ceil(index)
+  return sorted[lower] + (sorted[upper] - sorted[lower]) * (index - lower)
+}
+
+export const summarize = (
+  name: string,
+  times: number[],
+  work: number[] = [],
+  unit?: string
+): Summary => {
+  const sorted = [...times].sort((a, b) => a - b)
+  const n = sorted.length
+  const mean = sorted.reduce((acc, x) => acc + x, 0) / n
+  const variance = n > 1 ? sorted.reduce((acc, x) => acc + (x - mean) ** 2, 0) / (n - 1) : 0
+  const stddev = Math.sqrt(variance)
+  const t = T_TABLE[n - 1] ?? 1.96
+  const median = percentile(sorted, 0.5)
+
+  const summary: Summary = {
+    name,
+    samples: n,
+    mean,
+    median,
+    stddev,
+    min: sorted[0],
+    max: sorted[n - 1],
+    p95: percentile(sorted, 0.95),
+    rme: n > 1 && mean > 0 ? ((t * stddev) / Math.sqrt(n) / mean) * 100 : 0
+  }
+  if (unit !== undefined && work.length > 0) {
+    const medianWork = percentile([...work].sort((a, b) => a - b), 0.5)
+    summary.unit = unit
+    summary.throughput = median > 0 ? (medianWork / median) * 1000 : 0
+  }
+  return summary
+}
+
+/**
+ * Runs warmup iterations, then times each measured iteration separately.
+ */
+export const measure = async (benchmark: Benchmark, options: RunOptions): Promise<Summary> => {
+  const warmup = benchmark.warmup ?? options.warmup
+  const iterations = benchmark.iterations ?? options.iterations
+
+  await benchmark.setup?.()
+  try {
+    for (let i = 0; i < warmup; i++) {
+      await benchmark.run()
+    }
+
+    const times: number[] = []
+    const work: number[] = []
+    for (let i = 0; i < iterations; i++) {
+      const start = performance.now()
+      const done = await benchmark.run()
+      times.push(performance.now() - start)
+      if (typeof done === 'number') {
+        work.push(done)
+      }
+    }
+    return summarize(benchmark.name, times, work, benchmark.unit)
+  } finally {
+    await benchmark.teardown?.()
+  }
+}
@@ -0,0 +1,145 @@
+import { execSync } from 'node:child_process'
+import * as fs from 'node:fs'
+import * as os from 'node:os'
+import * as path from 'node:path'
+import { BenchmarkReport, compare } from './baseline'
+import { RunOptions, Suite, Summary, measure } from './harness'
+import { compilerSuite } from './suites/compiler'
+import { ecEvaluatorSuite } from './suites/ec-evaluator'
+import { jvmSuite } from './suites/jvm'
+import { typeCheckerSuite } from './suites/type-checker'
+
+/**
+ * Benchmark runner, e.g. yarn bench --filter jvm/ --classpath path/to/classfiles
+ *
+ * --filter <regex>       only run benchmarks with matching names
+ * --warmup <n>           warmup iterations per benchmark, default 5
+ * --iterations <n>       measured iterations per benchmark, default 20
+ * --classpath <dir>      standard library class files, required by the jvm suite
+ * --archive <file>       packed standard library archive, instead of --classpath
+ * --out <file>           where to write the JSON report, default benchmarks/results/latest.json
+ * --baseline <file>      report to compare against, default benchmarks/baseline.json
+ * --threshold <percent>  minimum change of the median to report, default 5
+ * --save-baseline        also writes the report to the baseline file
+ *
+ * Exits with 1 if a benchmark regressed against the baseline.
+ */
+
+const SUITES: Suite[] = [jvmSuite, compilerSuite, ecEvaluatorSuite, typeCheckerSuite]
+const DEFAULT_OUT = path.resolve(__dirname, 'results/latest.json')
+const DEFAULT_BASELINE = path.resolve(__dirname, 'baseline.json')
+
+const parseArgs = (argv: string[]) => {
+  const args: { [flag: string]: string } = {}
+  for (let i = 0; i < argv.length; i++) {
+    if (!argv[i].startsWith('--')) {
+      throw new Error('Unexpected argument: ' + argv[i])
+    }
+    const flag = argv[i].slice(2)
+    if (flag === 'save-baseline') {
+      args[flag] = 'true'
+    } else {
+      args[flag] = argv[++i]
+    }
+  }
+  return args
+}
+
+const getCommit = () => {
+  try {
+    return execSync('git rev-parse HEAD', { stdio: ['ignore', 'pipe', 'ignore'] })
+      .toString()
+      .trim()
+  } catch (e) {
+    return null
+  }
+}
+
+const format = (summary: Summary) => {
+  const time = `${summary.median.toFixed(3)} ms ±${summary.rme.toFixed(1)}%`
+  const throughput =
+    summary.throughput !== undefined
+      ? `  ${Math.round(summary.throughput).toLocaleString('en-US')} ${summary.unit}/s`
+      : ''
+  return `${summary.name.padEnd(36)} ${time.padStart(20)}${throughput}`
+}
+
+const main = async () => {
+  const args = parseArgs(process.argv.slice(2))
+  const options: RunOptions = {
+    warmup: Number(args['warmup'] ?? 5),
+    iterations: Number(args['iterations'] ?? 20),
+    filter: args['filter'] ? new RegExp(args['filter']) : null,
+    classPath: args['classpath'] ? path.resolve(args['classpath']) : null,
+    archive: args['archive'] ? path.resolve(args['archive']) : null
+  }
+
+  const report: BenchmarkReport = {
+    environment: {
+      node: process.version,
+      platform: process.platform,
+      arch: process.arch,
+      cpu: os.cpus()[0]?.model ?? 'unknown',
+      commit: getCommit(),
+      date: new Date().toISOString()
+    },
+    options: { warmup: options.warmup, iterations: options.iterations },
+    results: [],
+    skipped: {}
+  }
+
+  for (const suite of SUITES) {
+    try {
+      const benchmarks = await suite.create(options)
+      if (typeof benchmarks === 'string') {
+        report.skipped[suite.name] = benchmarks
+        console.log(`${suite.name}: skipped, ${benchmarks}`)
+        continue
+      }
+      for (const benchmark of benchmarks) {
+        if (options.filter && !options.filter.test(benchmark.name)) {
+          continue
+        }
+        const summary = await measure(benchmark, options)
+        report.results.push(summary)
+        console.log(format(summary))
+      }
+    } finally {
+      suite.teardown?.()
+    }
+  }
+
+  const out = args['out'] ? path.resolve(args['out']) : DEFAULT_OUT
+  fs.mkdirSync(path.dirname(out), { recursive: true })
+  fs.writeFileSync(out, JSON.stringify(report, null, 2) + '\n')
+  console.log(`\nWrote ${report.results.length} results to ${out}`)
+
+  const baselinePath = args['baseline'] ? path.resolve(args['baseline']) : DEFAULT_BASELINE
+  let regressed = false
+  if (fs.existsSync(baselinePath)) {
+    const baseline = JSON.parse(fs.readFileSync(baselinePath, 'utf-8')) as BenchmarkReport
+    const comparisons = compare(report, baseline, Number(args['threshold'] ?? 5))
+    console.log(`\nCompared to ${baselinePath} (${baseline.environment.commit ?? 'unknown commit'})`)
+    comparisons.forEach(comparison => {
+      const change =
+        comparison.change === null
+          ? ''
+          : ` ${comparison.change > 0 ? '+' : ''}${comparison.change.toFixed(1)}%`
+      console.log(`${comparison.name.padEnd(36)} ${comparison.status}${change}`)
+    })
+    regressed = comparisons.some(comparison => comparison.status === 'regressed')
+  } else {
+    console.log(`\nNo baseline at ${baselinePath}, run with --save-baseline to create one`)
+  }
+
+  if (args['save-baseline']) {
+    fs.writeFileSync(baselinePath, JSON.stringify(report, null, 2) + '\n')
+    console.log(`Saved baseline to ${baselinePath}`)
+  }
+  process.exitCode = regressed ? 1 : 0
+}
+
+main().catch(e => {
+  console.error(e)
+  process.exitCode = 1
+})
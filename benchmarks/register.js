@@ -0,0 +1,16 @@
+const fs = require('fs')
+const ts = require('typescript')
+
+/**
+ * Lets node require the TypeScript sources of the benchmarks and of src, e.g.
+ * node -r ./benchmarks/register.js benchmarks/index.ts
+ * Modules are only transpiled, not type checked.
+ */
+
+require.extensions['.ts'] = (module, filename) => {
+  const { outputText } = ts.transpileModule(fs.readFileSync(filename, 'utf-8'), {
+    compilerOptions: { module: ts.ModuleKind.CommonJS, target: ts.ScriptTarget.ES2016 },
+    fileName: filename
+  })
+  module._compile(outputText, filename)
+}
@@ -0,0 +1,57 @@
+import * as fs from 'node:fs'
+import * as path from 'node:path'
+import { ClassFile } from '../../src/ClassFile/types'
+import { CompilerSession, compileFromSource } from '../../src/compiler'
+import { BinaryWriter } from '../../src/compiler/binary-writer'
+import { Suite } from '../harness'
+
+const CORPUS = path.resolve(__dirname, '../corpus/source')
+
+export const compilerSuite: Suite = {
+  name: 'compiler',
+  create: () => {
+    const files = fs.readdirSync(CORPUS).sort()
+    const sources = files.map(file => fs.readFileSync(path.join(CORPUS, file), 'utf-8'))
+    const sourceLength = sources.reduce((acc, source) => acc + source.length, 0)
+
+    let classFiles: ClassFile[] = []
+    const writer = new BinaryWriter()
+    const session = new CompilerSession()
+
+    return [
+      {
+        name: 'compiler/compileFromSource',
+        unit: 'chars',
+        run: () => {
+          classFiles = sources.map(source => compileFromSource(source))
+          return sourceLength
+        }
+      },
+      {
+        name: 'compiler/CompilerSession',
+        unit: 'chars',
+        run: () => {
+          session.compileBatch(sources)
+          return sourceLength
+        }
+      },
+      {
+        name: 'compiler/BinaryWriter',
+        unit: 'bytes',
+        setup: () => {
+          classFiles = sources.map(source => compileFromSource(source))
+        },
+        run: () => {
+          let bytes = 0
+          // repeated so that the iteration is long enough to time reliably
+          for (let i = 0; i < 20; i++) {
+            classFiles.forEach(classFile => {
+              bytes += writer.generateBinary(classFile).byteLength
+            })
+          }
+          return bytes
+        }
+      }
+    ]
+  }
+}
@@ -0,0 +1,50 @@
+import * as fs from 'node:fs'
+import * as path from 'node:path'
+import { ECEvaluatorSession, runECEvaluator } from '../../src/ec-evaluator'
+import { Benchmark, Suite } from '../harness'
+
+const CORPUS = path.resolve(__dirname, '../corpus/ece')
+const SEEKS = 20
+
+const runBenchmark = (name: string, source: string): Benchmark => ({
+  name: 'ec-evaluator/' + name,
+  unit: 'steps',
+  run: async () => {
+    const result = await runECEvaluator(source)
+    if (result.status === 'error') {
+      throw new Error(result.context.errors.map(e => e.explain()).join('\n'))
+    }
+    return result.context.totalSteps
+  }
+})
+
+/**
+ * Seeks backwards through the execution, as when scrubbing in the visualizer.
+ */
+const scrubBenchmark = (name: string, source: string): Benchmark => ({
+  name: `ec-evaluator/${name}/scrub`,
+  unit: 'seeks',
+  run: () => {
+    const session = new ECEvaluatorSession(source)
+    const totalSteps = session.stepTo(Number.MAX_SAFE_INTEGER).context.totalSteps
+    for (let i = SEEKS; i > 0; i--) {
+      session.stepTo(Math.floor((totalSteps * i) / SEEKS))
+    }
+    return SEEKS
+  }
+})
+
+export const ecEvaluatorSuite: Suite = {
+  name: 'ec-evaluator',
+  create: () => {
+    const benchmarks: Benchmark[] = []
+    fs.readdirSync(CORPUS)
+      .sort()
+      .forEach(file => {
+        const name = path.basename(file, '.java')
+        const source = fs.readFileSync(path.join(CORPUS, file), 'utf-8')
+        benchmarks.push(runBenchmark(name, source), scrubBenchmark(name, source))
+      })
+    return benchmarks
+  }
+}
@@ -0,0 +1,145 @@
+import { execFileSync } from 'node:child_process'
+import * as fs from 'node:fs'
+import * as os from 'node:os'
+import * as path from 'node:path'
+import JVM from '../../src/jvm/jvm'
+import ArchiveSystem from '../../src/jvm/utils/ArchiveSystem'
+import AbstractSystem from '../../src/jvm/utils/AbstractSystem'
+import CustomSystem from '../../src/jvm/utils/CustomSystem'
+import parseBin from '../../src/jvm/utils/disassembler'
+import { Benchmark, RunOptions, Suite } from '../harness'
+
+const CORPUS = path.resolve(__dirname, '../corpus/jvm')
+const NATIVES = path.resolve(__dirname, '../../src/jvm/stdlib')
+
+let outDir: string | null = null
+
+interface Output {
+  out: string[]
+  err: string[]
+}
+
+/**
+ * Creates a system that captures program output, so that iterations can be checked against
+ * each other.
+ */
+const createSystem = (output: Output) =>
+  new CustomSystem(
+    file => {
+      const buffer = fs.readFileSync(file)
+      return parseBin(new DataView(buffer.buffer, buffer.byteOffset, buffer.byteLength))
+    },
+    file => import(file),
+    message => output.out.push(message),
+    message => output.err.push(message)
+  )
+
+const createJVM = (output: Output, options: RunOptions, userDir: string) => {
+  const system = createSystem(output)
+  let sys: AbstractSystem = system
+  let javaClassPath = options.classPath as string
+  if (options.archive) {
+    javaClassPath = 'stdlib'
+    sys = new ArchiveSystem(fs.readFileSync(options.archive), system, javaClassPath)
+  }
+  return new JVM(sys, { javaClassPath, userDir, nativesPath: NATIVES })
+}
+
+const runMain = (jvm: JVM, output: Output): Promise<string> =>
+  new Promise((resolve, reject) => {
+    output.out = []
+    output.err = []
+    jvm.run('Main', () => {
+      if (output.err.length > 0) {
+        reject(new Error(output.err.join('')))
+      } else {
+        resolve(output.out.join(''))
+      }
+    })
+  })
+
+/**
+ * Compiles a corpus program with javac, the compiler in this repository does not
+ * support threads or nested classes.
+ */
+const compileProgram = (workload: string, outDir: string) => {
+  fs.mkdirSync(outDir, { recursive: true })
+  execFileSync('javac', [
+    '-source',
+    '1.8',
+    '-target',
+    '1.8',
+    '-nowarn',
+    '-d',
+    outDir,
+    path.join(CORPUS, workload, 'Main.java')
+  ])
+}
+
+/**
+ * Runs the corpus programs on a single JVM. Iterations after the first warm-start from
+ * the bootstrap snapshot, so the program itself is measured rather than the bootstrap.
+ */
+const programBenchmark = (workload: string, options: RunOptions, outDir: string): Benchmark => {
+  const output: Output = { out: [], err: [] }
+  let jvm: JVM
+  let expected: string | null = null
+  return {
+    name: 'jvm/' + workload,
+    setup: () => {
+      jvm = createJVM(output, options, outDir)
+    },
+    run: async () => {
+      const result = await runMain(jvm, output)
+      if (expected === null) {
+        expected = result
+      } else if (result !== expected) {
+        throw new Error(`jvm/${workload}: output changed from ${expected} to ${result}`)
+      }
+    }
+  }
+}
+
+export const jvmSuite: Suite = {
+  name: 'jvm',
+  create: options => {
+    if (!options.classPath && !options.archive) {
+      return 'pass --classpath <standard library class files> or --archive <classfiles.bin>'
+    }
+
+    const dir = fs.mkdtempSync(path.join(os.tmpdir(), 'java-slang-bench-'))
+    outDir = dir
+    const workloads = fs.readdirSync(CORPUS).sort()
+    try {
+      workloads.forEach(workload => compileProgram(workload, path.join(dir, workload)))
+    } catch (e) {
+      return 'javac is required to compile the corpus: ' + (e as Error).message
+    }
+
+    const bootstrapOutput: Output = { out: [], err: [] }
+    const benchmarks: Benchmark[] = [
+      {
+        // a new JVM for every iteration, measures loading and initializing the standard library
+        name: 'jvm/bootstrap',
+        warmup: 1,
+        iterations: Math.min(options.iterations, 5),
+        run: async () => {
+          await runMain(
+            createJVM(bootstrapOutput, options, path.join(dir, 'arithmetic')),
+            bootstrapOutput
+          )
+        }
+      }
+    ]
+    workloads.forEach(workload =>
+      benchmarks.push(programBenchmark(workload, options, path.join(dir, workload)))
+    )
+    return benchmarks
+  },
+  teardown: () => {
+    if (outDir !== null) {
+      fs.rmSync(outDir, { recursive: true, force: true })
+      outDir = null
+    }
+  }
+}
@@ -0,0 +1,26 @@
+import * as fs from 'node:fs'
+import * as path from 'node:path'
+import { typeCheck } from '../../src/types'
+import { Suite } from '../harness'
+
+const CORPUS = path.resolve(__dirname, '../corpus/source')
+
+export const typeCheckerSuite: Suite = {
+  name: 'type-checker',
+  create: () =>
+    fs
+      .readdirSync(CORPUS)
+      .sort()
+      .map(file => {
+        const source = fs.readFileSync(path.join(CORPUS, file), 'utf-8')
+        return {
+          name: 'type-checker/' + path.basename(file, '.java'),
+          run: () => {
+            const result = typeCheck(source)
+            if (result.hasTypeErrors) {
+              throw new Error(result.errorMsgs.join('\n'))
+            }
+          }
+        }
+      })
+}
@@ -236,6 +236,15 @@ export interface BootstrapMethod {
   bootstrapArguments: Array<number>
 }
 
+/**
+ * Attribute left undecoded by a lazily parsed class file.
+ */
+export interface LazyAttributeInfo {
+  attributeNameIndex: number
+  attributeLength: number
+  decode: () => AttributeInfo
+}
+
 export type AttributeInfo =
   | ConstantValueAttribute
   | CodeAttribute
@@ -252,3 +261,4 @@ export type AttributeInfo =
   | LocalVariableTypeTableAttribute
   | DeprecatedAttribute
   | BootstrapMethodsAttribute
+  | LazyAttributeInfo
@@ -0,0 +1,39 @@
+import { runECEvaluator } from "../../ec-evaluator";
+import { IncrementalTypeChecker, typeCheck } from "../../types";
+import { clearCstCache } from "../cst-cache";
+import { parse } from "../parser";
+
+const programStr = `
+  class Counter {
+    static int count = 41;
+    static int next() {
+      return count + 1;
+    }
+  }
+  public class Main {
+    public static void main(String[] args) {
+      int x = Counter.count;
+      int y = Counter.next();
+    }
+  }
+`;
+
+describe("share cached syntax trees", () => {
+  beforeEach(() => clearCstCache());
+
+  it("type checks a program with qualified names twice and then evaluates it", async () => {
+    const expectedAst = parse(programStr);
+    const noErrors = { hasTypeErrors: false, errorMsgs: [] };
+
+    expect(typeCheck(programStr)).toEqual(noErrors);
+    expect(typeCheck(programStr)).toEqual(noErrors);
+    const checker = new IncrementalTypeChecker();
+    expect(checker.typeCheck(programStr)).toEqual(noErrors);
+    expect(checker.typeCheck(programStr)).toEqual(noErrors);
+
+    expect(parse(programStr)).toEqual(expectedAst);
+    const result = await runECEvaluator(programStr);
+    expect(result.context.errors).toEqual([]);
+    expect(result.status).toBe("finished");
+  });
+});
@@ -0,0 +1,30 @@
+import { CstNode, parse } from "java-parser";
+
+const CACHE_SIZE = 16;
+
+// Keyed by program text, least recently used first.
+const cache = new Map<string, CstNode>();
+
+/**
+ * Parses a program into the concrete syntax tree of java-parser, shared by the ECE and the
+ * type checker so that a program they both process is only parsed once. The syntax trees
+ * of the most recently parsed programs are cached by their text, and must not be mutated.
+ * @throws the error of java-parser if the program is syntactically invalid, which is not cached
+ */
+export const parseToCst = (program: string): CstNode => {
+  const cached = cache.get(program);
+  if (cached) {
+    cache.delete(program);
+    cache.set(program, cached);
+    return cached;
+  }
+
+  const cst = parse(program);
+  cache.set(program, cst);
+  if (cache.size > CACHE_SIZE) {
+    cache.delete(cache.keys().next().value as string);
+  }
+  return cst;
+};
+
+export const clearCstCache = () => cache.clear();
@@ -1,4 +1,4 @@
-import { parse as parseToCst } from "java-parser";
+import { parseToCst } from "./cst-cache";
 
 import { SyntaxError } from "../ec-evaluator/errors";
 import { ASTExtractor } from "./astExtractor/ast-extractor";
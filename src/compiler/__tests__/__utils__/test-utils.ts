@@ -1,5 +1,5 @@
 import { inspect } from "util";
-import { compile } from "../../index";
+import { compile, CompilerOptions } from "../../index";
 import { BinaryWriter } from "../../binary-writer";
 import { AST } from "../../../ast/types/packages-and-modules";
 import { javaPegGrammar } from "../../grammar"
@@ -22,7 +22,7 @@ const parser = peggy.generate(peggyFunctions + javaPegGrammar, {
 });
 const binaryWriter = new BinaryWriter();
 
-export function runTest(program: string, expectedLines: string[]) {
+export function runTest(program: string, expectedLines: string[], options?: CompilerOptions) {
   const ast = parser.parse(program);
   expect(ast).not.toBeNull();
 
@@ -30,7 +30,7 @@ export function runTest(program: string, expectedLines: string[]) {
     console.log(inspect(ast, false, null, true));
   }
 
-  const classFile = compile(ast as AST);
+  const classFile = compile(ast as AST, options);
   binaryWriter.writeBinary(classFile, pathToTestDir);
 
   const prevDir = process.cwd();
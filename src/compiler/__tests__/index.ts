@@ -10,6 +10,9 @@ import { importTest } from "./tests/import.test";
 import { arrayTest } from "./tests/array.test";
 import { classTest } from "./tests/class.test";
 import { typeConversionTest } from "./tests/typeConversion.test";
+import { sessionTest } from "./tests/session.test";
+import { binaryWriterTest } from "./tests/binaryWriter.test";
+import { optimizerTest } from "./tests/optimizer.test";
 
 describe("compiler tests", () => {
   printlnTest();
@@ -24,4 +27,7 @@ describe("compiler tests", () => {
   arrayTest();
   classTest();
   typeConversionTest();
+  sessionTest();
+  binaryWriterTest();
+  optimizerTest();
 })
\ No newline at end of file
@@ -0,0 +1,49 @@
+import { BinaryWriter } from "../../binary-writer";
+import { compileFromSource } from "../../index";
+import parseBin from "../../../jvm/utils/disassembler";
+import { CONSTANT_TAG } from "../../../ClassFile/constants/constants";
+import { ConstantUtf8Info } from "../../../ClassFile/types/constants";
+
+export const binaryWriterTest = () => describe("binary writer", () => {
+  it("writes class files that read back to the same constant pool", () => {
+    const classFile = compileFromSource(`
+      public class Main {
+        public static void main(String[] args) {
+          long l = 123456789012L;
+          double d = 2.5;
+          int i = 100000;
+          System.out.println("héllo 世界");
+        }
+      }
+    `);
+    const binary = new BinaryWriter().generateBinary(classFile);
+    const parsed = parseBin(new DataView(binary.buffer, binary.byteOffset, binary.byteLength));
+
+    expect(parsed.constantPoolCount).toBe(classFile.constantPoolCount);
+    expect(parsed.constantPool.length).toBe(classFile.constantPool.length);
+    parsed.constantPool.forEach((constant, i) => {
+      const expected = classFile.constantPool[i];
+      if (constant.tag === CONSTANT_TAG.Utf8) {
+        // the compiler records lengths in characters, class files in bytes
+        expect((constant as ConstantUtf8Info).value).toBe((expected as ConstantUtf8Info).value);
+      } else {
+        expect(constant).toStrictEqual(expected);
+      }
+    });
+    expect(parsed.methods.length).toBe(classFile.methods.length);
+  });
+
+  it("grows its buffer for large class files", () => {
+    const statements = Array.from({ length: 200 }, (_, i) => `int x${i} = ${100000 + i};`);
+    const classFile = compileFromSource(`
+      public class Main {
+        public static void main(String[] args) {
+          ${statements.join("\n")}
+        }
+      }
+    `);
+    const binary = new BinaryWriter().generateBinary(classFile);
+    const parsed = parseBin(new DataView(binary.buffer, binary.byteOffset, binary.byteLength));
+    expect(parsed.constantPoolCount).toBe(classFile.constantPoolCount);
+  });
+});
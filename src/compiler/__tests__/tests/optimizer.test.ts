@@ -0,0 +1,191 @@
+import {
+  runTest,
+  testCase,
+} from "../__utils__/test-utils";
+import { compileFromSource } from "../../index";
+import { OPCODE } from "../../../ClassFile/constants/instructions";
+import { ClassFile } from "../../../ClassFile/types";
+import { CodeAttribute } from "../../../ClassFile/types/attributes";
+import { ConstantUtf8Info } from "../../../ClassFile/types/constants";
+
+const getCode = (classFile: ClassFile, methodName: string) => {
+  const method = classFile.methods.find(
+    m => (classFile.constantPool[m.nameIndex] as ConstantUtf8Info).value === methodName
+  );
+  const code = (method!.attributes[0] as CodeAttribute).code;
+  return Array.from(new Uint8Array(code.buffer, code.byteOffset, code.byteLength));
+};
+
+const compileMain = (body: string, optimize: boolean) => getCode(
+  compileFromSource(`
+    public class Main {
+      public static void main(String[] args) {
+        ${body}
+      }
+    }
+  `, { optimize }),
+  "main"
+);
+
+const testCases: testCase[] = [
+  {
+    comment: "constant folding with int overflow",
+    program: `
+      public class Main {
+        public static void main(String[] args) {
+          System.out.println(2147483647 + 1);
+          System.out.println(-7 / 2);
+          System.out.println(-7 % 2);
+          System.out.println(1 << 33);
+          System.out.println(-1 >>> 28);
+          System.out.println(65536 * 65536);
+          System.out.println(~5 ^ 3);
+        }
+      }
+    `,
+    expectedLines: ["-2147483648", "-3", "-1", "2", "15", "0", "-7"],
+  },
+  {
+    comment: "strength reduction",
+    program: `
+      public class Main {
+        public static void main(String[] args) {
+          int x = -3;
+          System.out.println(x * 8);
+          System.out.println(x * 1);
+          System.out.println(x + 0);
+          System.out.println(x << 32);
+          System.out.println(x / 1);
+        }
+      }
+    `,
+    expectedLines: ["-24", "-3", "-3", "-3", "-3"],
+  },
+  {
+    comment: "increments of local variables",
+    program: `
+      public class Main {
+        public static void main(String[] args) {
+          int x = 0;
+          x++;
+          ++x;
+          x += 100;
+          x -= 2;
+          x = x + 127;
+          x += 1000;
+          System.out.println(x++);
+          System.out.println(--x);
+        }
+      }
+    `,
+    expectedLines: ["1227", "1227"],
+  },
+  {
+    comment: "loops with break and continue",
+    program: `
+      public class Main {
+        public static void main(String[] args) {
+          int sum = 0;
+          for (int i = 0; i < 10; i++) {
+            if (i % 2 == 0) {
+              continue;
+            }
+            if (i > 7) {
+              break;
+            }
+            sum += i;
+          }
+          System.out.println(sum);
+          while (true) {
+            sum--;
+            if (sum < 10) {
+              break;
+            }
+          }
+          System.out.println(sum);
+        }
+      }
+    `,
+    expectedLines: ["16", "9"],
+  },
+  {
+    comment: "constant conditions and unreachable code",
+    program: `
+      public class Main {
+        public static void main(String[] args) {
+          if (1 < 2) {
+            System.out.println("taken");
+          } else {
+            System.out.println("not taken");
+          }
+          if (false) {
+            System.out.println("dead");
+          }
+          System.out.println(max(3, 4));
+        }
+        public static int max(int a, int b) {
+          if (a > b) {
+            return a;
+          } else {
+            return b;
+          }
+        }
+      }
+    `,
+    expectedLines: ["taken", "4"],
+  },
+];
+
+export const optimizerTest = () => describe("optimizer", () => {
+  for (let testCase of testCases) {
+    const { comment: comment, program: program, expectedLines: expectedLines } = testCase;
+    it(comment, () => runTest(program, expectedLines, { optimize: true }));
+  }
+
+  it("does not optimize unless enabled", () => {
+    expect(compileMain("int x = 0; x++;", false)).not.toContain(OPCODE.IINC);
+  });
+
+  it("emits IINC for increments", () => {
+    const code = compileMain("int x = 0; x++; x -= 3;", true);
+    expect(code).toStrictEqual([
+      OPCODE.ICONST_0,
+      OPCODE.ISTORE_1,
+      OPCODE.IINC, 1, 1,
+      OPCODE.IINC, 1, 0xfd,
+      OPCODE.RETURN,
+    ]);
+  });
+
+  it("folds constant expressions", () => {
+    const code = compileMain("int x = 60 * 60 * 8;", true);
+    expect(code).toStrictEqual([OPCODE.SIPUSH, 0x70, 0x80, OPCODE.ISTORE_1, OPCODE.RETURN]);
+  });
+
+  it("removes branches on constants and unreachable code", () => {
+    const code = compileMain(`
+      int x = 0;
+      if (1 > 2) {
+        x = 5;
+      }
+      while (false) {
+        x = 6;
+      }
+    `, true);
+    expect(code).toStrictEqual([OPCODE.ICONST_0, OPCODE.ISTORE_1, OPCODE.RETURN]);
+  });
+
+  it("generates shorter code for loops", () => {
+    const body = `
+      int sum = 0;
+      for (int i = 0; i < 10; i++) {
+        if (i == 3) {
+          continue;
+        }
+        sum = sum + i * 4;
+      }
+      System.out.println(sum);
+    `;
+    expect(compileMain(body, true).length).toBeLessThan(compileMain(body, false).length);
+  });
+});
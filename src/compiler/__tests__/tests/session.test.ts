@@ -0,0 +1,37 @@
+import { CompilerSession } from "../../session";
+import { ConstantClassInfo, ConstantUtf8Info } from "../../../ClassFile/types/constants";
+import { ClassFile } from "../../../ClassFile/types";
+
+const getClassName = (classFile: ClassFile) => {
+  const classInfo = classFile.constantPool[classFile.thisClass] as ConstantClassInfo;
+  return (classFile.constantPool[classInfo.nameIndex] as ConstantUtf8Info).value;
+};
+
+export const sessionTest = () => describe("compiler session", () => {
+  const session = new CompilerSession();
+
+  it("compiles every top-level class", () => {
+    const classFiles = session.compile(`
+      public class Main {
+        public static void main(String[] args) {
+          System.out.println(Helper.twice(2));
+        }
+      }
+      class Helper {
+        public static int twice(int x) {
+          return x * 2;
+        }
+      }
+    `);
+    expect(classFiles.map(getClassName)).toStrictEqual(["Main", "Helper"]);
+  });
+
+  it("compiles a batch of programs, reporting errors per program", () => {
+    const results = session.compileBatch([
+      `public class Main { public static void main(String[] args) { int x = 1; } }`,
+      `public class Main { public static void main(String[] args) { int x = ; } }`,
+      `public class Main { public static void main(String[] args) { int y = 2; } }`,
+    ]);
+    expect(results.map(r => r.status)).toStrictEqual(["finished", "error", "finished"]);
+  });
+});
@@ -30,12 +30,18 @@ const u1 = 1
 const u2 = 2
 const u4 = 4
 
+const INITIAL_CAPACITY = 1024
+
 export class BinaryWriter {
-  private byteArray: Array<number>
+  private buffer: ArrayBuffer
+  private view: DataView
+  private offset: number
   private constantPool: Array<ConstantInfo>
 
   constructor() {
-    this.byteArray = []
+    this.buffer = new ArrayBuffer(0)
+    this.view = new DataView(this.buffer)
+    this.offset = 0
     this.constantPool = []
   }
 
@@ -49,21 +55,34 @@ export class BinaryWriter {
     fs.writeFileSync(filename, binary)
   }
 
-  private getClassName(classFile: ClassFile) {
-    const classInfo = classFile.constantPool[classFile.thisClass - 1] as ConstantClassInfo
-    const classNameInfo = classFile.constantPool[classInfo.nameIndex - 1] as ConstantUtf8Info
+  getClassName(classFile: ClassFile) {
+    const classInfo = classFile.constantPool[classFile.thisClass] as ConstantClassInfo
+    const classNameInfo = classFile.constantPool[classInfo.nameIndex] as ConstantUtf8Info
     return classNameInfo.value
   }
 
+  /**
+   * Serializes a class file into a growable buffer.
+   * @returns view of the written bytes, the buffer is not reused by later calls
+   */
   private toBinary(classFile: ClassFile) {
-    this.byteArray = []
+    this.buffer = new ArrayBuffer(INITIAL_CAPACITY)
+    this.view = new DataView(this.buffer)
+    this.offset = 0
     this.constantPool = classFile.constantPool
 
     this.write(classFile.magic, u4)
     this.write(classFile.minorVersion, u2)
     this.write(classFile.majorVersion, u2)
     this.write(classFile.constantPoolCount, u2)
-    classFile.constantPool.forEach(c => this.writeConstant(c))
+    // index 0 is unused, longs and doubles take up two indexes
+    for (let i = 1; i < classFile.constantPool.length; i++) {
+      const constant = classFile.constantPool[i]
+      this.writeConstant(constant)
+      if (constant.tag === CONSTANT_TAG.Long || constant.tag === CONSTANT_TAG.Double) {
+        i++
+      }
+    }
     this.write(classFile.accessFlags, u2)
     this.write(classFile.thisClass, u2)
     this.write(classFile.superClass, u2)
@@ -76,60 +95,99 @@ export class BinaryWriter {
     this.write(classFile.attributesCount, u2)
     classFile.attributes.forEach(a => this.writeAttribute(a))
 
-    const binary = new Uint8Array(this.byteArray)
-    return binary
+    return new Uint8Array(this.buffer, 0, this.offset)
   }
 
-  private write(value: number, numOfBytes: number = u1) {
-    const bytes: Array<number> = []
-    for (let i = 0; i < numOfBytes; i++) {
-      bytes.push(value & 0xff)
-      value >>>= 8
+  /**
+   * Grows the buffer by doubling its size until numOfBytes more bytes fit.
+   */
+  private ensureCapacity(numOfBytes: number) {
+    const required = this.offset + numOfBytes
+    if (required <= this.buffer.byteLength) {
+      return
     }
-    bytes.reverse().forEach(b => this.byteArray.push(b))
+    let capacity = Math.max(this.buffer.byteLength, INITIAL_CAPACITY)
+    while (capacity < required) {
+      capacity *= 2
+    }
+    const buffer = new ArrayBuffer(capacity)
+    new Uint8Array(buffer).set(new Uint8Array(this.buffer, 0, this.offset))
+    this.buffer = buffer
+    this.view = new DataView(buffer)
   }
 
-  private writeBytes(bytes: Array<number>) {
-    this.byteArray.push(...bytes)
+  private write(value: number, numOfBytes: number = u1) {
+    this.ensureCapacity(numOfBytes)
+    switch (numOfBytes) {
+      case u1:
+        this.view.setUint8(this.offset, value)
+        break
+      case u2:
+        this.view.setUint16(this.offset, value)
+        break
+      case u4:
+        this.view.setUint32(this.offset, value >>> 0)
+        break
+    }
+    this.offset += numOfBytes
   }
 
   private writeDataView(bytes: DataView) {
-    for (let i = 0; i < bytes.buffer.byteLength; i++) {
-      this.write(bytes.getUint8(i))
-    }
+    this.ensureCapacity(bytes.byteLength)
+    new Uint8Array(this.buffer, this.offset, bytes.byteLength).set(
+      new Uint8Array(bytes.buffer, bytes.byteOffset, bytes.byteLength)
+    )
+    this.offset += bytes.byteLength
   }
 
+  /**
+   * Writes the length and the modified UTF-8 bytes of a string, as in class files.
+   * Supplementary characters are written as surrogate pairs, the null character as 2 bytes.
+   */
   private writeString(str: string) {
-    const bytes = Array.from(Buffer.from(str, 'utf8'))
-    this.writeBytes(bytes)
+    const lengthOffset = this.offset
+    this.write(0, u2)
+    this.ensureCapacity(str.length * 3)
+    const start = this.offset
+    for (let i = 0; i < str.length; i++) {
+      const c = str.charCodeAt(i)
+      if (c !== 0 && c < 0x80) {
+        this.view.setUint8(this.offset++, c)
+      } else if (c < 0x800) {
+        this.view.setUint8(this.offset++, 0xc0 | (c >> 6))
+        this.view.setUint8(this.offset++, 0x80 | (c & 0x3f))
+      } else {
+        this.view.setUint8(this.offset++, 0xe0 | (c >> 12))
+        this.view.setUint8(this.offset++, 0x80 | ((c >> 6) & 0x3f))
+        this.view.setUint8(this.offset++, 0x80 | (c & 0x3f))
+      }
+    }
+    this.view.setUint16(lengthOffset, this.offset - start)
   }
 
   private writeConstant(constant: ConstantInfo) {
     this.write(constant.tag)
-    let val, buf
     switch (constant.tag) {
       case CONSTANT_TAG.Utf8:
-        this.write((constant as ConstantUtf8Info).length, u2)
         this.writeString((constant as ConstantUtf8Info).value)
         break
       case CONSTANT_TAG.Integer:
         this.write((constant as ConstantIntegerInfo).value, u4)
         break
       case CONSTANT_TAG.Float:
-        val = (constant as ConstantFloatInfo).value
-        buf = new Uint8Array(new Float32Array([val]).buffer).reverse()
-        buf.forEach(x => this.write(x))
+        this.ensureCapacity(u4)
+        this.view.setFloat32(this.offset, (constant as ConstantFloatInfo).value)
+        this.offset += u4
         break
       case CONSTANT_TAG.Long:
-        val = (constant as ConstantLongInfo).value
-        const div = 2 ** 32
-        this.write(Number(val / BigInt(div)), u4)
-        this.write(Number(val % BigInt(div)), u4)
+        this.ensureCapacity(8)
+        this.view.setBigInt64(this.offset, (constant as ConstantLongInfo).value)
+        this.offset += 8
         break
       case CONSTANT_TAG.Double:
-        val = (constant as ConstantDoubleInfo).value
-        buf = new Uint8Array(new Float64Array([val]).buffer).reverse()
-        buf.forEach(x => this.write(x))
+        this.ensureCapacity(8)
+        this.view.setFloat64(this.offset, (constant as ConstantDoubleInfo).value)
+        this.offset += 8
         break
       case CONSTANT_TAG.Class:
         this.write((constant as ConstantClassInfo).nameIndex, u2)
@@ -174,7 +232,7 @@ export class BinaryWriter {
   private writeAttribute(attribute: AttributeInfo) {
     this.write(attribute.attributeNameIndex, u2)
     this.write(attribute.attributeLength, u4)
-    const attr = this.constantPool[attribute.attributeNameIndex - 1] as ConstantUtf8Info
+    const attr = this.constantPool[attribute.attributeNameIndex] as ConstantUtf8Info
     switch (attr.value) {
       case 'Code':
         this.writeCodeAttribute(attribute as CodeAttribute)
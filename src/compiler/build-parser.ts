@@ -0,0 +1,32 @@
+import * as fs from 'node:fs'
+import * as path from 'node:path'
+import * as peggy from 'peggy'
+import { javaPegGrammar } from './grammar'
+import { peggyFunctions } from './peggy-functions'
+import { parserOptions } from './parser'
+
+/**
+ * Build script to generate the parser of the compiler ahead of time, run after tsc.
+ * e.g. node dist/compiler/build-parser
+ *
+ * writes generated-parser.js next to this script, which getParser loads instead of
+ * generating the parser from the grammar at runtime.
+ */
+
+const OUTFILE = path.join(__dirname, 'generated-parser.js')
+
+export default function buildParser() {
+  const source = peggy.generate(peggyFunctions + javaPegGrammar, {
+    ...parserOptions,
+    output: 'source',
+    format: 'commonjs'
+  })
+  fs.writeFileSync(OUTFILE, source)
+  fs.writeFileSync(
+    OUTFILE.replace(/\.js$/, '.d.ts'),
+    `export declare function parse(input: string, options?: object): any;`
+  )
+  console.log(`Wrote ${OUTFILE}`)
+}
+
+buildParser()
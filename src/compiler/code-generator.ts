@@ -30,6 +30,7 @@ import {
 import { MethodDeclaration, UnannType } from '../ast/types/classes'
 import { ConstantPoolManager } from './constant-pool-manager'
 import { ConstructNotSupportedError, InvalidMethodCallError } from './error'
+import { optimizeCode } from './optimizer'
 import { FieldInfo, MethodInfos, SymbolInfo, SymbolTable, VariableInfo } from './symbol-table'
 
 type Label = {
@@ -182,6 +183,109 @@ const createIntLiteralNode = (int: number): Literal => {
   }
 }
 
+const INT_LITERAL = /^(0|[1-9][0-9]*|0[xX][0-9a-fA-F]+)$/
+
+/**
+ * Evaluates an int expression made of literals, with the overflow semantics of Java.
+ * @returns null if the expression is not a constant int expression
+ */
+const evaluateIntConstant = (node: Node): number | null => {
+  if (node.kind === 'Literal') {
+    const { kind, value } = node.literalType
+    const isInt = kind === 'DecimalIntegerLiteral' || kind === 'HexIntegerLiteral'
+    return isInt && INT_LITERAL.test(value) ? parseInt(value) | 0 : null
+  }
+  if (node.kind === 'PrefixExpression' && (node.operator === '-' || node.operator === '~')) {
+    const value = evaluateIntConstant(node.expression)
+    if (value === null) {
+      return null
+    }
+    return node.operator === '-' ? -value | 0 : ~value
+  }
+  if (node.kind === 'BinaryExpression' && node.operator in intBinaryOp) {
+    const left = evaluateIntConstant(node.left)
+    const right = evaluateIntConstant(node.right)
+    if (left === null || right === null) {
+      return null
+    }
+    switch (node.operator) {
+      case '+':
+        return (left + right) | 0
+      case '-':
+        return (left - right) | 0
+      case '*':
+        return Math.imul(left, right)
+      case '/':
+        // division by zero throws at run time
+        return right === 0 ? null : (left / right) | 0
+      case '%':
+        return right === 0 ? null : left % right | 0
+      case '|':
+        return left | right
+      case '&':
+        return left & right
+      case '^':
+        return left ^ right
+      case '<<':
+        return left << right
+      case '>>':
+        return left >> right
+      case '>>>':
+        return (left >>> right) | 0
+    }
+  }
+  return null
+}
+
+/**
+ * Emits a cheaper equivalent of an int operation whose right operand is constant,
+ * e.g. x * 8 as x << 3, and x + 0 as x.
+ * @returns the stack size of the right operand, or null if the operation is not reduced
+ */
+const reduceIntOperation = (op: string, right: Expression, cg: CodeGenerator): number | null => {
+  const value = evaluateIntConstant(right)
+  if (value === null) {
+    return null
+  }
+  if (
+    (value === 0 && ['+', '-', '|', '^'].includes(op)) ||
+    ((value & 31) === 0 && ['<<', '>>', '>>>'].includes(op)) ||
+    (value === 1 && ['*', '/'].includes(op))
+  ) {
+    return 0
+  }
+  if (op === '*' && value > 0 && (value & (value - 1)) === 0) {
+    compile(createIntLiteralNode(Math.log2(value)), cg)
+    cg.code.push(OPCODE.ISHL)
+    return 1
+  }
+  return null
+}
+
+/**
+ * Gets the increment of an assignment x = x + c or x = x - c to an int local variable,
+ * which can be emitted as IINC.
+ * @returns null if the assignment is not such an increment
+ */
+const getIncrement = (name: string, info: VariableInfo, right: Expression): number | null => {
+  if (
+    info.typeDescriptor !== 'I' ||
+    info.index > 255 ||
+    right.kind !== 'BinaryExpression' ||
+    (right.operator !== '+' && right.operator !== '-') ||
+    right.left.kind !== 'ExpressionName' ||
+    right.left.name !== name
+  ) {
+    return null
+  }
+  const value = evaluateIntConstant(right.right)
+  if (value === null) {
+    return null
+  }
+  const increment = right.operator === '+' ? value : -value
+  return -128 <= increment && increment < 128 ? increment : null
+}
+
 function compile(node: Node, cg: CodeGenerator): CompileResult {
   if (!(node.kind in codeGenerators)) {
     throw new ConstructNotSupportedError(node.kind)
@@ -744,6 +848,11 @@ const codeGenerators: { [type: string]: (node: Node, cg: CodeGenerator) => Compi
       !Array.isArray(cg.symbolTable.queryVariable(lhs.name))
     ) {
       const info = cg.symbolTable.queryVariable(lhs.name) as VariableInfo
+      const increment = cg.optimize ? getIncrement(lhs.name, info, right) : null
+      if (increment !== null) {
+        cg.code.push(OPCODE.IINC, info.index, increment)
+        return { stackSize: 0, resultType: EMPTY_TYPE }
+      }
       maxStack = 1 + compile(right, cg).stackSize
       cg.code.push(
         info.typeDescriptor in normalStoreOp ? normalStoreOp[info.typeDescriptor] : OPCODE.ASTORE,
@@ -811,7 +920,20 @@ const codeGenerators: { [type: string]: (node: Node, cg: CodeGenerator) => Compi
       }
     }
 
+    if (cg.optimize) {
+      const value = evaluateIntConstant(node)
+      if (value !== null) {
+        return compile(createIntLiteralNode(value), cg)
+      }
+    }
+
     const { stackSize: size1, resultType: type } = compile(left, cg)
+    if (cg.optimize && type === 'I') {
+      const size2 = reduceIntOperation(op, right, cg)
+      if (size2 !== null) {
+        return { stackSize: Math.max(size1, 1 + size2), resultType: type }
+      }
+    }
     const { stackSize: size2 } = compile(right, cg)
 
     switch (type) {
@@ -1033,10 +1155,16 @@ class CodeGenerator {
   labels: Label[] = []
   loopLabels: Label[][] = []
   code: number[] = []
+  optimize: boolean
 
-  constructor(symbolTable: SymbolTable, constantPoolManager: ConstantPoolManager) {
+  constructor(
+    symbolTable: SymbolTable,
+    constantPoolManager: ConstantPoolManager,
+    optimize: boolean = false
+  ) {
     this.symbolTable = symbolTable
     this.constantPoolManager = constantPoolManager
+    this.optimize = optimize
   }
 
   generateNewLabel(): Label {
@@ -1099,7 +1227,12 @@ class CodeGenerator {
     if (methodNode.methodHeader.result === 'void') {
       this.code.push(OPCODE.RETURN)
     }
-    this.resolveLabels()
+    const optimizedCode = this.optimize ? optimizeCode(this.code, this.labels) : null
+    if (optimizedCode !== null) {
+      this.code = optimizedCode
+    } else {
+      this.resolveLabels()
+    }
 
     const exceptionTable: Array<ExceptionHandler> = []
     const attributes: Array<AttributeInfo> = []
@@ -1132,8 +1265,9 @@ class CodeGenerator {
 export function generateCode(
   symbolTable: SymbolTable,
   constantPoolManager: ConstantPoolManager,
-  methodNode: MethodDeclaration
+  methodNode: MethodDeclaration,
+  optimize: boolean = false
 ) {
-  const codeGenerator = new CodeGenerator(symbolTable, constantPoolManager)
+  const codeGenerator = new CodeGenerator(symbolTable, constantPoolManager, optimize)
   return codeGenerator.generateCode(methodNode)
 }
@@ -23,6 +23,22 @@ const MAGIC = 0xcafebabe
 const MINOR_VERSION = 0
 const MAJOR_VERSION = 52
 
+export interface CompilerOptions {
+  /**
+   * Optimizes the generated bytecode: constant folding, strength reduction, IINC for
+   * increments, jump threading and dead code removal. Off by default.
+   */
+  optimize?: boolean
+}
+
+interface ClassMembers {
+  staticFields: Array<FieldDeclaration>
+  nonStaticFields: Array<FieldDeclaration>
+  staticMethods: Array<MethodDeclaration>
+  nonStaticMethods: Array<MethodDeclaration>
+  constructors: Array<ConstructorDeclaration>
+}
+
 export class Compiler {
   private symbolTable: SymbolTable
   private constantPoolManager: ConstantPoolManager
@@ -31,8 +47,10 @@ export class Compiler {
   private methods: Array<MethodInfo>
   private attributes: Array<AttributeInfo>
   private className: string
+  private options: CompilerOptions
 
-  constructor() {
+  constructor(options: CompilerOptions = {}) {
+    this.options = options
     this.setup()
   }
 
@@ -42,27 +60,58 @@ export class Compiler {
     this.fields = []
     this.methods = []
     this.attributes = []
-    this.symbolTable = new SymbolTable()
   }
 
-  compile(ast: AST) {
-    this.setup()
+  /**
+   * Compiles every top-level class of a compilation unit, in declaration order.
+   * All classes and their members are recorded in the symbol table before any is compiled,
+   * so that classes can refer to classes declared after them.
+   */
+  compile(ast: AST): Array<ClassFile> {
+    this.symbolTable = new SymbolTable()
     this.symbolTable.handleImports(ast.importDeclarations)
-    const classFiles: Array<ClassFile> = []
-    ast.topLevelClassOrInterfaceDeclarations.forEach(x => classFiles.push(this.compileClass(x)))
-    return classFiles[0]
+
+    const classes = ast.topLevelClassOrInterfaceDeclarations
+    classes.forEach(c => {
+      this.symbolTable.returnToRoot()
+      this.symbolTable.insertClassInfo({
+        name: c.typeIdentifier,
+        accessFlags: generateClassAccessFlags(c.classModifier)
+      })
+    })
+    const members = classes.map(c => this.recordClass(c))
+    return classes.map((c, i) => this.compileClass(c, members[i]))
   }
 
-  private compileClass(classNode: ClassDeclaration): ClassFile {
+  private recordClass(classNode: ClassDeclaration): ClassMembers {
+    this.className = classNode.typeIdentifier
+    this.symbolTable.enterClass(this.className)
+
+    const members = this.getClassMembers(classNode.classBody)
+    members.constructors.forEach(c => this.recordConstructorInfo(c))
+    members.staticFields.forEach(f => this.recordFieldInfo(f))
+    members.staticMethods.forEach(m => this.recordMethodInfo(m))
+    members.nonStaticFields.forEach(f => this.recordFieldInfo(f))
+    members.nonStaticMethods.forEach(m => this.recordMethodInfo(m))
+    return members
+  }
+
+  private compileClass(classNode: ClassDeclaration, members: ClassMembers): ClassFile {
+    this.setup()
     const parentClassName = 'java/lang/Object'
     this.className = classNode.typeIdentifier
     const accessFlags = generateClassAccessFlags(classNode.classModifier)
-    this.symbolTable.insertClassInfo({ name: this.className, accessFlags: accessFlags })
+    this.symbolTable.enterClass(this.className)
 
     const superClassIndex = this.constantPoolManager.indexClassInfo(parentClassName)
     const thisClassIndex = this.constantPoolManager.indexClassInfo(this.className)
     this.constantPoolManager.indexUtf8Info('Code')
-    this.handleClassBody(classNode.classBody)
+
+    members.staticFields.forEach(f => this.compileField(f))
+    members.nonStaticFields.forEach(f => this.compileField(f))
+    members.nonStaticMethods.forEach(m => this.compileMethod(m))
+    members.staticMethods.forEach(m => this.compileMethod(m))
+    members.constructors.forEach(c => this.compileConstructor(c))
 
     const constantPool = this.constantPoolManager.getPool()
     return {
@@ -85,34 +134,36 @@ export class Compiler {
     }
   }
 
-  private handleClassBody(classBody: Array<ClassBodyDeclaration>) {
-    const staticFields: Array<FieldDeclaration> = []
-    const nonStaticFields: Array<FieldDeclaration> = []
-    const staticMethods: Array<MethodDeclaration> = []
-    const nonStaticMethods: Array<MethodDeclaration> = []
-    const constructors: Array<ConstructorDeclaration> = []
+  private getClassMembers(classBody: Array<ClassBodyDeclaration>): ClassMembers {
+    const members: ClassMembers = {
+      staticFields: [],
+      nonStaticFields: [],
+      staticMethods: [],
+      nonStaticMethods: [],
+      constructors: []
+    }
 
     classBody.forEach(d => {
       if (d.kind === 'FieldDeclaration') {
         if (d.fieldModifier.includes('static')) {
-          staticFields.push(d)
+          members.staticFields.push(d)
         } else {
-          nonStaticFields.push(d)
+          members.nonStaticFields.push(d)
         }
       } else if (d.kind === 'MethodDeclaration') {
         if (d.methodModifier.includes('static')) {
-          staticMethods.push(d)
+          members.staticMethods.push(d)
         } else {
-          nonStaticMethods.push(d)
+          members.nonStaticMethods.push(d)
         }
       } else if (d.kind === 'ConstructorDeclaration') {
-        constructors.push(d)
+        members.constructors.push(d)
       }
     })
 
     // insert default constructor
-    if (constructors.length === 0) {
-      constructors.push({
+    if (members.constructors.length === 0) {
+      members.constructors.push({
         kind: 'ConstructorDeclaration',
         constructorModifier: ['public'],
         constructorDeclarator: {
@@ -125,16 +176,7 @@ export class Compiler {
         }
       })
     }
-
-    constructors.forEach(c => this.recordConstructorInfo(c))
-    staticFields.forEach(f => this.recordFieldInfo(f))
-    staticMethods.forEach(m => this.recordMethodInfo(m))
-
-    nonStaticFields.forEach(f => this.recordFieldInfo(f))
-    nonStaticMethods.forEach(m => this.recordMethodInfo(m))
-    nonStaticMethods.forEach(m => this.compileMethod(m))
-    staticMethods.forEach(m => this.compileMethod(m))
-    constructors.forEach(c => this.compileConstructor(c))
+    return members
   }
 
   private recordFieldInfo(fieldNode: FieldDeclaration) {
@@ -142,7 +184,21 @@ export class Compiler {
     const type = fieldNode.fieldType
     fieldNode.variableDeclaratorList.forEach(v => {
       const fullType = type + (v.dims ?? '')
-      const typeDescriptor = this.symbolTable.generateFieldDescriptor(fullType)
+      this.symbolTable.insertFieldInfo({
+        name: v.variableDeclaratorId,
+        accessFlags: accessFlags,
+        parentClassName: this.className,
+        typeName: fullType,
+        typeDescriptor: this.symbolTable.generateFieldDescriptor(fullType)
+      })
+    })
+  }
+
+  private compileField(fieldNode: FieldDeclaration) {
+    const accessFlags = generateFieldAccessFlags(fieldNode.fieldModifier)
+    const type = fieldNode.fieldType
+    fieldNode.variableDeclaratorList.forEach(v => {
+      const typeDescriptor = this.symbolTable.generateFieldDescriptor(type + (v.dims ?? ''))
       this.fields.push({
         accessFlags: accessFlags,
         nameIndex: this.constantPoolManager.indexUtf8Info(v.variableDeclaratorId),
@@ -150,13 +206,6 @@ export class Compiler {
         attributesCount: 0,
         attributes: []
       })
-      this.symbolTable.insertFieldInfo({
-        name: v.variableDeclaratorId,
-        accessFlags: accessFlags,
-        parentClassName: this.className,
-        typeName: fullType,
-        typeDescriptor: typeDescriptor
-      })
     })
   }
 
@@ -199,7 +248,9 @@ export class Compiler {
     const descriptorIndex = this.constantPoolManager.indexUtf8Info(descriptor)
 
     const attributes: Array<AttributeInfo> = []
-    attributes.push(generateCode(this.symbolTable, this.constantPoolManager, methodNode))
+    attributes.push(
+      generateCode(this.symbolTable, this.constantPoolManager, methodNode, this.options.optimize)
+    )
 
     this.methods.push({
       accessFlags: generateMethodAccessFlags(methodNode.methodModifier),
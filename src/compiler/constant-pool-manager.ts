@@ -26,7 +26,8 @@ export class ConstantPoolManager {
   private tasks: Array<constantTask>
 
   constructor() {
-    this.constantPool = []
+    // constant pool 1 indexed, dummy value at index 0, as in class files read by the JVM
+    this.constantPool = [{ tag: CONSTANT_TAG.Class, nameIndex: 0 }]
     this.curIdx = 1
     this.objectMap = new Map()
     this.tasks = []
@@ -202,29 +203,32 @@ export class ConstantPoolManager {
   private writeIntegerInfo(val: ConstantIntegerValue) {
     this.constantPool.push({
       tag: CONSTANT_TAG.Integer,
-      value: val.value
+      value: val.value | 0
     })
   }
 
   private writeFloatInfo(val: ConstantFloatValue) {
     this.constantPool.push({
       tag: CONSTANT_TAG.Float,
-      value: val.value
+      value: Math.fround(val.value)
     })
   }
 
+  // Long and Double const info occupy two entries in the constant pool
   private writeLongInfo(val: ConstantLongValue) {
-    this.constantPool.push({
+    const info = {
       tag: CONSTANT_TAG.Long,
-      value: val.value
-    })
+      value: BigInt.asIntN(64, val.value)
+    }
+    this.constantPool.push(info, info)
   }
 
   private writeDoubleInfo(val: ConstantDoubleValue) {
-    this.constantPool.push({
+    const info = {
       tag: CONSTANT_TAG.Double,
       value: val.value
-    })
+    }
+    this.constantPool.push(info, info)
   }
 
   private writeClassInfo(val: ConstantClassValue) {
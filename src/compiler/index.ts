@@ -1,27 +1,20 @@
-import * as peggy from 'peggy'
 import { AST } from '../ast/types/packages-and-modules'
 import { ClassFile } from '../ClassFile/types'
-import { Compiler } from './compiler'
-import { javaPegGrammar } from './grammar'
-import { peggyFunctions } from './peggy-functions'
+import { Compiler, CompilerOptions } from './compiler'
+import { parse } from './parser'
 
-export const compile = (ast: AST): ClassFile => {
-  const compiler = new Compiler()
-  return compiler.compile(ast)
-}
-
-export const compileFromSource = (javaProgram: string): ClassFile => {
-  const parser = peggy.generate(peggyFunctions + javaPegGrammar, {
-    allowedStartRules: ['CompilationUnit'],
-    cache: true
-  })
+export { CompilerOptions } from './compiler'
+export { CompilerSession } from './session'
 
-  let ast: AST
-  try {
-    ast = parser.parse(javaProgram)
-  } catch (e) {
-    throw new SyntaxError(e)
-  }
+/**
+ * Compiles the first top-level class of a compilation unit.
+ * Use CompilerSession to compile every class.
+ */
+export const compile = (ast: AST, options?: CompilerOptions): ClassFile => {
+  const compiler = new Compiler(options)
+  return compiler.compile(ast)[0]
+}
 
-  return compile(ast)
+export const compileFromSource = (javaProgram: string, options?: CompilerOptions): ClassFile => {
+  return compile(parse(javaProgram), options)
 }
@@ -0,0 +1,391 @@
+import { OPCODE } from '../ClassFile/constants/instructions'
+
+type Label = {
+  offset: number
+  pointedBy: number[]
+}
+
+/**
+ * Instruction of a method body. Branch offsets are replaced by a reference to the target,
+ * so that instructions can be removed or rewritten without tracking byte offsets.
+ */
+type Instruction = {
+  opcode: OPCODE
+  operands: number[]
+  /**
+   * Branch target, END if the branch targets the end of the code.
+   */
+  target: Instruction | null
+  offset: number
+}
+
+const END: Instruction = { opcode: OPCODE.NOP, operands: [], target: null, offset: -1 }
+
+const isBranch = (opcode: OPCODE) =>
+  (OPCODE.IFEQ <= opcode && opcode <= OPCODE.GOTO) ||
+  opcode === OPCODE.IFNULL ||
+  opcode === OPCODE.IFNONNULL
+
+const isReturn = (opcode: OPCODE) => OPCODE.IRETURN <= opcode && opcode <= OPCODE.RETURN
+
+const fallsThrough = (opcode: OPCODE) =>
+  opcode !== OPCODE.GOTO && opcode !== OPCODE.ATHROW && !isReturn(opcode)
+
+/**
+ * Gets the number of operand bytes of an instruction.
+ * @returns null for instructions the optimizer does not handle
+ */
+const getOperandLength = (opcode: OPCODE): number | null => {
+  if (opcode === OPCODE.BIPUSH || opcode === OPCODE.LDC || opcode === OPCODE.NEWARRAY) {
+    return 1
+  }
+  if (OPCODE.ILOAD <= opcode && opcode <= OPCODE.ALOAD) {
+    return 1
+  }
+  if (OPCODE.ISTORE <= opcode && opcode <= OPCODE.ASTORE) {
+    return 1
+  }
+  if (
+    opcode === OPCODE.SIPUSH ||
+    opcode === OPCODE.LDC_W ||
+    opcode === OPCODE.LDC2_W ||
+    opcode === OPCODE.IINC ||
+    isBranch(opcode) ||
+    (OPCODE.GETSTATIC <= opcode && opcode <= OPCODE.INVOKESTATIC) ||
+    opcode === OPCODE.NEW ||
+    opcode === OPCODE.ANEWARRAY ||
+    opcode === OPCODE.CHECKCAST ||
+    opcode === OPCODE.INSTANCEOF
+  ) {
+    return 2
+  }
+  if (opcode === OPCODE.MULTIANEWARRAY) {
+    return 3
+  }
+  if (opcode === OPCODE.INVOKEINTERFACE || opcode === OPCODE.INVOKEDYNAMIC) {
+    return 4
+  }
+  if (
+    opcode === OPCODE.JSR ||
+    opcode === OPCODE.RET ||
+    opcode === OPCODE.TABLESWITCH ||
+    opcode === OPCODE.LOOKUPSWITCH ||
+    opcode === OPCODE.WIDE ||
+    opcode === OPCODE.GOTO_W ||
+    opcode === OPCODE.JSR_W ||
+    opcode > OPCODE.JSR_W
+  ) {
+    return null
+  }
+  return 0
+}
+
+/**
+ * Gets the int pushed by an instruction.
+ * @returns null if the instruction is not an int constant push
+ */
+const getIntConstant = (instr: Instruction): number | null => {
+  if (OPCODE.ICONST_M1 <= instr.opcode && instr.opcode <= OPCODE.ICONST_5) {
+    return instr.opcode - OPCODE.ICONST_0
+  }
+  if (instr.opcode === OPCODE.BIPUSH) {
+    return (instr.operands[0] << 24) >> 24
+  }
+  if (instr.opcode === OPCODE.SIPUSH) {
+    return ((((instr.operands[0] & 0xff) << 8) | (instr.operands[1] & 0xff)) << 16) >> 16
+  }
+  return null
+}
+
+/**
+ * Evaluates a conditional branch on constant operands.
+ * @returns whether the branch is taken
+ */
+const evaluateBranch = (opcode: OPCODE, a: number, b: number): boolean | null => {
+  switch (opcode) {
+    case OPCODE.IFEQ:
+    case OPCODE.IF_ICMPEQ:
+      return a === b
+    case OPCODE.IFNE:
+    case OPCODE.IF_ICMPNE:
+      return a !== b
+    case OPCODE.IFLT:
+    case OPCODE.IF_ICMPLT:
+      return a < b
+    case OPCODE.IFGE:
+    case OPCODE.IF_ICMPGE:
+      return a >= b
+    case OPCODE.IFGT:
+    case OPCODE.IF_ICMPGT:
+      return a > b
+    case OPCODE.IFLE:
+    case OPCODE.IF_ICMPLE:
+      return a <= b
+    default:
+      return null
+  }
+}
+
+/**
+ * Decodes the code of a method, using the labels of the code generator as branch targets.
+ * @returns null if the code contains instructions the optimizer does not handle
+ */
+const decode = (code: number[], labels: Label[]): Instruction[] | null => {
+  const targets: Map<number, number> = new Map()
+  labels.forEach(label => label.pointedBy.forEach(idx => targets.set(idx, label.offset)))
+
+  const instructions: Instruction[] = []
+  const byOffset: Map<number, Instruction> = new Map()
+  let offset = 0
+  while (offset < code.length) {
+    const opcode = code[offset] as OPCODE
+    const length = getOperandLength(opcode)
+    if (length === null || (isBranch(opcode) && !targets.has(offset))) {
+      return null
+    }
+    const instr = {
+      opcode,
+      operands: isBranch(opcode) ? [] : code.slice(offset + 1, offset + 1 + length),
+      target: null,
+      offset
+    }
+    instructions.push(instr)
+    byOffset.set(offset, instr)
+    offset += 1 + length
+  }
+
+  for (const instr of instructions) {
+    if (isBranch(instr.opcode)) {
+      const targetOffset = targets.get(instr.offset) as number
+      const target = targetOffset >= code.length ? END : byOffset.get(targetOffset)
+      if (target === undefined) {
+        return null
+      }
+      instr.target = target
+    }
+  }
+  return instructions
+}
+
+const encode = (instructions: Instruction[]): number[] => {
+  let offset = 0
+  instructions.forEach(instr => {
+    instr.offset = offset
+    offset += 1 + (isBranch(instr.opcode) ? 2 : instr.operands.length)
+  })
+  END.offset = offset
+
+  const code: number[] = []
+  instructions.forEach(instr => {
+    code.push(instr.opcode)
+    if (isBranch(instr.opcode)) {
+      const branchOffset = (instr.target as Instruction).offset - instr.offset
+      code.push((branchOffset >> 8) & 0xff, branchOffset & 0xff)
+    } else {
+      code.push(...instr.operands)
+    }
+  })
+  return code
+}
+
+/**
+ * Removes instructions, redirecting branches to them to the next remaining instruction.
+ */
+const removeInstructions = (instructions: Instruction[], removed: Set<Instruction>) => {
+  if (removed.size === 0) {
+    return instructions
+  }
+  const replacement: Map<Instruction, Instruction> = new Map()
+  let next = END
+  for (let i = instructions.length - 1; i >= 0; i--) {
+    if (removed.has(instructions[i])) {
+      replacement.set(instructions[i], next)
+    } else {
+      next = instructions[i]
+    }
+  }
+  const remaining = instructions.filter(instr => !removed.has(instr))
+  remaining.forEach(instr => {
+    if (instr.target !== null && replacement.has(instr.target)) {
+      instr.target = replacement.get(instr.target) as Instruction
+    }
+  })
+  return remaining
+}
+
+const getBranchTargets = (instructions: Instruction[]) => {
+  const targets: Set<Instruction> = new Set()
+  instructions.forEach(instr => instr.target !== null && targets.add(instr.target))
+  return targets
+}
+
+/**
+ * Redirects branches to a GOTO to the final target, and replaces a GOTO to a return
+ * with the return itself.
+ */
+const threadJumps = (instructions: Instruction[]) => {
+  let changed = false
+  instructions.forEach(instr => {
+    if (instr.target === null) {
+      return
+    }
+    const seen: Set<Instruction> = new Set([instr])
+    let target = instr.target
+    while (target.opcode === OPCODE.GOTO && target !== END && !seen.has(target)) {
+      seen.add(target)
+      target = target.target as Instruction
+    }
+    if (target !== instr.target) {
+      instr.target = target
+      changed = true
+    }
+    if (instr.opcode === OPCODE.GOTO && target !== END && isReturn(target.opcode)) {
+      instr.opcode = target.opcode
+      instr.target = null
+      changed = true
+    }
+  })
+  return changed
+}
+
+/**
+ * Replaces conditional branches on int constants with a GOTO or nothing.
+ */
+const foldConstantBranches = (instructions: Instruction[]) => {
+  const targets = getBranchTargets(instructions)
+  const removed: Set<Instruction> = new Set()
+  for (let i = 0; i < instructions.length; i++) {
+    const instr = instructions[i]
+    if (!isBranch(instr.opcode) || instr.opcode === OPCODE.GOTO || targets.has(instr)) {
+      continue
+    }
+    // the second operand of a comparison must not be a branch target, as the first operand
+    // would then be pushed by other code
+    const binary = OPCODE.IF_ICMPEQ <= instr.opcode && instr.opcode <= OPCODE.IF_ICMPLE
+    const count = binary ? 2 : 1
+    if (i < count || (binary && targets.has(instructions[i - 1]))) {
+      continue
+    }
+    const operands = instructions.slice(i - count, i)
+    const values = operands.map(getIntConstant)
+    if (values.some(v => v === null) || operands.some(o => removed.has(o))) {
+      continue
+    }
+    const taken = evaluateBranch(
+      instr.opcode,
+      values[0] as number,
+      binary ? (values[1] as number) : 0
+    )
+    if (taken === null) {
+      continue
+    }
+    operands.forEach(o => removed.add(o))
+    if (taken) {
+      instr.opcode = OPCODE.GOTO
+    } else {
+      removed.add(instr)
+    }
+  }
+  return removeInstructions(instructions, removed)
+}
+
+/**
+ * Removes instructions that cannot be reached from the start of the method,
+ * e.g. code after a return.
+ */
+const removeUnreachable = (instructions: Instruction[]) => {
+  const index: Map<Instruction, number> = new Map()
+  instructions.forEach((instr, i) => index.set(instr, i))
+
+  const reachable: Set<Instruction> = new Set()
+  const stack: Instruction[] = instructions.length > 0 ? [instructions[0]] : []
+  while (stack.length > 0) {
+    const instr = stack.pop() as Instruction
+    if (instr === END || reachable.has(instr)) {
+      continue
+    }
+    reachable.add(instr)
+    if (instr.target !== null) {
+      stack.push(instr.target)
+    }
+    const next = instructions[(index.get(instr) as number) + 1]
+    if (next !== undefined && fallsThrough(instr.opcode)) {
+      stack.push(next)
+    }
+  }
+  return removeInstructions(
+    instructions,
+    new Set(instructions.filter(instr => !reachable.has(instr)))
+  )
+}
+
+/**
+ * Removes GOTOs to the next instruction.
+ */
+const removeRedundantJumps = (instructions: Instruction[]) =>
+  removeInstructions(
+    instructions,
+    new Set(
+      instructions.filter(
+        (instr, i) => instr.opcode === OPCODE.GOTO && instr.target === (instructions[i + 1] ?? END)
+      )
+    )
+  )
+
+/**
+ * Uses the short forms of local variable and int constant instructions.
+ */
+const useShortForms = (instructions: Instruction[]) => {
+  instructions.forEach(instr => {
+    const op = instr.opcode
+    if (OPCODE.ILOAD <= op && op <= OPCODE.ALOAD && instr.operands[0] <= 3) {
+      instr.opcode = OPCODE.ILOAD_0 + 4 * (op - OPCODE.ILOAD) + instr.operands[0]
+      instr.operands = []
+    } else if (OPCODE.ISTORE <= op && op <= OPCODE.ASTORE && instr.operands[0] <= 3) {
+      instr.opcode = OPCODE.ISTORE_0 + 4 * (op - OPCODE.ISTORE) + instr.operands[0]
+      instr.operands = []
+    } else if (op === OPCODE.BIPUSH || op === OPCODE.SIPUSH) {
+      const value = getIntConstant(instr) as number
+      if (-1 <= value && value <= 5) {
+        instr.opcode = OPCODE.ICONST_0 + value
+        instr.operands = []
+      } else if (op === OPCODE.SIPUSH && -128 <= value && value < 128) {
+        instr.opcode = OPCODE.BIPUSH
+        instr.operands = [value & 0xff]
+      }
+    }
+  })
+}
+
+/**
+ * Optimizes the code of a method and resolves its branches:
+ * - jump threading, including GOTOs to returns
+ * - folding of conditional branches on int constants
+ * - removal of unreachable code and of GOTOs to the next instruction
+ * - short forms of loads, stores and int constants
+ *
+ * The rewrites never increase the operand stack depth, so the max stack of the
+ * unoptimized code remains an upper bound.
+ * @param code code with unresolved branches, as emitted by the code generator
+ * @param labels branch labels of the code
+ * @returns optimized code with resolved branches, or null if the code cannot be optimized
+ */
+export const optimizeCode = (code: number[], labels: Label[]): number[] | null => {
+  let instructions = decode(code, labels)
+  if (instructions === null) {
+    return null
+  }
+
+  for (let pass = 0; pass < 8; pass++) {
+    const length = instructions.length
+    const threaded = threadJumps(instructions)
+    instructions = foldConstantBranches(instructions)
+    instructions = removeUnreachable(instructions)
+    instructions = removeRedundantJumps(instructions)
+    if (!threaded && instructions.length === length) {
+      break
+    }
+  }
+  useShortForms(instructions)
+  return encode(instructions)
+}
@@ -0,0 +1,39 @@
+import * as peggy from 'peggy'
+import { AST } from '../ast/types/packages-and-modules'
+import { javaPegGrammar } from './grammar'
+import { peggyFunctions } from './peggy-functions'
+
+export const parserOptions = {
+  allowedStartRules: ['CompilationUnit'],
+  cache: true
+}
+
+let parser: { parse: (input: string) => any } | null = null
+
+/**
+ * Gets the parser of the compiler. The parser generated at build time by build-parser is
+ * loaded if it exists, otherwise the parser is generated from the grammar on first use.
+ * The parser is created once and shared by all compilations.
+ */
+export const getParser = () => {
+  if (parser === null) {
+    try {
+      parser = require('./generated-parser') as { parse: (input: string) => any }
+    } catch (e) {
+      parser = peggy.generate(peggyFunctions + javaPegGrammar, parserOptions)
+    }
+  }
+  return parser
+}
+
+/**
+ * Parses a Java program into the AST used by the compiler.
+ * @throws {SyntaxError} if the program is syntactically invalid
+ */
+export const parse = (javaProgram: string): AST => {
+  try {
+    return getParser().parse(javaProgram) as AST
+  } catch (e) {
+    throw new SyntaxError(e)
+  }
+}
@@ -0,0 +1,50 @@
+import { AST } from '../ast/types/packages-and-modules'
+import { ClassFile } from '../ClassFile/types'
+import { Compiler, CompilerOptions } from './compiler'
+import { getParser, parse } from './parser'
+
+export type CompileResult =
+  | { status: 'finished'; classFiles: Array<ClassFile> }
+  | { status: 'error'; error: Error }
+
+/**
+ * Long-lived compiler for compiling many programs, e.g. in an autograder.
+ * The parser and the library symbols are created once and reused by every compilation.
+ */
+export class CompilerSession {
+  private compiler: Compiler
+
+  constructor(options?: CompilerOptions) {
+    this.compiler = new Compiler(options)
+    getParser()
+  }
+
+  /**
+   * Compiles every top-level class of a parsed compilation unit.
+   */
+  compileAST(ast: AST): Array<ClassFile> {
+    return this.compiler.compile(ast)
+  }
+
+  /**
+   * Compiles every top-level class of a program.
+   * @throws {SyntaxError} if the program is syntactically invalid
+   */
+  compile(javaProgram: string): Array<ClassFile> {
+    return this.compileAST(parse(javaProgram))
+  }
+
+  /**
+   * Compiles a batch of programs. Errors are returned per program,
+   * so that one invalid program does not stop the batch.
+   */
+  compileBatch(javaPrograms: Array<string>): Array<CompileResult> {
+    return javaPrograms.map((program): CompileResult => {
+      try {
+        return { status: 'finished', classFiles: this.compile(program) }
+      } catch (e) {
+        return { status: 'error', error: e as Error }
+      }
+    })
+  }
+}
@@ -97,9 +97,34 @@ export class SymbolTable {
     this.importedClassMap = new Map()
   }
 
+  /**
+   * Root table of the imported libraries, shared by all symbol tables.
+   * Library classes are never modified after setup, so tables copy the root table
+   * instead of inserting the libraries again.
+   */
+  private static libraryTable: Table | null = null
+
+  private static getLibraryTable(): Table {
+    if (SymbolTable.libraryTable === null) {
+      const symbolTable = new SymbolTable()
+      symbolTable.importLibraryPackages()
+      symbolTable.insertLibraries()
+      SymbolTable.libraryTable = symbolTable.tables[0]
+    }
+    return SymbolTable.libraryTable
+  }
+
   private setup() {
+    this.importLibraryPackages()
+    SymbolTable.getLibraryTable().forEach((node, key) => this.tables[0].set(key, node))
+  }
+
+  private importLibraryPackages() {
+    libraries.forEach(p => this.importedPackages.push(p.packageName + '/'))
+  }
+
+  private insertLibraries() {
     libraries.forEach(p => {
-      this.importedPackages.push(p.packageName + '/')
       p.classes.forEach(c => {
         this.insertClassInfo({
           name: c.className,
@@ -131,12 +156,27 @@ export class SymbolTable {
     return new Map<Symbol, SymbolNode>()
   }
 
-  private returnToRoot() {
+  returnToRoot() {
     this.tables = [this.tables[0]]
     this.curTable = this.tables[0]
     this.curIdx = 0
   }
 
+  /**
+   * Makes the scope of a class declared at the root the current scope.
+   */
+  enterClass(name: string) {
+    const node = this.tables[0].get(generateSymbol(name, SymbolType.CLASS))
+    if (node === undefined) {
+      throw new SymbolNotFoundError(name)
+    }
+    this.returnToRoot()
+    this.tables.push(node.children)
+    this.curTable = node.children
+    this.curIdx = 1
+    this.curClassIdx = 1
+  }
+
   handleImports(imports: Array<ImportDeclaration>) {
     if (imports.length === 0) {
       imports.push({ isStatic: false, identifier: 'java.lang.*' })
@@ -0,0 +1,49 @@
+import { parse } from "../../ast/parser";
+import { createContext } from "../index";
+import { evaluate } from "../interpreter";
+
+const programStr = `
+  class Test {
+    int x;
+    Test(int x) {
+      this.x = x;
+    }
+    static int twice(int n) {
+      return n * 2;
+    }
+    public static void main(String[] args) {
+      int a = twice(1);
+      int b = twice(a);
+      Test t = new Test(b);
+      Test u = new Test(a);
+    }
+  }
+`;
+
+const run = (retainFrames: boolean) => {
+  const compilationUnit = parse(programStr);
+  expect(compilationUnit).toBeTruthy();
+
+  const context = createContext({ retainFrames });
+  context.control.push(compilationUnit!);
+  evaluate(context);
+  return context;
+};
+
+describe("environment", () => {
+  it("should retain every frame and object by default", () => {
+    const context = run(true);
+
+    // at least main, 2 invocations of twice and 2 of the constructor
+    expect(context.environment.global.children.length).toBeGreaterThanOrEqual(5);
+    expect(context.environment.objects.length).toBe(2);
+  });
+
+  it("should not retain frames and objects when retainFrames is false", () => {
+    const context = run(false);
+
+    expect(context.environment.global.children).toHaveLength(0);
+    expect(context.environment.objects).toHaveLength(0);
+    expect(context.totalSteps).toBe(run(true).totalSteps);
+  });
+});
@@ -0,0 +1,75 @@
+import { parse } from "../../ast/parser";
+import { evaluate } from "../interpreter";
+import { Closure, StructType } from "../types";
+import {
+  StashStub,
+  createContextStub,
+  getStashItemStr
+} from "./__utils__/utils";
+
+describe("cache method resolution correctly", () => {
+  it("should resolve overriden method per class of target", () => {
+    const programStr = `
+      class Parent {
+        int get() {
+          return 1;
+        }
+      }
+      class Child extends Parent {
+        int get() {
+          return 2;
+        }
+      }
+      class Test {
+        static int get(Parent p) {
+          return p.get();
+        }
+        public static void main(String[] args) {
+          int a = get(new Parent());
+          int b = get(new Child());
+          int c = get(new Parent());
+        }
+      }
+      `;
+
+    const compilationUnit = parse(programStr);
+    expect(compilationUnit).toBeTruthy();
+
+    const context = createContextStub();
+    context.control.push(compilationUnit!);
+
+    evaluate(context);
+
+    const returnedValues = (context.stash as StashStub)
+      .getTrace()
+      .map(i => getStashItemStr(i))
+      .filter(s => s === "1" || s === "2");
+    expect(returnedValues).toEqual(["1", "2", "1"]);
+  });
+
+  it("should precompute closure params and descriptor", () => {
+    const programStr = `
+      class Parent {
+        void set(int x) {}
+      }
+      class Test extends Parent {
+        public static void main(String[] args) {}
+      }
+      `;
+
+    const compilationUnit = parse(programStr);
+    expect(compilationUnit).toBeTruthy();
+
+    const context = createContextStub();
+    context.control.push(compilationUnit!);
+
+    evaluate(context);
+
+    const closure = context.environment.getClass("Parent").frame.frame.get("set(int)void") as Closure;
+    expect(closure.kind).toEqual(StructType.CLOSURE);
+    expect(closure.descriptor).toEqual("set(int)void");
+    expect(closure.params.map(p => p.identifier)).toEqual(["x"]);
+    // Parent implicitly extends Object.
+    expect(closure.instanceParams.map(p => p.identifier)).toEqual(["this", "super", "x"]);
+  });
+});
@@ -0,0 +1,70 @@
+import { parse } from "../../ast/parser";
+import { ECEvaluatorSession, createContext } from "../index";
+import { evaluate } from "../interpreter";
+import { Context } from "../types";
+import { getControlItemStr, getStashItemStr } from "./__utils__/utils";
+
+const programStr = `
+  class Test {
+    static int add(int a, int b) {
+      return a + b;
+    }
+    public static void main(String[] args) {
+      int x = add(1, 2);
+      int y = add(x, 3);
+      int z = add(x, y);
+      z = z * 2;
+    }
+  }
+`;
+
+const getState = (context: Context) => ({
+  step: context.totalSteps,
+  control: context.control.getStack().map(getControlItemStr),
+  stash: context.stash.getStack().map(getStashItemStr),
+});
+
+const evaluateTo = (targetStep: number) => {
+  const context = createContext();
+  context.control.push(parse(programStr)!);
+  evaluate(context, targetStep);
+  return getState(context);
+};
+
+describe("evaluator session", () => {
+  it("should match evaluating from step 0 when stepping forward and back", () => {
+    const session = new ECEvaluatorSession(programStr, { checkpointInterval: 5 });
+
+    for (const step of [20, 7, 3, 40, 41, 0, 25, 12]) {
+      const result = session.stepTo(step);
+      expect(result.status).toBe("finished");
+      expect(getState(result.context)).toEqual(evaluateTo(step));
+    }
+  });
+
+  it("should stop at the end of the program", () => {
+    const session = new ECEvaluatorSession(programStr);
+    const result = session.stepTo(Number.MAX_SAFE_INTEGER);
+
+    expect(result.status).toBe("finished");
+    expect(session.isFinished).toBe(true);
+    expect(session.step).toBe(evaluateTo(Number.MAX_SAFE_INTEGER).step);
+  });
+
+  it("should step by a number of steps", () => {
+    const session = new ECEvaluatorSession(programStr, { checkpointInterval: 4 });
+    session.stepTo(10);
+    session.stepBy(5);
+
+    expect(session.step).toBe(15);
+    expect(getState(session.stepBy(-6).context)).toEqual(evaluateTo(9));
+  });
+
+  it("should report syntax errors", () => {
+    const session = new ECEvaluatorSession("class Test {");
+    const result = session.stepTo(10);
+
+    expect(result.status).toBe("error");
+    expect(result.context.errors).toHaveLength(1);
+  });
+});
@@ -21,12 +21,24 @@ import { Stack } from './utils'
 export class Control extends Stack<ControlItem> {}
 export class Stash extends Stack<StashItem> {}
 
+/**
+ * Environment of the CSE Machine.
+ *
+ * By default, every frame stays reachable from the global frame through its children and
+ * every object is kept in objects, so that the whole environment can be visualized.
+ * With retainFrames false, frames are only linked to their parents and objects are not
+ * recorded, so frames and objects no longer referenced by the control, stash or other
+ * frames are garbage collected, and memory is bounded by the live frames instead of
+ * growing with the number of steps.
+ */
 export class Environment {
   private _global: EnvNode
   private _current: EnvNode
   private _objects: Object[] = []
+  // Resolved methods/constructors, valid until next method/constructor declaration.
+  private _resolved: Map<string, Closure> = new Map()
 
-  constructor() {
+  constructor(readonly retainFrames: boolean = true) {
     const node = new EnvNode(GLOBAL_FRAME)
     this._global = node
     this._current = node
@@ -52,7 +64,9 @@ export class Environment {
     // Create new environemnt.
     const node = new EnvNode(name)
     node.parent = fromEnv
-    fromEnv.addChild(node)
+    if (this.retainFrames) {
+      fromEnv.addChild(node)
+    }
 
     // Set current environment.
     this._current = node
@@ -66,7 +80,9 @@ export class Environment {
     const obj = struct.objStruct(node, c)
 
     // Add to objects arr.
-    this._objects.push(obj)
+    if (this.retainFrames) {
+      this._objects.push(obj)
+    }
 
     // Set current environment.
     this._current = node
@@ -98,6 +114,21 @@ export class Environment {
 
   defineMtdOrCon(name: Name, method: Closure) {
     this._current.setMtdOrCon(name, method)
+    this._resolved.clear()
+  }
+
+  /**
+   * Get method/constructor resolved for key, resolving and caching it if not cached.
+   * Cache is cleared when a method/constructor is declared, so that resolution during class
+   * declaration never returns a stale closure.
+   */
+  resolveMtdOrCon(key: string, resolve: () => Closure): Closure {
+    let closure = this._resolved.get(key)
+    if (!closure) {
+      closure = resolve()
+      this._resolved.set(key, closure)
+    }
+    return closure
   }
 
   defineClass(name: Name, c: Class) {
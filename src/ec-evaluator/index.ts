@@ -1,8 +1,10 @@
+import { cloneDeep } from 'lodash'
+
 import { parse } from '../ast/parser'
 import { Control, Environment, Stash } from './components'
 import { STEP_LIMIT } from './constants'
-import { RuntimeError } from './errors'
-import { evaluate } from './interpreter'
+import { RuntimeError, SourceError } from './errors'
+import { evaluate, resume } from './interpreter'
 import { Context, Error, Finished, Result } from './types'
 
 export * from './components'
@@ -10,8 +12,21 @@ export * from './errors'
 export * from './types'
 export { isInstr, isNode } from './utils'
 
-export const runECEvaluator = (code: string, targetStep: number = STEP_LIMIT): Promise<Result> => {
-  const context = createContext()
+export interface ECEvaluatorOptions {
+  /**
+   * Keeps every frame and object for visualization, true by default.
+   * Set to false for long-running evaluations, so that unreachable frames and objects
+   * are released.
+   */
+  retainFrames?: boolean
+}
+
+export const runECEvaluator = (
+  code: string,
+  targetStep: number = STEP_LIMIT,
+  options: ECEvaluatorOptions = {}
+): Promise<Result> => {
+  const context = createContext(options)
   try {
     // parse() may throw SyntaxError.
     const compilationUnit = parse(code)
@@ -24,21 +39,112 @@ export const runECEvaluator = (code: string, targetStep: number = STEP_LIMIT): P
       resolve({ status: 'finished', context, value } as Finished)
     })
   } catch (e) {
-    // Possible interpreting language error thrown, so conversion to RuntimeError may be required.
-    const error = e.type ? e : new RuntimeError(e.message)
-    context.errors.push(error)
+    context.errors.push(toSourceError(e))
     return new Promise((resolve, _) => {
       resolve({ status: 'error', context } as Error)
     })
   }
 }
 
-export const createContext = (): Context => ({
+// Possible interpreting language error thrown, so conversion to RuntimeError may be required.
+const toSourceError = (e: any): SourceError => (e.type ? e : new RuntimeError(e.message))
+
+export const createContext = (options: ECEvaluatorOptions = {}): Context => ({
   errors: [],
 
   control: new Control(),
   stash: new Stash(),
-  environment: new Environment(),
+  environment: new Environment(options.retainFrames ?? true),
 
   totalSteps: STEP_LIMIT
 })
+
+export interface ECEvaluatorSessionOptions extends ECEvaluatorOptions {
+  /**
+   * Number of steps between checkpoints, 1000 by default.
+   */
+  checkpointInterval?: number
+}
+
+/**
+ * Evaluator that keeps its context alive across requests for different steps, e.g. when
+ * scrubbing through an execution in the visualizer. Stepping forward continues from the
+ * current step, and stepping back replays from the nearest checkpoint instead of from step 0.
+ */
+export class ECEvaluatorSession {
+  private context: Context
+  // checkpoints[i] is a copy of the context at step i * checkpointInterval.
+  private checkpoints: Context[] = []
+  private readonly checkpointInterval: number
+
+  constructor(code: string, options: ECEvaluatorSessionOptions = {}) {
+    this.checkpointInterval = options.checkpointInterval ?? 1000
+    this.context = createContext(options)
+    this.context.totalSteps = 0
+    try {
+      // parse() may throw SyntaxError.
+      this.context.control.push(parse(code))
+      this.checkpoints.push(cloneDeep(this.context))
+    } catch (e) {
+      this.context.errors.push(toSourceError(e))
+    }
+  }
+
+  /**
+   * Current step of the context.
+   */
+  get step(): number {
+    return this.context.totalSteps
+  }
+
+  /**
+   * Whether the program was evaluated to completion.
+   */
+  get isFinished(): boolean {
+    return this.context.control.isEmpty()
+  }
+
+  /**
+   * Evaluates the program up to targetStep, or until it terminates.
+   * The context of the result is owned by the session and changes on the next call.
+   */
+  stepTo(targetStep: number): Result {
+    if (this.checkpoints.length === 0) {
+      return { status: 'error', context: this.context } as Error
+    }
+    if (targetStep < this.context.totalSteps || this.context.errors.length > 0) {
+      this.restore(targetStep)
+    }
+
+    try {
+      while (this.context.totalSteps < targetStep && !this.context.control.isEmpty()) {
+        const nextCheckpoint = this.checkpoints.length * this.checkpointInterval
+        // evaluate() may throw RuntimeError
+        resume(this.context, Math.min(targetStep, nextCheckpoint))
+        if (this.context.totalSteps === nextCheckpoint) {
+          this.checkpoints.push(cloneDeep(this.context))
+        }
+      }
+    } catch (e) {
+      this.context.errors.push(toSourceError(e))
+      return { status: 'error', context: this.context } as Error
+    }
+    const value = this.context.stash.peek()
+    return { status: 'finished', context: this.context, value } as Finished
+  }
+
+  /**
+   * Evaluates the given number of steps from the current step.
+   */
+  stepBy(steps: number): Result {
+    return this.stepTo(this.context.totalSteps + steps)
+  }
+
+  private restore(targetStep: number) {
+    const i = Math.min(
+      Math.floor(Math.max(targetStep, 0) / this.checkpointInterval),
+      this.checkpoints.length - 1
+    )
+    this.context = cloneDeep(this.checkpoints[i])
+  }
+}
@@ -1,5 +1,3 @@
-import { cloneDeep } from 'lodash'
-
 import {
   Assignment,
   BinaryExpression,
@@ -20,7 +18,6 @@ import {
 import {
   ConstructorDeclaration,
   FieldDeclaration,
-  FormalParameter,
   Identifier,
   MethodDeclaration,
   NormalClassDeclaration,
@@ -30,10 +27,8 @@ import { CompilationUnit } from '../ast/types/packages-and-modules'
 import { Control, EnvNode, Environment, Stash } from './components'
 import {
   BLOCK_FRAME,
-  GLOBAL_FRAME,
   OBJECT_CLASS,
   STEP_LIMIT,
-  SUPER_KEYWORD,
   THIS_KEYWORD
 } from './constants'
 import * as errors from './errors'
@@ -74,6 +69,9 @@ import {
   getInstanceFields,
   getInstanceMethods,
   getDescriptor,
+  getFormalParameters,
+  getResolutionKey,
+  prependImplicitFormalParameters,
   getStaticFields,
   getStaticMethods,
   handleSequence,
@@ -108,13 +106,23 @@ type CmdEvaluator = (
 export const evaluate = (
   context: Context,
   targetStep: number = STEP_LIMIT
+): StashItem | undefined => {
+  context.totalSteps = 0
+  return resume(context, targetStep)
+}
+
+/**
+ * Continue evaluating program in context from step context.totalSteps until targetStep.
+ * @throws {errors.RuntimeError} Throw error if program is semantically invalid.
+ */
+export const resume = (
+  context: Context,
+  targetStep: number = STEP_LIMIT
 ): StashItem | undefined => {
   const environment = context.environment
   const control = context.control
   const stash = context.stash
 
-  context.totalSteps = 0
-
   let command = control.peek()
 
   while (command) {
@@ -240,7 +248,14 @@ const cmdEvaluators: { [type: string]: CmdEvaluator } = {
   ) => {
     // Use constructor descriptor as key.
     const conDescriptor: string = getDescriptor(command)
-    const conClosure = struct.closureStruct(command, environment.current)
+    const params = getFormalParameters(command)
+    const conClosure = struct.closureStruct(
+      command,
+      environment.current,
+      conDescriptor,
+      params,
+      prependImplicitFormalParameters(params, environment.current)
+    )
     environment.defineMtdOrCon(conDescriptor, conClosure)
   },
 
@@ -252,7 +267,14 @@ const cmdEvaluators: { [type: string]: CmdEvaluator } = {
   ) => {
     // Use method descriptor as key.
     const mtdDescriptor: string = getDescriptor(command)
-    const mtdClosure = struct.closureStruct(command, environment.current)
+    const params = getFormalParameters(command)
+    const mtdClosure = struct.closureStruct(
+      command,
+      environment.current,
+      mtdDescriptor,
+      params,
+      prependImplicitFormalParameters(params, environment.current)
+    )
     environment.defineMtdOrCon(mtdDescriptor, mtdClosure)
   },
 
@@ -467,33 +489,15 @@ const cmdEvaluators: { [type: string]: CmdEvaluator } = {
     args.reverse()
     const closure: Closure = stash.pop()! as Closure
 
-    const params: FormalParameter[] =
-      closure.mtdOrCon.kind === 'MethodDeclaration'
-        ? cloneDeep(closure.mtdOrCon.methodHeader.formalParameterList)
-        : cloneDeep(closure.mtdOrCon.constructorDeclarator.formalParameterList)
-
     // Extend env from global frame.
-    const mtdOrConDescriptor = getDescriptor(closure.mtdOrCon)
-    environment.extendEnv(environment.global, mtdOrConDescriptor)
-
-    const isInstanceMtdOrCon = args.length == params.length + 1
-    if (isInstanceMtdOrCon) {
-      // Append implicit FormalParameter and arg super if needed.
-      if (closure.env.parent.name !== GLOBAL_FRAME) {
-        params.unshift({
-          kind: 'FormalParameter',
-          unannType: closure.env.parent.name,
-          identifier: SUPER_KEYWORD
-        })
-        args.unshift(args[0])
-      }
-
-      // Append implicit FormalParameter this.
-      params.unshift({
-        kind: 'FormalParameter',
-        unannType: closure.env.name,
-        identifier: THIS_KEYWORD
-      })
+    environment.extendEnv(environment.global, closure.descriptor)
+
+    // Instance method/constructor has implicit FormalParameter this, and super if needed.
+    const isInstanceMtdOrCon = args.length == closure.params.length + 1
+    const params = isInstanceMtdOrCon ? closure.instanceParams : closure.params
+    if (params.length === args.length + 1) {
+      // Append implicit arg super.
+      args.unshift(args[0])
     }
 
     // Bind arguments to corresponding FormalParameters.
@@ -779,9 +783,12 @@ const cmdEvaluators: { [type: string]: CmdEvaluator } = {
     const targetType: Type = stash.pop()! as Type
     const classToSearchIn: Class = environment.getClass(targetType.type)
 
-    // Method overloading resolution.
+    // Method overloading resolution, cached per class, method name and arg types.
     const classStore: EnvNode = environment.global
-    const closure: Closure = resOverload(classToSearchIn, command.name, argTypes, classStore)
+    const closure: Closure = environment.resolveMtdOrCon(
+      getResolutionKey('overload', classToSearchIn, command.name, argTypes),
+      () => resOverload(classToSearchIn, command.name, argTypes, classStore)
+    )
     stash.push(closure)
 
     // Post-processing required if overload resolved method is instance method.
@@ -823,8 +830,15 @@ const cmdEvaluators: { [type: string]: CmdEvaluator } = {
     // Retrieve class to search in for method overriding resolution.
     const classToSearchIn: Class = environment.getClass((target as Object).class.frame.name)
 
-    // Method overriding resolution.
-    const overrideResolvedClosure: Closure = resOverride(classToSearchIn, overloadResolvedClosure)
+    // Method overriding resolution, cached per class and overload resolved method.
+    const overrideResolvedClosure: Closure = environment.resolveMtdOrCon(
+      getResolutionKey(
+        'override',
+        classToSearchIn,
+        `${overloadResolvedClosure.env.name}.${overloadResolvedClosure.descriptor}`
+      ),
+      () => resOverride(classToSearchIn, overloadResolvedClosure)
+    )
     stash.push(overrideResolvedClosure)
 
     // Push target as implicit FormalParameter this.
@@ -848,8 +862,11 @@ const cmdEvaluators: { [type: string]: CmdEvaluator } = {
     const className: Identifier = (stash.pop()! as Type).type
     const classToSearchIn: Class = environment.getClass(className)
 
-    // Constructor overloading resolution.
-    const closure: Closure = resConOverload(classToSearchIn, className, argTypes)
+    // Constructor overloading resolution, cached per class and arg types.
+    const closure: Closure = environment.resolveMtdOrCon(
+      getResolutionKey('constructor', classToSearchIn, className, argTypes),
+      () => resConOverload(classToSearchIn, className, argTypes)
+    )
     stash.push(closure)
 
     // No post-processing required for constructor.
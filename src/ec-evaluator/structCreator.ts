@@ -1,6 +1,7 @@
 import {
   ConstructorDeclaration,
   FieldDeclaration,
+  FormalParameter,
   MethodDeclaration,
   NormalClassDeclaration,
   UnannType
@@ -28,11 +29,17 @@ export const objStruct = (frame: EnvNode, c: Class): Object => ({
 
 export const closureStruct = (
   mtdOrCon: MethodDeclaration | ConstructorDeclaration,
-  env: EnvNode
+  env: EnvNode,
+  descriptor: string,
+  params: FormalParameter[],
+  instanceParams: FormalParameter[]
 ): Closure => ({
   kind: StructType.CLOSURE,
   mtdOrCon,
-  env
+  env,
+  descriptor,
+  params,
+  instanceParams
 })
 
 export const classStruct = (
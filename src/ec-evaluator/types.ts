@@ -3,6 +3,7 @@ import { Expression, Literal, Void } from '../ast/types/blocks-and-statements'
 import {
   ConstructorDeclaration,
   FieldDeclaration,
+  FormalParameter,
   MethodDeclaration,
   NormalClassDeclaration,
   UnannType
@@ -165,6 +166,11 @@ export interface Closure {
   kind: StructType.CLOSURE
   mtdOrCon: MethodDeclaration | ConstructorDeclaration
   env: EnvNode
+  // Precomputed when method/constructor is declared.
+  descriptor: string
+  params: FormalParameter[]
+  // Params preceded by implicit FormalParameters this and super if any, for instance invocation.
+  instanceParams: FormalParameter[]
 }
 
 export interface Class {
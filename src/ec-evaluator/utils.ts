@@ -11,12 +11,13 @@ import {
 import {
   ConstructorDeclaration,
   FieldDeclaration,
+  FormalParameter,
   MethodDeclaration,
   NormalClassDeclaration,
   UnannType
 } from '../ast/types/classes'
 import { EnvNode } from './components'
-import { THIS_KEYWORD } from './constants'
+import { GLOBAL_FRAME, SUPER_KEYWORD, THIS_KEYWORD } from './constants'
 import * as errors from './errors'
 import {
   emptyReturnStmtNode,
@@ -183,6 +184,39 @@ export const getDescriptor = (mtdOrCon: MethodDeclaration | ConstructorDeclarati
     : `${mtdOrCon.constructorDeclarator.identifier}(${mtdOrCon.constructorDeclarator.formalParameterList.map(p => p.unannType).join(',')})`
 }
 
+export const getFormalParameters = (
+  mtdOrCon: MethodDeclaration | ConstructorDeclaration
+): FormalParameter[] => {
+  return mtdOrCon.kind === 'MethodDeclaration'
+    ? mtdOrCon.methodHeader.formalParameterList
+    : mtdOrCon.constructorDeclarator.formalParameterList
+}
+
+/**
+ * Prepend implicit FormalParameter this, and super if class has a superclass other than global,
+ * to params of instance method/constructor declared in class frame.
+ */
+export const prependImplicitFormalParameters = (
+  params: FormalParameter[],
+  classFrame: EnvNode
+): FormalParameter[] => {
+  const implicitParams: FormalParameter[] = [
+    {
+      kind: 'FormalParameter',
+      unannType: classFrame.name,
+      identifier: THIS_KEYWORD
+    }
+  ]
+  if (classFrame.parent.name !== GLOBAL_FRAME) {
+    implicitParams.push({
+      kind: 'FormalParameter',
+      unannType: classFrame.parent.name,
+      identifier: SUPER_KEYWORD
+    })
+  }
+  return [...implicitParams, ...params]
+}
+
 export const isQualified = (name: string) => {
   return name.includes('.')
 }
@@ -408,6 +442,18 @@ const isSubtype = (subtype: UnannType, supertype: UnannType, classStore: EnvNode
   return isSubtype
 }
 
+/**
+ * Key of method/constructor resolution in resolution cache of Environment.
+ */
+export const getResolutionKey = (
+  kind: string,
+  classToSearchIn: Class,
+  name: string,
+  argTypes: Type[] = []
+): string => {
+  return `${kind}:${classToSearchIn.frame.name}:${name}(${argTypes.map(t => t.type).join(',')})`
+}
+
 export const resOverload = (
   classToSearchIn: Class,
   mtdName: string,
@@ -1,7 +1,16 @@
 import { astToString } from './ast/utils/astToString'
 import * as ECE from './ec-evaluator'
 import * as JVM from './jvm'
-import { typeCheck } from './types'
-import { compile, compileFromSource} from './compiler'
+import { IncrementalTypeChecker, typeCheck } from './types'
+import { compile, compileFromSource, CompilerSession } from './compiler'
 
-export { astToString, ECE, JVM, typeCheck, compile, compileFromSource }
+export {
+  astToString,
+  ECE,
+  JVM,
+  typeCheck,
+  IncrementalTypeChecker,
+  compile,
+  compileFromSource,
+  CompilerSession
+}
@@ -8,6 +8,7 @@ import {
   PrimitiveClassData
 } from '../types/class/ClassData'
 import { JvmObject } from '../types/reference/Object'
+import { Profiler } from '../profiler'
 import AbstractSystem from '../utils/AbstractSystem'
 
 export default abstract class AbstractClassLoader {
@@ -17,6 +18,7 @@ export default abstract class AbstractClassLoader {
     [className: string]: ClassData
   }
   parentLoader: AbstractClassLoader | null
+  protected profiler: Profiler | null = null
 
   constructor(
     nativeSystem: AbstractSystem,
@@ -29,6 +31,27 @@ export default abstract class AbstractClassLoader {
     this.parentLoader = parentLoader
   }
 
+  /**
+   * Gets all classes loaded by this classloader.
+   */
+  _getLoadedClasses(): ClassData[] {
+    return Object.values(this.loadedClasses)
+  }
+
+  /**
+   * Times class loads with the given profiler.
+   */
+  _setProfiler(profiler: Profiler | null) {
+    this.profiler = profiler
+  }
+
+  /**
+   * Removes a class from this classloader, it is loaded again on the next lookup.
+   */
+  _unloadClass(className: string) {
+    delete this.loadedClasses[className]
+  }
+
   /**
    * Loads a given classfile. Used to support Unsafe operations.
    * @param classFile
@@ -162,6 +185,16 @@ export default abstract class AbstractClassLoader {
    * @returns
    */
   protected load(className: string): ImmediateResult<ClassData> {
+    if (this.profiler === null) {
+      return this.loadClassFile(className)
+    }
+    const start = this.profiler.beginClassLoad()
+    const res = this.loadClassFile(className)
+    this.profiler.endClassLoad(className, start)
+    return res
+  }
+
+  private loadClassFile(className: string): ImmediateResult<ClassData> {
     const path = (this.classPath ? this.classPath + '/' + className : className) + '.class'
 
     let classFile
@@ -0,0 +1,50 @@
+const { parentPort, threadId } = require('worker_threads')
+
+/**
+ * Stand-in for pool-worker in the JVMPool tests. The main class of a run picks what the worker
+ * does, the stdout of the result tells which worker ran it and on which bootstrap.
+ */
+
+let bootstraps = 0
+let runs = 0
+let bootstrapped = false
+
+parentPort.on('message', run => {
+  if (!bootstrapped) {
+    bootstrapped = true
+    bootstraps++
+    runs = 0
+  }
+  runs++
+
+  const start = Date.now()
+  const reply = result =>
+    parentPort.postMessage({
+      stdout: JSON.stringify({ worker: threadId, bootstrap: bootstraps, run: runs }),
+      stderr: '',
+      instructions: 0,
+      time: Date.now() - start,
+      exceeded: null,
+      error: null,
+      ...result
+    })
+
+  switch (run.mainClass) {
+    case 'Sleep':
+      // sleeps for its time limit
+      setTimeout(() => reply({}), run.timeLimit)
+      break
+    case 'Spin':
+      // never yields, only the kill timer of the pool ends it
+      for (;;) {}
+    case 'Crash':
+      throw new Error('worker crashed')
+    case 'Halt':
+      // like pool-worker, a halted JVM is replaced by a fresh one on the next run
+      bootstrapped = false
+      reply({ exceeded: 'instructions' })
+      break
+    default:
+      reply({})
+  }
+})
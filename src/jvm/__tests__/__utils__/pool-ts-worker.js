@@ -0,0 +1,18 @@
+const fs = require('fs')
+const path = require('path')
+const ts = require('typescript')
+
+/**
+ * Runs pool-worker from source. Jest only transforms the modules of the test thread, so the
+ * worker compiles the TypeScript modules it requires itself.
+ */
+
+require.extensions['.ts'] = (module, filename) => {
+  const { outputText } = ts.transpileModule(fs.readFileSync(filename, 'utf-8'), {
+    compilerOptions: { module: ts.ModuleKind.CommonJS, target: ts.ScriptTarget.ES2016 },
+    fileName: filename
+  })
+  module._compile(outputText, filename)
+}
+
+require(path.join(__dirname, '..', '..', 'pool-worker.ts'))
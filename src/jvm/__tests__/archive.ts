@@ -0,0 +1,110 @@
+import ArchiveSystem from '../utils/ArchiveSystem'
+import { ClassArchive, packClassArchive } from '../utils/archive'
+import { TestSystem } from './__utils__/test-utils'
+
+/**
+ * Minimal class file: public class <name> extends java/lang/Object
+ */
+const createClassFile = (name: string) => {
+  const utf8 = (str: string) => [
+    1,
+    str.length >> 8,
+    str.length & 0xff,
+    ...Array.from(str, c => c.charCodeAt(0))
+  ]
+  // prettier-ignore
+  return new Uint8Array([
+    0xca, 0xfe, 0xba, 0xbe, // magic
+    0, 0, 0, 52, // version
+    0, 5, // constant pool count
+    ...utf8(name), // #1
+    7, 0, 1, // #2 Class #1
+    ...utf8('java/lang/Object'), // #3
+    7, 0, 3, // #4 Class #3
+    0, 0x21, // access flags
+    0, 2, // this class
+    0, 4, // super class
+    0, 0, // interfaces
+    0, 0, // fields
+    0, 0, // methods
+    0, 0 // attributes
+  ])
+}
+
+const entries: { [name: string]: Uint8Array } = {
+  'java/lang/Object.class': createClassFile('java/lang/Object'),
+  'java/lang/String.class': createClassFile('java/lang/String'),
+  'java/util/Map$Entry.class': createClassFile('java/util/Map$Entry'),
+  'java/lang/Integer.class': createClassFile('java/lang/Integer')
+}
+
+describe('ClassArchive', () => {
+  test('ClassArchive: finds entries by name', () => {
+    const archive = new ClassArchive(packClassArchive(entries))
+
+    expect(archive.size()).toBe(4)
+    for (const [name, bytes] of Object.entries(entries)) {
+      expect(archive.get(name)).toEqual(bytes)
+    }
+    expect(archive.names()).toEqual(Object.keys(entries).sort())
+  })
+
+  test('ClassArchive: missing entries return null', () => {
+    const archive = new ClassArchive(packClassArchive(entries))
+
+    expect(archive.get('java/lang/Obj.class')).toBeNull()
+    expect(archive.get('java/lang/Object.classes')).toBeNull()
+    expect(archive.get('')).toBeNull()
+    expect(archive.has('Main.class')).toBe(false)
+  })
+
+  test('ClassArchive: entries are views into the archive', () => {
+    const packed = packClassArchive(entries)
+    const archive = new ClassArchive(packed)
+
+    const bytes = archive.get('java/lang/String.class') as Uint8Array
+    expect(bytes.buffer).toBe(packed.buffer)
+  })
+
+  test('ClassArchive: rejects invalid archives', () => {
+    expect(() => new ClassArchive(new Uint8Array(16))).toThrow()
+  })
+})
+
+describe('ArchiveSystem', () => {
+  test('ArchiveSystem: parses classes under the class path from the archive', () => {
+    const fallback = new TestSystem()
+    const spy = jest.spyOn(fallback, 'readFileSync')
+    // archive at a non zero offset of its buffer
+    const packed = packClassArchive(entries)
+    const padded = new Uint8Array(packed.length + 3)
+    padded.set(packed, 3)
+    const system = new ArchiveSystem(padded.subarray(3), fallback, 'stdlib')
+
+    const classFile = system.readFileSync('stdlib/java/util/Map$Entry.class')
+    expect(classFile.magic).toBe(0xcafebabe)
+    expect(classFile.thisClass).toBe(2)
+    expect(spy).not.toHaveBeenCalled()
+  })
+
+  test('ArchiveSystem: reads other classes from the fallback system', () => {
+    const fallback = new TestSystem()
+    const spy = jest.spyOn(fallback, 'readFileSync').mockImplementation(() => {
+      throw new Error('not found')
+    })
+    const system = new ArchiveSystem(packClassArchive(entries), fallback, 'stdlib')
+
+    expect(() => system.readFileSync('stdlib/Main.class')).toThrow()
+    expect(() => system.readFileSync('java/lang/Object.class')).toThrow()
+    expect(spy).toHaveBeenCalledTimes(2)
+  })
+
+  test('ArchiveSystem: systems reading the same archive share parsed classes', () => {
+    const archive = new ClassArchive(packClassArchive(entries))
+    const first = new ArchiveSystem(archive, new TestSystem(), 'stdlib')
+    const second = new ArchiveSystem(archive, new TestSystem(), 'stdlib')
+
+    const classFile = first.readFileSync('stdlib/java/lang/String.class')
+    expect(second.readFileSync('stdlib/java/lang/String.class')).toBe(classFile)
+  })
+})
@@ -0,0 +1,141 @@
+import FileOutputStream from '../stdlib/java/io/FileOutputStream'
+import System from '../stdlib/java/lang/System'
+import Thread from '../thread'
+import { ArrayClassData } from '../types/class/ClassData'
+import { JvmArray } from '../types/reference/Array'
+import { TestClassLoader, setupTest } from './__utils__/test-utils'
+
+let thread: Thread
+let testLoader: TestClassLoader
+
+const createArray = (className: string, length: number, values?: ArrayLike<any>) => {
+  const cls = (testLoader.getClass(className) as any).result as ArrayClassData
+  const array = cls.instantiate() as JvmArray
+  array.initArray(length, values)
+  return array
+}
+
+const arraycopy = (src: JvmArray, srcPos: number, dest: JvmArray, destPos: number, len: number) =>
+  System['arraycopy(Ljava/lang/Object;ILjava/lang/Object;II)V'](thread, [
+    src,
+    srcPos,
+    dest,
+    destPos,
+    len
+  ])
+
+beforeEach(() => {
+  const setup = setupTest()
+  thread = setup.thread
+  testLoader = setup.testLoader
+  thread.returnStackFrame = jest.fn()
+  thread.throwNewException = jest.fn()
+})
+
+describe('JvmArray', () => {
+  test.each<[string, number[], number[]]>([
+    ['[Z', [1, 0, 256], [1, 0, 0]],
+    ['[B', [127, 128, -129, 200], [127, -128, 127, -56]],
+    ['[C', [65, -1, 65536, 70000], [65, 65535, 0, 4464]],
+    ['[S', [32767, 32768, -32769, 40000], [32767, -32768, 32767, -25536]],
+    ['[I', [2147483647, 2147483648, -2147483649], [2147483647, -2147483648, 2147483647]],
+    ['[F', [0.1, 1.5, 1e40], [Math.fround(0.1), 1.5, Infinity]],
+    ['[D', [0.1, 1e40, -0.5], [0.1, 1e40, -0.5]]
+  ])('JvmArray: %s wraps stored values to the element type', (className, values, expected) => {
+    const stored = createArray(className, values.length)
+    values.forEach((value, i) => stored.set(i, value))
+    expect(Array.from(stored.getJsArray())).toEqual(expected)
+
+    // initial values are converted the same way
+    const initialized = createArray(className, values.length, values)
+    expect(Array.from(initialized.getJsArray())).toEqual(expected)
+  })
+
+  test('JvmArray: long arrays keep numbers and bigints', () => {
+    const array = createArray('[J', 2, [1, BigInt(2) ** BigInt(40)])
+    expect(array.get(0)).toBe(1)
+    expect(array.get(1)).toBe(BigInt(2) ** BigInt(40))
+  })
+
+  test('JvmArray: clone does not share the storage', () => {
+    const array = createArray('[I', 2, [1, 2])
+    const clone = array.clone()
+    clone.set(0, 5)
+    expect(array.get(0)).toBe(1)
+    expect(clone.get(0)).toBe(5)
+  })
+})
+
+describe('System.arraycopy', () => {
+  test.each(['[I', '[B', '[D', '[Ljava/lang/Object;'])(
+    'arraycopy: %s copies overlapping ranges in both directions',
+    className => {
+      const forward = createArray(className, 6, [1, 2, 3, 4, 5, 6])
+      arraycopy(forward, 0, forward, 2, 4)
+      expect(Array.from(forward.getJsArray())).toEqual([1, 2, 1, 2, 3, 4])
+
+      const backward = createArray(className, 6, [1, 2, 3, 4, 5, 6])
+      arraycopy(backward, 2, backward, 0, 4)
+      expect(Array.from(backward.getJsArray())).toEqual([3, 4, 5, 6, 5, 6])
+
+      expect(thread.returnStackFrame).toHaveBeenCalledTimes(2)
+      expect(thread.throwNewException).not.toHaveBeenCalled()
+    }
+  )
+
+  test('arraycopy: copies between arrays', () => {
+    const src = createArray('[C', 3, [97, 98, 99])
+    const dest = createArray('[C', 4)
+    arraycopy(src, 1, dest, 2, 2)
+    expect(Array.from(dest.getJsArray())).toEqual([0, 0, 98, 99])
+  })
+
+  test('arraycopy: different element types throw ArrayStoreException', () => {
+    const src = createArray('[I', 2, [1, 2])
+    const dest = createArray('[S', 2)
+    arraycopy(src, 0, dest, 0, 2)
+    expect(thread.throwNewException).toHaveBeenCalledWith(
+      'java/lang/ArrayStoreException',
+      expect.any(String)
+    )
+    expect(Array.from(dest.getJsArray())).toEqual([0, 0])
+  })
+
+  test('arraycopy: ranges past the end throw ArrayIndexOutOfBoundsException', () => {
+    const array = createArray('[I', 4, [1, 2, 3, 4])
+    arraycopy(array, 2, array, 0, 3)
+    expect(thread.throwNewException).toHaveBeenCalledWith(
+      'java/lang/ArrayIndexOutOfBoundsException',
+      expect.any(String)
+    )
+    expect(Array.from(array.getJsArray())).toEqual([1, 2, 3, 4])
+  })
+})
+
+describe('FileOutputStream.writeBytes', () => {
+  const writeBytes = (bytes: JvmArray | null, offset: number, len: number) => {
+    const fd = { _getField: () => 1 }
+    const stream = { _getField: () => fd }
+    FileOutputStream['writeBytes([BIIZ)V'](thread, [stream, bytes, offset, len, false])
+  }
+
+  test('writeBytes: writes a range of the array to stdout', () => {
+    const stdout = jest.fn()
+    jest
+      .spyOn(thread, 'getJVM')
+      .mockReturnValue({ getSystem: () => ({ stdout, stderr: jest.fn() }) } as any)
+
+    writeBytes(createArray('[B', 5, [104, 101, 108, 108, 111]), 1, 3)
+    expect(stdout).toHaveBeenCalledWith('ell')
+    expect(thread.returnStackFrame).toHaveBeenCalled()
+  })
+
+  test('writeBytes: ranges past the end throw IndexOutOfBoundsException', () => {
+    writeBytes(createArray('[B', 5), 3, 3)
+    expect(thread.throwNewException).toHaveBeenCalledWith(
+      'java/lang/IndexOutOfBoundsException',
+      ''
+    )
+    expect(thread.returnStackFrame).not.toHaveBeenCalled()
+  })
+})
@@ -0,0 +1,88 @@
+import { FIELD_FLAGS } from '../../ClassFile/types/fields'
+import { ReferenceClassData } from '../types/class/ClassData'
+import { Field } from '../types/class/Field'
+import { TestClassLoader, setupTest } from './__utils__/test-utils'
+
+let testLoader: TestClassLoader
+let parent: ReferenceClassData
+let child: ReferenceClassData
+
+beforeEach(() => {
+  testLoader = setupTest().testLoader
+  parent = testLoader.createClass({
+    className: 'Parent',
+    loader: testLoader,
+    fields: [
+      { accessFlags: [FIELD_FLAGS.ACC_PUBLIC], name: 'a', descriptor: 'I' },
+      { accessFlags: [FIELD_FLAGS.ACC_STATIC], name: 'count', descriptor: 'I' },
+      { accessFlags: [FIELD_FLAGS.ACC_PUBLIC], name: 'ref', descriptor: 'Ljava/lang/Object;' }
+    ]
+  }) as ReferenceClassData
+  child = testLoader.createClass({
+    className: 'Child',
+    superClass: parent,
+    loader: testLoader,
+    fields: [
+      { accessFlags: [FIELD_FLAGS.ACC_PUBLIC], name: 'b', descriptor: 'D' },
+      // shadows Parent.a
+      { accessFlags: [FIELD_FLAGS.ACC_PUBLIC], name: 'a', descriptor: 'I' }
+    ]
+  }) as ReferenceClassData
+})
+
+describe('ClassData field layout', () => {
+  test('getFieldLayout: superclass fields come first, static fields are left out', () => {
+    const layout = child.getFieldLayout()
+    expect(layout.map(field => `${field.getClass().getName()}.${field.getName()}`)).toEqual([
+      'Parent.a',
+      'Parent.ref',
+      'Child.b',
+      'Child.a'
+    ])
+    layout.forEach((field, slot) => expect(field.getLayoutSlot()).toBe(slot))
+
+    // inherited fields keep their slot
+    expect(parent.getFieldLayout()).toEqual(layout.slice(0, 2))
+    expect(parent.lookupField('aI')).toBe(layout[0])
+  })
+
+  test('getFieldLayout: shadowed fields have their own slot', () => {
+    const obj = child.instantiate()
+    obj._putField('a', 'I', 'Parent', 1)
+    obj._putField('a', 'I', 'Child', 2)
+
+    expect(obj._getField('a', 'I', 'Parent')).toBe(1)
+    expect(obj._getField('a', 'I', 'Child')).toBe(2)
+    expect(obj.getField(parent.lookupField('aI') as Field)).toBe(1)
+    expect(obj.getField(child.lookupField('aI') as Field)).toBe(2)
+  })
+
+  test('getFieldDefaults: new objects start from a copy of the defaults', () => {
+    expect(child.getFieldDefaults()).toEqual([0, null, 0, 0])
+
+    const first = child.instantiate()
+    const second = child.instantiate()
+    first._putField('b', 'D', 'Child', 1.5)
+
+    expect(second._getField('b', 'D', 'Child')).toBe(0)
+    expect(child.getFieldDefaults()).toEqual([0, null, 0, 0])
+  })
+
+  test('getField: fields not in the layout of the class are rejected', () => {
+    const obj = parent.instantiate()
+    const childField = child.lookupField('bD') as Field
+    expect(() => obj.getField(childField)).toThrow('Invalid field')
+    expect(() => obj.putField(childField, 1)).toThrow('Invalid field')
+
+    // same slot as Parent.a
+    const other = testLoader.createClass({
+      className: 'Other',
+      loader: testLoader,
+      fields: [{ accessFlags: [FIELD_FLAGS.ACC_PUBLIC], name: 'a', descriptor: 'I' }]
+    }) as ReferenceClassData
+    const otherField = other.lookupField('aI') as Field
+    expect(otherField.getLayoutSlot()).toBe(0)
+    expect(() => obj.getField(otherField)).toThrow('Invalid field')
+    expect(() => obj.putField(otherField, 1)).toThrow('Invalid field')
+  })
+})
@@ -72,7 +72,7 @@ describe('ConstantPool', () => {
 
     expect((constantPool.get(1) as ConstantInteger).get()).toBe(42)
     expect((constantPool.get(2) as ConstantFloat).get()).toBe(3.14)
-    expect((constantPool.get(3) as ConstantLong).get()).toBe(BigInt(1234567890))
+    expect((constantPool.get(3) as ConstantLong).get()).toBe(1234567890)
     expect((constantPool.get(4) as ConstantDouble).get()).toBe(2.71828)
     expect((constantPool.get(5) as ConstantUtf8).get()).toBe('Hello, World!')
   })
@@ -85,4 +85,27 @@ describe('ConstantPool', () => {
     expect(constantPool.get(-1)).toBe(undefined)
     expect(constantPool.get(16)).toBe(undefined)
   })
+
+  test('Should create constants on first access', () => {
+    const valueSpy = jest.fn(() => 'abc')
+    const utf8Info = {
+      tag: CONSTANT_TAG.Utf8,
+      length: 3,
+      get value() {
+        return valueSpy()
+      }
+    }
+    const constantPool = new ConstantPool(classData, [
+      { tag: CONSTANT_TAG.Integer, value: 0 },
+      { tag: CONSTANT_TAG.Class, nameIndex: 2 },
+      utf8Info
+    ])
+    expect(valueSpy).not.toHaveBeenCalled()
+
+    const cls = constantPool.get(1) as ConstantClass
+    expect(cls).toBeInstanceOf(ConstantClass)
+    expect(constantPool.get(2)).toBeInstanceOf(ConstantUtf8)
+    expect(constantPool.get(1)).toBe(cls)
+    expect(valueSpy).toHaveBeenCalledTimes(1)
+  })
 })
@@ -0,0 +1,47 @@
+import CustomSystem from '../utils/CustomSystem'
+
+const createSystem = () => {
+  const output: string[] = []
+  const system = new CustomSystem(
+    () => {
+      throw new Error('not found')
+    },
+    () => Promise.reject('not found'),
+    message => output.push('out:' + message),
+    message => output.push('err:' + message)
+  )
+  return { system, output }
+}
+
+describe('CustomSystem', () => {
+  test('CustomSystem: writes buffered output on flush', () => {
+    const { system, output } = createSystem()
+    system.stdout('hello ')
+    system.stdout('world\n')
+    expect(output).toEqual([])
+
+    system.flush()
+    expect(output).toEqual(['out:hello world\n'])
+    system.flush()
+    expect(output).toEqual(['out:hello world\n'])
+  })
+
+  test('CustomSystem: keeps the order of stdout and stderr', () => {
+    const { system, output } = createSystem()
+    system.stdout('a')
+    system.stderr('b')
+    system.stderr('c')
+    system.stdout('d')
+    system.flush()
+    expect(output).toEqual(['out:a', 'err:bc', 'out:d'])
+  })
+
+  test('CustomSystem: writes out large output without waiting for a flush', () => {
+    const { system, output } = createSystem()
+    const line = 'x'.repeat(1023) + '\n'
+    for (let i = 0; i < 64; i++) {
+      system.stdout(line)
+    }
+    expect(output).toEqual(['out:' + line.repeat(64)])
+  })
+})
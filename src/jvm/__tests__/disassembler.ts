@@ -0,0 +1,69 @@
+import { CodeAttribute, LazyAttributeInfo } from '../../ClassFile/types/attributes'
+import { ConstantUtf8Info } from '../../ClassFile/types/constants'
+import parseBin from '../utils/disassembler'
+import { isLazyAttribute } from '../utils/disassembler/utils/readAttributes'
+
+/**
+ * public class Lazy { public static void m() { return; } }
+ */
+// prettier-ignore
+const classBytes = new Uint8Array([
+  0xca, 0xfe, 0xba, 0xbe, // magic
+  0, 0, 0, 52, // version
+  0, 8, // constant pool count
+  1, 0, 4, 0x4c, 0x61, 0x7a, 0x79, // #1 Utf8 Lazy
+  7, 0, 1, // #2 Class #1
+  1, 0, 16, ...Array.from('java/lang/Object', c => c.charCodeAt(0)), // #3 Utf8
+  7, 0, 3, // #4 Class #3
+  1, 0, 1, 0x6d, // #5 Utf8 m
+  1, 0, 3, 0x28, 0x29, 0x56, // #6 Utf8 ()V
+  1, 0, 4, 0x43, 0x6f, 0x64, 0x65, // #7 Utf8 Code
+  0, 0x21, // access flags
+  0, 2, // this class
+  0, 4, // super class
+  0, 0, // interfaces
+  0, 0, // fields
+  0, 1, // methods
+  0, 9, 0, 5, 0, 6, 0, 1, // public static m()V, 1 attribute
+  0, 7, 0, 0, 0, 13, // Code, length 13
+  0, 1, 0, 0, // max stack, max locals
+  0, 0, 0, 1, 0xb1, // code: return
+  0, 0, // exception table
+  0, 0, // attributes
+  0, 0 // attributes
+])
+
+describe('parseBin', () => {
+  test('parseBin: eager mode decodes method attributes', () => {
+    const cls = parseBin(new DataView(classBytes.buffer))
+
+    const code = cls.methods[0].attributes[0] as CodeAttribute
+    expect(isLazyAttribute(code)).toBe(false)
+    expect(code.maxStack).toBe(1)
+    expect(code.code.getUint8(0)).toBe(0xb1)
+  })
+
+  test('parseBin: lazy mode keeps method attributes as byte ranges', () => {
+    const cls = parseBin(new DataView(classBytes.buffer), true)
+    expect(cls.methods.length).toBe(1)
+    expect(cls.attributesCount).toBe(0)
+
+    const lazy = cls.methods[0].attributes[0] as LazyAttributeInfo
+    expect(isLazyAttribute(lazy)).toBe(true)
+    expect(lazy.attributeNameIndex).toBe(7)
+    expect(lazy.attributeLength).toBe(13)
+
+    const code = lazy.decode() as CodeAttribute
+    expect(code.maxStack).toBe(1)
+    expect(code.exceptionTable).toEqual([])
+    expect(code.code.getUint8(0)).toBe(0xb1)
+  })
+
+  test('parseBin: lazy mode decodes utf8 constants on access', () => {
+    const cls = parseBin(new DataView(classBytes.buffer), true)
+
+    expect((cls.constantPool[3] as ConstantUtf8Info).value).toBe('java/lang/Object')
+    expect((cls.constantPool[6] as ConstantUtf8Info).value).toBe('()V')
+    expect((cls.constantPool[6] as ConstantUtf8Info).length).toBe(3)
+  })
+})
@@ -0,0 +1,259 @@
+import { CONSTANT_TAG } from '../../ClassFile/constants/constants'
+import { OPCODE } from '../../ClassFile/constants/instructions'
+import { ACCESS_FLAGS } from '../../ClassFile/types'
+import { ConstantInfo } from '../../ClassFile/types/constants'
+import { METHOD_FLAGS } from '../../ClassFile/types/methods'
+import { InlineCache } from '../inline-cache'
+import { JavaStackFrame } from '../stackframe'
+import Thread from '../thread'
+import { ResultType } from '../types/Result'
+import { ClassData, ReferenceClassData } from '../types/class/ClassData'
+import { Method } from '../types/class/Method'
+import { TestClassLoader, TestSystem, setupTest } from './__utils__/test-utils'
+
+let testLoader: TestClassLoader
+let classes: ClassData[]
+
+beforeEach(() => {
+  testLoader = new TestClassLoader(new TestSystem(), '', null)
+  testLoader.createClass({
+    className: 'java/lang/Object',
+    loader: testLoader,
+    superClass: null
+  })
+  classes = []
+  for (let i = 0; i < 5; i++) {
+    classes.push(
+      testLoader.createClass({
+        className: `Test${i}`,
+        loader: testLoader,
+        methods: [
+          {
+            name: 'run',
+            descriptor: '()V',
+            code: new DataView(new ArrayBuffer(1))
+          }
+        ]
+      })
+    )
+  }
+})
+
+describe('InlineCache', () => {
+  test('InlineCache: misses on empty cache', () => {
+    const cache = new InlineCache()
+    expect(cache.lookup(classes[0])).toBe(null)
+  })
+
+  test('InlineCache: hits on cached receiver class', () => {
+    const cache = new InlineCache()
+    const method = classes[0].getMethod('run()V') as Method
+    cache.insert(classes[0], method)
+    expect(cache.lookup(classes[0])).toBe(method)
+    expect(cache.lookup(classes[1])).toBe(null)
+  })
+
+  test('InlineCache: caches multiple receiver classes', () => {
+    const cache = new InlineCache()
+    for (let i = 0; i < 4; i++) {
+      cache.insert(classes[i], classes[i].getMethod('run()V') as Method)
+    }
+    for (let i = 0; i < 4; i++) {
+      expect(cache.lookup(classes[i])).toBe(classes[i].getMethod('run()V'))
+    }
+  })
+
+  test('InlineCache: megamorphic call site stops caching', () => {
+    const cache = new InlineCache()
+    for (let i = 0; i < 5; i++) {
+      cache.insert(classes[i], classes[i].getMethod('run()V') as Method)
+    }
+    for (let i = 0; i < 5; i++) {
+      expect(cache.lookup(classes[i])).toBe(null)
+    }
+  })
+})
+
+/**
+ * Constants of a reference to the method run()I of the given class.
+ */
+const runRef = (
+  className: string,
+  tag: CONSTANT_TAG,
+  setIndex: (index: number) => void
+): ((cPool: ConstantInfo[]) => ConstantInfo)[] => [
+  () => ({ tag: CONSTANT_TAG.Utf8, length: 3, value: '()I' }),
+  () => ({ tag: CONSTANT_TAG.Utf8, length: 3, value: 'run' }),
+  () => ({ tag: CONSTANT_TAG.Utf8, length: className.length, value: className }),
+  cPool => ({
+    tag: CONSTANT_TAG.NameAndType,
+    nameIndex: cPool.length - 2,
+    descriptorIndex: cPool.length - 3
+  }),
+  cPool => ({ tag: CONSTANT_TAG.Class, nameIndex: cPool.length - 2 }),
+  cPool => {
+    setIndex(cPool.length)
+    return { tag, classIndex: cPool.length - 1, nameAndTypeIndex: cPool.length - 2 }
+  }
+]
+
+describe('InlineCache at call sites', () => {
+  let thread: Thread
+  let shape: ReferenceClassData
+  let base: ReferenceClassData
+  // receiver classes, the odd ones override run
+  let receivers: ReferenceClassData[]
+  let targets: Method[]
+  let callers: { [kind: string]: Method }
+
+  const runCode = () => new DataView(new Uint8Array([OPCODE.ICONST_0, OPCODE.IRETURN]).buffer)
+
+  beforeEach(() => {
+    const setup = setupTest()
+    thread = setup.thread
+    const loader = setup.testLoader
+
+    shape = loader.createClass({
+      className: 'Shape',
+      flags: ACCESS_FLAGS.ACC_PUBLIC | ACCESS_FLAGS.ACC_INTERFACE | ACCESS_FLAGS.ACC_ABSTRACT,
+      methods: [
+        {
+          accessFlags: [METHOD_FLAGS.ACC_PUBLIC, METHOD_FLAGS.ACC_ABSTRACT],
+          name: 'run',
+          descriptor: '()I',
+          attributes: [],
+          code: new DataView(new ArrayBuffer(1))
+        }
+      ],
+      loader
+    }) as ReferenceClassData
+
+    let virtualIdx = 0
+    let interfaceIdx = 0
+    const virtualCode = new DataView(new ArrayBuffer(3))
+    const interfaceCode = new DataView(new ArrayBuffer(5))
+    base = loader.createClass({
+      className: 'Base',
+      constants: [
+        ...runRef('Base', CONSTANT_TAG.Methodref, index => (virtualIdx = index)),
+        ...runRef('Shape', CONSTANT_TAG.InterfaceMethodref, index => (interfaceIdx = index))
+      ],
+      methods: [
+        {
+          accessFlags: [METHOD_FLAGS.ACC_PUBLIC],
+          name: 'run',
+          descriptor: '()I',
+          attributes: [],
+          code: runCode()
+        },
+        {
+          accessFlags: [METHOD_FLAGS.ACC_STATIC],
+          name: 'callVirtual',
+          descriptor: '()V',
+          attributes: [],
+          code: virtualCode
+        },
+        {
+          accessFlags: [METHOD_FLAGS.ACC_STATIC],
+          name: 'callInterface',
+          descriptor: '()V',
+          attributes: [],
+          code: interfaceCode
+        }
+      ],
+      interfaces: [shape],
+      loader
+    }) as ReferenceClassData
+    virtualCode.setUint8(0, OPCODE.INVOKEVIRTUAL)
+    virtualCode.setUint16(1, virtualIdx)
+    interfaceCode.setUint8(0, OPCODE.INVOKEINTERFACE)
+    interfaceCode.setUint16(1, interfaceIdx)
+    interfaceCode.setUint8(3, 1)
+    callers = {
+      invokevirtual: base.getMethod('callVirtual()V') as Method,
+      invokeinterface: base.getMethod('callInterface()V') as Method
+    }
+
+    receivers = []
+    targets = []
+    for (let i = 0; i < 5; i++) {
+      const overrides = i % 2 === 1
+      const receiver = loader.createClass({
+        className: `Receiver${i}`,
+        superClass: base,
+        methods: overrides
+          ? [
+              {
+                accessFlags: [METHOD_FLAGS.ACC_PUBLIC],
+                name: 'run',
+                descriptor: '()I',
+                attributes: [],
+                code: runCode()
+              }
+            ]
+          : [],
+        loader
+      }) as ReferenceClassData
+      receivers.push(receiver)
+      targets.push((overrides ? receiver : base).getMethod('run()I') as Method)
+    }
+  })
+
+  test.each(['invokevirtual', 'invokeinterface'])(
+    'InlineCache: %s selects the method of each receiver class',
+    kind => {
+      thread.invokeStackFrame(new JavaStackFrame(base, callers[kind], 0, []))
+      const cache = () => thread.getInlineCache()
+      // runs the call site on an instance of the receiver class, returns the invoked method
+      const invoke = (i: number) => {
+        thread.pushStack(receivers[i].instantiate())
+        thread.runFor(1)
+        const invoked = thread.peekStackFrame().method
+        thread.returnStackFrame(0)
+        thread.popStack()
+        thread.setPc(0)
+        return invoked
+      }
+
+      // monomorphic
+      expect(invoke(0)).toBe(targets[0])
+      expect(invoke(0)).toBe(targets[0])
+      expect(cache().lookup(receivers[0])).toBe(targets[0])
+      expect(cache().lookup(receivers[1])).toBe(null)
+
+      // polymorphic
+      for (const i of [1, 2, 3, 1]) {
+        expect(invoke(i)).toBe(targets[i])
+      }
+      for (let i = 0; i < 4; i++) {
+        expect(cache().lookup(receivers[i])).toBe(targets[i])
+      }
+
+      // megamorphic, selected from the method tables of the receiver classes
+      expect(invoke(4)).toBe(targets[4])
+      for (let i = 0; i < 5; i++) {
+        expect(cache().lookup(receivers[i])).toBe(null)
+      }
+      for (const i of [3, 0, 4, 1, 2]) {
+        expect(invoke(i)).toBe(targets[i])
+      }
+    }
+  )
+
+  test('selectMethod: method tables select the same methods as the uncached lookup', () => {
+    const resolved: [Method, boolean][] = [
+      [base.getMethod('run()I') as Method, false],
+      [shape.getMethod('run()I') as Method, true]
+    ]
+    receivers.forEach((receiver, i) => {
+      for (const [method, isInterface] of resolved) {
+        const uncached = receiver.lookupMethod('run()I', method, !isInterface, isInterface)
+        expect(uncached).toEqual({ status: ResultType.SUCCESS, result: targets[i] })
+
+        // the first selection fills the table, the second reads it
+        expect(receiver.selectMethod(method, isInterface)).toEqual(uncached)
+        expect(receiver.selectMethod(method, isInterface)).toEqual(uncached)
+      }
+    })
+  })
+})
@@ -149,7 +149,7 @@ describe('Lconst0', () => {
 
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(0))
+    expect(lastFrame.operandStack[0]).toBe(0)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -162,7 +162,7 @@ describe('Lconst1', () => {
 
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(1))
+    expect(lastFrame.operandStack[0]).toBe(1)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -741,7 +741,7 @@ describe('Ldc2W', () => {
 
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(99))
+    expect(lastFrame.operandStack[0]).toBe(99)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(3)
   })
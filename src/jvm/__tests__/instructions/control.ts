@@ -1,7 +1,6 @@
 import { OPCODE } from '../../../ClassFile/constants/instructions'
 import { JavaStackFrame } from '../../stackframe'
 import Thread from '../../thread'
-import { SuccessResult } from '../../types/Result'
 import { ReferenceClassData } from '../../types/class/ClassData'
 import { JvmObject } from '../../types/reference/Object'
 import { setupTest } from '../__utils__/test-utils'
@@ -70,7 +69,7 @@ describe('Ireturn', () => {
 
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(1)
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(5)
+    expect(thread.popStack()).toBe(5)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(0)
 
@@ -89,7 +88,7 @@ describe('Lreturn', () => {
 
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect((thread.popStack64() as SuccessResult<any>).result === BigInt(5)).toBe(true)
+    expect(thread.popStack64() === 5).toBe(true)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(0)
 
@@ -108,7 +107,7 @@ describe('Freturn', () => {
 
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(1)
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(0)
+    expect(thread.popStack()).toBe(0)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(0)
 
@@ -125,7 +124,7 @@ describe('Freturn', () => {
 
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(1)
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(Math.fround(3.33))
+    expect(thread.popStack()).toBe(Math.fround(3.33))
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(0)
 
@@ -144,7 +143,7 @@ describe('Dreturn', () => {
 
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect((thread.popStack64() as SuccessResult<any>).result).toBe(5.5)
+    expect(thread.popStack64()).toBe(5.5)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(0)
 
@@ -164,7 +163,7 @@ describe('Areturn', () => {
 
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(1)
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(obj)
+    expect(thread.popStack()).toBe(obj)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(0)
 
@@ -23,7 +23,7 @@ describe('I2l', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(1))
+    expect(lastFrame.operandStack[0]).toBe(1)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -319,7 +319,7 @@ describe('F2l', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(-20))
+    expect(lastFrame.operandStack[0]).toBe(-20)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -355,7 +355,7 @@ describe('F2l', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(0))
+    expect(lastFrame.operandStack[0]).toBe(0)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -481,7 +481,7 @@ describe('D2l', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(-20))
+    expect(lastFrame.operandStack[0]).toBe(-20)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -517,7 +517,7 @@ describe('D2l', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(0))
+    expect(lastFrame.operandStack[0]).toBe(0)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -3,7 +3,6 @@ import { OPCODE } from '../../../ClassFile/constants/instructions'
 import { METHOD_FLAGS } from '../../../ClassFile/types/methods'
 import { JavaStackFrame } from '../../stackframe'
 import Thread from '../../thread'
-import { SuccessResult } from '../../types/Result'
 import { ReferenceClassData } from '../../types/class/ClassData'
 import { Method } from '../../types/class/Method'
 import { JvmArray } from '../../types/reference/Array'
@@ -109,7 +108,7 @@ describe('Wide', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(1)
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(3)
+    expect(thread.popStack()).toBe(3)
     expect(lastFrame.locals.length).toBe(1)
     expect(thread.getPC()).toBe(4)
   })
@@ -121,7 +120,7 @@ describe('Wide', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect((thread.popStack64() as SuccessResult<any>).result === BigInt(3)).toBe(true)
+    expect(thread.popStack64() === 3).toBe(true)
     expect(lastFrame.locals.length).toBe(1)
     expect(thread.getPC()).toBe(4)
   })
@@ -133,7 +132,7 @@ describe('Wide', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(1)
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(3)
+    expect(thread.popStack()).toBe(3)
     expect(lastFrame.locals.length).toBe(1)
     expect(thread.getPC()).toBe(4)
   })
@@ -145,7 +144,7 @@ describe('Wide', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect((thread.popStack64() as SuccessResult<any>).result).toBe(3)
+    expect(thread.popStack64()).toBe(3)
     expect(lastFrame.locals.length).toBe(1)
     expect(thread.getPC()).toBe(4)
   })
@@ -157,7 +156,7 @@ describe('Wide', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(1)
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(null)
+    expect(thread.popStack()).toBe(null)
     expect(lastFrame.locals.length).toBe(1)
     expect(thread.getPC()).toBe(4)
   })
@@ -240,6 +239,16 @@ describe('Wide', () => {
     expect(lastFrame.locals.length).toBe(1)
     expect(thread.getPC()).toBe(6)
   })
+  test('IINC: reads wide negative constant', () => {
+    code.setUint8(0, OPCODE.WIDE)
+    code.setUint8(1, OPCODE.IINC)
+    code.setUint16(2, 50)
+    code.setInt16(4, -1000)
+    thread.storeLocal(50, 5)
+    thread.runFor(1)
+    expect(thread.loadLocal(50)).toBe(-995)
+    expect(thread.getPC()).toBe(6)
+  })
 })
 
 describe('Multianewarray', () => {
@@ -290,7 +299,7 @@ describe('Multianewarray', () => {
     expect(lastFrame.pc).toBe(4)
     expect(thread.getPC()).toBe(4)
     expect(lastFrame.locals.length).toBe(0)
-    const arrayRef = (thread.popStack() as SuccessResult<any>).result as JvmArray
+    const arrayRef = thread.popStack() as JvmArray
     expect(arrayRef.len()).toBe(2)
     expect(arrayRef.getClass().getName()).toBe('[[Ljava/lang/Thread;')
     expect(arrayRef.get(0).len()).toBe(3)
@@ -397,7 +406,7 @@ describe('Multianewarray', () => {
     expect(lastFrame.pc).toBe(4)
     expect(thread.getPC()).toBe(4)
     expect(lastFrame.locals.length).toBe(0)
-    const arrayRef = (thread.popStack() as SuccessResult<any>).result
+    const arrayRef = thread.popStack()
     expect(arrayRef.len()).toBe(0)
     expect(arrayRef.getClass().getName()).toBe('[[Ljava/lang/Thread;')
   })
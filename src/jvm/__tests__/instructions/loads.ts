@@ -48,7 +48,7 @@ describe('LLOAD', () => {
 
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(10))
+    expect(lastFrame.operandStack[0]).toBe(10)
     expect(lastFrame.locals.length).toBe(1)
     expect(thread.getPC()).toBe(2)
   })
@@ -176,7 +176,7 @@ describe('LLOAD_0', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(10))
+    expect(lastFrame.operandStack[0]).toBe(10)
     expect(lastFrame.locals.length).toBe(4)
     expect(thread.getPC()).toBe(1)
   })
@@ -192,7 +192,7 @@ describe('LLOAD_1', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(11))
+    expect(lastFrame.operandStack[0]).toBe(11)
     expect(lastFrame.locals.length).toBe(4)
     expect(thread.getPC()).toBe(1)
   })
@@ -208,7 +208,7 @@ describe('LLOAD_2', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(12))
+    expect(lastFrame.operandStack[0]).toBe(12)
     expect(lastFrame.locals.length).toBe(4)
     expect(thread.getPC()).toBe(1)
   })
@@ -224,7 +224,7 @@ describe('LLOAD_3', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(13))
+    expect(lastFrame.operandStack[0]).toBe(13)
     expect(lastFrame.locals.length).toBe(4)
     expect(thread.getPC()).toBe(1)
   })
@@ -518,7 +518,7 @@ describe('LALOAD', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(99))
+    expect(lastFrame.operandStack[0]).toBe(99)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -70,7 +70,7 @@ describe('Ladd', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(3))
+    expect(lastFrame.operandStack[0]).toBe(3)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -98,6 +98,30 @@ describe('Ladd', () => {
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
+
+  test('LADD: long addition past safe integer range', () => {
+    thread.pushStack64(Number.MAX_SAFE_INTEGER)
+    thread.pushStack64(2)
+    code.setUint8(0, OPCODE.LADD)
+    thread.runFor(1)
+    const lastFrame = thread.peekStackFrame()
+    expect(lastFrame.operandStack.length).toBe(2)
+    expect(lastFrame.operandStack[0]).toBe(BigInt(Number.MAX_SAFE_INTEGER) + BigInt(2))
+    expect(lastFrame.locals.length).toBe(0)
+    expect(thread.getPC()).toBe(1)
+  })
+
+  test('LADD: long addition back into safe integer range', () => {
+    thread.pushStack64(BigInt(Number.MAX_SAFE_INTEGER) + BigInt(2))
+    thread.pushStack64(-2)
+    code.setUint8(0, OPCODE.LADD)
+    thread.runFor(1)
+    const lastFrame = thread.peekStackFrame()
+    expect(lastFrame.operandStack.length).toBe(2)
+    expect(lastFrame.operandStack[0]).toBe(Number.MAX_SAFE_INTEGER)
+    expect(lastFrame.locals.length).toBe(0)
+    expect(thread.getPC()).toBe(1)
+  })
 })
 
 describe('Fadd', () => {
@@ -534,7 +558,7 @@ describe('Lsub', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(1))
+    expect(lastFrame.operandStack[0]).toBe(1)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -576,6 +600,16 @@ describe('Fsub', () => {
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
+  test('FSUB: zero minus a value negates the value', () => {
+    thread.pushStack(0)
+    thread.pushStack(1.5)
+    code.setUint8(0, OPCODE.FSUB)
+    thread.runFor(1)
+    const lastFrame = thread.peekStackFrame()
+    expect(lastFrame.operandStack.length).toBe(1)
+    expect(lastFrame.operandStack[0]).toBe(-1.5)
+    expect(thread.getPC()).toBe(1)
+  })
 
   test('FSUB: float subtraction overflow Infinity', () => {
     thread.pushStack(3.4e38)
@@ -1010,7 +1044,19 @@ describe('Lmul', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(2))
+    expect(lastFrame.operandStack[0]).toBe(2)
+    expect(lastFrame.locals.length).toBe(0)
+    expect(thread.getPC()).toBe(1)
+  })
+
+  test('LMUL: long multiplication by zero is not negative zero', () => {
+    thread.pushStack64(0)
+    thread.pushStack64(-5)
+    code.setUint8(0, OPCODE.LMUL)
+    thread.runFor(1)
+    const lastFrame = thread.peekStackFrame()
+    expect(lastFrame.operandStack.length).toBe(2)
+    expect(Object.is(lastFrame.operandStack[0], 0)).toBe(true)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -1022,7 +1068,7 @@ describe('Lmul', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(-2))
+    expect(lastFrame.operandStack[0]).toBe(-2)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -1034,7 +1080,7 @@ describe('Lmul', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(2))
+    expect(lastFrame.operandStack[0]).toBe(2)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -1405,7 +1451,7 @@ describe('Ldiv', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(1))
+    expect(lastFrame.operandStack[0]).toBe(1)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -1417,7 +1463,7 @@ describe('Ldiv', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(0))
+    expect(lastFrame.operandStack[0]).toBe(0)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -1429,7 +1475,7 @@ describe('Ldiv', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(0))
+    expect(lastFrame.operandStack[0]).toBe(0)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -1911,7 +1957,7 @@ describe('Lrem', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(1))
+    expect(lastFrame.operandStack[0]).toBe(1)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -1923,7 +1969,7 @@ describe('Lrem', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(0))
+    expect(lastFrame.operandStack[0]).toBe(0)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -2195,7 +2241,7 @@ describe('Lneg', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(-1))
+    expect(lastFrame.operandStack[0]).toBe(-1)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -2350,7 +2396,7 @@ describe('Lshl', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(4))
+    expect(lastFrame.operandStack[0]).toBe(4)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -2426,7 +2472,7 @@ describe('Lshr', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(1))
+    expect(lastFrame.operandStack[0]).toBe(1)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -2438,7 +2484,7 @@ describe('Lshr', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(-1))
+    expect(lastFrame.operandStack[0]).toBe(-1)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -2450,7 +2496,7 @@ describe('Lshr', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(-1))
+    expect(lastFrame.operandStack[0]).toBe(-1)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -2502,7 +2548,7 @@ describe('Lushr', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(1))
+    expect(lastFrame.operandStack[0]).toBe(1)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -2578,7 +2624,7 @@ describe('Land', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(1))
+    expect(lastFrame.operandStack[0]).toBe(1)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -2590,7 +2636,7 @@ describe('Land', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(1))
+    expect(lastFrame.operandStack[0]).toBe(1)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -2630,7 +2676,7 @@ describe('Lor', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(3))
+    expect(lastFrame.operandStack[0]).toBe(3)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -2642,7 +2688,7 @@ describe('Lor', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(-1))
+    expect(lastFrame.operandStack[0]).toBe(-1)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -2682,7 +2728,7 @@ describe('Lxor', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(2))
+    expect(lastFrame.operandStack[0]).toBe(2)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -2694,7 +2740,7 @@ describe('Lxor', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect(lastFrame.operandStack[0]).toBe(BigInt(-2))
+    expect(lastFrame.operandStack[0]).toBe(-2)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -7,7 +7,6 @@ import { CLASS_STATUS } from '../../constants'
 import { JNI } from '../../jni'
 import { JavaStackFrame } from '../../stackframe'
 import Thread from '../../thread'
-import { SuccessResult } from '../../types/Result'
 import { ReferenceClassData, ArrayClassData } from '../../types/class/ClassData'
 import { Method } from '../../types/class/Method'
 import { ArrayPrimitiveType, JvmArray } from '../../types/reference/Array'
@@ -217,7 +216,7 @@ describe('Invokestatic', () => {
     thread.runFor(1)
     expect(thread.peekStackFrame().locals[0]).toBe(1)
     expect(thread.peekStackFrame().locals[1]).toBe(2.5)
-    expect(thread.peekStackFrame().locals[3] === BigInt(3)).toBe(true)
+    expect(thread.peekStackFrame().locals[3] === 3).toBe(true)
   })
   test('INVOKESTATIC: Undergoes value set conversion', () => {
     const ab = new ArrayBuffer(24)
@@ -697,7 +696,7 @@ describe('Invokestatic', () => {
     thread.invokeStackFrame(new JavaStackFrame(testClass, method as Method, 0, []))
     thread.runFor(1)
     thread.runFor(1)
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(5)
+    expect(thread.popStack()).toBe(5)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
   })
   test('INVOKESTATIC: Native method returns long', () => {
@@ -793,7 +792,7 @@ describe('Invokestatic', () => {
     thread.invokeStackFrame(new JavaStackFrame(testClass, method as Method, 0, []))
     thread.runFor(1)
     thread.runFor(1)
-    expect((thread.popStack64() as SuccessResult<any>).result === BigInt(5)).toBe(true)
+    expect(thread.popStack64() === 5).toBe(true)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
   })
 })
@@ -928,7 +927,7 @@ describe('invokevirtual', () => {
     expect(thread.peekStackFrame().locals[0] === objRef).toBe(true)
     expect(thread.peekStackFrame().locals[1]).toBe(1)
     expect(thread.peekStackFrame().locals[2]).toBe(2.5)
-    expect(thread.peekStackFrame().locals[4] === BigInt(3)).toBe(true)
+    expect(thread.peekStackFrame().locals[4] === 3).toBe(true)
   })
   test('INVOKEVIRTUAL: Undergoes value set conversion', () => {
     const ab = new ArrayBuffer(24)
@@ -2975,7 +2974,7 @@ describe('Getstatic', () => {
 
     thread.invokeStackFrame(new JavaStackFrame(testClass, method as Method, 0, []))
     thread.runFor(1)
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(5)
+    expect(thread.popStack()).toBe(5)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
   })
   test('GETSTATIC: Gets static long', () => {
@@ -3045,7 +3044,7 @@ describe('Getstatic', () => {
 
     thread.invokeStackFrame(new JavaStackFrame(testClass, method as Method, 0, []))
     thread.runFor(1)
-    expect((thread.popStack64() as SuccessResult<any>).result === BigInt(5)).toBe(true)
+    expect(thread.popStack64() === 5).toBe(true)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
   })
   test('GETSTATIC: gets inherited static long', () => {
@@ -3119,7 +3118,7 @@ describe('Getstatic', () => {
     const method = mainClass.getMethod('main()V') as Method
     thread.invokeStackFrame(new JavaStackFrame(mainClass, method as Method, 0, []))
     thread.runFor(1)
-    expect((thread.popStack64() as SuccessResult<any>).result === BigInt(5)).toBe(true)
+    expect(thread.popStack64() === 5).toBe(true)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
   })
   test('GETSTATIC: private static int throws IllegalAccessError', () => {
@@ -3556,7 +3555,7 @@ describe('Putstatic', () => {
     thread.invokeStackFrame(new JavaStackFrame(testClass, method as Method, 0, []))
     thread.pushStack64(BigInt(5))
     thread.runFor(1)
-    expect(testClass.lookupField('staticFieldJ')?.getValue() === BigInt(5)).toBe(true)
+    expect(testClass.lookupField('staticFieldJ')?.getValue() === 5).toBe(true)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
   })
   test('PUTSTATIC: Puts inherited static long', () => {
@@ -3630,7 +3629,7 @@ describe('Putstatic', () => {
     thread.invokeStackFrame(new JavaStackFrame(mainClass, method as Method, 0, []))
     thread.pushStack64(BigInt(5))
     thread.runFor(1)
-    expect(superClass.lookupField('staticFieldJ')?.getValue() === BigInt(5)).toBe(true)
+    expect(superClass.lookupField('staticFieldJ')?.getValue() === 5).toBe(true)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
   })
   test('PUTSTATIC: private static int throws IllegalAccessError', () => {
@@ -4269,7 +4268,7 @@ describe('New', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(1)
-    expect((thread.popStack() as SuccessResult<any>).result.getClass() === testClass).toBe(true)
+    expect(thread.popStack().getClass() === testClass).toBe(true)
   })
 
   test('NEW: Interface class throws InstantiationError', () => {
@@ -4435,7 +4434,7 @@ describe('Newarray', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(1)
-    const arrayObj = (thread.popStack() as SuccessResult<any>).result as JvmArray
+    const arrayObj = thread.popStack() as JvmArray
     expect(arrayObj.getClass().getName()).toBe('[Z')
     expect(arrayObj.len()).toBe(0)
   })
@@ -4466,71 +4465,78 @@ describe('Newarray', () => {
     thread.invokeStackFrame(new JavaStackFrame(testClass, method as Method, 0, []))
     thread.pushStack(1)
     thread.runFor(1)
-    let arrayObj = (thread.popStack() as SuccessResult<any>).result as JvmArray
+    let arrayObj = thread.popStack() as JvmArray
     expect(arrayObj.get(0)).toBe(0)
     thread.returnStackFrame()
 
     // char
-    code.setUint8(1, ArrayPrimitiveType.char)
-    thread.invokeStackFrame(new JavaStackFrame(testClass, method as Method, 0, []))
+    code.setUint8(2, OPCODE.NEWARRAY)
+    code.setUint8(3, ArrayPrimitiveType.char)
+    thread.invokeStackFrame(new JavaStackFrame(testClass, method as Method, 2, []))
     thread.pushStack(1)
     thread.runFor(1)
-    arrayObj = (thread.popStack() as SuccessResult<any>).result as JvmArray
+    arrayObj = thread.popStack() as JvmArray
     expect(arrayObj.get(0)).toBe(0)
     thread.returnStackFrame()
 
     // float
-    code.setUint8(1, ArrayPrimitiveType.float)
-    thread.invokeStackFrame(new JavaStackFrame(testClass, method as Method, 0, []))
+    code.setUint8(4, OPCODE.NEWARRAY)
+    code.setUint8(5, ArrayPrimitiveType.float)
+    thread.invokeStackFrame(new JavaStackFrame(testClass, method as Method, 4, []))
     thread.pushStack(1)
     thread.runFor(1)
-    arrayObj = (thread.popStack() as SuccessResult<any>).result as JvmArray
+    arrayObj = thread.popStack() as JvmArray
     expect(arrayObj.get(0)).toBe(0)
     thread.returnStackFrame()
 
     // double
-    code.setUint8(1, ArrayPrimitiveType.double)
-    thread.invokeStackFrame(new JavaStackFrame(testClass, method as Method, 0, []))
+    code.setUint8(6, OPCODE.NEWARRAY)
+    code.setUint8(7, ArrayPrimitiveType.double)
+    thread.invokeStackFrame(new JavaStackFrame(testClass, method as Method, 6, []))
     thread.pushStack(1)
     thread.runFor(1)
-    arrayObj = (thread.popStack() as SuccessResult<any>).result as JvmArray
+    arrayObj = thread.popStack() as JvmArray
     expect(arrayObj.get(0)).toBe(0)
     thread.returnStackFrame()
 
     // byte
-    code.setUint8(1, ArrayPrimitiveType.byte)
-    thread.invokeStackFrame(new JavaStackFrame(testClass, method as Method, 0, []))
+    code.setUint8(8, OPCODE.NEWARRAY)
+    code.setUint8(9, ArrayPrimitiveType.byte)
+    thread.invokeStackFrame(new JavaStackFrame(testClass, method as Method, 8, []))
     thread.pushStack(1)
     thread.runFor(1)
-    arrayObj = (thread.popStack() as SuccessResult<any>).result as JvmArray
+    arrayObj = thread.popStack() as JvmArray
     expect(arrayObj.get(0)).toBe(0)
     thread.returnStackFrame()
 
     // short
-    code.setUint8(1, ArrayPrimitiveType.short)
-    thread.invokeStackFrame(new JavaStackFrame(testClass, method as Method, 0, []))
+    code.setUint8(10, OPCODE.NEWARRAY)
+    code.setUint8(11, ArrayPrimitiveType.short)
+    thread.invokeStackFrame(new JavaStackFrame(testClass, method as Method, 10, []))
     thread.pushStack(1)
     thread.runFor(1)
-    arrayObj = (thread.popStack() as SuccessResult<any>).result as JvmArray
+    arrayObj = thread.popStack() as JvmArray
     expect(arrayObj.get(0)).toBe(0)
     thread.returnStackFrame()
 
     // int
-    code.setUint8(1, ArrayPrimitiveType.int)
-    thread.invokeStackFrame(new JavaStackFrame(testClass, method as Method, 0, []))
+    code.setUint8(12, OPCODE.NEWARRAY)
+    code.setUint8(13, ArrayPrimitiveType.int)
+    thread.invokeStackFrame(new JavaStackFrame(testClass, method as Method, 12, []))
     thread.pushStack(1)
     thread.runFor(1)
-    arrayObj = (thread.popStack() as SuccessResult<any>).result as JvmArray
+    arrayObj = thread.popStack() as JvmArray
     expect(arrayObj.get(0)).toBe(0)
     thread.returnStackFrame()
 
     // long
-    code.setUint8(1, ArrayPrimitiveType.long)
-    thread.invokeStackFrame(new JavaStackFrame(testClass, method as Method, 0, []))
+    code.setUint8(14, OPCODE.NEWARRAY)
+    code.setUint8(15, ArrayPrimitiveType.long)
+    thread.invokeStackFrame(new JavaStackFrame(testClass, method as Method, 14, []))
     thread.pushStack(1)
     thread.runFor(1)
-    arrayObj = (thread.popStack() as SuccessResult<any>).result as JvmArray
-    expect(arrayObj.get(0) === BigInt(0)).toBe(true)
+    arrayObj = thread.popStack() as JvmArray
+    expect(arrayObj.get(0) === 0).toBe(true)
     thread.returnStackFrame()
   })
 
@@ -4609,7 +4615,7 @@ describe('Anewarray', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(1)
-    const arrayObj = (thread.popStack() as SuccessResult<any>).result as JvmArray
+    const arrayObj = thread.popStack() as JvmArray
     expect(arrayObj.getClass().getName()).toBe('[LTest;')
     expect(arrayObj.len()).toBe(0)
   })
@@ -4652,7 +4658,7 @@ describe('Anewarray', () => {
     thread.invokeStackFrame(new JavaStackFrame(testClass, method as Method, 0, []))
     thread.pushStack(1)
     thread.runFor(1)
-    const arrayObj = (thread.popStack() as SuccessResult<any>).result as JvmArray
+    const arrayObj = thread.popStack() as JvmArray
     expect(arrayObj.get(0) === null).toBe(true)
   })
 
@@ -4745,7 +4751,7 @@ describe('Anewarray', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(1)
-    const arrayObj = (thread.popStack() as SuccessResult<any>).result as JvmArray
+    const arrayObj = thread.popStack() as JvmArray
     expect(arrayObj.getClass().getName()).toBe('[LTest;')
     expect(arrayObj.len()).toBe(0)
   })
@@ -4788,7 +4794,7 @@ describe('Anewarray', () => {
     thread.invokeStackFrame(new JavaStackFrame(testClass, method as Method, 0, []))
     thread.pushStack(1)
     thread.runFor(1)
-    const arrayObj = (thread.popStack() as SuccessResult<any>).result as JvmArray
+    const arrayObj = thread.popStack() as JvmArray
     expect(arrayObj.get(0) === null).toBe(true)
   })
 
@@ -4881,7 +4887,7 @@ describe('Arraylength', () => {
     thread.pushStack(arrayRef)
 
     thread.runFor(1)
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(5)
+    expect(thread.popStack()).toBe(5)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(0)
     expect(thread.getPC()).toBe(1)
@@ -4976,7 +4982,7 @@ describe('Checkcast', () => {
 
     thread.runFor(1)
 
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(null)
+    expect(thread.popStack()).toBe(null)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
     expect(thread.getPC()).toBe(3)
   })
@@ -5022,7 +5028,7 @@ describe('Checkcast', () => {
 
     thread.runFor(1)
 
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(null)
+    expect(thread.popStack()).toBe(null)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
     expect(thread.getPC()).toBe(3)
   })
@@ -5075,7 +5081,7 @@ describe('Checkcast', () => {
 
     thread.runFor(1)
 
-    expect((thread.popStack() as SuccessResult<any>).result === obj).toBe(true)
+    expect(thread.popStack() === obj).toBe(true)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
     expect(thread.getPC()).toBe(3)
   })
@@ -5134,7 +5140,7 @@ describe('Checkcast', () => {
 
     thread.runFor(1)
 
-    expect((thread.popStack() as SuccessResult<any>).result === obj).toBe(true)
+    expect(thread.popStack() === obj).toBe(true)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
     expect(thread.getPC()).toBe(3)
   })
@@ -5193,7 +5199,7 @@ describe('Checkcast', () => {
 
     thread.runFor(1)
 
-    expect((thread.popStack() as SuccessResult<any>).result === obj).toBe(true)
+    expect(thread.popStack() === obj).toBe(true)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
     expect(thread.getPC()).toBe(3)
   })
@@ -5241,7 +5247,7 @@ describe('Checkcast', () => {
 
     thread.runFor(1)
 
-    expect((thread.popStack() as SuccessResult<any>).result === obj).toBe(true)
+    expect(thread.popStack() === obj).toBe(true)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
     expect(thread.getPC()).toBe(3)
   })
@@ -5289,7 +5295,7 @@ describe('Checkcast', () => {
 
     thread.runFor(1)
 
-    expect((thread.popStack() as SuccessResult<any>).result === obj).toBe(true)
+    expect(thread.popStack() === obj).toBe(true)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
     expect(thread.getPC()).toBe(3)
   })
@@ -5337,7 +5343,7 @@ describe('Checkcast', () => {
 
     thread.runFor(1)
 
-    expect((thread.popStack() as SuccessResult<any>).result === obj).toBe(true)
+    expect(thread.popStack() === obj).toBe(true)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
     expect(thread.getPC()).toBe(3)
   })
@@ -5397,7 +5403,7 @@ describe('Checkcast', () => {
 
     thread.runFor(1)
 
-    expect((thread.popStack() as SuccessResult<any>).result === obj).toBe(true)
+    expect(thread.popStack() === obj).toBe(true)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
     expect(thread.getPC()).toBe(3)
   })
@@ -5498,7 +5504,7 @@ describe('Instanceof', () => {
 
     thread.runFor(1)
 
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(0)
+    expect(thread.popStack()).toBe(0)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
     expect(thread.getPC()).toBe(3)
   })
@@ -5544,7 +5550,7 @@ describe('Instanceof', () => {
 
     thread.runFor(1)
 
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(0)
+    expect(thread.popStack()).toBe(0)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
     expect(thread.getPC()).toBe(3)
   })
@@ -5597,7 +5603,7 @@ describe('Instanceof', () => {
 
     thread.runFor(1)
 
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(1)
+    expect(thread.popStack()).toBe(1)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
     expect(thread.getPC()).toBe(3)
   })
@@ -5656,7 +5662,7 @@ describe('Instanceof', () => {
 
     thread.runFor(1)
 
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(1)
+    expect(thread.popStack()).toBe(1)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
     expect(thread.getPC()).toBe(3)
   })
@@ -5715,7 +5721,7 @@ describe('Instanceof', () => {
 
     thread.runFor(1)
 
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(1)
+    expect(thread.popStack()).toBe(1)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
     expect(thread.getPC()).toBe(3)
   })
@@ -5763,7 +5769,7 @@ describe('Instanceof', () => {
 
     thread.runFor(1)
 
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(1)
+    expect(thread.popStack()).toBe(1)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
     expect(thread.getPC()).toBe(3)
   })
@@ -5811,7 +5817,7 @@ describe('Instanceof', () => {
 
     thread.runFor(1)
 
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(1)
+    expect(thread.popStack()).toBe(1)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
     expect(thread.getPC()).toBe(3)
   })
@@ -5859,7 +5865,7 @@ describe('Instanceof', () => {
 
     thread.runFor(1)
 
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(1)
+    expect(thread.popStack()).toBe(1)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
     expect(thread.getPC()).toBe(3)
   })
@@ -5919,7 +5925,7 @@ describe('Instanceof', () => {
 
     thread.runFor(1)
 
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(1)
+    expect(thread.popStack()).toBe(1)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
     expect(thread.getPC()).toBe(3)
   })
@@ -5968,7 +5974,7 @@ describe('Instanceof', () => {
 
     thread.runFor(1)
 
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(0)
+    expect(thread.popStack()).toBe(0)
     expect(thread.peekStackFrame().operandStack.length).toBe(0)
     expect(thread.getPC()).toBe(3)
   })
@@ -6074,7 +6080,7 @@ describe('Athrow', () => {
     thread.pushStack(eObj)
     thread.runFor(1)
     expect(thread.getMethod().getName()).toBe('test0')
-    expect((thread.popStack() as SuccessResult<any>).result === eObj).toBe(true)
+    expect(thread.popStack() === eObj).toBe(true)
     const sf = thread.peekStackFrame()
     expect(sf.operandStack.length).toBe(0)
     expect(thread.getPC()).toBe(99)
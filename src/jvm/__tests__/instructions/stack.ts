@@ -1,7 +1,6 @@
 import { OPCODE } from '../../../ClassFile/constants/instructions'
 import { JavaStackFrame } from '../../stackframe'
 import Thread from '../../thread'
-import { SuccessResult } from '../../types/Result'
 import { ClassData, ReferenceClassData } from '../../types/class/ClassData'
 import { JvmObject } from '../../types/reference/Object'
 import { setupTest } from '../__utils__/test-utils'
@@ -101,10 +100,10 @@ describe('DupX2', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(4)
-    expect((thread.popStack() as SuccessResult<any>).result === v1).toBe(true)
-    expect((thread.popStack() as SuccessResult<any>).result === v2).toBe(true)
-    expect((thread.popStack() as SuccessResult<any>).result === v3).toBe(true)
-    expect((thread.popStack() as SuccessResult<any>).result === v1).toBe(true)
+    expect(thread.popStack() === v1).toBe(true)
+    expect(thread.popStack() === v2).toBe(true)
+    expect(thread.popStack() === v3).toBe(true)
+    expect(thread.popStack() === v1).toBe(true)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -116,9 +115,9 @@ describe('DupX2', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(4)
-    expect((thread.popStack() as SuccessResult<any>).result === v1).toBe(true)
-    expect((thread.popStack64() as SuccessResult<any>).result).toBe(5.0)
-    expect((thread.popStack() as SuccessResult<any>).result === v1).toBe(true)
+    expect(thread.popStack() === v1).toBe(true)
+    expect(thread.popStack64()).toBe(5.0)
+    expect(thread.popStack() === v1).toBe(true)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -147,8 +146,8 @@ describe('Dup2', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(4)
-    expect((thread.popStack64() as SuccessResult<any>).result).toBe(5.0)
-    expect((thread.popStack64() as SuccessResult<any>).result).toBe(5.0)
+    expect(thread.popStack64()).toBe(5.0)
+    expect(thread.popStack64()).toBe(5.0)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -182,9 +181,9 @@ describe('Dup2X1', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(5)
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(v1)
-    expect((thread.popStack64() as SuccessResult<any>).result).toBe(5.0)
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(v1)
+    expect(thread.popStack()).toBe(v1)
+    expect(thread.popStack64()).toBe(5.0)
+    expect(thread.popStack()).toBe(v1)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -224,10 +223,10 @@ describe('Dup2X2', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(6)
-    expect((thread.popStack64() as SuccessResult<any>).result).toBe(5.0)
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(v1)
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(v2)
-    expect((thread.popStack64() as SuccessResult<any>).result).toBe(5.0)
+    expect(thread.popStack64()).toBe(5.0)
+    expect(thread.popStack()).toBe(v1)
+    expect(thread.popStack()).toBe(v2)
+    expect(thread.popStack64()).toBe(5.0)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -242,11 +241,11 @@ describe('Dup2X2', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(6)
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(v1)
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(v2)
-    expect((thread.popStack64() as SuccessResult<any>).result).toBe(5.0)
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(v1)
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(v2)
+    expect(thread.popStack()).toBe(v1)
+    expect(thread.popStack()).toBe(v2)
+    expect(thread.popStack64()).toBe(5.0)
+    expect(thread.popStack()).toBe(v1)
+    expect(thread.popStack()).toBe(v2)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -257,9 +256,9 @@ describe('Dup2X2', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(6)
-    expect((thread.popStack64() as SuccessResult<any>).result).toBe(6.0)
-    expect((thread.popStack64() as SuccessResult<any>).result).toBe(5.0)
-    expect((thread.popStack64() as SuccessResult<any>).result).toBe(6.0)
+    expect(thread.popStack64()).toBe(6.0)
+    expect(thread.popStack64()).toBe(5.0)
+    expect(thread.popStack64()).toBe(6.0)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -275,8 +274,8 @@ describe('Swap', () => {
     thread.runFor(1)
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(2)
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(v1)
-    expect((thread.popStack() as SuccessResult<any>).result).toBe(v2)
+    expect(thread.popStack()).toBe(v1)
+    expect(thread.popStack()).toBe(v2)
     expect(lastFrame.locals.length).toBe(0)
     expect(thread.getPC()).toBe(1)
   })
@@ -112,7 +112,7 @@ describe('Lstore', () => {
     } catch (e) {}
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(0)
-    expect(thread.loadLocal(0) === BigInt(3)).toBe(true)
+    expect(thread.loadLocal(0) === 3).toBe(true)
     expect(thread.getPC()).toBe(2)
   })
 })
@@ -127,7 +127,7 @@ describe('Lstore0', () => {
     } catch (e) {}
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(0)
-    expect(thread.loadLocal(0) === BigInt(5)).toBe(true)
+    expect(thread.loadLocal(0) === 5).toBe(true)
     expect(thread.getPC()).toBe(1)
   })
 })
@@ -142,7 +142,7 @@ describe('Lstore1', () => {
     } catch (e) {}
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(0)
-    expect(thread.loadLocal(1) === BigInt(5)).toBe(true)
+    expect(thread.loadLocal(1) === 5).toBe(true)
     expect(thread.getPC()).toBe(1)
   })
 })
@@ -157,7 +157,7 @@ describe('Lstore2', () => {
     } catch (e) {}
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(0)
-    expect(thread.loadLocal(2) === BigInt(5)).toBe(true)
+    expect(thread.loadLocal(2) === 5).toBe(true)
     expect(thread.getPC()).toBe(1)
   })
 })
@@ -172,7 +172,7 @@ describe('Lstore3', () => {
     } catch (e) {}
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(0)
-    expect(thread.loadLocal(3) === BigInt(5)).toBe(true)
+    expect(thread.loadLocal(3) === 5).toBe(true)
     expect(thread.getPC()).toBe(1)
   })
 })
@@ -618,7 +618,7 @@ describe('Lastore', () => {
     } catch (e) {}
     const lastFrame = thread.peekStackFrame()
     expect(lastFrame.operandStack.length).toBe(0)
-    expect(arrayref.get(0) === BigInt(5)).toBe(true)
+    expect(arrayref.get(0) === 5).toBe(true)
     expect(thread.getPC()).toBe(1)
   })
 
@@ -0,0 +1,221 @@
+import { OPCODE } from '../../ClassFile/constants/instructions'
+import { METHOD_FLAGS } from '../../ClassFile/types/methods'
+import { CLASS_STATUS } from '../constants'
+import { JIT } from '../jit'
+import { JavaStackFrame } from '../stackframe'
+import Thread from '../thread'
+import { ReferenceClassData } from '../types/class/ClassData'
+import { Method } from '../types/class/Method'
+import { TestClassLoader, setupTest } from './__utils__/test-utils'
+
+let thread: Thread
+let testLoader: TestClassLoader
+
+const sumCode = (count: number) =>
+  new DataView(
+    new Uint8Array([
+      OPCODE.ICONST_0,
+      OPCODE.ISTORE_0,
+      OPCODE.ICONST_0,
+      OPCODE.ISTORE_1,
+      OPCODE.ILOAD_1, // 4: loop header
+      OPCODE.SIPUSH,
+      (count >> 8) & 0xff,
+      count & 0xff,
+      OPCODE.IF_ICMPGE,
+      0,
+      13, // 21
+      OPCODE.ILOAD_0,
+      OPCODE.ILOAD_1,
+      OPCODE.IADD,
+      OPCODE.ISTORE_0,
+      OPCODE.IINC,
+      1,
+      1,
+      OPCODE.GOTO,
+      0xff,
+      0xf2, // 4
+      OPCODE.ILOAD_0,
+      OPCODE.IRETURN
+    ]).buffer
+  )
+
+const createMethod = (code: DataView) => {
+  const cls = testLoader.createClass({
+    className: 'Jit',
+    methods: [
+      {
+        accessFlags: [METHOD_FLAGS.ACC_STATIC],
+        name: 'run',
+        descriptor: '()I',
+        attributes: [],
+        code
+      }
+    ],
+    loader: testLoader
+  }) as ReferenceClassData
+  return { cls, method: cls.getMethod('run()I') as Method }
+}
+
+/**
+ * Creates a class with a static method run()I, which calls the static method callee.
+ * @param run code of run, calling callee through constant 11
+ */
+const createCaller = (run: DataView, callee: { descriptor: string; code: DataView }) => {
+  const cls = testLoader.createClass({
+    // methodrefs created by the test loader refer to the class Test
+    className: 'Test',
+    methods: [
+      // methodref at 11
+      { accessFlags: [METHOD_FLAGS.ACC_STATIC], name: 'callee', attributes: [], ...callee },
+      {
+        accessFlags: [METHOD_FLAGS.ACC_STATIC],
+        name: 'run',
+        descriptor: '()I',
+        attributes: [],
+        code: run
+      }
+    ],
+    status: CLASS_STATUS.INITIALIZED,
+    loader: testLoader
+  }) as ReferenceClassData
+  return {
+    cls,
+    run: cls.getMethod('run()I') as Method,
+    callee: cls.getMethod(`callee${callee.descriptor}`) as Method
+  }
+}
+
+const runToReturn = () => {
+  for (let i = 0; i < 100 && thread.getFrames().length > 1; i++) {
+    thread.runFor(1)
+  }
+}
+
+/**
+ * Invokes the method on top of a caller frame, which receives the return value.
+ */
+const invoke = (jit: JIT, code: DataView) => {
+  const { cls, method } = createMethod(code)
+  const frame = new JavaStackFrame(cls, method, 0, [])
+  thread.invokeStackFrame(frame)
+  jit.onInvoke(thread, frame)
+  return { method, frame }
+}
+
+beforeEach(() => {
+  const setup = setupTest()
+  thread = setup.thread
+  testLoader = setup.testLoader
+  thread.invokeStackFrame(new JavaStackFrame(setup.classes.testClass, setup.method, 0, []))
+})
+
+describe('JIT', () => {
+  test('JIT: compiles a hot loop and enters it at the loop header', () => {
+    const jit = new JIT(2)
+    const { method } = invoke(jit, sumCode(100))
+    expect(jit.isCompiled(method)).toBe(false)
+
+    // interprets up to the loop header, which crosses the threshold
+    thread.runFor(5)
+
+    expect(jit.isCompiled(method)).toBe(true)
+    expect(thread.getFrames().length).toBe(1)
+    expect(thread.popStack()).toBe(4950)
+  })
+
+  test('JIT: returns to the interpreter at the loop header when the loop budget runs out', () => {
+    const jit = new JIT(1)
+    const { method, frame } = invoke(jit, sumCode(15000))
+    expect(jit.isCompiled(method)).toBe(true)
+
+    thread.runFor(1)
+    expect(thread.peekStackFrame()).toBe(frame)
+    expect(thread.getPC()).toBe(4)
+    expect(frame.locals[1]).toBe(10000)
+    expect(frame.locals[0]).toBe(49995000)
+
+    thread.runFor(1)
+    expect(thread.getFrames().length).toBe(1)
+    expect(thread.popStack()).toBe(112492500)
+  })
+
+  test('JIT: throws exceptions from compiled code on the thread', () => {
+    const jit = new JIT(1)
+    const code = new DataView(
+      new Uint8Array([OPCODE.ICONST_1, OPCODE.ICONST_0, OPCODE.IDIV, OPCODE.IRETURN]).buffer
+    )
+    const { method } = invoke(jit, code)
+    expect(jit.isCompiled(method)).toBe(true)
+
+    thread.throwNewException = jest.fn()
+    thread.runFor(1)
+    expect(thread.throwNewException).toHaveBeenCalledWith(
+      'java/lang/ArithmeticException',
+      'Division by 0'
+    )
+  })
+
+  test('JIT: compiles static methods called from compiled code', () => {
+    const jit = new JIT(1)
+    const { cls, run, callee } = createCaller(
+      new DataView(
+        new Uint8Array([OPCODE.BIPUSH, 21, OPCODE.INVOKESTATIC, 0, 11, OPCODE.IRETURN]).buffer
+      ),
+      {
+        descriptor: '(I)I',
+        code: new DataView(
+          new Uint8Array([OPCODE.ILOAD_0, OPCODE.ICONST_2, OPCODE.IMUL, OPCODE.IRETURN]).buffer
+        )
+      }
+    )
+    const frame = new JavaStackFrame(cls, run, 0, [])
+    thread.invokeStackFrame(frame)
+    jit.onInvoke(thread, frame)
+    expect(jit.isCompiled(run)).toBe(true)
+    expect(jit.isCompiled(callee)).toBe(true)
+
+    thread.runFor(1)
+    expect(thread.getFrames().length).toBe(1)
+    expect(thread.popStack()).toBe(42)
+  })
+
+  test('JIT: does not call compiled static methods with loops from compiled code', () => {
+    const jit = new JIT(1)
+    const { cls, run, callee } = createCaller(
+      new DataView(new Uint8Array([OPCODE.INVOKESTATIC, 0, 11, OPCODE.IRETURN]).buffer),
+      { descriptor: '()I', code: sumCode(15000) }
+    )
+
+    // the callee is compiled on its own first, its loop runs past the loop budget
+    const calleeFrame = new JavaStackFrame(cls, callee, 0, [])
+    thread.invokeStackFrame(calleeFrame)
+    jit.onInvoke(thread, calleeFrame)
+    expect(jit.isCompiled(callee)).toBe(true)
+    runToReturn()
+    expect(thread.popStack()).toBe(112492500)
+
+    const frame = new JavaStackFrame(cls, run, 0, [])
+    thread.invokeStackFrame(frame)
+    jit.onInvoke(thread, frame)
+    expect(jit.isCompiled(run)).toBe(false)
+
+    runToReturn()
+    expect(thread.getFrames().length).toBe(1)
+    expect(thread.popStack()).toBe(112492500)
+  })
+
+  test('JIT: does not compile methods using monitors', () => {
+    const jit = new JIT(1)
+    const code = new DataView(
+      new Uint8Array([
+        OPCODE.ACONST_NULL,
+        OPCODE.MONITORENTER,
+        OPCODE.ICONST_0,
+        OPCODE.IRETURN
+      ]).buffer
+    )
+    const { method } = invoke(jit, code)
+    expect(jit.isCompiled(method)).toBe(false)
+  })
+})
@@ -60,4 +60,28 @@ describe('JNI', () => {
     expect(jni['classPath']).toBe('testClassPath')
     expect(jni['system']).toBe(testSystem)
   })
+
+  test('JNI: does not modify a stdlib shared with other JNIs', () => {
+    const stdlib = {
+      'test/Test': {
+        methods: {
+          'stdrun()V': callback
+        }
+      }
+    }
+    const jni = new JNI('stdlib', testSystem, stdlib)
+    const other = new JNI('stdlib', testSystem, stdlib)
+    const override = jest.fn()
+    jni.registerNativeMethod('test/Test', 'stdrun()V', override)
+
+    const tPool = new TestThreadPool(() => {})
+    const jvm = new TestJVM(testSystem, testLoader, other)
+    const thread = new TestThread(threadClass as ReferenceClassData, jvm, tPool)
+
+    expect(stdlib['test/Test'].methods['stdrun()V']).toBe(callback)
+    const getResult = other.getNativeMethod(thread, 'test/Test', 'stdrun()V')
+    expect((getResult as SuccessResult<any>).result).toBe(callback)
+    const overridden = jni.getNativeMethod(thread, 'test/Test', 'stdrun()V')
+    expect((overridden as SuccessResult<any>).result).toBe(override)
+  })
 })
@@ -1,3 +1,4 @@
+import { ThreadStatus } from '../constants'
 import Monitor from '../monitor'
 import { ReferenceClassData } from '../types/class/ClassData'
 import { TestSystem, TestClassLoader, TestThreadPool, TestThread } from './__utils__/test-utils'
@@ -80,3 +81,124 @@ describe('Monitor', () => {
     expect(onEnter).toHaveBeenCalledTimes(1)
   })
 })
+
+describe('Monitor wait/notify', () => {
+  test('Monitor: notified thread reacquires monitor with its recursion count', () => {
+    const thread = new TestThread(threadClass, null as any, tpool)
+    const thread2 = new TestThread(threadClass, null as any, tpool)
+    monitor.enter(thread)
+    monitor.enter(thread)
+    expect(monitor.wait(thread)).toBe(true)
+    expect(thread.getStatus()).toBe(ThreadStatus.WAITING)
+    expect(monitor.owner).toBe(null)
+
+    monitor.enter(thread2)
+    monitor.notify(thread2)
+    expect(thread.getStatus()).toBe(ThreadStatus.BLOCKED)
+
+    monitor.exit(thread2)
+    expect(thread.getStatus()).toBe(ThreadStatus.RUNNABLE)
+    expect(monitor.owner).toBe(thread)
+    expect(monitor.entryCount).toBe(2)
+  })
+
+  test('Monitor: notify wakes a single thread in wait order', () => {
+    const thread = new TestThread(threadClass, null as any, tpool)
+    const thread2 = new TestThread(threadClass, null as any, tpool)
+    const thread3 = new TestThread(threadClass, null as any, tpool)
+    monitor.enter(thread)
+    monitor.wait(thread)
+    monitor.enter(thread2)
+    monitor.wait(thread2)
+
+    monitor.enter(thread3)
+    monitor.notify(thread3)
+    expect(thread.getStatus()).toBe(ThreadStatus.BLOCKED)
+    expect(thread2.getStatus()).toBe(ThreadStatus.WAITING)
+
+    monitor.notifyAll(thread3)
+    expect(thread2.getStatus()).toBe(ThreadStatus.BLOCKED)
+  })
+
+  test('Monitor: timed wait reacquires monitor when the timer fires', () => {
+    const thread = new TestThread(threadClass, null as any, tpool)
+    const cancel = jest.fn()
+    let onWake: () => void = () => {}
+    jest.spyOn(tpool, 'sleep').mockImplementation((t, millis, wake) => {
+      t.setStatus(ThreadStatus.TIMED_WAITING)
+      onWake = wake as () => void
+      return cancel
+    })
+
+    monitor.enter(thread)
+    monitor.wait(thread, 100)
+    expect(tpool.sleep).toHaveBeenCalledWith(thread, 100, expect.any(Function))
+    expect(thread.getStatus()).toBe(ThreadStatus.TIMED_WAITING)
+
+    onWake()
+    expect(thread.getStatus()).toBe(ThreadStatus.RUNNABLE)
+    expect(monitor.owner).toBe(thread)
+    expect(cancel).toHaveBeenCalled()
+  })
+
+  test('Monitor: notify by non owner throws IllegalMonitorStateException', () => {
+    const thread = new TestThread(threadClass, null as any, tpool)
+    const throwNewException = jest.spyOn(thread, 'throwNewException').mockImplementation(() => {})
+
+    expect(monitor.notify(thread)).toBe(false)
+    expect(throwNewException).toBeCalledWith(
+      'java/lang/IllegalMonitorStateException',
+      'current thread is not owner'
+    )
+  })
+})
+
+describe('Thin lock', () => {
+  test('JvmObject: uncontended locking does not inflate the monitor', () => {
+    const thread = new TestThread(threadClass, null as any, tpool)
+    const obj = threadClass.instantiate()
+    const onEnter = jest.fn()
+
+    expect(obj.monitorEnter(thread, onEnter)).toBe(true)
+    expect(obj.monitorEnter(thread, onEnter)).toBe(true)
+    expect(obj.holdsLock(thread)).toBe(true)
+    obj.monitorExit(thread)
+    obj.monitorExit(thread)
+
+    expect(onEnter).toHaveBeenCalledTimes(2)
+    expect(obj.holdsLock(thread)).toBe(false)
+    expect((obj as any).monitor).toBeUndefined()
+  })
+
+  test('JvmObject: contention inflates the thin lock', () => {
+    const thread = new TestThread(threadClass, null as any, tpool)
+    const thread2 = new TestThread(threadClass, null as any, tpool)
+    const obj = threadClass.instantiate()
+    const onEnter = jest.fn()
+
+    obj.monitorEnter(thread)
+    obj.monitorEnter(thread)
+    expect(obj.monitorEnter(thread2, onEnter)).toBe(false)
+    expect(thread2.getStatus()).toBe(ThreadStatus.BLOCKED)
+    expect(obj.getMonitor().owner).toBe(thread)
+    expect(obj.getMonitor().entryCount).toBe(2)
+
+    obj.monitorExit(thread)
+    expect(onEnter).toHaveBeenCalledTimes(0)
+    obj.monitorExit(thread)
+    expect(onEnter).toHaveBeenCalledTimes(1)
+    expect(obj.holdsLock(thread2)).toBe(true)
+  })
+
+  test('JvmObject: exiting an unowned thin lock throws IllegalMonitorStateException', () => {
+    const thread = new TestThread(threadClass, null as any, tpool)
+    const throwNewException = jest.spyOn(thread, 'throwNewException').mockImplementation(() => {})
+    const obj = threadClass.instantiate()
+
+    obj.monitorExit(thread)
+    expect(throwNewException).toBeCalledWith(
+      'java/lang/IllegalMonitorStateException',
+      'Cannot exit a monitor that you do not own.'
+    )
+  })
+})
@@ -0,0 +1,164 @@
+/**
+ * @jest-environment node
+ */
+import * as fs from 'fs'
+import * as path from 'path'
+import { compileFromSource } from '../../compiler'
+import { JVMPool, JVMPoolOptions, JVMPoolResult } from '../pool'
+import { QuotaExceeded } from '../quota'
+import { packClassArchive } from '../utils/archive'
+
+const stubWorker = path.join(__dirname, '__utils__', 'pool-stub-worker.js')
+const sourceWorker = path.join(__dirname, '__utils__', 'pool-ts-worker.js')
+// written by the build script in src/jvm/utils
+const stdlibArchive = path.resolve(__dirname, '../../../dist/jvm/utils/classfiles.bin')
+
+/**
+ * Worker, bootstrap and run count reported by the stub worker.
+ */
+const stub = (result: JVMPoolResult) =>
+  JSON.parse(result.stdout) as { worker: number; bootstrap: number; run: number }
+
+let current: JVMPool | null = null
+
+const createPool = (options: Partial<JVMPoolOptions> = {}) => {
+  current = new JVMPool({
+    archive: packClassArchive({}),
+    workers: 1,
+    workerScript: stubWorker,
+    ...options
+  })
+  return current
+}
+
+afterEach(async () => {
+  await current?.close()
+  current = null
+})
+
+describe('JVMPool', () => {
+  test('JVMPool: runs one program per worker and queues the rest', async () => {
+    const pool = createPool({ workers: 2 })
+    const results = await Promise.all(
+      [0, 1, 2].map(() => pool.run({ mainClass: 'Sleep', classFiles: [], timeLimit: 50 }))
+    )
+    const [first, second, queued] = results.map(stub)
+
+    expect(first.worker).not.toBe(second.worker)
+    expect([first.worker, second.worker]).toContain(queued.worker)
+    expect(queued.bootstrap).toBe(1)
+    expect(queued.run).toBe(2)
+  })
+
+  test('JVMPool: keeps the worker of a halted run', async () => {
+    const pool = createPool()
+    const first = stub(await pool.run({ classFiles: [] }))
+    const second = stub(await pool.run({ classFiles: [] }))
+    expect(second).toEqual({ worker: first.worker, bootstrap: 1, run: 2 })
+
+    const halted = await pool.run({ mainClass: 'Halt', classFiles: [] })
+    expect(halted.exceeded).toBe(QuotaExceeded.INSTRUCTIONS)
+
+    const next = stub(await pool.run({ classFiles: [] }))
+    expect(next).toEqual({ worker: first.worker, bootstrap: 2, run: 1 })
+  })
+
+  test('JVMPool: replaces a worker that overruns its time limit', async () => {
+    const pool = createPool({ killAfter: 20 })
+    const before = stub(await pool.run({ classFiles: [] }))
+
+    const spinning = pool.run({ mainClass: 'Spin', classFiles: [], timeLimit: 10 })
+    const queued = pool.run({ classFiles: [] })
+
+    const result = await spinning
+    expect(result.exceeded).toBe(QuotaExceeded.TIME)
+    expect(result.error).toBe(null)
+    expect(result.stdout).toBe('')
+
+    const after = stub(await queued)
+    expect(after.worker).not.toBe(before.worker)
+    expect(after.bootstrap).toBe(1)
+  })
+
+  test('JVMPool: resolves the run of a crashed worker with its error', async () => {
+    const pool = createPool()
+    const before = stub(await pool.run({ classFiles: [] }))
+
+    const result = await pool.run({ mainClass: 'Crash', classFiles: [] })
+    expect(result.error).toMatch('worker crashed')
+    expect(result.exceeded).toBe(null)
+
+    const after = stub(await pool.run({ classFiles: [] }))
+    expect(after.worker).not.toBe(before.worker)
+  })
+
+  test('JVMPool: close rejects running and queued runs', async () => {
+    const pool = createPool()
+    const running = pool.run({ mainClass: 'Sleep', classFiles: [], timeLimit: 1000 })
+    const queued = pool.run({ classFiles: [] })
+
+    await Promise.all([
+      expect(running).rejects.toThrow('JVMPool is closed'),
+      expect(queued).rejects.toThrow('JVMPool is closed'),
+      pool.close()
+    ])
+    await expect(pool.run({ classFiles: [] })).rejects.toThrow('JVMPool is closed')
+  })
+})
+
+describe('JVMPool with pool-worker', () => {
+  test('JVMPool: reports a JVM that fails to start and starts a new one', async () => {
+    const pool = createPool({ workerScript: sourceWorker })
+
+    const first = await pool.run({ classFiles: [] })
+    expect(first.error).toMatch('Initialization classes not found')
+    expect(first.exceeded).toBe(null)
+
+    const second = await pool.run({ classFiles: [] })
+    expect(second.error).toMatch('Initialization classes not found')
+  }, 30000)
+
+  // needs the standard library classes, skipped if the archive has not been built
+  const stdlibTest = fs.existsSync(stdlibArchive) ? test : test.skip
+
+  stdlibTest(
+    'JVMPool: runs programs on the stdlib and restarts a halted JVM',
+    async () => {
+      const pool = createPool({
+        archive: fs.readFileSync(stdlibArchive),
+        workerScript: sourceWorker
+      })
+      const hello = compileFromSource(`
+        public class Main {
+          public static void main(String[] args) {
+            System.out.println("Hello");
+          }
+        }
+      `)
+      const loop = compileFromSource(`
+        public class Main {
+          public static void main(String[] args) {
+            int i = 0;
+            while (true) {
+              i++;
+            }
+          }
+        }
+      `)
+
+      const first = await pool.run({ classFiles: [hello] })
+      expect(first.error).toBe(null)
+      expect(first.stdout).toContain('Hello')
+      expect(first.instructions).toBeGreaterThan(0)
+
+      const halted = await pool.run({ classFiles: [loop], maxInstructions: 10000 })
+      expect(halted.exceeded).toBe(QuotaExceeded.INSTRUCTIONS)
+      expect(halted.instructions).toBeGreaterThanOrEqual(10000)
+
+      const restarted = await pool.run({ classFiles: [hello] })
+      expect(restarted.error).toBe(null)
+      expect(restarted.stdout).toContain('Hello')
+    },
+    60000
+  )
+})
@@ -0,0 +1,93 @@
+import { OPCODE } from '../../ClassFile/constants/instructions'
+import { Profiler } from '../profiler'
+import { StackFrame } from '../stackframe'
+import Thread from '../thread'
+import { ClassData } from '../types/class/ClassData'
+
+const createFrame = (className: string, name: string, descriptor: string) => {
+  const cls = { getName: () => className }
+  const method = { getClass: () => cls, getName: () => name, getDescriptor: () => descriptor }
+  return { method } as unknown as StackFrame
+}
+
+let profiler: Profiler
+let thread: Thread
+
+beforeEach(() => {
+  profiler = new Profiler()
+  thread = {} as Thread
+})
+
+describe('Profiler', () => {
+  test('Profiler: counts invocations and instructions per method', () => {
+    const main = createFrame('Main', 'main', '([Ljava/lang/String;)V')
+    const callee = createFrame('Main', 'f', '(I)I')
+
+    profiler.onInvoke(thread, main)
+    profiler.onInstruction(thread, main, OPCODE.ICONST_1)
+    profiler.onInvoke(thread, callee)
+    profiler.onInstruction(thread, callee, OPCODE.ILOAD_0)
+    profiler.onInstruction(thread, callee, OPCODE.IRETURN)
+    profiler.onReturn(thread, callee)
+    profiler.onInvoke(thread, callee)
+    profiler.onReturn(thread, callee)
+    profiler.onReturn(thread, main)
+
+    const report = profiler.getReport()
+    const fStats = report.methods.find(x => x.method === 'Main.f(I)I')
+    const mainStats = report.methods.find(x => x.method === 'Main.main([Ljava/lang/String;)V')
+    expect(fStats?.invocations).toBe(2)
+    expect(fStats?.instructions).toBe(2)
+    expect(mainStats?.invocations).toBe(1)
+    expect(mainStats?.instructions).toBe(1)
+    expect(report.opcodes).toEqual({ ICONST_1: 1, ILOAD_0: 1, IRETURN: 1 })
+  })
+
+  test('Profiler: exports folded stacks', () => {
+    const main = createFrame('Main', 'main', '([Ljava/lang/String;)V')
+    const callee = createFrame('Main', 'f', '(I)I')
+
+    profiler.onInvoke(thread, main)
+    profiler.onInvoke(thread, callee)
+    profiler.onInstruction(thread, callee, OPCODE.NOP)
+    profiler.onInstruction(thread, callee, OPCODE.NOP)
+    profiler.onReturn(thread, callee)
+    profiler.onInstruction(thread, main, OPCODE.RETURN)
+    profiler.onReturn(thread, main)
+
+    const lines = profiler.toFoldedStacks('instructions').split('\n').sort()
+    expect(lines).toEqual([
+      'Main.main([Ljava/lang/String)V 1',
+      'Main.main([Ljava/lang/String)V;Main.f(I)I 2'
+    ])
+  })
+
+  test('Profiler: counts allocations per class', () => {
+    const cls = { getName: () => 'java/lang/StringBuilder' } as ClassData
+    profiler.onAllocate(cls)
+    profiler.onAllocate(cls, 3)
+
+    expect(profiler.getReport().allocations).toEqual({ 'java/lang/StringBuilder': 4 })
+  })
+
+  test('Profiler: nested class loads are timed once', () => {
+    const outer = profiler.beginClassLoad()
+    const inner = profiler.beginClassLoad()
+    profiler.endClassLoad('java/lang/Object', inner)
+    profiler.endClassLoad('Main', outer)
+
+    const classLoads = profiler.getReport().classLoads
+    expect(classLoads.count).toBe(2)
+    expect(Object.keys(classLoads.classes).sort()).toEqual(['Main', 'java/lang/Object'])
+    expect(classLoads.time).toBe(classLoads.classes['Main'])
+  })
+
+  test('Profiler: records phases and exports JSON', () => {
+    profiler.beginPhase('bootstrap')
+    profiler.endPhase('bootstrap')
+    profiler.endPhase('main')
+
+    const report = JSON.parse(profiler.toJSON())
+    expect(Object.keys(report.phases)).toEqual(['bootstrap'])
+  })
+})
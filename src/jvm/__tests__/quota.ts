@@ -0,0 +1,90 @@
+import { OPCODE } from '../../ClassFile/constants/instructions'
+import { METHOD_FLAGS } from '../../ClassFile/types/methods'
+import { Quota, QuotaExceeded } from '../quota'
+import { JavaStackFrame } from '../stackframe'
+import { ReferenceClassData } from '../types/class/ClassData'
+import { Method } from '../types/class/Method'
+import { setupTest } from './__utils__/test-utils'
+
+afterEach(() => {
+  jest.useRealTimers()
+})
+
+describe('Quota', () => {
+  test('Quota: exceeded once the instructions are used up', () => {
+    const onExceeded = jest.fn()
+    const quota = new Quota({ maxInstructions: 100 })
+    quota.start(onExceeded)
+
+    expect(quota.clamp(1000)).toBe(100)
+    quota.charge(60)
+    expect(onExceeded).not.toHaveBeenCalled()
+    expect(quota.clamp(1000)).toBe(40)
+
+    quota.charge(40)
+    expect(onExceeded).toHaveBeenCalledWith(QuotaExceeded.INSTRUCTIONS)
+    expect(quota.getExceeded()).toBe(QuotaExceeded.INSTRUCTIONS)
+    expect(quota.getInstructionCount()).toBe(100)
+  })
+
+  test('Quota: exceeded once the time limit has passed', () => {
+    jest.useFakeTimers()
+    const onExceeded = jest.fn()
+    const quota = new Quota({ timeLimit: 50 })
+    quota.start(onExceeded)
+
+    jest.advanceTimersByTime(49)
+    expect(onExceeded).not.toHaveBeenCalled()
+    jest.advanceTimersByTime(1)
+    expect(onExceeded).toHaveBeenCalledWith(QuotaExceeded.TIME)
+
+    // only the first limit is reported
+    quota.charge(1000)
+    expect(onExceeded).toHaveBeenCalledTimes(1)
+    expect(quota.getExceeded()).toBe(QuotaExceeded.TIME)
+  })
+
+  test('Quota: stop cancels the time limit', () => {
+    jest.useFakeTimers()
+    const onExceeded = jest.fn()
+    const quota = new Quota({ timeLimit: 50 })
+    quota.start(onExceeded)
+    quota.stop()
+
+    jest.advanceTimersByTime(100)
+    expect(onExceeded).not.toHaveBeenCalled()
+    expect(quota.getExceeded()).toBe(null)
+  })
+
+  test('Quota: threads charge the instructions they run', () => {
+    const { thread, testLoader } = setupTest()
+    const cls = testLoader.createClass({
+      className: 'Loop',
+      methods: [
+        {
+          accessFlags: [METHOD_FLAGS.ACC_STATIC],
+          name: 'run',
+          descriptor: '()V',
+          attributes: [],
+          code: new DataView(new Uint8Array([OPCODE.GOTO, 0, 0]).buffer)
+        }
+      ],
+      loader: testLoader
+    }) as ReferenceClassData
+    const method = cls.getMethod('run()V') as Method
+    thread.invokeStackFrame(new JavaStackFrame(cls, method, 0, []))
+
+    const onExceeded = jest.fn()
+    const quota = new Quota({ maxInstructions: 25 })
+    quota.start(onExceeded)
+    jest.spyOn(thread.getJVM(), 'getQuota').mockReturnValue(quota)
+
+    thread.runFor(10)
+    expect(quota.getInstructionCount()).toBe(10)
+    expect(onExceeded).not.toHaveBeenCalled()
+
+    thread.runFor(100)
+    expect(quota.getInstructionCount()).toBe(25)
+    expect(onExceeded).toHaveBeenCalledWith(QuotaExceeded.INSTRUCTIONS)
+  })
+})
@@ -0,0 +1,86 @@
+import { FIELD_FLAGS } from '../../ClassFile/types/fields'
+import { ApplicationClassLoader } from '../ClassLoader/AbstractClassLoader'
+import { CLASS_STATUS } from '../constants'
+import { JVMSnapshot } from '../snapshot'
+import { ReferenceClassData } from '../types/class/ClassData'
+import { JvmObject } from '../types/reference/Object'
+import { setupTest, TestClassLoader, TestSystem } from './__utils__/test-utils'
+
+let testLoader: TestClassLoader
+let testSystem: TestSystem
+let snapClass: ReferenceClassData
+
+beforeEach(() => {
+  const setup = setupTest()
+  testLoader = setup.testLoader
+  testSystem = setup.testSystem
+  snapClass = testLoader.createClass({
+    className: 'Snap',
+    loader: testLoader,
+    fields: [
+      { accessFlags: [FIELD_FLAGS.ACC_STATIC], name: 'counter', descriptor: 'I' },
+      { accessFlags: [FIELD_FLAGS.ACC_STATIC], name: 'ref', descriptor: 'LSnap;' },
+      { accessFlags: [FIELD_FLAGS.ACC_PUBLIC], name: 'value', descriptor: 'I' }
+    ]
+  }) as ReferenceClassData
+})
+
+const createSnapshot = () => {
+  const objCls = snapClass.getSuperClass() as ReferenceClassData
+  return new JVMSnapshot(testLoader, [], objCls.instantiate(), objCls.instantiate())
+}
+
+describe('JVMSnapshot', () => {
+  test('JVMSnapshot: restores static fields and class status', () => {
+    const counter = snapClass.lookupField('counterI')
+    counter?.putValue(5)
+    snapClass.status = CLASS_STATUS.INITIALIZED
+
+    const snapshot = createSnapshot()
+    counter?.putValue(7)
+    snapClass.status = CLASS_STATUS.ERROR
+
+    snapshot.restore(testLoader, new ApplicationClassLoader(testSystem, '', testLoader))
+    expect(counter?.getValue()).toBe(5)
+    expect(snapClass.status).toBe(CLASS_STATUS.INITIALIZED)
+  })
+
+  test('JVMSnapshot: restores objects reachable from static fields in place', () => {
+    const obj = snapClass.instantiate()
+    obj._putField('value', 'I', 'Snap', 1)
+    snapClass.lookupField('refLSnap;')?.putValue(obj)
+
+    const snapshot = createSnapshot()
+    obj._putField('value', 'I', 'Snap', 2)
+    snapClass.lookupField('refLSnap;')?.putValue(null)
+
+    snapshot.restore(testLoader, new ApplicationClassLoader(testSystem, '', testLoader))
+    expect(snapClass.lookupField('refLSnap;')?.getValue()).toBe(obj)
+    expect(obj._getField('value', 'I', 'Snap')).toBe(1)
+  })
+
+  test('JVMSnapshot: resets classes loaded after the snapshot', () => {
+    const snapshot = createSnapshot()
+
+    const laterClass = testLoader.createClass({
+      className: 'Later',
+      loader: testLoader,
+      fields: [{ accessFlags: [FIELD_FLAGS.ACC_STATIC], name: 'counter', descriptor: 'I' }]
+    }) as ReferenceClassData
+    laterClass.lookupField('counterI')?.putValue(3)
+    laterClass.status = CLASS_STATUS.INITIALIZED
+
+    snapshot.restore(testLoader, new ApplicationClassLoader(testSystem, '', testLoader))
+    expect(laterClass.status).toBe(CLASS_STATUS.PREPARED)
+    expect(laterClass.lookupField('counterI')?.getValue()).toBe(0)
+  })
+
+  test('JVMSnapshot: links the system classloader to the new application classloader', () => {
+    const snapshot = createSnapshot()
+    const appLoader = new ApplicationClassLoader(testSystem, '', testLoader)
+
+    snapshot.restore(testLoader, appLoader)
+    const javaLoader = appLoader.getJavaObject() as JvmObject
+    expect(javaLoader.getNativeField('loader')).toBe(appLoader)
+  })
+})
@@ -0,0 +1,33 @@
+import { j2jsString, js2jString } from '../utils'
+import { TestClassLoader, setupTest } from './__utils__/test-utils'
+
+let testLoader: TestClassLoader
+
+beforeEach(() => {
+  testLoader = setupTest().testLoader
+})
+
+afterEach(() => {
+  jest.restoreAllMocks()
+})
+
+describe('Strings', () => {
+  test('j2jsString: converts strings created by js2jString', () => {
+    expect(j2jsString(js2jString(testLoader, 'hello'))).toBe('hello')
+    expect(j2jsString(js2jString(testLoader, ''))).toBe('')
+  })
+
+  test('j2jsString: converts long strings', () => {
+    const long = 'ab'.repeat(20000) + 'é'
+    const str = js2jString(testLoader, long)
+    expect(j2jsString(str)).toBe(long)
+  })
+
+  test('j2jsString: reuses the JS string of a Java string', () => {
+    const str = js2jString(testLoader, 'cached')
+    const spy = jest.spyOn(String, 'fromCharCode')
+    expect(j2jsString(str)).toBe('cached')
+    expect(j2jsString(str)).toBe('cached')
+    expect(spy).not.toHaveBeenCalled()
+  })
+})
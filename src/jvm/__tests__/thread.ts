@@ -5,6 +5,8 @@ import { JvmObject } from '../types/reference/Object'
 import Thread from '../../jvm/thread'
 import JVM from '../../jvm/jvm'
 import { setupTest, TestThreadPool } from './__utils__/test-utils'
+import { JavaStackFrame } from '../stackframe'
+import { UNDERFLOW } from '../utils'
 
 let thread: Thread
 let threadClass: ReferenceClassData
@@ -65,6 +67,45 @@ describe('Thread', () => {
   })
   
   test('should manage wide (64-bit) values on the operand stack correctly', () => {
-    // TODO
+    const setup = setupTest()
+    thread = setup.thread
+    thread.invokeStackFrame(new JavaStackFrame(setup.classes.testClass, setup.method, 0, []))
+
+    thread.pushStack(1)
+    thread.pushStack64(BigInt(2))
+    expect(thread.peekStackFrame().getStackSize()).toBe(3)
+    expect(thread.popStack64()).toBe(2)
+    expect(thread.popStack()).toBe(1)
+    expect(thread.peekStackFrame().getStackSize()).toBe(0)
+  })
+
+  test('should place the operand stack of an invoked frame above the stack of its caller', () => {
+    const setup = setupTest()
+    thread = setup.thread
+    const caller = new JavaStackFrame(setup.classes.testClass, setup.method, 0, [])
+    thread.invokeStackFrame(caller)
+    thread.pushStack(1)
+    thread.pushStack(2)
+
+    const callee = new JavaStackFrame(setup.classes.testClass, setup.method, 0, [])
+    thread.invokeStackFrame(callee)
+    expect(callee.stackBase).toBe(caller.stackTop)
+    thread.pushStack(3)
+    expect(callee.operandStack).toEqual([3])
+    expect(caller.operandStack).toEqual([1, 2])
+  })
+
+  test('should return UNDERFLOW when popping an empty operand stack', () => {
+    const setup = setupTest()
+    thread = setup.thread
+    thread.invokeStackFrame(new JavaStackFrame(setup.classes.testClass, setup.method, 0, []))
+    thread.throwNewException = jest.fn()
+    thread.pushStack(1)
+
+    expect(thread.popStack64()).toBe(UNDERFLOW)
+    expect(thread.throwNewException).toHaveBeenCalledWith(
+      'java/lang/RuntimeException',
+      'Stack Underflow'
+    )
   })
 })
@@ -1,5 +1,5 @@
 import { ThreadStatus } from '../constants'
-import { Deque, RoundRobinThreadPool } from '../threadpool'
+import { AdaptiveThreadPool, Deque, RoundRobinThreadPool, TimerHeap } from '../threadpool'
 import { setupTest, TestClassLoader, TestThread } from './__utils__/test-utils'
 import { ReferenceClassData } from '../types/class/ClassData'
 
@@ -128,3 +128,107 @@ describe('RoundRobinThreadPool', () => {
     expect(onEmpty).not.toHaveBeenCalled()
   })
 })
+
+describe('TimerHeap', () => {
+  test('TimerHeap: pops timers in deadline order', () => {
+    const heap = new TimerHeap()
+    const deadlines = [5, 1, 4, 2, 8, 3, 7, 6]
+    for (const deadline of deadlines) {
+      heap.push({ deadline, thread: null as any })
+    }
+
+    expect(heap.size()).toBe(deadlines.length)
+    expect(heap.peek()?.deadline).toBe(1)
+
+    const popped = []
+    while (heap.size() > 0) {
+      popped.push(heap.pop()?.deadline)
+    }
+    expect(popped).toEqual([1, 2, 3, 4, 5, 6, 7, 8])
+    expect(heap.pop()).toBe(null)
+  })
+})
+
+describe('AdaptiveThreadPool', () => {
+  test('AdaptiveThreadPool: does not queue a runnable thread twice', () => {
+    const onEmpty = jest.fn()
+    const pool = new AdaptiveThreadPool(onEmpty)
+
+    const threadClass = testLoader.createClass({
+      className: 'java/lang/Thread',
+      loader: testLoader
+    }) as ReferenceClassData
+
+    const thread1 = new TestThread(threadClass, null as any, pool)
+    const thread2 = new TestThread(threadClass, null as any, pool)
+    pool.addThread(thread1)
+    pool.addThread(thread2)
+
+    expect((pool as any).threadQueue.size).toBe(2)
+    expect(pool.hasThreads()).toBe(true)
+  })
+
+  test('AdaptiveThreadPool: rotates threads when quantum is over', () => {
+    const onEmpty = jest.fn()
+    const pool = new AdaptiveThreadPool(onEmpty)
+
+    const threadClass = testLoader.createClass({
+      className: 'java/lang/Thread',
+      loader: testLoader
+    }) as ReferenceClassData
+
+    const thread1 = new TestThread(threadClass, null as any, pool)
+    const thread2 = new TestThread(threadClass, null as any, pool)
+    pool.addThread(thread1)
+    pool.addThread(thread2)
+
+    ;(pool as any).nextThread()
+    expect(pool.getCurrentThread()).toBe(thread1)
+
+    pool.quantumOver(thread1)
+    expect(pool.getCurrentThread()).toBe(null)
+    ;(pool as any).nextThread()
+    expect(pool.getCurrentThread()).toBe(thread2)
+  })
+
+  test('AdaptiveThreadPool: wakes sleeping threads after their deadline', () => {
+    const onEmpty = jest.fn()
+    const pool = new AdaptiveThreadPool(onEmpty)
+
+    const threadClass = testLoader.createClass({
+      className: 'java/lang/Thread',
+      loader: testLoader
+    }) as ReferenceClassData
+
+    const thread = new TestThread(threadClass, null as any, pool)
+    pool.addThread(thread)
+    const onWake = jest.fn()
+
+    pool.sleep(thread, 50, onWake)
+    expect(thread.getStatus()).toBe(ThreadStatus.TIMED_WAITING)
+
+    ;(pool as any).wakeSleepers(performance.now())
+    expect(thread.getStatus()).toBe(ThreadStatus.TIMED_WAITING)
+
+    ;(pool as any).wakeSleepers(performance.now() + 100)
+    expect(onWake).toHaveBeenCalledTimes(1)
+    expect(thread.getStatus()).toBe(ThreadStatus.RUNNABLE)
+  })
+
+  test('AdaptiveThreadPool: calls onEmpty when the last thread terminates', () => {
+    const onEmpty = jest.fn()
+    const pool = new AdaptiveThreadPool(onEmpty)
+
+    const threadClass = testLoader.createClass({
+      className: 'java/lang/Thread',
+      loader: testLoader
+    }) as ReferenceClassData
+
+    const thread = new TestThread(threadClass, null as any, pool)
+    pool.addThread(thread)
+    thread.setStatus(ThreadStatus.TERMINATED)
+
+    expect(pool.hasThreads()).toBe(false)
+    expect(onEmpty).toHaveBeenCalledTimes(1)
+  })
+})
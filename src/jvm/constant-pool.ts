@@ -36,157 +36,168 @@ import {
 } from './types/class/Constants'
 import { JvmArray } from './types/reference/Array'
 
+/**
+ * Runtime constant pool of a class.
+ * Constants are created from the class file on first access.
+ */
 export class ConstantPool {
   private pool: Constant[]
+  private cls: ClassData
+  private infoArr: ConstantInfo[]
 
   constructor(cls: ClassData, infoArr: ConstantInfo[], _overrides?: JvmArray) {
-    const pool: Constant[] = []
+    this.cls = cls
+    this.infoArr = infoArr
+    this.pool = new Array(infoArr.length)
+  }
 
-    function init(index: number) {
-      if (pool[index]) {
-        return
-      }
+  private init(index: number) {
+    const pool = this.pool
+    const cls = this.cls
+    const infoArr = this.infoArr
 
-      const constant: ConstantInfo = infoArr[index]
-      switch (constant.tag) {
-        // #region static values
-        case CONSTANT_TAG.Integer:
-          pool[index] = new ConstantInteger(cls, (constant as ConstantIntegerInfo).value)
-          return
-        case CONSTANT_TAG.Float:
-          pool[index] = new ConstantFloat(cls, (constant as ConstantFloatInfo).value)
-          return
-        case CONSTANT_TAG.Long:
-          pool[index] = new ConstantLong(cls, (constant as ConstantLongInfo).value)
-          return
-        case CONSTANT_TAG.Double:
-          pool[index] = new ConstantDouble(cls, (constant as ConstantDoubleInfo).value)
-          return
-        case CONSTANT_TAG.Utf8:
-          pool[index] = new ConstantUtf8(cls, (constant as ConstantUtf8Info).value)
-          return
-        // #endregion
+    if (pool[index]) {
+      return
+    }
 
-        // #region utf8 dependency
-        case CONSTANT_TAG.String:
-          const strIndex = (constant as ConstantStringInfo).stringIndex
-          if (!pool[strIndex]) {
-            init(strIndex)
-          }
-          const str = pool[strIndex] as ConstantUtf8
-          pool[index] = new ConstantString(cls, str)
-          return
-        case CONSTANT_TAG.NameAndType:
-          const ntNameIndex = (constant as ConstantNameAndTypeInfo).nameIndex
-          if (!pool[ntNameIndex]) {
-            init(ntNameIndex)
-          }
-          const ntName = pool[ntNameIndex] as ConstantUtf8
+    const constant: ConstantInfo = infoArr[index]
+    switch (constant.tag) {
+      // #region static values
+      case CONSTANT_TAG.Integer:
+        pool[index] = new ConstantInteger(cls, (constant as ConstantIntegerInfo).value)
+        return
+      case CONSTANT_TAG.Float:
+        pool[index] = new ConstantFloat(cls, (constant as ConstantFloatInfo).value)
+        return
+      case CONSTANT_TAG.Long:
+        pool[index] = new ConstantLong(cls, (constant as ConstantLongInfo).value)
+        return
+      case CONSTANT_TAG.Double:
+        pool[index] = new ConstantDouble(cls, (constant as ConstantDoubleInfo).value)
+        return
+      case CONSTANT_TAG.Utf8:
+        pool[index] = new ConstantUtf8(cls, (constant as ConstantUtf8Info).value)
+        return
+      // #endregion
 
-          const ntDescriptorIndex = (constant as ConstantNameAndTypeInfo).descriptorIndex
-          if (!pool[ntDescriptorIndex]) {
-            init(ntDescriptorIndex)
-          }
-          const ntDescriptor = pool[ntDescriptorIndex] as ConstantUtf8
+      // #region utf8 dependency
+      case CONSTANT_TAG.String:
+        const strIndex = (constant as ConstantStringInfo).stringIndex
+        if (!pool[strIndex]) {
+          this.init(strIndex)
+        }
+        const str = pool[strIndex] as ConstantUtf8
+        pool[index] = new ConstantString(cls, str)
+        return
+      case CONSTANT_TAG.NameAndType:
+        const ntNameIndex = (constant as ConstantNameAndTypeInfo).nameIndex
+        if (!pool[ntNameIndex]) {
+          this.init(ntNameIndex)
+        }
+        const ntName = pool[ntNameIndex] as ConstantUtf8
 
-          pool[index] = new ConstantNameAndType(cls, ntName, ntDescriptor)
-          return
-        case CONSTANT_TAG.MethodType:
-          const mtDescriptorIndex = (constant as ConstantMethodTypeInfo).descriptorIndex
-          if (!pool[mtDescriptorIndex]) {
-            init(mtDescriptorIndex)
-          }
-          const mtDescriptor = pool[mtDescriptorIndex] as ConstantUtf8
-          pool[index] = new ConstantMethodType(cls, mtDescriptor)
-          return
-        case CONSTANT_TAG.Class:
-          const classnameIndex = (constant as ConstantClassInfo).nameIndex
-          if (!pool[classnameIndex]) {
-            init(classnameIndex)
-          }
-          const classname = pool[classnameIndex] as ConstantUtf8
-          pool[index] = new ConstantClass(cls, classname)
-          return
-        // #endregion
+        const ntDescriptorIndex = (constant as ConstantNameAndTypeInfo).descriptorIndex
+        if (!pool[ntDescriptorIndex]) {
+          this.init(ntDescriptorIndex)
+        }
+        const ntDescriptor = pool[ntDescriptorIndex] as ConstantUtf8
 
-        // #region name and type dependency
-        case CONSTANT_TAG.InvokeDynamic:
-          const bootstrapIdx = (constant as ConstantInvokeDynamicInfo).bootstrapMethodAttrIndex
-          const indyNtIndex = (constant as ConstantInvokeDynamicInfo).nameAndTypeIndex
-          if (!pool[indyNtIndex]) {
-            init(indyNtIndex)
-          }
-          const indyNt = pool[indyNtIndex] as ConstantNameAndType
-          pool[index] = new ConstantInvokeDynamic(cls, bootstrapIdx, indyNt)
-          return
-        case CONSTANT_TAG.Fieldref:
-          const frClassIndex = (constant as ConstantFieldrefInfo).classIndex
-          if (!pool[frClassIndex]) {
-            init(frClassIndex)
-          }
-          const frClass = pool[frClassIndex] as ConstantClass
-          const frNtIndex = (constant as ConstantFieldrefInfo).nameAndTypeIndex
-          if (!pool[frNtIndex]) {
-            init(frNtIndex)
-          }
-          const frNt = pool[frNtIndex] as ConstantNameAndType
-          pool[index] = new ConstantFieldref(cls, frClass, frNt)
-          return
-        case CONSTANT_TAG.Methodref:
-          const mrClassIndex = (constant as ConstantMethodrefInfo).classIndex
-          if (!pool[mrClassIndex]) {
-            init(mrClassIndex)
-          }
-          const mrClass = pool[mrClassIndex] as ConstantClass
-          const mrNtIndex = (constant as ConstantMethodrefInfo).nameAndTypeIndex
-          if (!pool[mrNtIndex]) {
-            init(mrNtIndex)
-          }
-          const mrNt = pool[mrNtIndex] as ConstantNameAndType
-          pool[index] = new ConstantMethodref(cls, mrClass, mrNt)
-          return
-        case CONSTANT_TAG.InterfaceMethodref:
-          const imrClassIndex = (constant as ConstantInterfaceMethodrefInfo).classIndex
-          if (!pool[imrClassIndex]) {
-            init(imrClassIndex)
-          }
-          const imrClass = pool[imrClassIndex] as ConstantClass
-          const imrNtIndex = (constant as ConstantInterfaceMethodrefInfo).nameAndTypeIndex
-          if (!pool[imrNtIndex]) {
-            init(imrNtIndex)
-          }
-          const imrNt = pool[imrNtIndex] as ConstantNameAndType
-          pool[index] = new ConstantInterfaceMethodref(cls, imrClass, imrNt)
-          return
-        // #endregion
+        pool[index] = new ConstantNameAndType(cls, ntName, ntDescriptor)
+        return
+      case CONSTANT_TAG.MethodType:
+        const mtDescriptorIndex = (constant as ConstantMethodTypeInfo).descriptorIndex
+        if (!pool[mtDescriptorIndex]) {
+          this.init(mtDescriptorIndex)
+        }
+        const mtDescriptor = pool[mtDescriptorIndex] as ConstantUtf8
+        pool[index] = new ConstantMethodType(cls, mtDescriptor)
+        return
+      case CONSTANT_TAG.Class:
+        const classnameIndex = (constant as ConstantClassInfo).nameIndex
+        if (!pool[classnameIndex]) {
+          this.init(classnameIndex)
+        }
+        const classname = pool[classnameIndex] as ConstantUtf8
+        pool[index] = new ConstantClass(cls, classname)
+        return
+      // #endregion
 
-        // #region rest
-        case CONSTANT_TAG.MethodHandle:
-          const mhRefKind = (constant as ConstantMethodHandleInfo).referenceKind
-          const mhRefIndex = (constant as ConstantMethodHandleInfo).referenceIndex
-          if (!pool[mhRefIndex]) {
-            init(mhRefIndex)
-          }
-          const mhRef = pool[mhRefIndex] as
-            | ConstantFieldref
-            | ConstantMethodref
-            | ConstantInterfaceMethodref
+      // #region name and type dependency
+      case CONSTANT_TAG.InvokeDynamic:
+        const bootstrapIdx = (constant as ConstantInvokeDynamicInfo).bootstrapMethodAttrIndex
+        const indyNtIndex = (constant as ConstantInvokeDynamicInfo).nameAndTypeIndex
+        if (!pool[indyNtIndex]) {
+          this.init(indyNtIndex)
+        }
+        const indyNt = pool[indyNtIndex] as ConstantNameAndType
+        pool[index] = new ConstantInvokeDynamic(cls, bootstrapIdx, indyNt)
+        return
+      case CONSTANT_TAG.Fieldref:
+        const frClassIndex = (constant as ConstantFieldrefInfo).classIndex
+        if (!pool[frClassIndex]) {
+          this.init(frClassIndex)
+        }
+        const frClass = pool[frClassIndex] as ConstantClass
+        const frNtIndex = (constant as ConstantFieldrefInfo).nameAndTypeIndex
+        if (!pool[frNtIndex]) {
+          this.init(frNtIndex)
+        }
+        const frNt = pool[frNtIndex] as ConstantNameAndType
+        pool[index] = new ConstantFieldref(cls, frClass, frNt)
+        return
+      case CONSTANT_TAG.Methodref:
+        const mrClassIndex = (constant as ConstantMethodrefInfo).classIndex
+        if (!pool[mrClassIndex]) {
+          this.init(mrClassIndex)
+        }
+        const mrClass = pool[mrClassIndex] as ConstantClass
+        const mrNtIndex = (constant as ConstantMethodrefInfo).nameAndTypeIndex
+        if (!pool[mrNtIndex]) {
+          this.init(mrNtIndex)
+        }
+        const mrNt = pool[mrNtIndex] as ConstantNameAndType
+        pool[index] = new ConstantMethodref(cls, mrClass, mrNt)
+        return
+      case CONSTANT_TAG.InterfaceMethodref:
+        const imrClassIndex = (constant as ConstantInterfaceMethodrefInfo).classIndex
+        if (!pool[imrClassIndex]) {
+          this.init(imrClassIndex)
+        }
+        const imrClass = pool[imrClassIndex] as ConstantClass
+        const imrNtIndex = (constant as ConstantInterfaceMethodrefInfo).nameAndTypeIndex
+        if (!pool[imrNtIndex]) {
+          this.init(imrNtIndex)
+        }
+        const imrNt = pool[imrNtIndex] as ConstantNameAndType
+        pool[index] = new ConstantInterfaceMethodref(cls, imrClass, imrNt)
+        return
+      // #endregion
 
-          pool[index] = new ConstantMethodHandle(cls, mhRefKind, mhRef)
-          return
-        // #endregion
-      }
-    }
+      // #region rest
+      case CONSTANT_TAG.MethodHandle:
+        const mhRefKind = (constant as ConstantMethodHandleInfo).referenceKind
+        const mhRefIndex = (constant as ConstantMethodHandleInfo).referenceIndex
+        if (!pool[mhRefIndex]) {
+          this.init(mhRefIndex)
+        }
+        const mhRef = pool[mhRefIndex] as
+          | ConstantFieldref
+          | ConstantMethodref
+          | ConstantInterfaceMethodref
 
-    // 1 indexed
-    for (let i = 1; i < infoArr.length; i++) {
-      init(i)
+        pool[index] = new ConstantMethodHandle(cls, mhRefKind, mhRef)
+        return
+      // #endregion
     }
-
-    this.pool = pool
   }
 
   get(index: number): Constant {
+    const constant = this.pool[index]
+    // index 0 is unused
+    if (constant !== undefined || index <= 0 || index >= this.infoArr.length) {
+      return constant
+    }
+    this.init(index)
     return this.pool[index]
   }
 
@@ -0,0 +1,451 @@
+import { OPCODE } from '../ClassFile/constants/instructions'
+import { InlineCache } from './inline-cache'
+import Thread from './thread'
+
+import * as comparisons from './instructions/comparisons'
+import * as constants from './instructions/constants'
+import * as control from './instructions/control'
+import * as conversions from './instructions/conversions'
+import * as extended from './instructions/extended'
+import * as loads from './instructions/loads'
+import * as math from './instructions/math'
+import * as reserved from './instructions/reserved'
+import * as references from './instructions/references'
+import * as stack from './instructions/stack'
+import * as stores from './instructions/stores'
+
+export type InstructionHandler = (thread: Thread) => void
+
+/**
+ * Pre-decoded jump table of a TABLESWITCH or LOOKUPSWITCH instruction.
+ * Offsets are relative to the pc of the switch instruction.
+ */
+export interface SwitchTable {
+  defaultOffset: number
+  low: number
+  offsets: Int32Array | null
+  pairs: Map<number, number> | null
+}
+
+let dispatchTable: InstructionHandler[] | null = null
+
+/**
+ * Builds the opcode to handler table.
+ * Built on first use as the instruction modules and the stackframe module import each other.
+ */
+function getDispatchTable(): InstructionHandler[] {
+  if (dispatchTable) {
+    return dispatchTable
+  }
+
+  const table: InstructionHandler[] = []
+  for (let i = 0; i < 256; i++) {
+    table.push(() => {
+      throw new Error(`runInstruction: Unknown opcode ${i} received!`)
+    })
+  }
+  table[OPCODE.NOP] = constants.runNop
+  table[OPCODE.ACONST_NULL] = constants.runAconstNull
+  table[OPCODE.ICONST_M1] = constants.runIconstM1
+  table[OPCODE.ICONST_0] = constants.runIconst0
+  table[OPCODE.ICONST_1] = constants.runIconst1
+  table[OPCODE.ICONST_2] = constants.runIconst2
+  table[OPCODE.ICONST_3] = constants.runIconst3
+  table[OPCODE.ICONST_4] = constants.runIconst4
+  table[OPCODE.ICONST_5] = constants.runIconst5
+  table[OPCODE.LCONST_0] = constants.runLconst0
+  table[OPCODE.LCONST_1] = constants.runLconst1
+  table[OPCODE.FCONST_0] = constants.runFconst0
+  table[OPCODE.FCONST_1] = constants.runFconst1
+  table[OPCODE.FCONST_2] = constants.runFconst2
+  table[OPCODE.DCONST_0] = constants.runDconst0
+  table[OPCODE.DCONST_1] = constants.runDconst1
+  table[OPCODE.BIPUSH] = constants.runBipush
+  table[OPCODE.SIPUSH] = constants.runSipush
+  table[OPCODE.LDC] = constants.runLdc
+  table[OPCODE.LDC_W] = constants.runLdcW
+  table[OPCODE.LDC2_W] = constants.runLdc2W
+  table[OPCODE.ILOAD] = loads.runIload
+  table[OPCODE.LLOAD] = loads.runLload
+  table[OPCODE.FLOAD] = loads.runFload
+  table[OPCODE.DLOAD] = loads.runDload
+  table[OPCODE.ALOAD] = loads.runAload
+  table[OPCODE.ILOAD_0] = loads.runIload0
+  table[OPCODE.ILOAD_1] = loads.runIload1
+  table[OPCODE.ILOAD_2] = loads.runIload2
+  table[OPCODE.ILOAD_3] = loads.runIload3
+  table[OPCODE.LLOAD_0] = loads.runLload0
+  table[OPCODE.LLOAD_1] = loads.runLload1
+  table[OPCODE.LLOAD_2] = loads.runLload2
+  table[OPCODE.LLOAD_3] = loads.runLload3
+  table[OPCODE.FLOAD_0] = loads.runFload0
+  table[OPCODE.FLOAD_1] = loads.runFload1
+  table[OPCODE.FLOAD_2] = loads.runFload2
+  table[OPCODE.FLOAD_3] = loads.runFload3
+  table[OPCODE.DLOAD_0] = loads.runDload0
+  table[OPCODE.DLOAD_1] = loads.runDload1
+  table[OPCODE.DLOAD_2] = loads.runDload2
+  table[OPCODE.DLOAD_3] = loads.runDload3
+  table[OPCODE.ALOAD_0] = loads.runAload0
+  table[OPCODE.ALOAD_1] = loads.runAload1
+  table[OPCODE.ALOAD_2] = loads.runAload2
+  table[OPCODE.ALOAD_3] = loads.runAload3
+  table[OPCODE.IALOAD] = loads.runIaload
+  table[OPCODE.LALOAD] = loads.runLaload
+  table[OPCODE.FALOAD] = loads.runFaload
+  table[OPCODE.DALOAD] = loads.runDaload
+  table[OPCODE.AALOAD] = loads.runAaload
+  table[OPCODE.BALOAD] = loads.runBaload
+  table[OPCODE.CALOAD] = loads.runCaload
+  table[OPCODE.SALOAD] = loads.runSaload
+  table[OPCODE.ISTORE] = stores.runIstore
+  table[OPCODE.LSTORE] = stores.runLstore
+  table[OPCODE.FSTORE] = stores.runFstore
+  table[OPCODE.DSTORE] = stores.runDstore
+  table[OPCODE.ASTORE] = stores.runAstore
+  table[OPCODE.ISTORE_0] = stores.runIstore0
+  table[OPCODE.ISTORE_1] = stores.runIstore1
+  table[OPCODE.ISTORE_2] = stores.runIstore2
+  table[OPCODE.ISTORE_3] = stores.runIstore3
+  table[OPCODE.LSTORE_0] = stores.runLstore0
+  table[OPCODE.LSTORE_1] = stores.runLstore1
+  table[OPCODE.LSTORE_2] = stores.runLstore2
+  table[OPCODE.LSTORE_3] = stores.runLstore3
+  table[OPCODE.FSTORE_0] = stores.runFstore0
+  table[OPCODE.FSTORE_1] = stores.runFstore1
+  table[OPCODE.FSTORE_2] = stores.runFstore2
+  table[OPCODE.FSTORE_3] = stores.runFstore3
+  table[OPCODE.DSTORE_0] = stores.runDstore0
+  table[OPCODE.DSTORE_1] = stores.runDstore1
+  table[OPCODE.DSTORE_2] = stores.runDstore2
+  table[OPCODE.DSTORE_3] = stores.runDstore3
+  table[OPCODE.ASTORE_0] = stores.runAstore0
+  table[OPCODE.ASTORE_1] = stores.runAstore1
+  table[OPCODE.ASTORE_2] = stores.runAstore2
+  table[OPCODE.ASTORE_3] = stores.runAstore3
+  table[OPCODE.IASTORE] = stores.runIastore
+  table[OPCODE.LASTORE] = stores.runLastore
+  table[OPCODE.FASTORE] = stores.runFastore
+  table[OPCODE.DASTORE] = stores.runDastore
+  table[OPCODE.AASTORE] = stores.runAastore
+  table[OPCODE.BASTORE] = stores.runBastore
+  table[OPCODE.CASTORE] = stores.runCastore
+  table[OPCODE.SASTORE] = stores.runSastore
+  table[OPCODE.POP] = stack.runPop
+  table[OPCODE.POP2] = stack.runPop2
+  table[OPCODE.DUP] = stack.runDup
+  table[OPCODE.DUP_X1] = stack.runDupX1
+  table[OPCODE.DUP_X2] = stack.runDupX2
+  table[OPCODE.DUP2] = stack.runDup2
+  table[OPCODE.DUP2_X1] = stack.runDup2X1
+  table[OPCODE.DUP2_X2] = stack.runDup2X2
+  table[OPCODE.SWAP] = stack.runSwap
+  table[OPCODE.IADD] = math.runIadd
+  table[OPCODE.LADD] = math.runLadd
+  table[OPCODE.FADD] = math.runFadd
+  table[OPCODE.DADD] = math.runDadd
+  table[OPCODE.ISUB] = math.runIsub
+  table[OPCODE.LSUB] = math.runLsub
+  table[OPCODE.FSUB] = math.runFsub
+  table[OPCODE.DSUB] = math.runDsub
+  table[OPCODE.IMUL] = math.runImul
+  table[OPCODE.LMUL] = math.runLmul
+  table[OPCODE.FMUL] = math.runFmul
+  table[OPCODE.DMUL] = math.runDmul
+  table[OPCODE.IDIV] = math.runIdiv
+  table[OPCODE.LDIV] = math.runLdiv
+  table[OPCODE.FDIV] = math.runFdiv
+  table[OPCODE.DDIV] = math.runDdiv
+  table[OPCODE.IREM] = math.runIrem
+  table[OPCODE.LREM] = math.runLrem
+  table[OPCODE.FREM] = math.runFrem
+  table[OPCODE.DREM] = math.runDrem
+  table[OPCODE.INEG] = math.runIneg
+  table[OPCODE.LNEG] = math.runLneg
+  table[OPCODE.FNEG] = math.runFneg
+  table[OPCODE.DNEG] = math.runDneg
+  table[OPCODE.ISHL] = math.runIshl
+  table[OPCODE.LSHL] = math.runLshl
+  table[OPCODE.ISHR] = math.runIshr
+  table[OPCODE.LSHR] = math.runLshr
+  table[OPCODE.IUSHR] = math.runIushr
+  table[OPCODE.LUSHR] = math.runLushr
+  table[OPCODE.IAND] = math.runIand
+  table[OPCODE.LAND] = math.runLand
+  table[OPCODE.IOR] = math.runIor
+  table[OPCODE.LOR] = math.runLor
+  table[OPCODE.IXOR] = math.runIxor
+  table[OPCODE.LXOR] = math.runLxor
+  table[OPCODE.IINC] = math.runIinc
+  table[OPCODE.I2L] = conversions.runI2l
+  table[OPCODE.I2F] = conversions.runI2f
+  table[OPCODE.I2D] = conversions.runI2d
+  table[OPCODE.L2I] = conversions.runL2i
+  table[OPCODE.L2F] = conversions.runL2f
+  table[OPCODE.L2D] = conversions.runL2d
+  table[OPCODE.F2I] = conversions.runF2i
+  table[OPCODE.F2L] = conversions.runF2l
+  table[OPCODE.F2D] = conversions.runF2d
+  table[OPCODE.D2I] = conversions.runD2i
+  table[OPCODE.D2L] = conversions.runD2l
+  table[OPCODE.D2F] = conversions.runD2f
+  table[OPCODE.I2B] = conversions.runI2b
+  table[OPCODE.I2C] = conversions.runI2c
+  table[OPCODE.I2S] = conversions.runI2s
+  table[OPCODE.LCMP] = comparisons.runLcmp
+  table[OPCODE.FCMPL] = comparisons.runFcmpl
+  table[OPCODE.FCMPG] = comparisons.runFcmpg
+  table[OPCODE.DCMPL] = comparisons.runDcmpl
+  table[OPCODE.DCMPG] = comparisons.runDcmpg
+  table[OPCODE.IFEQ] = comparisons.runIfeq
+  table[OPCODE.IFNE] = comparisons.runIfne
+  table[OPCODE.IFLT] = comparisons.runIflt
+  table[OPCODE.IFGE] = comparisons.runIfge
+  table[OPCODE.IFGT] = comparisons.runIfgt
+  table[OPCODE.IFLE] = comparisons.runIfle
+  table[OPCODE.IF_ICMPEQ] = comparisons.runIfIcmpeq
+  table[OPCODE.IF_ICMPNE] = comparisons.runIfIcmpne
+  table[OPCODE.IF_ICMPLT] = comparisons.runIfIcmplt
+  table[OPCODE.IF_ICMPGE] = comparisons.runIfIcmpge
+  table[OPCODE.IF_ICMPGT] = comparisons.runIfIcmpgt
+  table[OPCODE.IF_ICMPLE] = comparisons.runIfIcmple
+  table[OPCODE.IF_ACMPEQ] = comparisons.runIfAcmpeq
+  table[OPCODE.IF_ACMPNE] = comparisons.runIfAcmpne
+  table[OPCODE.GOTO] = control.runGoto
+  table[OPCODE.JSR] = control.runJsr
+  table[OPCODE.RET] = control.runRet
+  table[OPCODE.TABLESWITCH] = control.runTableswitch
+  table[OPCODE.LOOKUPSWITCH] = control.runLookupswitch
+  table[OPCODE.IRETURN] = control.runIreturn
+  table[OPCODE.LRETURN] = control.runLreturn
+  table[OPCODE.FRETURN] = control.runFreturn
+  table[OPCODE.DRETURN] = control.runDreturn
+  table[OPCODE.ARETURN] = control.runAreturn
+  table[OPCODE.RETURN] = control.runReturn
+  table[OPCODE.GETSTATIC] = references.runGetstatic
+  table[OPCODE.PUTSTATIC] = references.runPutstatic
+  table[OPCODE.GETFIELD] = references.runGetfield
+  table[OPCODE.PUTFIELD] = references.runPutfield
+  table[OPCODE.INVOKEVIRTUAL] = references.runInvokevirtual
+  table[OPCODE.INVOKESPECIAL] = references.runInvokespecial
+  table[OPCODE.INVOKESTATIC] = references.runInvokestatic
+  table[OPCODE.INVOKEINTERFACE] = references.runInvokeinterface
+  table[OPCODE.INVOKEDYNAMIC] = references.runInvokedynamic
+  table[OPCODE.NEW] = references.runNew
+  table[OPCODE.NEWARRAY] = references.runNewarray
+  table[OPCODE.ANEWARRAY] = references.runAnewarray
+  table[OPCODE.ARRAYLENGTH] = references.runArraylength
+  table[OPCODE.ATHROW] = references.runAthrow
+  table[OPCODE.CHECKCAST] = references.runCheckcast
+  table[OPCODE.INSTANCEOF] = references.runInstanceof
+  table[OPCODE.MONITORENTER] = references.runMonitorenter
+  table[OPCODE.MONITOREXIT] = references.runMonitorexit
+  table[OPCODE.WIDE] = extended.runWide
+  table[OPCODE.MULTIANEWARRAY] = extended.runMultianewarray
+  table[OPCODE.IFNULL] = extended.runIfnull
+  table[OPCODE.IFNONNULL] = extended.runIfnonnull
+  table[OPCODE.GOTO_W] = extended.runGotoW
+  table[OPCODE.JSR_W] = extended.runJsrW
+  table[OPCODE.BREAKPOINT] = reserved.runBreakpoint
+  table[OPCODE.IMPDEP1] = reserved.runImpdep1
+  table[OPCODE.IMPDEP2] = reserved.runImpdep2
+
+  dispatchTable = table
+  return table
+}
+
+/**
+ * Decoded form of a method's bytecode, shared by all invocations of the method.
+ * Instructions are decoded the first time their pc is executed, into a handler and its operands,
+ * so the interpreter loop dispatches from arrays instead of re-reading the bytecode.
+ * Bytecode is assumed to be immutable once the method has started executing.
+ */
+export class DecodedCode {
+  private code: DataView
+  private handlers: (InstructionHandler | undefined)[]
+  /**
+   * First operand of the instruction at each pc, already sign/zero extended.
+   */
+  readonly operands: Int32Array
+  /**
+   * Second operand of the instruction at each pc, e.g. the constant of IINC.
+   */
+  readonly operands2: Int32Array
+  readonly switches: (SwitchTable | undefined)[]
+  private inlineCaches: (InlineCache | undefined)[]
+
+  constructor(code: DataView) {
+    this.code = code
+    this.handlers = new Array(code.byteLength)
+    this.operands = new Int32Array(code.byteLength)
+    this.operands2 = new Int32Array(code.byteLength)
+    this.switches = []
+    this.inlineCaches = []
+  }
+
+  /**
+   * Gets the opcode of the instruction at the given pc.
+   */
+  getOpcode(pc: number): number {
+    return this.code.getUint8(pc)
+  }
+
+  /**
+   * Gets the inline cache of the invoke instruction at the given pc, creating it if needed.
+   */
+  getInlineCache(pc: number): InlineCache {
+    let cache = this.inlineCaches[pc]
+    if (cache === undefined) {
+      cache = new InlineCache()
+      this.inlineCaches[pc] = cache
+    }
+    return cache
+  }
+
+  /**
+   * Gets the handler for the instruction at the given pc, decoding it if needed.
+   */
+  getHandler(pc: number): InstructionHandler {
+    const handler = this.handlers[pc]
+    if (handler !== undefined) {
+      return handler
+    }
+    return this.decodeAt(pc)
+  }
+
+  /**
+   * Replaces the handler for the instruction at the given pc, e.g. to enter compiled code.
+   * The instruction should be decoded first if the new handler runs the original handler.
+   */
+  setHandler(pc: number, handler: InstructionHandler) {
+    this.handlers[pc] = handler
+  }
+
+  private decodeAt(pc: number): InstructionHandler {
+    const code = this.code
+    const opcode = code.getUint8(pc)
+
+    switch (opcode) {
+      case OPCODE.BIPUSH:
+        this.operands[pc] = code.getInt8(pc + 1)
+        break
+      case OPCODE.LDC:
+      case OPCODE.ILOAD:
+      case OPCODE.LLOAD:
+      case OPCODE.FLOAD:
+      case OPCODE.DLOAD:
+      case OPCODE.ALOAD:
+      case OPCODE.ISTORE:
+      case OPCODE.LSTORE:
+      case OPCODE.FSTORE:
+      case OPCODE.DSTORE:
+      case OPCODE.ASTORE:
+      case OPCODE.RET:
+      case OPCODE.NEWARRAY:
+        this.operands[pc] = code.getUint8(pc + 1)
+        break
+      case OPCODE.IINC:
+        this.operands[pc] = code.getUint8(pc + 1)
+        this.operands2[pc] = code.getInt8(pc + 2)
+        break
+      case OPCODE.SIPUSH:
+      case OPCODE.IFEQ:
+      case OPCODE.IFNE:
+      case OPCODE.IFLT:
+      case OPCODE.IFGE:
+      case OPCODE.IFGT:
+      case OPCODE.IFLE:
+      case OPCODE.IF_ICMPEQ:
+      case OPCODE.IF_ICMPNE:
+      case OPCODE.IF_ICMPLT:
+      case OPCODE.IF_ICMPGE:
+      case OPCODE.IF_ICMPGT:
+      case OPCODE.IF_ICMPLE:
+      case OPCODE.IF_ACMPEQ:
+      case OPCODE.IF_ACMPNE:
+      case OPCODE.GOTO:
+      case OPCODE.JSR:
+      case OPCODE.IFNULL:
+      case OPCODE.IFNONNULL:
+        this.operands[pc] = code.getInt16(pc + 1)
+        break
+      case OPCODE.LDC_W:
+      case OPCODE.LDC2_W:
+      case OPCODE.GETSTATIC:
+      case OPCODE.PUTSTATIC:
+      case OPCODE.GETFIELD:
+      case OPCODE.PUTFIELD:
+      case OPCODE.INVOKEVIRTUAL:
+      case OPCODE.INVOKESPECIAL:
+      case OPCODE.INVOKESTATIC:
+      case OPCODE.INVOKEDYNAMIC:
+      case OPCODE.NEW:
+      case OPCODE.ANEWARRAY:
+      case OPCODE.CHECKCAST:
+      case OPCODE.INSTANCEOF:
+        this.operands[pc] = code.getUint16(pc + 1)
+        break
+      case OPCODE.INVOKEINTERFACE:
+      case OPCODE.MULTIANEWARRAY:
+        this.operands[pc] = code.getUint16(pc + 1)
+        this.operands2[pc] = code.getUint8(pc + 3)
+        break
+      case OPCODE.GOTO_W:
+      case OPCODE.JSR_W:
+        this.operands[pc] = code.getInt32(pc + 1)
+        break
+      case OPCODE.WIDE:
+        // modified opcode in the low byte, the constant of IINC above it
+        this.operands[pc] =
+          code.getUint8(pc + 1) === OPCODE.IINC
+            ? (code.getInt16(pc + 4) << 8) | OPCODE.IINC
+            : code.getUint8(pc + 1)
+        this.operands2[pc] = code.getUint16(pc + 2)
+        break
+      case OPCODE.TABLESWITCH:
+      case OPCODE.LOOKUPSWITCH:
+        this.switches[pc] = this.decodeSwitch(pc, opcode === OPCODE.TABLESWITCH)
+        break
+    }
+
+    const handler = getDispatchTable()[opcode]
+    this.handlers[pc] = handler
+    return handler
+  }
+
+  private decodeSwitch(pc: number, isTableswitch: boolean): SwitchTable {
+    const code = this.code
+    let offset = pc + 1
+    if (offset % 4 !== 0) {
+      offset += 4 - (offset % 4) // padding
+    }
+
+    const defaultOffset = code.getInt32(offset)
+    offset += 4
+
+    if (isTableswitch) {
+      const low = code.getInt32(offset)
+      const high = code.getInt32(offset + 4)
+      offset += 8
+      const offsets = new Int32Array(Math.max(high - low + 1, 0))
+      for (let i = 0; i < offsets.length; i++) {
+        offsets[i] = code.getInt32(offset)
+        offset += 4
+      }
+      return { defaultOffset, low, offsets, pairs: null }
+    }
+
+    const npairCount = code.getInt32(offset)
+    offset += 4
+    const pairs = new Map<number, number>()
+    for (let i = 0; i < npairCount; i++) {
+      const key = code.getInt32(offset)
+      // first matching key wins
+      if (!pairs.has(key)) {
+        pairs.set(key, code.getInt32(offset + 4))
+      }
+      offset += 8
+    }
+    return { defaultOffset, low: 0, offsets: null, pairs }
+  }
+}
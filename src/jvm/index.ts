@@ -1,8 +1,27 @@
 import { ClassFile } from '../ClassFile/types'
 import { Lib } from './jni'
 import JVM from './jvm'
+import { Profiler } from './profiler'
 import parseBin from './utils/disassembler'
 import CustomSystem from './utils/CustomSystem'
+import ArchiveSystem from './utils/ArchiveSystem'
+import { ClassArchive, packClassArchive } from './utils/archive'
+import { QuotaExceeded } from './quota'
+
+// archives by buffer, so JVMs set up with the same buffer share parsed classes
+const archives = new WeakMap<object, ClassArchive>()
+
+const getArchive = (archive: ArrayBuffer | Uint8Array | ClassArchive) => {
+  if (archive instanceof ClassArchive) {
+    return archive
+  }
+  let classArchive = archives.get(archive)
+  if (!classArchive) {
+    classArchive = new ClassArchive(archive)
+    archives.set(archive, classArchive)
+  }
+  return classArchive
+}
 
 const setupJVM = (options: {
   mainClass?: string
@@ -15,25 +34,78 @@ const setupJVM = (options: {
     stdout?: (message: string) => void
     stderr?: (message: string) => void
     onFinish?: () => void
+    /**
+     * Called after onFinish with the recorded statistics when profile is set.
+     */
+    onProfile?: (profiler: Profiler) => void
+    /**
+     * Called after onFinish when the program was halted by maxInstructions or timeLimit.
+     */
+    onQuotaExceeded?: (reason: QuotaExceeded) => void
   }
   natives?: Lib
+  /**
+   * Packed class archive to read classes under the java class path from.
+   * Classes missing from the archive are read with callbacks.readFileSync.
+   * Parsed classes are shared by all JVMs set up with the same archive.
+   */
+  archive?: ArrayBuffer | Uint8Array | ClassArchive
+  /**
+   * Records execution statistics, see Profiler.
+   */
+  profile?: boolean
+  /**
+   * Compiles hot methods to JavaScript functions, see JIT.
+   */
+  jit?: boolean
+  /**
+   * Halts the program after this many instructions, not counting the bootstrap.
+   */
+  maxInstructions?: number
+  /**
+   * Halts the program after this many milliseconds, not counting the bootstrap.
+   */
+  timeLimit?: number
+  /**
+   * User classes defined directly in the application class loader, e.g. the output of compile,
+   * instead of being read with callbacks.readFileSync.
+   */
+  classFiles?: ClassFile[]
 }) => {
-  const sys = new CustomSystem(
+  const customSys = new CustomSystem(
     options.callbacks.readFileSync,
     options.callbacks.readFile ?? (() => Promise.reject('readFile not implemented')),
     options.callbacks.stdout ?? console.log,
     options.callbacks.stderr ?? console.error
   )
+  const sys = options.archive
+    ? new ArchiveSystem(getArchive(options.archive), customSys, options.javaClassPath ?? '')
+    : customSys
 
   const jvm = new JVM(sys, {
     javaClassPath: options.javaClassPath,
     nativesPath: options.nativesPath,
     userDir: options.userDir,
-    natives: options.natives
+    natives: options.natives,
+    profile: options.profile,
+    jit: options.jit,
+    maxInstructions: options.maxInstructions,
+    timeLimit: options.timeLimit
   })
-  return () => jvm.run(options.mainClass ?? 'Main', options.callbacks.onFinish)
+  const onFinish = () => {
+    options.callbacks.onFinish?.()
+    const profiler = jvm.getProfiler()
+    if (profiler) {
+      options.callbacks.onProfile?.(profiler)
+    }
+    const exceeded = jvm.getQuota()?.getExceeded()
+    if (exceeded) {
+      options.callbacks.onQuotaExceeded?.(exceeded)
+    }
+  }
+  return () => jvm.run(options.mainClass ?? 'Main', onFinish, options.classFiles)
 }
 
-export { parseBin }
+export { parseBin, ArchiveSystem, ClassArchive, packClassArchive, Profiler, QuotaExceeded }
 
 export default setupJVM
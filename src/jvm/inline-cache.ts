@@ -0,0 +1,50 @@
+import { ClassData } from './types/class/ClassData'
+import { Method } from './types/class/Method'
+
+/**
+ * Maximum number of receiver classes cached at a call site before it is treated as megamorphic.
+ */
+const MAX_POLYMORPHIC_ENTRIES = 4
+
+/**
+ * Per call site cache of the methods selected for invokevirtual/invokeinterface,
+ * keyed on the class of the receiver.
+ * Megamorphic call sites stop caching and fall back on the receiver class' method table.
+ */
+export class InlineCache {
+  private classes: ClassData[] = []
+  private targets: Method[] = []
+  private megamorphic = false
+
+  /**
+   * Gets the cached method selected for the given receiver class, if any.
+   */
+  lookup(cls: ClassData): Method | null {
+    const classes = this.classes
+    for (let i = 0; i < classes.length; i++) {
+      if (classes[i] === cls) {
+        return this.targets[i]
+      }
+    }
+    return null
+  }
+
+  /**
+   * Caches the method selected for the given receiver class.
+   */
+  insert(cls: ClassData, method: Method) {
+    if (this.megamorphic) {
+      return
+    }
+
+    if (this.classes.length >= MAX_POLYMORPHIC_ENTRIES) {
+      this.megamorphic = true
+      this.classes = []
+      this.targets = []
+      return
+    }
+
+    this.classes.push(cls)
+    this.targets.push(method)
+  }
+}
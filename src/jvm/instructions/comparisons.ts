@@ -1,8 +1,11 @@
 import Thread from '../thread'
-import { ResultType } from '../types/Result'
-import { asFloat, asDouble } from '../utils'
+import { asFloat, asDouble, UNDERFLOW } from '../utils'
 
-function cmp(value1: number, value2: number, checkNan: number = 0): number {
+/**
+ * Compares two numbers for the CMP instructions, shared with compiled code.
+ * Returns checkNan if it is non zero and either value is NaN.
+ */
+export function cmp(value1: number, value2: number, checkNan: number = 0): number {
   if (checkNan !== 0 && (Number.isNaN(value1) || Number.isNaN(value2))) {
     return checkNan
   }
@@ -21,63 +24,63 @@ function cmp(value1: number, value2: number, checkNan: number = 0): number {
 export function runLcmp(thread: Thread): void {
   const popResult2 = thread.popStack64()
   const popResult1 = thread.popStack64()
-  if (popResult1.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult1 === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
 
-  thread.pushStack(cmp(popResult1.result, popResult2.result))
+  thread.pushStack(cmp(popResult1, popResult2))
   thread.offsetPc(1)
 }
 
 export function runFcmpl(thread: Thread): void {
   const popResult2 = thread.popStack()
   const popResult1 = thread.popStack()
-  if (popResult1.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult1 === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  thread.pushStack(cmp(asFloat(popResult1.result), asFloat(popResult2.result), -1))
+  thread.pushStack(cmp(asFloat(popResult1), asFloat(popResult2), -1))
   thread.offsetPc(1)
 }
 
 export function runFcmpg(thread: Thread): void {
   const popResult2 = thread.popStack()
   const popResult1 = thread.popStack()
-  if (popResult1.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult1 === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
 
-  thread.pushStack(cmp(asFloat(popResult1.result), asFloat(popResult2.result), 1))
+  thread.pushStack(cmp(asFloat(popResult1), asFloat(popResult2), 1))
   thread.offsetPc(1)
 }
 
 export function runDcmpl(thread: Thread): void {
   const popResult2 = thread.popStack64()
   const popResult1 = thread.popStack64()
-  if (popResult1.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult1 === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  thread.pushStack(cmp(asDouble(popResult1.result), asDouble(popResult2.result), -1))
+  thread.pushStack(cmp(asDouble(popResult1), asDouble(popResult2), -1))
   thread.offsetPc(1)
 }
 
 export function runDcmpg(thread: Thread): void {
   const popResult2 = thread.popStack64()
   const popResult1 = thread.popStack64()
-  if (popResult1.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult1 === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  thread.pushStack(cmp(asDouble(popResult1.result), asDouble(popResult2.result), 1))
+  thread.pushStack(cmp(asDouble(popResult1), asDouble(popResult2), 1))
   thread.offsetPc(1)
 }
 
 export function runIfeq(thread: Thread): void {
-  const branchbyte = thread.getCode().getInt16(thread.getPC() + 1)
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const branchbyte = thread.getOperand()
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
 
-  if (popResult.result === 0) {
+  if (value === 0) {
     thread.offsetPc(branchbyte)
   } else {
     thread.offsetPc(3)
@@ -85,13 +88,13 @@ export function runIfeq(thread: Thread): void {
 }
 
 export function runIfne(thread: Thread): void {
-  const branchbyte = thread.getCode().getInt16(thread.getPC() + 1)
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const branchbyte = thread.getOperand()
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
 
-  if (popResult.result !== 0) {
+  if (value !== 0) {
     thread.offsetPc(branchbyte)
   } else {
     thread.offsetPc(3)
@@ -99,13 +102,13 @@ export function runIfne(thread: Thread): void {
 }
 
 export function runIflt(thread: Thread): void {
-  const branchbyte = thread.getCode().getInt16(thread.getPC() + 1)
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const branchbyte = thread.getOperand()
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
 
-  if (popResult.result < 0) {
+  if (value < 0) {
     thread.offsetPc(branchbyte)
   } else {
     thread.offsetPc(3)
@@ -113,13 +116,13 @@ export function runIflt(thread: Thread): void {
 }
 
 export function runIfge(thread: Thread): void {
-  const branchbyte = thread.getCode().getInt16(thread.getPC() + 1)
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const branchbyte = thread.getOperand()
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
 
-  if (popResult.result >= 0) {
+  if (value >= 0) {
     thread.offsetPc(branchbyte)
   } else {
     thread.offsetPc(3)
@@ -127,13 +130,13 @@ export function runIfge(thread: Thread): void {
 }
 
 export function runIfgt(thread: Thread): void {
-  const branchbyte = thread.getCode().getInt16(thread.getPC() + 1)
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const branchbyte = thread.getOperand()
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
 
-  if (popResult.result > 0) {
+  if (value > 0) {
     thread.offsetPc(branchbyte)
   } else {
     thread.offsetPc(3)
@@ -141,13 +144,13 @@ export function runIfgt(thread: Thread): void {
 }
 
 export function runIfle(thread: Thread): void {
-  const branchbyte = thread.getCode().getInt16(thread.getPC() + 1)
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const branchbyte = thread.getOperand()
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
 
-  if (popResult.result <= 0) {
+  if (value <= 0) {
     thread.offsetPc(branchbyte)
   } else {
     thread.offsetPc(3)
@@ -155,14 +158,14 @@ export function runIfle(thread: Thread): void {
 }
 
 export function runIfIcmpeq(thread: Thread): void {
-  const branchbyte = thread.getCode().getInt16(thread.getPC() + 1)
+  const branchbyte = thread.getOperand()
   const popResult1 = thread.popStack()
   const popResult2 = thread.popStack()
-  if (popResult1.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult1 === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
 
-  if (popResult1.result === popResult2.result) {
+  if (popResult1 === popResult2) {
     thread.offsetPc(branchbyte)
   } else {
     thread.offsetPc(3)
@@ -170,14 +173,14 @@ export function runIfIcmpeq(thread: Thread): void {
 }
 
 export function runIfIcmpne(thread: Thread): void {
-  const branchbyte = thread.getCode().getInt16(thread.getPC() + 1)
+  const branchbyte = thread.getOperand()
   const popResult1 = thread.popStack()
   const popResult2 = thread.popStack()
-  if (popResult1.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult1 === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
 
-  if (popResult1.result !== popResult2.result) {
+  if (popResult1 !== popResult2) {
     thread.offsetPc(branchbyte)
   } else {
     thread.offsetPc(3)
@@ -185,14 +188,14 @@ export function runIfIcmpne(thread: Thread): void {
 }
 
 export function runIfIcmplt(thread: Thread): void {
-  const branchbyte = thread.getCode().getInt16(thread.getPC() + 1)
+  const branchbyte = thread.getOperand()
   const popResult2 = thread.popStack()
   const popResult1 = thread.popStack()
-  if (popResult1.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult1 === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
 
-  if (popResult1.result < popResult2.result) {
+  if (popResult1 < popResult2) {
     thread.offsetPc(branchbyte)
   } else {
     thread.offsetPc(3)
@@ -200,14 +203,14 @@ export function runIfIcmplt(thread: Thread): void {
 }
 
 export function runIfIcmpge(thread: Thread): void {
-  const branchbyte = thread.getCode().getInt16(thread.getPC() + 1)
+  const branchbyte = thread.getOperand()
   const popResult2 = thread.popStack()
   const popResult1 = thread.popStack()
-  if (popResult1.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult1 === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
 
-  if (popResult1.result >= popResult2.result) {
+  if (popResult1 >= popResult2) {
     thread.offsetPc(branchbyte)
   } else {
     thread.offsetPc(3)
@@ -215,14 +218,14 @@ export function runIfIcmpge(thread: Thread): void {
 }
 
 export function runIfIcmpgt(thread: Thread): void {
-  const branchbyte = thread.getCode().getInt16(thread.getPC() + 1)
+  const branchbyte = thread.getOperand()
   const popResult2 = thread.popStack()
   const popResult1 = thread.popStack()
-  if (popResult1.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult1 === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
 
-  if (popResult1.result > popResult2.result) {
+  if (popResult1 > popResult2) {
     thread.offsetPc(branchbyte)
   } else {
     thread.offsetPc(3)
@@ -230,14 +233,14 @@ export function runIfIcmpgt(thread: Thread): void {
 }
 
 export function runIfIcmple(thread: Thread): void {
-  const branchbyte = thread.getCode().getInt16(thread.getPC() + 1)
+  const branchbyte = thread.getOperand()
   const popResult2 = thread.popStack()
   const popResult1 = thread.popStack()
-  if (popResult1.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult1 === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
 
-  if (popResult1.result <= popResult2.result) {
+  if (popResult1 <= popResult2) {
     thread.offsetPc(branchbyte)
   } else {
     thread.offsetPc(3)
@@ -245,14 +248,14 @@ export function runIfIcmple(thread: Thread): void {
 }
 
 export function runIfAcmpeq(thread: Thread): void {
-  const branchbyte = thread.getCode().getInt16(thread.getPC() + 1)
+  const branchbyte = thread.getOperand()
   const popResult2 = thread.popStack()
   const popResult1 = thread.popStack()
-  if (popResult1.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult1 === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
 
-  if (popResult1.result === popResult2.result) {
+  if (popResult1 === popResult2) {
     thread.offsetPc(branchbyte)
   } else {
     thread.offsetPc(3)
@@ -260,14 +263,14 @@ export function runIfAcmpeq(thread: Thread): void {
 }
 
 export function runIfAcmpne(thread: Thread): void {
-  const branchbyte = thread.getCode().getInt16(thread.getPC() + 1)
+  const branchbyte = thread.getOperand()
   const popResult2 = thread.popStack()
   const popResult1 = thread.popStack()
-  if (popResult1.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult1 === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
 
-  if (popResult1.result !== popResult2.result) {
+  if (popResult1 !== popResult2) {
     thread.offsetPc(branchbyte)
   } else {
     thread.offsetPc(3)
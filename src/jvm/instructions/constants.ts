@@ -41,11 +41,11 @@ export function runIconst5(thread: Thread): void {
 }
 
 export function runLconst0(thread: Thread): void {
-  thread.pushStack64(BigInt(0)) && thread.offsetPc(1)
+  thread.pushStack64(0) && thread.offsetPc(1)
 }
 
 export function runLconst1(thread: Thread): void {
-  thread.pushStack64(BigInt(1)) && thread.offsetPc(1)
+  thread.pushStack64(1) && thread.offsetPc(1)
 }
 
 export function runFconst0(thread: Thread): void {
@@ -69,11 +69,11 @@ export function runDconst1(thread: Thread): void {
 }
 
 export function runBipush(thread: Thread): void {
-  thread.pushStack(thread.getCode().getInt8(thread.getPC() + 1)) && thread.offsetPc(2)
+  thread.pushStack(thread.getOperand()) && thread.offsetPc(2)
 }
 
 export function runSipush(thread: Thread): void {
-  thread.pushStack(thread.getCode().getInt16(thread.getPC() + 1)) && thread.offsetPc(3)
+  thread.pushStack(thread.getOperand()) && thread.offsetPc(3)
 }
 
 export function loadConstant(thread: Thread, index: number, onFinish?: () => void): void {
@@ -105,17 +105,17 @@ export function loadConstant(thread: Thread, index: number, onFinish?: () => voi
 }
 
 export function runLdc(thread: Thread): void {
-  const indexbyte = thread.getCode().getUint8(thread.getPC() + 1)
+  const indexbyte = thread.getOperand()
   loadConstant(thread, indexbyte, () => thread.offsetPc(2))
 }
 
 export function runLdcW(thread: Thread): void {
-  const indexbyte = thread.getCode().getUint16(thread.getPC() + 1)
+  const indexbyte = thread.getOperand()
   loadConstant(thread, indexbyte, () => thread.offsetPc(3))
 }
 
 export function runLdc2W(thread: Thread): void {
-  const indexbyte = thread.getCode().getUint16(thread.getPC() + 1)
+  const indexbyte = thread.getOperand()
   const item = thread.getClass().getConstant(indexbyte) as ConstantDouble | ConstantLong
   // The constant does not need to be resolved since it is a number.
   // We can directly push the value to the stack.
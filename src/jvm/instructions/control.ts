@@ -1,93 +1,60 @@
 import Thread from '../thread'
 import { JvmObject } from '../types/reference/Object'
-import { ResultType } from '../types/Result'
-import { asFloat, asDouble } from '../utils'
+import { asFloat, asDouble, UNDERFLOW } from '../utils'
 
 export function runGoto(thread: Thread): void {
-  const branchbyte = thread.getCode().getInt16(thread.getPC() + 1)
+  const branchbyte = thread.getOperand()
   thread.offsetPc(branchbyte)
 }
 
 export function runJsr(thread: Thread): void {
-  const branchbyte = thread.getCode().getInt16(thread.getPC() + 1)
+  const branchbyte = thread.getOperand()
   thread.pushStack(thread.getPC() + 3)
   thread.setPc(thread.getPC() + branchbyte)
 }
 
 export function runRet(thread: Thread): void {
-  const index = thread.getCode().getUint8(thread.getPC() + 1)
+  const index = thread.getOperand()
   const retAddr = thread.loadLocal(index) as number
   thread.setPc(retAddr)
 }
 
 export function runTableswitch(thread: Thread): void {
-  let offset = thread.getPC() + 1
-  if (offset % 4 !== 0) {
-    offset += 4 - (offset % 4) // padding
-  }
-
-  const def = thread.getCode().getInt32(offset)
-  offset += 4
-  const low = thread.getCode().getInt32(offset)
-  offset += 4
-  const high = thread.getCode().getInt32(offset)
-  offset += 4
+  const table = thread.getSwitchTable()
 
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
-  const index = popResult.result
-  if (index < low || index > high) {
-    thread.offsetPc(def)
+  const index = value - table.low
+  const offsets = table.offsets as Int32Array
+  if (index < 0 || index >= offsets.length) {
+    thread.offsetPc(table.defaultOffset)
     return
   }
 
-  const offsets = [] // 0 indexed
-  for (let i = 0; i < high - low + 1; i++) {
-    offsets.push(thread.getCode().getInt32(offset))
-    offset += 4
-  }
-
-  thread.offsetPc(offsets[index - low])
+  thread.offsetPc(offsets[index])
 }
 
 export function runLookupswitch(thread: Thread): void {
-  let offset = thread.getPC() + 1
-  if (offset % 4 !== 0) {
-    offset += 4 - (offset % 4) // padding
-  }
+  const table = thread.getSwitchTable()
 
-  const def = thread.getCode().getInt32(offset)
-  offset += 4
-  const npairCount = thread.getCode().getInt32(offset)
-  offset += 4
-
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
 
-  for (let i = 0; i < npairCount; i++) {
-    const key = thread.getCode().getInt32(offset)
-    if (key === popResult.result) {
-      const nextPcOffset = thread.getCode().getInt32(offset + 4)
-      thread.offsetPc(nextPcOffset)
-      return
-    }
-    offset += 8
-  }
-
-  thread.offsetPc(def)
+  const nextPcOffset = (table.pairs as Map<number, number>).get(value)
+  thread.offsetPc(nextPcOffset === undefined ? table.defaultOffset : nextPcOffset)
 }
 
 function _return(thread: Thread, ret?: any, isWide?: boolean): void {
   const method = thread.getMethod()
   if (method.checkSynchronized()) {
     if (method.checkStatic()) {
-      method.getClass().getJavaObject().getMonitor().exit(thread)
+      method.getClass().getJavaObject().monitorExit(thread)
     } else {
-      ;(thread.loadLocal(0) as JvmObject).getMonitor().exit(thread)
+      ;(thread.loadLocal(0) as JvmObject).monitorExit(thread)
     }
   }
 
@@ -101,47 +68,44 @@ function _return(thread: Thread, ret?: any, isWide?: boolean): void {
 }
 
 export function runIreturn(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const ret = thread.popStack()
+  if (ret === UNDERFLOW) {
     return
   }
-  const ret = popResult.result
   _return(thread, ret)
 }
 
 export function runLreturn(thread: Thread): void {
-  const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR) {
+  const ret = thread.popStack64()
+  if (ret === UNDERFLOW) {
     return
   }
-  const ret = popResult.result
   _return(thread, ret, true)
 }
 
 export function runFreturn(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
-  const ret = asFloat(popResult.result)
+  const ret = asFloat(value)
   _return(thread, ret)
 }
 
 export function runDreturn(thread: Thread): void {
-  const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack64()
+  if (value === UNDERFLOW) {
     return
   }
-  const ret = asDouble(popResult.result)
+  const ret = asDouble(value)
   _return(thread, ret, true)
 }
 
 export function runAreturn(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const ret = thread.popStack()
+  if (ret === UNDERFLOW) {
     return
   }
-  const ret = popResult.result
   _return(thread, ret)
 }
 
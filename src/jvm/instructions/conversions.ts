@@ -1,179 +1,179 @@
 import Thread from '../thread'
-import { ResultType } from '../types/Result'
-import { asFloat, asDouble } from '../utils'
+import { asFloat, asDouble, UNDERFLOW } from '../utils'
 
 const MAX_INT = 2147483647
 const MIN_INT = -2147483648
 const MAX_LONG = BigInt('9223372036854775807')
 const MIN_LONG = BigInt('-9223372036854775808')
+const TWO_POW_63 = 2 ** 63
+
+/**
+ * Rounds a floating point value to a long, saturating at the long bounds.
+ */
+function fpToLong(value: number): number | bigint {
+  if (Number.isNaN(value)) {
+    return 0
+  }
+  const rounded = Math.round(value)
+  if (Number.isSafeInteger(rounded)) {
+    // + 0 turns -0 into 0
+    return rounded + 0
+  }
+  if (rounded >= TWO_POW_63) {
+    return MAX_LONG
+  }
+  if (rounded < -TWO_POW_63) {
+    return MIN_LONG
+  }
+  return BigInt(rounded)
+}
+
+/**
+ * Float to int conversion as done by F2I, shared with compiled code.
+ */
+export function f2i(value: number): number {
+  if (Number.isNaN(value)) {
+    return 0
+  }
+  return Math.min(MAX_INT, Math.max(MIN_INT, Math.round(asFloat(value))))
+}
+
+/**
+ * Double to int conversion as done by D2I, shared with compiled code.
+ */
+export function d2i(popResult: number): number {
+  const value = asDouble(popResult)
+  if (Number.isNaN(value)) {
+    return 0
+  }
+  // If too large round to largest int, vice versa.
+  return Math.max(Math.min(Math.round(value), MAX_INT), MIN_INT)
+}
 
 export function runI2l(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
-  const value = popResult.result
-  thread.pushStack64(BigInt(value)) && thread.offsetPc(1)
+  thread.pushStack64(value) && thread.offsetPc(1)
 }
 
 export function runI2f(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
-  const value = popResult.result
   thread.pushStack(Math.fround(value)) && thread.offsetPc(1)
 }
 
 export function runI2d(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
-  const value = popResult.result
   thread.pushStack64(value) && thread.offsetPc(1)
 }
 
 export function runL2i(thread: Thread): void {
-  const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack64()
+  if (value === UNDERFLOW) {
     return
   }
-  const value = popResult.result
-  thread.pushStack(Number(BigInt.asIntN(32, value))) && thread.offsetPc(1)
+  // ToInt32 keeps the low 32 bits of any safe integer
+  const result = typeof value === 'number' ? value | 0 : Number(BigInt.asIntN(32, value))
+  thread.pushStack(result) && thread.offsetPc(1)
 }
 
 export function runL2f(thread: Thread): void {
-  const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack64()
+  if (value === UNDERFLOW) {
     return
   }
-  const value = popResult.result
   thread.pushStack(asFloat(Number(value))) && thread.offsetPc(1)
 }
 
 export function runL2d(thread: Thread): void {
-  const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack64()
+  if (value === UNDERFLOW) {
     return
   }
-  const value = popResult.result
   thread.pushStack64(Number(value)) && thread.offsetPc(1)
 }
 
 export function runF2i(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
-  let value = popResult.result
-  if (Number.isNaN(value)) {
-    value = 0
-  } else {
-    value = Math.min(MAX_INT, Math.max(MIN_INT, Math.round(asFloat(value))))
-  }
-  thread.pushStack(value) && thread.offsetPc(1)
+  thread.pushStack(f2i(value)) && thread.offsetPc(1)
 }
 
 export function runF2l(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
-  let value = popResult.result
-  if (Number.isNaN(value)) {
-    value = BigInt(0)
-  } else if (value == Infinity) {
-    value = MAX_LONG
-  } else if (value == -Infinity) {
-    value = MIN_LONG
-  } else {
-    value = BigInt(Math.round(asFloat(value)))
-    value = value > MAX_LONG ? MAX_LONG : value < MIN_LONG ? MIN_LONG : value
-  }
-  thread.pushStack64(value) && thread.offsetPc(1)
+  thread.pushStack64(fpToLong(asFloat(value))) && thread.offsetPc(1)
 }
 
 export function runF2d(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
-  const value = popResult.result
   thread.pushStack64(value) && thread.offsetPc(1)
 }
 
 export function runD2i(thread: Thread): void {
   const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW) {
     return
   }
-  let value = asDouble(popResult.result)
-  if (Number.isNaN(value)) {
-    value = 0
-  } else {
-    // If too large round to largest int, vice versa.
-    value = Math.max(Math.min(Math.round(value), MAX_INT), MIN_INT)
-  }
-  thread.pushStack(value) && thread.offsetPc(1)
+  thread.pushStack(d2i(popResult)) && thread.offsetPc(1)
 }
 
 export function runD2l(thread: Thread): void {
-  const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack64()
+  if (value === UNDERFLOW) {
     return
   }
-  const dbl = asDouble(popResult.result)
-  let value
-  if (Number.isNaN(dbl)) {
-    value = BigInt(0)
-  } else if (dbl == Infinity) {
-    value = MAX_LONG
-  } else if (dbl == -Infinity) {
-    value = MIN_LONG
-  } else {
-    value = BigInt(Math.round(dbl))
-    value = value > MAX_LONG ? MAX_LONG : value < MIN_LONG ? MIN_LONG : value
-  }
-  thread.pushStack64(value) && thread.offsetPc(1)
+  const dbl = asDouble(value)
+  thread.pushStack64(fpToLong(dbl)) && thread.offsetPc(1)
 }
 
 export function runD2f(thread: Thread): void {
   const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW) {
     return
   }
-  let value = asDouble(popResult.result)
+  let value = asDouble(popResult)
   value = asFloat(value)
   thread.pushStack(value) && thread.offsetPc(1)
 }
 
 export function runI2b(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  let value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
-  let value = popResult.result
   value = (value << 24) >> 24
   thread.pushStack(value) && thread.offsetPc(1)
 }
 
 export function runI2c(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  let value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
-  let value = popResult.result
   value = value & 0xffff
   thread.pushStack(value) && thread.offsetPc(1)
 }
 
 export function runI2s(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  let value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
-  let value = popResult.result
   value = (value << 16) >> 16
   thread.pushStack(value) && thread.offsetPc(1)
 }
@@ -5,12 +5,13 @@ import { ConstantClass } from '../types/class/Constants'
 import { JvmArray } from '../types/reference/Array'
 import { JvmObject } from '../types/reference/Object'
 import { ResultType } from '../types/Result'
-import { asFloat, asDouble } from '../utils'
+import { asFloat, asDouble, UNDERFLOW } from '../utils'
 
 export function runWide(thread: Thread): void {
-  const opcode = thread.getCode().getUint8(thread.getPC() + 1)
-
-  const indexbyte = thread.getCode().getUint16(thread.getPC() + 2)
+  // modified opcode, with the constant of IINC in the upper bits
+  const operand = thread.getOperand()
+  const opcode = operand & 0xff
+  const indexbyte = thread.getOperand2()
 
   let store
   switch (opcode) {
@@ -26,42 +27,42 @@ export function runWide(thread: Thread): void {
     case OPCODE.ISTORE:
     case OPCODE.ASTORE:
       store = thread.popStack()
-      if (store.status === ResultType.ERROR) {
+      if (store === UNDERFLOW) {
         return
       } else {
-        thread.storeLocal(indexbyte, store.result)
+        thread.storeLocal(indexbyte, store)
         thread.offsetPc(4)
         return
       }
     case OPCODE.FSTORE:
       store = thread.popStack()
-      if (store.status === ResultType.ERROR) {
+      if (store === UNDERFLOW) {
         return
       } else {
-        thread.storeLocal(indexbyte, asFloat(store.result))
+        thread.storeLocal(indexbyte, asFloat(store))
         thread.offsetPc(4)
         return
       }
     case OPCODE.LSTORE:
       store = thread.popStack64()
-      if (store.status === ResultType.ERROR) {
+      if (store === UNDERFLOW) {
         return
       } else {
-        thread.storeLocal(indexbyte, store.result)
+        thread.storeLocal(indexbyte, store)
         thread.offsetPc(4)
         return
       }
     case OPCODE.DSTORE:
       store = thread.popStack64()
-      if (store.status === ResultType.ERROR) {
+      if (store === UNDERFLOW) {
         return
       } else {
-        thread.storeLocal(indexbyte, asDouble(store.result))
+        thread.storeLocal(indexbyte, asDouble(store))
         thread.offsetPc(4)
         return
       }
     case OPCODE.IINC:
-      const constbyte = thread.getCode().getInt16(thread.getPC() + 4)
+      const constbyte = operand >> 8
 
       thread.storeLocal(indexbyte, ((thread.loadLocal(indexbyte) as number) + constbyte) | 0)
       thread.offsetPc(6)
@@ -71,19 +72,18 @@ export function runWide(thread: Thread): void {
 }
 
 export function runMultianewarray(thread: Thread): void {
-  const indexbyte = thread.getCode().getUint16(thread.getPC() + 1)
+  const indexbyte = thread.getOperand()
   const arrayClsConstant = thread.getClass().getConstant(indexbyte) as ConstantClass
 
-  const dimensions = thread.getCode().getUint8(thread.getPC() + 3)
+  const dimensions = thread.getOperand2()
 
   // get dimensions array: [2][3] == [2,3]
   const dimArray = []
   for (let i = 0; i < dimensions; i++) {
-    const popResult = thread.popStack()
-    if (popResult.status === ResultType.ERROR) {
+    const dim = thread.popStack()
+    if (dim === UNDERFLOW) {
       return
     }
-    const dim = popResult.result
 
     if (dim < 0) {
       thread.throwNewException('java/lang/NegativeArraySizeException', 'Negative array size')
@@ -101,6 +101,8 @@ export function runMultianewarray(thread: Thread): void {
   }
 
   const arrayCls = clsRes.result as ArrayClassData
+  const profiler = thread.getProfiler()
+  profiler?.onAllocate(arrayCls)
   const res = arrayCls.instantiate()
   res.initArray(dimArray[0])
 
@@ -118,6 +120,7 @@ export function runMultianewarray(thread: Thread): void {
       return
     }
     const arrayCls = classResolutionResult.result
+    profiler?.onAllocate(arrayCls, pendingInit.length * len)
 
     for (const arr of pendingInit) {
       for (let j = 0; j < dimArray[i]; j++) {
@@ -140,13 +143,13 @@ export function runMultianewarray(thread: Thread): void {
 }
 
 export function runIfnull(thread: Thread): void {
-  const branchbyte = thread.getCode().getInt16(thread.getPC() + 1)
+  const branchbyte = thread.getOperand()
 
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
-  const ref = popResult.result as JvmObject
+  const ref = value as JvmObject
   if (ref === null) {
     thread.offsetPc(branchbyte)
   } else {
@@ -155,13 +158,13 @@ export function runIfnull(thread: Thread): void {
 }
 
 export function runIfnonnull(thread: Thread): void {
-  const branchbyte = thread.getCode().getInt16(thread.getPC() + 1)
+  const branchbyte = thread.getOperand()
 
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
-  const ref = popResult.result as JvmObject
+  const ref = value as JvmObject
   if (ref !== null) {
     thread.offsetPc(branchbyte)
   } else {
@@ -170,12 +173,12 @@ export function runIfnonnull(thread: Thread): void {
 }
 
 export function runGotoW(thread: Thread): void {
-  const branchbyte = thread.getCode().getInt32(thread.getPC() + 1)
+  const branchbyte = thread.getOperand()
   thread.offsetPc(branchbyte)
 }
 
 export function runJsrW(thread: Thread): void {
-  const branchbyte = thread.getCode().getInt32(thread.getPC() + 1)
+  const branchbyte = thread.getOperand()
   thread.pushStack(thread.getPC() + 5)
   thread.setPc(thread.getPC() + branchbyte)
 }
@@ -1,29 +1,29 @@
 import Thread from '../thread'
-import { ResultType } from '../types/Result'
 import { JvmArray } from '../types/reference/Array'
+import { UNDERFLOW } from '../utils'
 
 export function runIload(thread: Thread): void {
-  const index = thread.getCode().getUint8(thread.getPC() + 1)
+  const index = thread.getOperand()
   thread.pushStack(thread.loadLocal(index)) && thread.offsetPc(2)
 }
 
 export function runLload(thread: Thread): void {
-  const index = thread.getCode().getUint8(thread.getPC() + 1)
+  const index = thread.getOperand()
   thread.pushStack64(thread.loadLocal(index) as bigint | number) && thread.offsetPc(2)
 }
 
 export function runFload(thread: Thread): void {
-  const index = thread.getCode().getUint8(thread.getPC() + 1)
+  const index = thread.getOperand()
   thread.pushStack(thread.loadLocal(index)) && thread.offsetPc(2)
 }
 
 export function runDload(thread: Thread): void {
-  const index = thread.getCode().getUint8(thread.getPC() + 1)
+  const index = thread.getOperand()
   thread.pushStack64(thread.loadLocal(index) as bigint | number) && thread.offsetPc(2)
 }
 
 export function runAload(thread: Thread): void {
-  const index = thread.getCode().getUint8(thread.getPC() + 1)
+  const index = thread.getOperand()
   thread.pushStack(thread.loadLocal(index)) && thread.offsetPc(2)
 }
 
@@ -110,12 +110,12 @@ export function runAload3(thread: Thread): void {
 export function runIaload(thread: Thread): void {
   const popResult = thread.popStack()
   const popResult2 = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
 
-  const index: number = popResult.result
-  const arrayref: JvmArray | null = popResult2.result
+  const index: number = popResult
+  const arrayref: JvmArray | null = popResult2
   if (arrayref === null) {
     thread.throwNewException('java/lang/NullPointerException', '')
     return
@@ -134,11 +134,11 @@ export function runIaload(thread: Thread): void {
 export function runLaload(thread: Thread): void {
   const popResult = thread.popStack()
   const popResult2 = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const index: number = popResult.result
-  const arrayref: JvmArray | null = popResult2.result
+  const index: number = popResult
+  const arrayref: JvmArray | null = popResult2
   if (arrayref === null) {
     thread.throwNewException('java/lang/NullPointerException', '')
     return
@@ -156,11 +156,11 @@ export function runLaload(thread: Thread): void {
 export function runFaload(thread: Thread): void {
   const popResult = thread.popStack()
   const popResult2 = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const index: number = popResult.result
-  const arrayref: JvmArray | null = popResult2.result
+  const index: number = popResult
+  const arrayref: JvmArray | null = popResult2
   if (arrayref === null) {
     thread.throwNewException('java/lang/NullPointerException', '')
     return
@@ -178,11 +178,11 @@ export function runFaload(thread: Thread): void {
 export function runDaload(thread: Thread): void {
   const popResult = thread.popStack()
   const popResult2 = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const index: number = popResult.result
-  const arrayref: JvmArray | null = popResult2.result
+  const index: number = popResult
+  const arrayref: JvmArray | null = popResult2
   if (arrayref === null) {
     thread.throwNewException('java/lang/NullPointerException', '')
     return
@@ -200,11 +200,11 @@ export function runDaload(thread: Thread): void {
 export function runAaload(thread: Thread): void {
   const popResult = thread.popStack()
   const popResult2 = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const index: number = popResult.result
-  const arrayref: JvmArray | null = popResult2.result
+  const index: number = popResult
+  const arrayref: JvmArray | null = popResult2
   if (arrayref === null) {
     thread.throwNewException('java/lang/NullPointerException', '')
     return
@@ -222,11 +222,11 @@ export function runAaload(thread: Thread): void {
 export function runBaload(thread: Thread): void {
   const popResult = thread.popStack()
   const popResult2 = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const index: number = popResult.result
-  const arrayref: JvmArray | null = popResult2.result
+  const index: number = popResult
+  const arrayref: JvmArray | null = popResult2
   if (arrayref === null) {
     thread.throwNewException('java/lang/NullPointerException', '')
     return
@@ -244,11 +244,11 @@ export function runBaload(thread: Thread): void {
 export function runCaload(thread: Thread): void {
   const popResult = thread.popStack()
   const popResult2 = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const index: number = popResult.result
-  const arrayref: JvmArray | null = popResult2.result
+  const index: number = popResult
+  const arrayref: JvmArray | null = popResult2
   if (arrayref === null) {
     thread.throwNewException('java/lang/NullPointerException', '')
     return
@@ -266,11 +266,11 @@ export function runCaload(thread: Thread): void {
 export function runSaload(thread: Thread): void {
   const popResult = thread.popStack()
   const popResult2 = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const index: number = popResult.result
-  const arrayref: JvmArray | null = popResult2.result
+  const index: number = popResult
+  const arrayref: JvmArray | null = popResult2
   if (arrayref === null) {
     thread.throwNewException('java/lang/NullPointerException', '')
     return
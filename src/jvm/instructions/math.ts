@@ -1,18 +1,47 @@
 import Thread from '../thread'
-import { ResultType } from '../types/Result'
-import { asFloat, asDouble } from '../utils'
+import { asFloat, asDouble, asLong, UNDERFLOW } from '../utils'
 
 const MIN_INT = -2147483648
-const MIN_LONG = BigInt('-9223372036854775808')
+const MASK_64 = BigInt('0xffffffffffffffff')
+
+/**
+ * Longs in the int range can use JS bitwise operators directly, the sign extended upper bits
+ * give the same result as the 64 bit operation.
+ */
+function isInt32(value: number | bigint): value is number {
+  return typeof value === 'number' && (value | 0) === value
+}
+
+/**
+ * Float addition as done by FADD, shared with compiled code.
+ * A zero operand returns the other operand unchanged.
+ */
+export function fadd(a: number, b: number): number {
+  const value1 = asFloat(a)
+  const value2 = asFloat(b)
+
+  if (value1 === 0 && value2 !== 0) {
+    return value2
+  } else if (value1 !== 0 && value2 === 0) {
+    return value1
+  }
+
+  return asFloat(value1 + value2)
+}
+
+/**
+ * Float subtraction as done by FSUB, shared with compiled code.
+ */
+export function fsub(a: number, b: number): number {
+  return asFloat(asFloat(a) - asFloat(b))
+}
 
 export function runIadd(thread: Thread): void {
-  const popResult2 = thread.popStack()
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  const value2 = thread.popStack()
+  const value1 = thread.popStack()
+  if (value1 === UNDERFLOW || value2 === UNDERFLOW) {
     return
   }
-  const value2 = popResult2.result
-  const value1 = popResult.result
   // 2 * MAX_INT is within max type safe int
   thread.pushStack((value1 + value2) | 0) && thread.offsetPc(1)
 }
@@ -20,53 +49,48 @@ export function runIadd(thread: Thread): void {
 export function runLadd(thread: Thread): void {
   const popResult2 = thread.popStack64()
   const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const value2 = popResult2.result
-  const value1 = popResult.result
-  thread.pushStack64(BigInt.asIntN(64, value1 + value2)) && thread.offsetPc(1)
+  const value2: number | bigint = popResult2
+  const value1: number | bigint = popResult
+
+  if (typeof value1 === 'number' && typeof value2 === 'number') {
+    const result = value1 + value2
+    if (Number.isSafeInteger(result)) {
+      thread.pushStack64(result) && thread.offsetPc(1)
+      return
+    }
+  }
+  thread.pushStack64(asLong(BigInt(value1) + BigInt(value2))) && thread.offsetPc(1)
 }
 
 export function runFadd(thread: Thread): void {
   const popResult2 = thread.popStack()
   const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const value2 = asFloat(popResult2.result)
-  const value1 = asFloat(popResult.result)
-
-  if (value1 === 0 && value2 !== 0) {
-    thread.pushStack(value2) && thread.offsetPc(1)
-    return
-  } else if (value1 !== 0 && value2 === 0) {
-    thread.pushStack(value1) && thread.offsetPc(1)
-    return
-  }
-
-  thread.pushStack(asFloat(value1 + value2)) && thread.offsetPc(1)
+  thread.pushStack(fadd(popResult, popResult2)) && thread.offsetPc(1)
 }
 
 export function runDadd(thread: Thread): void {
   const popResult2 = thread.popStack64()
   const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const value2 = asDouble(popResult2.result)
-  const value1 = asDouble(popResult.result)
+  const value2 = asDouble(popResult2)
+  const value1 = asDouble(popResult)
   thread.pushStack64(value1 + value2) && thread.offsetPc(1)
 }
 
 export function runIsub(thread: Thread): void {
-  const popResult2 = thread.popStack()
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  const value2 = thread.popStack()
+  const value1 = thread.popStack()
+  if (value1 === UNDERFLOW || value2 === UNDERFLOW) {
     return
   }
-  const value2 = popResult2.result
-  const value1 = popResult.result
   // 2 * MIN_INT within type safe int
   thread.pushStack((value1 - value2) | 0) && thread.offsetPc(1)
 }
@@ -74,97 +98,99 @@ export function runIsub(thread: Thread): void {
 export function runLsub(thread: Thread): void {
   const popResult2 = thread.popStack64()
   const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const value2: bigint = popResult2.result
-  const value1: bigint = popResult.result
-  thread.pushStack64(BigInt.asIntN(64, value1 - value2)) && thread.offsetPc(1)
+  const value2: number | bigint = popResult2
+  const value1: number | bigint = popResult
+
+  if (typeof value1 === 'number' && typeof value2 === 'number') {
+    const result = value1 - value2
+    if (Number.isSafeInteger(result)) {
+      thread.pushStack64(result) && thread.offsetPc(1)
+      return
+    }
+  }
+  thread.pushStack64(asLong(BigInt(value1) - BigInt(value2))) && thread.offsetPc(1)
 }
 
 export function runFsub(thread: Thread): void {
   const popResult2 = thread.popStack()
   const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
-    return
-  }
-  const value2 = asFloat(popResult2.result)
-  const value1 = asFloat(popResult.result)
-
-  if (value1 === 0 && value2 !== 0) {
-    thread.pushStack(value2) && thread.offsetPc(1)
-    return
-  } else if (value1 !== 0 && value2 === 0) {
-    thread.pushStack(value1) && thread.offsetPc(1)
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-
-  thread.pushStack(asFloat(value1 - value2)) && thread.offsetPc(1)
+  thread.pushStack(fsub(popResult, popResult2)) && thread.offsetPc(1)
 }
 
 export function runDsub(thread: Thread): void {
   const popResult2 = thread.popStack64()
   const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const value2 = asDouble(popResult2.result)
-  const value1 = asDouble(popResult.result)
+  const value2 = asDouble(popResult2)
+  const value1 = asDouble(popResult)
   thread.pushStack64(value1 - value2) && thread.offsetPc(1)
 }
 
 export function runImul(thread: Thread): void {
-  const popResult2 = thread.popStack()
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  const value2 = thread.popStack()
+  const value1 = thread.popStack()
+  if (value1 === UNDERFLOW || value2 === UNDERFLOW) {
     return
   }
-  const value2 = popResult2.result
-  const value1 = popResult.result
   thread.pushStack(Math.imul(value1, value2) | 0) && thread.offsetPc(1)
 }
 
 export function runLmul(thread: Thread): void {
   const popResult2 = thread.popStack64()
   const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const value2: bigint = popResult2.result
-  const value1: bigint = popResult.result
-  thread.pushStack64(BigInt.asIntN(64, value1 * value2)) && thread.offsetPc(1)
+  const value2: number | bigint = popResult2
+  const value1: number | bigint = popResult
+
+  if (typeof value1 === 'number' && typeof value2 === 'number') {
+    const result = value1 * value2
+    if (Number.isSafeInteger(result)) {
+      // + 0 turns -0 into 0
+      thread.pushStack64(result + 0) && thread.offsetPc(1)
+      return
+    }
+  }
+  thread.pushStack64(asLong(BigInt(value1) * BigInt(value2))) && thread.offsetPc(1)
 }
 
 export function runFmul(thread: Thread): void {
   const popResult2 = thread.popStack()
   const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const value2 = asFloat(popResult2.result)
-  const value1 = asFloat(popResult.result)
+  const value2 = asFloat(popResult2)
+  const value1 = asFloat(popResult)
   thread.pushStack(asFloat(value1 * value2)) && thread.offsetPc(1)
 }
 
 export function runDmul(thread: Thread): void {
   const popResult2 = thread.popStack64()
   const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const value2 = asDouble(popResult2.result)
-  const value1 = asDouble(popResult.result)
+  const value2 = asDouble(popResult2)
+  const value1 = asDouble(popResult)
   thread.pushStack64(value1 * value2) && thread.offsetPc(1)
 }
 
 export function runIdiv(thread: Thread): void {
-  const popResult2 = thread.popStack()
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  const value2 = thread.popStack()
+  const value1 = thread.popStack()
+  if (value1 === UNDERFLOW || value2 === UNDERFLOW) {
     return
   }
-  const value2 = popResult2.result
-  const value1 = popResult.result
 
   if (value2 === 0) {
     thread.throwNewException('java/lang/ArithmeticException', 'Division by 0')
@@ -182,55 +208,55 @@ export function runIdiv(thread: Thread): void {
 export function runLdiv(thread: Thread): void {
   const popResult2 = thread.popStack64()
   const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const value2: bigint = popResult2.result
-  const value1: bigint = popResult.result
+  const value2: number | bigint = popResult2
+  const value1: number | bigint = popResult
 
-  if (value2 === BigInt(0)) {
+  if (value2 == 0) {
     thread.throwNewException('java/lang/ArithmeticException', 'Division by 0')
     return
   }
 
-  if (value1 === MIN_LONG && value2 === -BigInt(1)) {
-    thread.pushStack64(value1) && thread.offsetPc(1)
+  if (typeof value1 === 'number' && typeof value2 === 'number') {
+    // exact for safe integers, + 0 turns -0 into 0
+    thread.pushStack64(Math.trunc(value1 / value2) + 0) && thread.offsetPc(1)
     return
   }
 
-  thread.pushStack64(BigInt.asIntN(64, value1 / value2)) && thread.offsetPc(1)
+  // MIN_LONG / -1 wraps back to MIN_LONG
+  thread.pushStack64(asLong(BigInt(value1) / BigInt(value2))) && thread.offsetPc(1)
 }
 
 export function runFdiv(thread: Thread): void {
   const popResult2 = thread.popStack()
   const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const value2 = asFloat(popResult2.result)
-  const value1 = asFloat(popResult.result)
+  const value2 = asFloat(popResult2)
+  const value1 = asFloat(popResult)
   thread.pushStack(asFloat(value1 / value2)) && thread.offsetPc(1)
 }
 
 export function runDdiv(thread: Thread): void {
   const popResult2 = thread.popStack64()
   const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const value2 = asDouble(popResult2.result)
-  const value1 = asDouble(popResult.result)
+  const value2 = asDouble(popResult2)
+  const value1 = asDouble(popResult)
   thread.pushStack64(value1 / value2) && thread.offsetPc(1)
 }
 
 export function runIrem(thread: Thread): void {
-  const popResult2 = thread.popStack()
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  const value2 = thread.popStack()
+  const value1 = thread.popStack()
+  if (value1 === UNDERFLOW || value2 === UNDERFLOW) {
     return
   }
-  const value2 = popResult2.result
-  const value1 = popResult.result
 
   if (value2 === 0) {
     thread.throwNewException('java/lang/ArithmeticException', 'Division by 0')
@@ -243,131 +269,150 @@ export function runIrem(thread: Thread): void {
 export function runLrem(thread: Thread): void {
   const popResult2 = thread.popStack64()
   const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const value2: bigint = popResult2.result
-  const value1: bigint = popResult.result
+  const value2: number | bigint = popResult2
+  const value1: number | bigint = popResult
 
-  if (value2 === BigInt(0)) {
+  if (value2 == 0) {
     thread.throwNewException('java/lang/ArithmeticException', 'Division by 0')
     return
   }
 
-  thread.pushStack64(BigInt.asIntN(64, value1 % value2)) && thread.offsetPc(1)
+  if (typeof value1 === 'number' && typeof value2 === 'number') {
+    // + 0 turns -0 into 0
+    thread.pushStack64((value1 % value2) + 0) && thread.offsetPc(1)
+    return
+  }
+
+  thread.pushStack64(asLong(BigInt(value1) % BigInt(value2))) && thread.offsetPc(1)
 }
 
 export function runFrem(thread: Thread): void {
   const popResult2 = thread.popStack()
   const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const value2 = asFloat(popResult2.result)
-  const value1 = asFloat(popResult.result)
+  const value2 = asFloat(popResult2)
+  const value1 = asFloat(popResult)
   thread.pushStack(asFloat(value1 % value2)) && thread.offsetPc(1)
 }
 
 export function runDrem(thread: Thread): void {
   const popResult2 = thread.popStack64()
   const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const value2 = asDouble(popResult2.result)
-  const value1 = asDouble(popResult.result)
+  const value2 = asDouble(popResult2)
+  const value1 = asDouble(popResult)
   thread.pushStack64(value1 % value2) && thread.offsetPc(1)
 }
 
 export function runIneg(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
-  const value = popResult.result
   thread.pushStack(-value | 0) && thread.offsetPc(1)
 }
 
 export function runLneg(thread: Thread): void {
   const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW) {
     return
   }
-  const value: bigint = popResult.result
-  thread.pushStack64(BigInt.asIntN(64, -value)) && thread.offsetPc(1)
+  const value: number | bigint = popResult
+  if (typeof value === 'number') {
+    // the safe integer range is symmetric
+    thread.pushStack64(0 - value) && thread.offsetPc(1)
+    return
+  }
+  thread.pushStack64(asLong(-value)) && thread.offsetPc(1)
 }
 
 export function runFneg(thread: Thread): void {
   const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW) {
     return
   }
-  const value = asFloat(popResult.result)
+  const value = asFloat(popResult)
   thread.pushStack(asFloat(-value)) && thread.offsetPc(1)
 }
 
 export function runDneg(thread: Thread): void {
   const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW) {
     return
   }
-  const value = asDouble(popResult.result)
+  const value = asDouble(popResult)
   thread.pushStack64(-value) && thread.offsetPc(1)
 }
 
 export function runIshl(thread: Thread): void {
-  const popResult2 = thread.popStack()
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  const value2 = thread.popStack()
+  const value1 = thread.popStack()
+  if (value1 === UNDERFLOW || value2 === UNDERFLOW) {
     return
   }
-  const value2 = popResult2.result
-  const value1 = popResult.result
   thread.pushStack((value1 << (value2 & 0x1f)) | 0) && thread.offsetPc(1)
 }
 
 export function runLshl(thread: Thread): void {
   const popResult2 = thread.popStack()
   const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const value2: number = popResult2.result
-  const value1: bigint = popResult.result
-  thread.pushStack64(BigInt.asIntN(64, value1 << BigInt(value2 & 0x3f))) && thread.offsetPc(1)
+  const value2: number = popResult2 & 0x3f
+  const value1: number | bigint = popResult
+
+  if (typeof value1 === 'number') {
+    const result = value1 * 2 ** value2
+    if (Number.isSafeInteger(result)) {
+      thread.pushStack64(result) && thread.offsetPc(1)
+      return
+    }
+  }
+  thread.pushStack64(asLong(BigInt(value1) << BigInt(value2))) && thread.offsetPc(1)
 }
 
 export function runIshr(thread: Thread): void {
-  const popResult2 = thread.popStack()
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  const value2 = thread.popStack()
+  const value1 = thread.popStack()
+  if (value1 === UNDERFLOW || value2 === UNDERFLOW) {
     return
   }
-  const value2 = popResult2.result
-  const value1 = popResult.result
   thread.pushStack((value1 >> (value2 & 0x1f)) | 0) && thread.offsetPc(1)
 }
 
 export function runLshr(thread: Thread): void {
   const popResult2 = thread.popStack()
   const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const value2: number = popResult2.result
-  const value1: bigint = popResult.result
-  thread.pushStack64(BigInt.asIntN(64, value1 >> BigInt(value2 & 0x3f))) && thread.offsetPc(1)
+  const value2: number = popResult2 & 0x3f
+  const value1: number | bigint = popResult
+
+  if (typeof value1 === 'number') {
+    thread.pushStack64(Math.floor(value1 / 2 ** value2)) && thread.offsetPc(1)
+    return
+  }
+  thread.pushStack64(asLong(value1 >> BigInt(value2))) && thread.offsetPc(1)
 }
 
 export function runIushr(thread: Thread): void {
   const popResult2 = thread.popStack()
   const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
 
-  const value2: number = popResult2.result & 0x1f
-  const value1: number = popResult.result
+  const value2: number = popResult2 & 0x1f
+  const value1: number = popResult
 
   thread.pushStack((value1 >>> value2) | 0) && thread.offsetPc(1)
 }
@@ -375,92 +420,99 @@ export function runIushr(thread: Thread): void {
 export function runLushr(thread: Thread): void {
   const popResult2 = thread.popStack()
   const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
+  const value2: number = popResult2 & 0x3f
+  const value1: number | bigint = popResult
 
-  const value2: number = popResult2.result & 0x3f
-  const value1: bigint = popResult.result
-
-  if (value1 >= 0) {
-    thread.pushStack64(BigInt.asIntN(64, value1 >> BigInt(value2))) && thread.offsetPc(1)
+  if (typeof value1 === 'number' && value1 >= 0) {
+    thread.pushStack64(Math.floor(value1 / 2 ** value2)) && thread.offsetPc(1)
     return
   }
 
   // convert leading 1's to zeros
-  thread.pushStack64((value1 & BigInt('0xffffffffffffffff')) >> BigInt(value2)) &&
-    thread.offsetPc(1)
+  thread.pushStack64(asLong((BigInt(value1) & MASK_64) >> BigInt(value2))) && thread.offsetPc(1)
 }
 
 export function runIand(thread: Thread): void {
-  const popResult2 = thread.popStack()
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  const value2 = thread.popStack()
+  const value1 = thread.popStack()
+  if (value1 === UNDERFLOW || value2 === UNDERFLOW) {
     return
   }
-  const value2 = popResult2.result
-  const value1 = popResult.result
   thread.pushStack((value1 & value2) | 0) && thread.offsetPc(1)
 }
 
 export function runLand(thread: Thread): void {
   const popResult2 = thread.popStack64()
   const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const value2: bigint = popResult2.result
-  const value1: bigint = popResult.result
-  thread.pushStack64(BigInt.asIntN(64, value1 & value2)) && thread.offsetPc(1)
+  const value2: number | bigint = popResult2
+  const value1: number | bigint = popResult
+
+  if (isInt32(value1) && isInt32(value2)) {
+    thread.pushStack64(value1 & value2) && thread.offsetPc(1)
+    return
+  }
+  thread.pushStack64(asLong(BigInt(value1) & BigInt(value2))) && thread.offsetPc(1)
 }
 
 export function runIor(thread: Thread): void {
-  const popResult2 = thread.popStack()
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  const value2 = thread.popStack()
+  const value1 = thread.popStack()
+  if (value1 === UNDERFLOW || value2 === UNDERFLOW) {
     return
   }
-  const value2 = popResult2.result
-  const value1 = popResult.result
   thread.pushStack(value1 | value2 | 0) && thread.offsetPc(1)
 }
 
 export function runLor(thread: Thread): void {
   const popResult2 = thread.popStack64()
   const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
     return
   }
-  const value2: bigint = popResult2.result
-  const value1: bigint = popResult.result
-  thread.pushStack64(BigInt.asIntN(64, value1 | value2)) && thread.offsetPc(1)
+  const value2: number | bigint = popResult2
+  const value1: number | bigint = popResult
+
+  if (isInt32(value1) && isInt32(value2)) {
+    thread.pushStack64(value1 | value2) && thread.offsetPc(1)
+    return
+  }
+  thread.pushStack64(asLong(BigInt(value1) | BigInt(value2))) && thread.offsetPc(1)
 }
 
 export function runIxor(thread: Thread): void {
-  const popResult2 = thread.popStack()
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  const value2 = thread.popStack()
+  const value1 = thread.popStack()
+  if (value1 === UNDERFLOW || value2 === UNDERFLOW) {
     return
   }
-  const value2 = popResult2.result
-  const value1 = popResult.result
   thread.pushStack((value1 ^ value2) | 0) && thread.offsetPc(1)
 }
 
 export function runLxor(thread: Thread): void {
   const popResult2 = thread.popStack64()
   const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW || popResult2 === UNDERFLOW) {
+    return
+  }
+  const value2: number | bigint = popResult2
+  const value1: number | bigint = popResult
+
+  if (isInt32(value1) && isInt32(value2)) {
+    thread.pushStack64(value1 ^ value2) && thread.offsetPc(1)
     return
   }
-  const value2: bigint = popResult2.result
-  const value1: bigint = popResult.result
-  thread.pushStack64(BigInt.asIntN(64, value1 ^ value2)) && thread.offsetPc(1)
+  thread.pushStack64(asLong(BigInt(value1) ^ BigInt(value2))) && thread.offsetPc(1)
 }
 
 export function runIinc(thread: Thread): void {
-  const index = thread.getCode().getUint8(thread.getPC() + 1)
-  const constant = thread.getCode().getInt8(thread.getPC() + 2)
+  const index = thread.getOperand()
+  const constant = thread.getOperand2()
   thread.offsetPc(3)
   thread.storeLocal(index, ((thread.loadLocal(index) as number) + constant) | 0)
 }
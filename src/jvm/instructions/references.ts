@@ -1,6 +1,7 @@
+import { InlineCache } from '../inline-cache'
 import { NativeStackFrame, JavaStackFrame } from '../stackframe'
 import Thread from '../thread'
-import { Result, ImmediateResult, ResultType } from '../types/Result'
+import { Result, ImmediateResult, ErrorResult, ResultType } from '../types/Result'
 import { ReferenceClassData } from '../types/class/ClassData'
 import {
   ConstantFieldref,
@@ -12,10 +13,16 @@ import {
 import { Method } from '../types/class/Method'
 import { ArrayPrimitiveType, JvmArray } from '../types/reference/Array'
 import { JavaType, JvmObject } from '../types/reference/Object'
-import { asDouble, asFloat, getArgs } from '../utils'
+import { asDouble, asFloat, getArgs, UNDERFLOW } from '../utils'
+
+const STACK_UNDERFLOW: ErrorResult = {
+  status: ResultType.ERROR,
+  exceptionCls: 'java/lang/RuntimeException',
+  msg: 'Stack Underflow'
+}
 
 export function runGetstatic(thread: Thread): void {
-  const indexbyte = thread.getCode().getUint16(thread.getPC() + 1)
+  const indexbyte = thread.getOperand()
 
   const constantField = thread.getClass().getConstant(indexbyte) as ConstantFieldref
   const fieldRes = constantField.resolve()
@@ -54,7 +61,7 @@ export function runGetstatic(thread: Thread): void {
 }
 
 export function runPutstatic(thread: Thread): void {
-  const indexbyte = thread.getCode().getUint16(thread.getPC() + 1)
+  const indexbyte = thread.getOperand()
 
   const constantField = thread.getClass().getConstant(indexbyte) as ConstantFieldref
   const fieldRes = constantField.resolve()
@@ -89,50 +96,50 @@ export function runPutstatic(thread: Thread): void {
   switch (desc) {
     case JavaType.long:
       popResult = thread.popStack64()
-      if (popResult.status === ResultType.ERROR) {
+      if (popResult === UNDERFLOW) {
         return
       }
-      field.putValue(popResult.result)
+      field.putValue(popResult)
       thread.offsetPc(3)
       return
     case JavaType.double:
       popResult = thread.popStack64()
-      if (popResult.status === ResultType.ERROR) {
+      if (popResult === UNDERFLOW) {
         return
       }
-      field.putValue(asDouble(popResult.result))
+      field.putValue(asDouble(popResult))
       thread.offsetPc(3)
       return
     case JavaType.float:
       popResult = thread.popStack()
-      if (popResult.status === ResultType.ERROR) {
+      if (popResult === UNDERFLOW) {
         return
       }
-      field.putValue(asFloat(popResult.result))
+      field.putValue(asFloat(popResult))
       thread.offsetPc(3)
       return
     case JavaType.boolean:
       popResult = thread.popStack()
-      if (popResult.status === ResultType.ERROR) {
+      if (popResult === UNDERFLOW) {
         return
       }
-      field.putValue(popResult.result & 1)
+      field.putValue(popResult & 1)
       thread.offsetPc(3)
       return
     case JavaType.int:
     default:
       popResult = thread.popStack()
-      if (popResult.status === ResultType.ERROR) {
+      if (popResult === UNDERFLOW) {
         return
       }
-      field.putValue(popResult.result)
+      field.putValue(popResult)
       thread.offsetPc(3)
       return
   }
 }
 
 export function runGetfield(thread: Thread): void {
-  const indexbyte = thread.getCode().getUint16(thread.getPC() + 1)
+  const indexbyte = thread.getOperand()
 
   const constantField = thread.getClass().getConstant(indexbyte) as ConstantFieldref
   const fieldRes = constantField.resolve()
@@ -153,10 +160,10 @@ export function runGetfield(thread: Thread): void {
   }
 
   const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW) {
     return
   }
-  const objRef = popResult.result as JvmObject
+  const objRef = popResult as JvmObject
   if (objRef === null) {
     thread.throwNewException('java/lang/NullPointerException', '')
     return
@@ -172,7 +179,7 @@ export function runGetfield(thread: Thread): void {
 }
 
 export function runPutfield(thread: Thread): void {
-  const indexbyte = thread.getCode().getUint16(thread.getPC() + 1)
+  const indexbyte = thread.getOperand()
   const constantField = thread.getClass().getConstant(indexbyte) as ConstantFieldref
   const fieldRes = constantField.resolve()
 
@@ -199,15 +206,15 @@ export function runPutfield(thread: Thread): void {
   }
 
   const popResult = thread.popStack()
-  if (vpopResult.status === ResultType.ERROR || popResult.status === ResultType.ERROR) {
+  if (vpopResult === UNDERFLOW || popResult === UNDERFLOW) {
     return
   }
-  const objRef = popResult.result as JvmObject
+  const objRef = popResult as JvmObject
   if (objRef === null) {
     thread.throwNewException('java/lang/NullPointerException', '')
     return
   }
-  objRef.putField(field, vpopResult.result)
+  objRef.putField(field, vpopResult)
   thread.offsetPc(3)
 }
 
@@ -242,10 +249,10 @@ function invokeInit(
         target = methodRef
         args = getArgs(thread, originalDescriptor, target.checkNative())
         popResult = thread.popStack()
-        if (popResult.status === ResultType.ERROR) {
-          return popResult
+        if (popResult === UNDERFLOW) {
+          return STACK_UNDERFLOW
         }
-        mh = popResult.result as JvmObject
+        mh = popResult as JvmObject
         if (mh === null) {
           return {
             status: ResultType.ERROR,
@@ -270,10 +277,10 @@ function invokeInit(
           args.push(appendix)
         }
         popResult = thread.popStack()
-        if (popResult.status === ResultType.ERROR) {
-          return popResult
+        if (popResult === UNDERFLOW) {
+          return STACK_UNDERFLOW
         }
-        mh = popResult.result as JvmObject
+        mh = popResult as JvmObject
         if (mh === null) {
           return {
             status: ResultType.ERROR,
@@ -288,10 +295,10 @@ function invokeInit(
       case 'linkToSpecial':
       case 'linkToStatic':
         popResult = thread.popStack()
-        if (popResult.status === ResultType.ERROR) {
-          return popResult
+        if (popResult === UNDERFLOW) {
+          return STACK_UNDERFLOW
         }
-        mn = popResult.result as JvmObject
+        mn = popResult as JvmObject
         target = mn.getNativeField('vmtarget') as Method
         thread.pushStack(mn)
         args = getArgs(thread, originalDescriptor, target.checkNative())
@@ -324,19 +331,21 @@ function invokeInit(
 
 /**
  * looks up method for invokevirtual/invokeinterface.
- * checks interface for invokeinterface, otherwise checks override
+ * checks interface for invokeinterface, otherwise checks override.
+ * Uses the call site's inline cache before falling back on the receiver class' method table.
  */
 function lookupMethod(
   thread: Thread,
   methodRef: Method,
   checkInterface: boolean,
+  cache: InlineCache,
   checkCastTo?: ReferenceClassData
 ): ImmediateResult<{ toInvoke: Method; objRef: JvmObject }> {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
-    return popResult
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
+    return STACK_UNDERFLOW
   }
-  const objRef = popResult.result as JvmObject
+  const objRef = value as JvmObject
   if (objRef === null) {
     return {
       status: ResultType.ERROR,
@@ -354,25 +363,18 @@ function lookupMethod(
   }
 
   const runtimeClassRef = objRef.getClass()
-  // method lookup
-  const lookupResult = runtimeClassRef.lookupMethod(
-    methodRef.getName() + methodRef.getDescriptor(),
-    methodRef,
-    !checkInterface,
-    checkInterface
-  )
+  const cached = cache.lookup(runtimeClassRef)
+  if (cached !== null) {
+    return { status: ResultType.SUCCESS, result: { toInvoke: cached, objRef } }
+  }
 
+  // method lookup
+  const lookupResult = runtimeClassRef.selectMethod(methodRef, checkInterface)
   if (lookupResult.status === ResultType.ERROR) {
     return lookupResult
   }
   const toInvoke = lookupResult.result
-  if (toInvoke.checkAbstract()) {
-    return {
-      status: ResultType.ERROR,
-      exceptionCls: 'java/lang/NoSuchMethodError',
-      msg: ''
-    }
-  }
+  cache.insert(runtimeClassRef, toInvoke)
 
   return { status: ResultType.SUCCESS, result: { toInvoke, objRef } }
 }
@@ -423,6 +425,7 @@ function invokeVirtual(
   constant: ConstantMethodref | ConstantInterfaceMethodref,
   returnOffset: number
 ): void {
+  const cache = thread.getInlineCache()
   const resolutionRes = invokeInit(thread, constant)
   if (resolutionRes.status !== ResultType.SUCCESS) {
     if (resolutionRes.status === ResultType.ERROR) {
@@ -439,7 +442,7 @@ function invokeVirtual(
   }
 
   // method lookup
-  const toInvokeRes = lookupMethod(thread, methodRef, false)
+  const toInvokeRes = lookupMethod(thread, methodRef, false, cache)
   if (toInvokeRes.status === ResultType.ERROR) {
     thread.throwNewException(toInvokeRes.exceptionCls, toInvokeRes.msg)
     return
@@ -469,14 +472,14 @@ function invokeVirtual(
  * Native implementations for its requried methods may not be fully implemented.
  */
 export function runInvokevirtual(thread: Thread): void {
-  const indexbyte = thread.getCode().getUint16(thread.getPC() + 1)
+  const indexbyte = thread.getOperand()
   const constant = thread.getClass().getConstant(indexbyte) as ConstantMethodref
 
   invokeVirtual(thread, constant, 3)
 }
 
 export function runInvokespecial(thread: Thread): void {
-  const indexbyte = thread.getCode().getUint16(thread.getPC() + 1)
+  const indexbyte = thread.getOperand()
   const constant = thread.getClass().getConstant(indexbyte) as
     | ConstantMethodref
     | ConstantInterfaceMethodref
@@ -490,11 +493,11 @@ export function runInvokespecial(thread: Thread): void {
   }
   const { methodRef, args } = resolutionRes.result
 
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
-  const objRef = popResult.result as JvmObject
+  const objRef = value as JvmObject
   if (objRef === null) {
     thread.throwNewException('java/lang/NullPointerException', '')
     return
@@ -524,7 +527,7 @@ export function runInvokespecial(thread: Thread): void {
 }
 
 export function runInvokestatic(thread: Thread): void {
-  const indexbyte = thread.getCode().getUint16(thread.getPC() + 1)
+  const indexbyte = thread.getOperand()
   const constant = thread.getClass().getConstant(indexbyte) as
     | ConstantMethodref
     | ConstantInterfaceMethodref
@@ -554,9 +557,10 @@ export function runInvokestatic(thread: Thread): void {
 }
 
 export function runInvokeinterface(thread: Thread): void {
-  const indexbyte = thread.getCode().getUint16(thread.getPC() + 1)
+  const indexbyte = thread.getOperand()
 
   const constant = thread.getClass().getConstant(indexbyte) as ConstantInterfaceMethodref
+  const cache = thread.getInlineCache()
   const resolutionRes = invokeInit(thread, constant)
   if (resolutionRes.status !== ResultType.SUCCESS) {
     if (resolutionRes.status === ResultType.ERROR) {
@@ -567,7 +571,7 @@ export function runInvokeinterface(thread: Thread): void {
   }
   const { methodRef, args } = resolutionRes.result
 
-  const toInvokeRes = lookupMethod(thread, methodRef, true)
+  const toInvokeRes = lookupMethod(thread, methodRef, true, cache)
   if (toInvokeRes.status === ResultType.ERROR) {
     thread.throwNewException(toInvokeRes.exceptionCls, toInvokeRes.msg)
     return
@@ -599,7 +603,7 @@ export function runInvokeinterface(thread: Thread): void {
  * @todo linkCallSite seems to method in the bootstrap method instead of the vmtarget.
  */
 export function runInvokedynamic(thread: Thread): void {
-  const index = thread.getCode().getUint16(thread.getPC() + 1)
+  const index = thread.getOperand()
 
   const invoker = thread.getClass()
   const callsiteConstant = invoker.getConstant(index) as ConstantInvokeDynamic
@@ -626,7 +630,7 @@ export function runInvokedynamic(thread: Thread): void {
 }
 
 export function runNew(thread: Thread): void {
-  const indexbyte = thread.getCode().getUint16(thread.getPC() + 1)
+  const indexbyte = thread.getOperand()
   const invoker = thread.getClass()
   const res = (invoker.getConstant(indexbyte) as ConstantClass).resolve()
   if (res.status !== ResultType.SUCCESS) {
@@ -654,18 +658,18 @@ export function runNew(thread: Thread): void {
   }
 
   thread.offsetPc(3)
+  thread.getProfiler()?.onAllocate(objCls)
   thread.pushStack(objCls.instantiate())
 }
 
 export function runNewarray(thread: Thread): void {
-  const atype = thread.getCode().getUint8(thread.getPC() + 1)
+  const atype = thread.getOperand()
   thread.offsetPc(2)
 
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const count = thread.popStack()
+  if (count === UNDERFLOW) {
     return
   }
-  const count = popResult.result
   if (count < 0) {
     thread.throwNewException('java/lang/NegativeArraySizeException', '')
     return
@@ -706,19 +710,19 @@ export function runNewarray(thread: Thread): void {
   }
 
   const arrayCls = classResolutionResult.result
+  thread.getProfiler()?.onAllocate(arrayCls)
   const arrayref = arrayCls.instantiate() as unknown as JvmArray
   arrayref.initArray(count)
   thread.pushStack(arrayref)
 }
 
 export function runAnewarray(thread: Thread): void {
-  const indexbyte = thread.getCode().getUint16(thread.getPC() + 1)
+  const indexbyte = thread.getOperand()
   const invoker = thread.getClass()
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const count = thread.popStack()
+  if (count === UNDERFLOW) {
     return
   }
-  const count = popResult.result
   thread.offsetPc(3)
 
   if (count < 0) {
@@ -738,6 +742,7 @@ export function runAnewarray(thread: Thread): void {
     throw new Error('Failed to load array class')
   }
   const arrayCls = arrayClassRes.result
+  thread.getProfiler()?.onAllocate(arrayCls)
 
   const arrayref = arrayCls.instantiate() as unknown as JvmArray
   arrayref.initArray(count)
@@ -745,11 +750,11 @@ export function runAnewarray(thread: Thread): void {
 }
 
 export function runArraylength(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
-  const arrayref = popResult.result as JvmArray
+  const arrayref = value as JvmArray
   if (arrayref === null) {
     thread.throwNewException('java/lang/NullPointerException', '')
     return
@@ -759,11 +764,10 @@ export function runArraylength(thread: Thread): void {
 }
 
 export function runAthrow(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const exception = thread.popStack()
+  if (exception === UNDERFLOW) {
     return
   }
-  const exception = popResult.result
 
   if (exception === null) {
     thread.pushStack(exception)
@@ -777,10 +781,10 @@ export function runAthrow(thread: Thread): void {
 
 function _checkCast(thread: Thread, indexbyte: number, isCC: boolean = true): void {
   const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  if (popResult === UNDERFLOW) {
     return
   }
-  const objectref = popResult.result as JvmObject
+  const objectref = popResult as JvmObject
 
   if (objectref === null) {
     isCC ? thread.pushStack(null) : thread.pushStack(0)
@@ -816,41 +820,41 @@ function _checkCast(thread: Thread, indexbyte: number, isCC: boolean = true): vo
 }
 
 export function runCheckcast(thread: Thread): void {
-  const indexbyte = thread.getCode().getUint16(thread.getPC() + 1)
+  const indexbyte = thread.getOperand()
   thread.offsetPc(3)
   _checkCast(thread, indexbyte, true)
 }
 
 export function runInstanceof(thread: Thread): void {
-  const indexbyte = thread.getCode().getUint16(thread.getPC() + 1)
+  const indexbyte = thread.getOperand()
   thread.offsetPc(3)
   _checkCast(thread, indexbyte, false)
 }
 
 export function runMonitorenter(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
-  const obj = popResult.result as JvmObject | null
+  const obj = value as JvmObject | null
   if (obj === null) {
     thread.throwNewException('java/lang/NullPointerException', '')
     return
   }
 
-  obj.getMonitor().enter(thread, () => thread.offsetPc(1))
+  obj.monitorEnter(thread, () => thread.offsetPc(1))
 }
 
 export function runMonitorexit(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
-  const obj = popResult.result as JvmObject | null
+  const obj = value as JvmObject | null
   if (obj === null) {
     thread.throwNewException('java/lang/NullPointerException', '')
     return
   }
 
-  obj.getMonitor().exit(thread, () => thread.offsetPc(1))
+  obj.monitorExit(thread, () => thread.offsetPc(1))
 }
@@ -1,35 +1,30 @@
 import Thread from '../thread'
-import { ResultType } from '../types/Result'
+import { UNDERFLOW } from '../utils'
 
 export function runPop(thread: Thread): void {
-  thread.popStack().status === ResultType.SUCCESS && thread.offsetPc(1)
+  thread.popStack() !== UNDERFLOW && thread.offsetPc(1)
 }
 
 export function runPop2(thread: Thread): void {
-  thread.popStack().status === ResultType.SUCCESS &&
-    thread.popStack().status === ResultType.SUCCESS &&
-    thread.offsetPc(1)
+  thread.popStack() !== UNDERFLOW && thread.popStack() !== UNDERFLOW && thread.offsetPc(1)
 }
 
 export function runDup(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
-  const value = popResult.result
   thread.pushStack(value)
   thread.pushStack(value) && thread.offsetPc(1)
 }
 
 export function runDupX1(thread: Thread): void {
   thread.offsetPc(1)
-  const popResult = thread.popStack()
-  const popResult2 = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  const value1 = thread.popStack()
+  const value2 = thread.popStack()
+  if (value1 === UNDERFLOW || value2 === UNDERFLOW) {
     return
   }
-  const value1 = popResult.result
-  const value2 = popResult2.result
   thread.pushStack(value1)
   thread.pushStack(value2)
   thread.pushStack(value1)
@@ -37,19 +32,12 @@ export function runDupX1(thread: Thread): void {
 
 export function runDupX2(thread: Thread): void {
   thread.offsetPc(1)
-  const popResult = thread.popStack()
-  const popResult2 = thread.popStack()
-  const popResult3 = thread.popStack()
-  if (
-    popResult.status === ResultType.ERROR ||
-    popResult2.status === ResultType.ERROR ||
-    popResult3.status === ResultType.ERROR
-  ) {
+  const value1 = thread.popStack()
+  const value2 = thread.popStack()
+  const value3 = thread.popStack()
+  if (value1 === UNDERFLOW || value2 === UNDERFLOW || value3 === UNDERFLOW) {
     return
   }
-  const value1 = popResult.result
-  const value2 = popResult2.result
-  const value3 = popResult3.result
   thread.pushStack(value1)
   thread.pushStack(value3)
   thread.pushStack(value2)
@@ -58,13 +46,11 @@ export function runDupX2(thread: Thread): void {
 
 export function runDup2(thread: Thread): void {
   thread.offsetPc(1)
-  const popResult = thread.popStack()
-  const popResult2 = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  const value1 = thread.popStack()
+  const value2 = thread.popStack()
+  if (value1 === UNDERFLOW || value2 === UNDERFLOW) {
     return
   }
-  const value1 = popResult.result
-  const value2 = popResult2.result
   thread.pushStack(value2)
   thread.pushStack(value1)
   thread.pushStack(value2)
@@ -73,19 +59,12 @@ export function runDup2(thread: Thread): void {
 
 export function runDup2X1(thread: Thread): void {
   thread.offsetPc(1)
-  const popResult = thread.popStack()
-  const popResult2 = thread.popStack()
-  const popResult3 = thread.popStack()
-  if (
-    popResult.status === ResultType.ERROR ||
-    popResult2.status === ResultType.ERROR ||
-    popResult3.status === ResultType.ERROR
-  ) {
+  const value1 = thread.popStack()
+  const value2 = thread.popStack()
+  const value3 = thread.popStack()
+  if (value1 === UNDERFLOW || value2 === UNDERFLOW || value3 === UNDERFLOW) {
     return
   }
-  const value1 = popResult.result
-  const value2 = popResult2.result
-  const value3 = popResult3.result
   thread.pushStack(value2)
   thread.pushStack(value1)
   thread.pushStack(value3)
@@ -95,22 +74,18 @@ export function runDup2X1(thread: Thread): void {
 
 export function runDup2X2(thread: Thread): void {
   thread.offsetPc(1)
-  const popResult = thread.popStack()
-  const popResult2 = thread.popStack()
-  const popResult3 = thread.popStack()
-  const popResult4 = thread.popStack()
+  const value1 = thread.popStack()
+  const value2 = thread.popStack()
+  const value3 = thread.popStack()
+  const value4 = thread.popStack()
   if (
-    popResult.status === ResultType.ERROR ||
-    popResult2.status === ResultType.ERROR ||
-    popResult3.status === ResultType.ERROR ||
-    popResult4.status === ResultType.ERROR
+    value1 === UNDERFLOW ||
+    value2 === UNDERFLOW ||
+    value3 === UNDERFLOW ||
+    value4 === UNDERFLOW
   ) {
     return
   }
-  const value1 = popResult.result
-  const value2 = popResult2.result
-  const value3 = popResult3.result
-  const value4 = popResult4.result
   thread.pushStack(value2)
   thread.pushStack(value1)
   thread.pushStack(value4)
@@ -121,13 +96,11 @@ export function runDup2X2(thread: Thread): void {
 
 export function runSwap(thread: Thread): void {
   thread.offsetPc(1)
-  const popResult = thread.popStack()
-  const popResult2 = thread.popStack()
-  if (popResult.status === ResultType.ERROR || popResult2.status === ResultType.ERROR) {
+  const value1 = thread.popStack()
+  const value2 = thread.popStack()
+  if (value1 === UNDERFLOW || value2 === UNDERFLOW) {
     return
   }
-  const value1 = popResult.result
-  const value2 = popResult2.result
   thread.pushStack(value1)
   thread.pushStack(value2)
 }
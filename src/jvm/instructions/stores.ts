@@ -1,252 +1,245 @@
 import Thread from '../thread'
-import { ResultType } from '../types/Result'
 import { JvmArray } from '../types/reference/Array'
-import { asFloat, asDouble } from '../utils'
+import { asFloat, asDouble, UNDERFLOW } from '../utils'
 
 export function runIstore(thread: Thread): void {
-  const index = thread.getCode().getUint8(thread.getPC() + 1)
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const index = thread.getOperand()
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(2)
-  thread.storeLocal(index, popResult.result)
+  thread.storeLocal(index, value)
 }
 
 export function runLstore(thread: Thread): void {
-  const index = thread.getCode().getUint8(thread.getPC() + 1)
-  const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR) {
+  const index = thread.getOperand()
+  const value = thread.popStack64()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(2)
-  thread.storeLocal64(index, popResult.result)
+  thread.storeLocal64(index, value)
 }
 
 export function runFstore(thread: Thread): void {
-  const index = thread.getCode().getUint8(thread.getPC() + 1)
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const index = thread.getOperand()
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(2)
-  thread.storeLocal(index, asFloat(popResult.result))
+  thread.storeLocal(index, asFloat(value))
 }
 
 export function runDstore(thread: Thread): void {
-  const index = thread.getCode().getUint8(thread.getPC() + 1)
-  const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR) {
+  const index = thread.getOperand()
+  const value = thread.popStack64()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(2)
-  thread.storeLocal64(index, asDouble(popResult.result))
+  thread.storeLocal64(index, asDouble(value))
 }
 
 export function runAstore(thread: Thread): void {
-  const index = thread.getCode().getUint8(thread.getPC() + 1)
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const index = thread.getOperand()
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(2)
-  thread.storeLocal(index, popResult.result)
+  thread.storeLocal(index, value)
 }
 
 export function runIstore0(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(1)
-  thread.storeLocal(0, popResult.result)
+  thread.storeLocal(0, value)
 }
 
 export function runIstore1(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(1)
-  thread.storeLocal(1, popResult.result)
+  thread.storeLocal(1, value)
 }
 
 export function runIstore2(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(1)
-  thread.storeLocal(2, popResult.result)
+  thread.storeLocal(2, value)
 }
 
 export function runIstore3(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(1)
-  thread.storeLocal(3, popResult.result)
+  thread.storeLocal(3, value)
 }
 
 export function runLstore0(thread: Thread): void {
-  const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack64()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(1)
-  thread.storeLocal64(0, popResult.result)
+  thread.storeLocal64(0, value)
 }
 
 export function runLstore1(thread: Thread): void {
-  const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack64()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(1)
-  thread.storeLocal64(1, popResult.result)
+  thread.storeLocal64(1, value)
 }
 
 export function runLstore2(thread: Thread): void {
-  const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack64()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(1)
-  thread.storeLocal64(2, popResult.result)
+  thread.storeLocal64(2, value)
 }
 
 export function runLstore3(thread: Thread): void {
-  const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack64()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(1)
-  thread.storeLocal64(3, popResult.result)
+  thread.storeLocal64(3, value)
 }
 
 export function runFstore0(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(1)
-  thread.storeLocal(0, asFloat(popResult.result))
+  thread.storeLocal(0, asFloat(value))
 }
 
 export function runFstore1(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(1)
-  thread.storeLocal(1, asFloat(popResult.result))
+  thread.storeLocal(1, asFloat(value))
 }
 
 export function runFstore2(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(1)
-  thread.storeLocal(2, asFloat(popResult.result))
+  thread.storeLocal(2, asFloat(value))
 }
 
 export function runFstore3(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(1)
-  thread.storeLocal(3, asFloat(popResult.result))
+  thread.storeLocal(3, asFloat(value))
 }
 
 export function runDstore0(thread: Thread): void {
-  const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack64()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(1)
-  thread.storeLocal64(0, asDouble(popResult.result))
+  thread.storeLocal64(0, asDouble(value))
 }
 
 export function runDstore1(thread: Thread): void {
-  const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack64()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(1)
-  thread.storeLocal64(1, asDouble(popResult.result))
+  thread.storeLocal64(1, asDouble(value))
 }
 
 export function runDstore2(thread: Thread): void {
-  const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack64()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(1)
-  thread.storeLocal64(2, asDouble(popResult.result))
+  thread.storeLocal64(2, asDouble(value))
 }
 
 export function runDstore3(thread: Thread): void {
-  const popResult = thread.popStack64()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack64()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(1)
-  thread.storeLocal64(3, asDouble(popResult.result))
+  thread.storeLocal64(3, asDouble(value))
 }
 
 export function runAstore0(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(1)
-  thread.storeLocal(0, popResult.result)
+  thread.storeLocal(0, value)
 }
 
 export function runAstore1(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(1)
-  thread.storeLocal(1, popResult.result)
+  thread.storeLocal(1, value)
 }
 
 export function runAstore2(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(1)
-  thread.storeLocal(2, popResult.result)
+  thread.storeLocal(2, value)
 }
 
 export function runAstore3(thread: Thread): void {
-  const popResult = thread.popStack()
-  if (popResult.status === ResultType.ERROR) {
+  const value = thread.popStack()
+  if (value === UNDERFLOW) {
     return
   }
   thread.offsetPc(1)
-  thread.storeLocal(3, popResult.result)
+  thread.storeLocal(3, value)
 }
 
 function arraystore32(thread: Thread, func: (value: any) => any): void {
-  const vpopResult = thread.popStack()
-  const ipopResult = thread.popStack()
+  const value = thread.popStack()
+  const index = thread.popStack()
   const apopResult = thread.popStack()
-  if (
-    vpopResult.status === ResultType.ERROR ||
-    ipopResult.status === ResultType.ERROR ||
-    apopResult.status === ResultType.ERROR
-  ) {
+  if (value === UNDERFLOW || index === UNDERFLOW || apopResult === UNDERFLOW) {
     return
   }
-  const value = vpopResult.result
-  const index = ipopResult.result
-  const arrayref = apopResult.result as JvmArray
+  const arrayref = apopResult as JvmArray
 
   if (arrayref === null) {
     thread.throwNewException('java/lang/NullPointerException', '')
@@ -267,19 +260,13 @@ export function runIastore(thread: Thread): void {
 }
 
 export function runLastore(thread: Thread): void {
-  const vpopResult = thread.popStack64()
-  const ipopResult = thread.popStack()
+  const value = thread.popStack64()
+  const index = thread.popStack()
   const apopResult = thread.popStack()
-  if (
-    vpopResult.status === ResultType.ERROR ||
-    ipopResult.status === ResultType.ERROR ||
-    apopResult.status === ResultType.ERROR
-  ) {
+  if (value === UNDERFLOW || index === UNDERFLOW || apopResult === UNDERFLOW) {
     return
   }
-  const value = vpopResult.result
-  const index = ipopResult.result
-  const arrayref = apopResult.result as JvmArray
+  const arrayref = apopResult as JvmArray
 
   if (arrayref === null) {
     thread.throwNewException('java/lang/NullPointerException', '')
@@ -300,19 +287,13 @@ export function runFastore(thread: Thread): void {
 }
 
 export function runDastore(thread: Thread): void {
-  const vpopResult = thread.popStack64()
-  const ipopResult = thread.popStack()
+  const value = thread.popStack64()
+  const index = thread.popStack()
   const apopResult = thread.popStack()
-  if (
-    vpopResult.status === ResultType.ERROR ||
-    ipopResult.status === ResultType.ERROR ||
-    apopResult.status === ResultType.ERROR
-  ) {
+  if (value === UNDERFLOW || index === UNDERFLOW || apopResult === UNDERFLOW) {
     return
   }
-  const value = vpopResult.result
-  const index = ipopResult.result
-  const arrayref = apopResult.result as JvmArray
+  const arrayref = apopResult as JvmArray
 
   if (arrayref === null) {
     thread.throwNewException('java/lang/NullPointerException', '')
@@ -0,0 +1,1581 @@
+import { OPCODE } from '../ClassFile/constants/instructions'
+import { DecodedCode, InstructionHandler, SwitchTable } from './decoder'
+import { cmp } from './instructions/comparisons'
+import { d2i, f2i } from './instructions/conversions'
+import { fadd, fsub } from './instructions/math'
+import { hasOverwrite, StackFrame } from './stackframe'
+import Thread from './thread'
+import { ClassData } from './types/class/ClassData'
+import {
+  ConstantDouble,
+  ConstantFieldref,
+  ConstantFloat,
+  ConstantInteger,
+  ConstantMethodref,
+  ConstantString
+} from './types/class/Constants'
+import { Field } from './types/class/Field'
+import { Method } from './types/class/Method'
+import { JvmArray } from './types/reference/Array'
+import { JvmObject } from './types/reference/Object'
+import { ResultType } from './types/Result'
+import { parseMethodDescriptor } from './utils'
+
+/**
+ * Invocations plus loop iterations after which a method is compiled.
+ */
+const DEFAULT_THRESHOLD = 1000
+
+/**
+ * Loop iterations compiled code runs before returning to the interpreter, so other threads
+ * get to run and the quantum ends.
+ */
+const LOOP_BUDGET = 10000
+
+const MIN_INT = -2147483648
+
+/**
+ * Returned by compiled code that stopped at a loop header, to be resumed by the interpreter.
+ */
+const EXIT = {}
+
+/**
+ * Exception thrown out of compiled code, thrown on the thread once compiled code has returned.
+ * Either a new exception of the given class, or an existing exception object.
+ */
+export class JavaException {
+  constructor(
+    readonly className: string,
+    readonly msg: string,
+    readonly exception: JvmObject | null = null
+  ) {}
+}
+
+const nullPointer = () => new JavaException('java/lang/NullPointerException', '')
+
+/**
+ * State shared by compiled code and the entry handlers. Compiled code runs to completion,
+ * so one runtime is shared by all threads.
+ */
+interface Runtime {
+  /**
+   * Loop iterations left before compiled code has to exit.
+   */
+  budget: number
+  /**
+   * Pc of the loop header compiled code exited at.
+   */
+  exitPc: number
+  /**
+   * Index of the stack frame compiled code is running in, counting the calls between compiled
+   * methods as frames.
+   */
+  depth: number
+  maxDepth: number
+}
+
+/**
+ * Functions called by compiled code.
+ * Created with the JIT as the instruction modules may not be loaded yet when this module is.
+ */
+const createHelpers = () => ({
+  fadd,
+  fsub,
+  f2i,
+  d2i,
+  cmp,
+  idiv(value1: number, value2: number) {
+    if (value2 === 0) {
+      throw new JavaException('java/lang/ArithmeticException', 'Division by 0')
+    }
+    if (value1 === MIN_INT && value2 === -1) {
+      return value1
+    }
+    return (value1 / value2) | 0
+  },
+  irem(value1: number, value2: number) {
+    if (value2 === 0) {
+      throw new JavaException('java/lang/ArithmeticException', 'Division by 0')
+    }
+    return value1 % value2 | 0
+  },
+  aload(arrayref: JvmArray | null, index: number) {
+    if (arrayref === null) {
+      throw nullPointer()
+    }
+    if (arrayref.len() <= index || index < 0) {
+      throw new JavaException(
+        'java/lang/ArrayIndexOutOfBoundsException',
+        `Index ${index} out of bounds for length ${arrayref.len()}`
+      )
+    }
+    return arrayref.get(index)
+  },
+  astore(arrayref: JvmArray | null, index: number, value: any) {
+    if (arrayref === null) {
+      throw nullPointer()
+    }
+    if (index < 0 || index >= arrayref.len()) {
+      throw new JavaException('java/lang/ArrayIndexOutOfBoundsException', '')
+    }
+    arrayref.set(index, value)
+  },
+  alen(arrayref: JvmArray | null) {
+    if (arrayref === null) {
+      throw nullPointer()
+    }
+    return arrayref.len()
+  },
+  getfield(objRef: JvmObject | null, field: Field) {
+    if (objRef === null) {
+      throw nullPointer()
+    }
+    return objRef.getField(field)
+  },
+  putfield(objRef: JvmObject | null, field: Field, value: any) {
+    if (objRef === null) {
+      throw nullPointer()
+    }
+    objRef.putField(field, value)
+  },
+  athrow(exception: JvmObject | null) {
+    return exception === null ? nullPointer() : new JavaException('', '', exception)
+  },
+  overflow() {
+    return new JavaException('java/lang/StackOverflowError', 'maximum recursion depth exceeded')
+  }
+})
+
+type CompiledFunction = (locals: any[], pc: number) => any
+
+interface CompiledMethod {
+  /**
+   * Set once every method compiled with this one has been translated, as they may call each other.
+   */
+  fn: CompiledFunction | null
+  /**
+   * Classes that have to be initialized before the compiled code can run, as compiled code
+   * accesses static fields and calls static methods without initializing their classes.
+   */
+  deps: ClassData[]
+  isWide: boolean
+}
+
+enum TierStatus {
+  COUNTING,
+  COMPILING,
+  COMPILED,
+  REJECTED
+}
+
+interface Instruction {
+  pc: number
+  opcode: number
+  next: number
+  operand: number
+  operand2: number
+  /**
+   * Branch targets, including the default target of switches.
+   */
+  targets: number[]
+  switchTable?: SwitchTable
+}
+
+interface MethodState {
+  method: Method
+  status: TierStatus
+  count: number
+  instructions: Instruction[]
+  /**
+   * Targets of backward branches. Compiled code is entered and exited at loop headers.
+   */
+  loopHeaders: number[]
+  /**
+   * Interpreter handlers replaced by the counting and entry handlers.
+   */
+  originals: Map<number, InstructionHandler>
+  compiled: CompiledMethod | null
+  source: string
+  constants: any[]
+}
+
+const ONE_BYTE = [
+  OPCODE.NOP,
+  OPCODE.ACONST_NULL,
+  OPCODE.ICONST_M1,
+  OPCODE.ICONST_0,
+  OPCODE.ICONST_1,
+  OPCODE.ICONST_2,
+  OPCODE.ICONST_3,
+  OPCODE.ICONST_4,
+  OPCODE.ICONST_5,
+  OPCODE.FCONST_0,
+  OPCODE.FCONST_1,
+  OPCODE.FCONST_2,
+  OPCODE.DCONST_0,
+  OPCODE.DCONST_1,
+  OPCODE.ILOAD_0,
+  OPCODE.ILOAD_1,
+  OPCODE.ILOAD_2,
+  OPCODE.ILOAD_3,
+  OPCODE.FLOAD_0,
+  OPCODE.FLOAD_1,
+  OPCODE.FLOAD_2,
+  OPCODE.FLOAD_3,
+  OPCODE.DLOAD_0,
+  OPCODE.DLOAD_1,
+  OPCODE.DLOAD_2,
+  OPCODE.DLOAD_3,
+  OPCODE.ALOAD_0,
+  OPCODE.ALOAD_1,
+  OPCODE.ALOAD_2,
+  OPCODE.ALOAD_3,
+  OPCODE.IALOAD,
+  OPCODE.FALOAD,
+  OPCODE.DALOAD,
+  OPCODE.AALOAD,
+  OPCODE.BALOAD,
+  OPCODE.CALOAD,
+  OPCODE.SALOAD,
+  OPCODE.ISTORE_0,
+  OPCODE.ISTORE_1,
+  OPCODE.ISTORE_2,
+  OPCODE.ISTORE_3,
+  OPCODE.FSTORE_0,
+  OPCODE.FSTORE_1,
+  OPCODE.FSTORE_2,
+  OPCODE.FSTORE_3,
+  OPCODE.DSTORE_0,
+  OPCODE.DSTORE_1,
+  OPCODE.DSTORE_2,
+  OPCODE.DSTORE_3,
+  OPCODE.ASTORE_0,
+  OPCODE.ASTORE_1,
+  OPCODE.ASTORE_2,
+  OPCODE.ASTORE_3,
+  OPCODE.IASTORE,
+  OPCODE.FASTORE,
+  OPCODE.DASTORE,
+  OPCODE.AASTORE,
+  OPCODE.BASTORE,
+  OPCODE.CASTORE,
+  OPCODE.SASTORE,
+  OPCODE.POP,
+  OPCODE.POP2,
+  OPCODE.DUP,
+  OPCODE.DUP_X1,
+  OPCODE.DUP_X2,
+  OPCODE.DUP2,
+  OPCODE.DUP2_X1,
+  OPCODE.DUP2_X2,
+  OPCODE.SWAP,
+  OPCODE.IADD,
+  OPCODE.FADD,
+  OPCODE.DADD,
+  OPCODE.ISUB,
+  OPCODE.FSUB,
+  OPCODE.DSUB,
+  OPCODE.IMUL,
+  OPCODE.FMUL,
+  OPCODE.DMUL,
+  OPCODE.IDIV,
+  OPCODE.FDIV,
+  OPCODE.DDIV,
+  OPCODE.IREM,
+  OPCODE.FREM,
+  OPCODE.DREM,
+  OPCODE.INEG,
+  OPCODE.FNEG,
+  OPCODE.DNEG,
+  OPCODE.ISHL,
+  OPCODE.ISHR,
+  OPCODE.IUSHR,
+  OPCODE.IAND,
+  OPCODE.IOR,
+  OPCODE.IXOR,
+  OPCODE.I2F,
+  OPCODE.I2D,
+  OPCODE.F2I,
+  OPCODE.F2D,
+  OPCODE.D2I,
+  OPCODE.D2F,
+  OPCODE.I2B,
+  OPCODE.I2C,
+  OPCODE.I2S,
+  OPCODE.FCMPL,
+  OPCODE.FCMPG,
+  OPCODE.DCMPL,
+  OPCODE.DCMPG,
+  OPCODE.IRETURN,
+  OPCODE.FRETURN,
+  OPCODE.DRETURN,
+  OPCODE.ARETURN,
+  OPCODE.RETURN,
+  OPCODE.ARRAYLENGTH,
+  OPCODE.ATHROW
+]
+
+const BRANCHES = [
+  OPCODE.IFEQ,
+  OPCODE.IFNE,
+  OPCODE.IFLT,
+  OPCODE.IFGE,
+  OPCODE.IFGT,
+  OPCODE.IFLE,
+  OPCODE.IF_ICMPEQ,
+  OPCODE.IF_ICMPNE,
+  OPCODE.IF_ICMPLT,
+  OPCODE.IF_ICMPGE,
+  OPCODE.IF_ICMPGT,
+  OPCODE.IF_ICMPLE,
+  OPCODE.IF_ACMPEQ,
+  OPCODE.IF_ACMPNE,
+  OPCODE.IFNULL,
+  OPCODE.IFNONNULL,
+  OPCODE.GOTO
+]
+
+/**
+ * Operands slots popped and pushed by instructions with a fixed stack effect.
+ */
+const STACK_EFFECTS: { [opcode: number]: [number, number] } = {}
+const setEffect = (opcodes: number[], pop: number, push: number) =>
+  opcodes.forEach(opcode => (STACK_EFFECTS[opcode] = [pop, push]))
+setEffect([OPCODE.NOP, OPCODE.IINC, OPCODE.GOTO, OPCODE.GOTO_W], 0, 0)
+setEffect(
+  [
+    OPCODE.ACONST_NULL,
+    OPCODE.ICONST_M1,
+    OPCODE.ICONST_0,
+    OPCODE.ICONST_1,
+    OPCODE.ICONST_2,
+    OPCODE.ICONST_3,
+    OPCODE.ICONST_4,
+    OPCODE.ICONST_5,
+    OPCODE.FCONST_0,
+    OPCODE.FCONST_1,
+    OPCODE.FCONST_2,
+    OPCODE.BIPUSH,
+    OPCODE.SIPUSH,
+    OPCODE.LDC,
+    OPCODE.LDC_W,
+    OPCODE.ILOAD,
+    OPCODE.FLOAD,
+    OPCODE.ALOAD,
+    OPCODE.ILOAD_0,
+    OPCODE.ILOAD_1,
+    OPCODE.ILOAD_2,
+    OPCODE.ILOAD_3,
+    OPCODE.FLOAD_0,
+    OPCODE.FLOAD_1,
+    OPCODE.FLOAD_2,
+    OPCODE.FLOAD_3,
+    OPCODE.ALOAD_0,
+    OPCODE.ALOAD_1,
+    OPCODE.ALOAD_2,
+    OPCODE.ALOAD_3
+  ],
+  0,
+  1
+)
+setEffect(
+  [
+    OPCODE.DCONST_0,
+    OPCODE.DCONST_1,
+    OPCODE.LDC2_W,
+    OPCODE.DLOAD,
+    OPCODE.DLOAD_0,
+    OPCODE.DLOAD_1,
+    OPCODE.DLOAD_2,
+    OPCODE.DLOAD_3
+  ],
+  0,
+  2
+)
+setEffect(
+  [
+    OPCODE.IALOAD,
+    OPCODE.FALOAD,
+    OPCODE.AALOAD,
+    OPCODE.BALOAD,
+    OPCODE.CALOAD,
+    OPCODE.SALOAD,
+    OPCODE.IADD,
+    OPCODE.FADD,
+    OPCODE.ISUB,
+    OPCODE.FSUB,
+    OPCODE.IMUL,
+    OPCODE.FMUL,
+    OPCODE.IDIV,
+    OPCODE.FDIV,
+    OPCODE.IREM,
+    OPCODE.FREM,
+    OPCODE.ISHL,
+    OPCODE.ISHR,
+    OPCODE.IUSHR,
+    OPCODE.IAND,
+    OPCODE.IOR,
+    OPCODE.IXOR,
+    OPCODE.FCMPL,
+    OPCODE.FCMPG
+  ],
+  2,
+  1
+)
+setEffect([OPCODE.DALOAD], 2, 2)
+setEffect(
+  [
+    OPCODE.ISTORE,
+    OPCODE.FSTORE,
+    OPCODE.ASTORE,
+    OPCODE.ISTORE_0,
+    OPCODE.ISTORE_1,
+    OPCODE.ISTORE_2,
+    OPCODE.ISTORE_3,
+    OPCODE.FSTORE_0,
+    OPCODE.FSTORE_1,
+    OPCODE.FSTORE_2,
+    OPCODE.FSTORE_3,
+    OPCODE.ASTORE_0,
+    OPCODE.ASTORE_1,
+    OPCODE.ASTORE_2,
+    OPCODE.ASTORE_3,
+    OPCODE.POP,
+    OPCODE.IFEQ,
+    OPCODE.IFNE,
+    OPCODE.IFLT,
+    OPCODE.IFGE,
+    OPCODE.IFGT,
+    OPCODE.IFLE,
+    OPCODE.IFNULL,
+    OPCODE.IFNONNULL,
+    OPCODE.TABLESWITCH,
+    OPCODE.LOOKUPSWITCH,
+    OPCODE.IRETURN,
+    OPCODE.FRETURN,
+    OPCODE.ARETURN,
+    OPCODE.ATHROW
+  ],
+  1,
+  0
+)
+setEffect(
+  [
+    OPCODE.DSTORE,
+    OPCODE.DSTORE_0,
+    OPCODE.DSTORE_1,
+    OPCODE.DSTORE_2,
+    OPCODE.DSTORE_3,
+    OPCODE.POP2,
+    OPCODE.IF_ICMPEQ,
+    OPCODE.IF_ICMPNE,
+    OPCODE.IF_ICMPLT,
+    OPCODE.IF_ICMPGE,
+    OPCODE.IF_ICMPGT,
+    OPCODE.IF_ICMPLE,
+    OPCODE.IF_ACMPEQ,
+    OPCODE.IF_ACMPNE,
+    OPCODE.DRETURN
+  ],
+  2,
+  0
+)
+setEffect(
+  [OPCODE.IASTORE, OPCODE.FASTORE, OPCODE.AASTORE, OPCODE.BASTORE, OPCODE.CASTORE, OPCODE.SASTORE],
+  3,
+  0
+)
+setEffect([OPCODE.DASTORE], 4, 0)
+setEffect([OPCODE.DUP], 1, 2)
+setEffect([OPCODE.DUP_X1], 2, 3)
+setEffect([OPCODE.DUP_X2], 3, 4)
+setEffect([OPCODE.DUP2], 2, 4)
+setEffect([OPCODE.DUP2_X1], 3, 5)
+setEffect([OPCODE.DUP2_X2], 4, 6)
+setEffect([OPCODE.SWAP], 2, 2)
+setEffect([OPCODE.DADD, OPCODE.DSUB, OPCODE.DMUL, OPCODE.DDIV, OPCODE.DREM], 4, 2)
+setEffect([OPCODE.DCMPL, OPCODE.DCMPG], 4, 1)
+setEffect(
+  [
+    OPCODE.INEG,
+    OPCODE.FNEG,
+    OPCODE.I2F,
+    OPCODE.F2I,
+    OPCODE.I2B,
+    OPCODE.I2C,
+    OPCODE.I2S,
+    OPCODE.ARRAYLENGTH
+  ],
+  1,
+  1
+)
+setEffect([OPCODE.DNEG], 2, 2)
+setEffect([OPCODE.I2D, OPCODE.F2D], 1, 2)
+setEffect([OPCODE.D2I, OPCODE.D2F], 2, 1)
+setEffect([OPCODE.RETURN], 0, 0)
+
+const TERMINAL = new Set<number>([
+  OPCODE.GOTO,
+  OPCODE.GOTO_W,
+  OPCODE.TABLESWITCH,
+  OPCODE.LOOKUPSWITCH,
+  OPCODE.IRETURN,
+  OPCODE.FRETURN,
+  OPCODE.DRETURN,
+  OPCODE.ARETURN,
+  OPCODE.RETURN,
+  OPCODE.ATHROW
+])
+
+const ONE_BYTE_SET = new Set<number>(ONE_BYTE)
+const BRANCH_SET = new Set<number>(BRANCHES)
+
+/**
+ * Decodes the bytecode of a method into instructions.
+ * Returns null if the method uses an instruction compiled code does not support.
+ */
+function scan(code: DataView, decoded: DecodedCode): Instruction[] | null {
+  const instructions: Instruction[] = []
+  let pc = 0
+  while (pc < code.byteLength) {
+    const opcode = code.getUint8(pc)
+    const insn: Instruction = { pc, opcode, next: pc + 1, operand: 0, operand2: 0, targets: [] }
+
+    if (ONE_BYTE_SET.has(opcode)) {
+      // no operands
+    } else if (BRANCH_SET.has(opcode)) {
+      insn.operand = code.getInt16(pc + 1)
+      insn.targets.push(pc + insn.operand)
+      insn.next = pc + 3
+    } else {
+      switch (opcode) {
+        case OPCODE.BIPUSH:
+          insn.operand = code.getInt8(pc + 1)
+          insn.next = pc + 2
+          break
+        case OPCODE.LDC:
+        case OPCODE.ILOAD:
+        case OPCODE.FLOAD:
+        case OPCODE.DLOAD:
+        case OPCODE.ALOAD:
+        case OPCODE.ISTORE:
+        case OPCODE.FSTORE:
+        case OPCODE.DSTORE:
+        case OPCODE.ASTORE:
+          insn.operand = code.getUint8(pc + 1)
+          insn.next = pc + 2
+          break
+        case OPCODE.SIPUSH:
+          insn.operand = code.getInt16(pc + 1)
+          insn.next = pc + 3
+          break
+        case OPCODE.IINC:
+          insn.operand = code.getUint8(pc + 1)
+          insn.operand2 = code.getInt8(pc + 2)
+          insn.next = pc + 3
+          break
+        case OPCODE.LDC_W:
+        case OPCODE.LDC2_W:
+        case OPCODE.GETSTATIC:
+        case OPCODE.PUTSTATIC:
+        case OPCODE.GETFIELD:
+        case OPCODE.PUTFIELD:
+        case OPCODE.INVOKESTATIC:
+          insn.operand = code.getUint16(pc + 1)
+          insn.next = pc + 3
+          break
+        case OPCODE.GOTO_W:
+          insn.operand = code.getInt32(pc + 1)
+          insn.targets.push(pc + insn.operand)
+          insn.next = pc + 5
+          break
+        case OPCODE.TABLESWITCH:
+        case OPCODE.LOOKUPSWITCH: {
+          decoded.getHandler(pc)
+          const table = decoded.switches[pc] as SwitchTable
+          insn.switchTable = table
+          const offsets = table.offsets
+            ? Array.from(table.offsets)
+            : Array.from((table.pairs as Map<number, number>).values())
+          offsets.push(table.defaultOffset)
+          for (const branchOffset of offsets) {
+            // loops through a switch would need an exit at the switch
+            if (branchOffset <= 0) {
+              return null
+            }
+            insn.targets.push(pc + branchOffset)
+          }
+
+          let offset = pc + 1
+          if (offset % 4 !== 0) {
+            offset += 4 - (offset % 4) // padding
+          }
+          insn.next =
+            opcode === OPCODE.TABLESWITCH
+              ? offset + 12 + 4 * (code.getInt32(offset + 8) - code.getInt32(offset + 4) + 1)
+              : offset + 8 + 8 * code.getInt32(offset + 4)
+          break
+        }
+        default:
+          return null
+      }
+    }
+
+    instructions.push(insn)
+    pc = insn.next
+  }
+  return instructions
+}
+
+/**
+ * Number of operand stack slots taken by a value of the given field descriptor type.
+ */
+const slots = (type: string) => (type === 'D' || type === 'J' ? 2 : 1)
+
+/**
+ * Checks if a method takes or returns longs, which compiled code does not support.
+ */
+const usesLong = (descriptor: string) => {
+  const desc = parseMethodDescriptor(descriptor)
+  return desc.ret.type === 'J' || desc.args.some(arg => arg.type === 'J')
+}
+
+/**
+ * Second execution tier. Methods whose invocations and loop iterations cross a threshold are
+ * translated into JavaScript functions, with locals and operand stack slots as JS variables.
+ *
+ * Only static calls and a subset of instructions are compiled: methods that are synchronized,
+ * have exception handlers, or use longs, object creation, monitors or calls that can be
+ * dispatched or yield to the scheduler stay interpreted.
+ * Compiled methods are entered through the handlers of pc 0 and of their loop headers, and return
+ * to the interpreter at a loop header once the loop budget runs out.
+ * Static methods called from compiled code are compiled with it and must not contain loops,
+ * as they cannot return to the interpreter.
+ */
+export class JIT {
+  private threshold: number
+  private states = new WeakMap<Method, MethodState>()
+  /**
+   * New exceptions thrown out of compiled code whose class is being initialized.
+   * The entry handler is run again once the class is initialized, and throws the exception.
+   */
+  private pendingExceptions = new WeakMap<StackFrame, JavaException>()
+  private runtime: Runtime = { budget: 0, exitPc: 0, depth: 0, maxDepth: 0 }
+  private helpers = createHelpers()
+
+  constructor(threshold: number = DEFAULT_THRESHOLD) {
+    this.threshold = threshold
+  }
+
+  /**
+   * Checks if the method has been compiled.
+   */
+  isCompiled(method: Method): boolean {
+    return this.states.get(method)?.status === TierStatus.COMPILED
+  }
+
+  /**
+   * Called by the thread when a java frame is invoked.
+   * Counts the invocation and compiles the method once it crosses the threshold.
+   */
+  onInvoke(thread: Thread, frame: StackFrame) {
+    const state = this.getState(frame.method)
+    if (state.status === TierStatus.COUNTING && ++state.count >= this.threshold) {
+      this.compile(thread, state)
+    }
+  }
+
+  private getState(method: Method): MethodState {
+    let state = this.states.get(method)
+    if (state === undefined) {
+      state = this.analyze(method)
+      this.states.set(method, state)
+    }
+    return state
+  }
+
+  /**
+   * Checks if the method can be compiled and installs the loop counters.
+   */
+  private analyze(method: Method): MethodState {
+    const state: MethodState = {
+      method,
+      status: TierStatus.REJECTED,
+      count: 0,
+      instructions: [],
+      loopHeaders: [],
+      originals: new Map(),
+      compiled: null,
+      source: '',
+      constants: []
+    }
+
+    const code = method._getCode()
+    const decoded = method._getDecoded()
+    if (
+      code === null ||
+      decoded === null ||
+      method.checkSynchronized() ||
+      method.getExceptionHandlers().length > 0 ||
+      hasOverwrite(method) ||
+      usesLong(method.getDescriptor())
+    ) {
+      return state
+    }
+
+    const instructions = scan(code.code, decoded)
+    if (instructions === null) {
+      return state
+    }
+
+    const loopHeaders = new Set<number>()
+    for (const insn of instructions) {
+      for (const target of insn.targets) {
+        if (target <= insn.pc) {
+          loopHeaders.add(target)
+        }
+      }
+    }
+
+    state.status = TierStatus.COUNTING
+    state.instructions = instructions
+    state.loopHeaders = Array.from(loopHeaders)
+    for (const pc of state.loopHeaders) {
+      const original = decoded.getHandler(pc)
+      state.originals.set(pc, original)
+      const counter = (thread: Thread) => {
+        if (state.status === TierStatus.COUNTING && ++state.count >= this.threshold) {
+          this.compile(thread, state)
+        }
+        // enters the compiled code if the method was just compiled
+        const handler = decoded.getHandler(pc)
+        handler === counter ? original(thread) : handler(thread)
+      }
+      decoded.setHandler(pc, counter)
+    }
+    return state
+  }
+
+  /**
+   * Compiles the method and the static methods it calls.
+   * If any of them cannot be compiled, the method stays interpreted.
+   */
+  private compile(thread: Thread, state: MethodState) {
+    const group: MethodState[] = []
+    const compiled = this.translate(thread, state, group, true)
+
+    const deps = new Set<ClassData>()
+    for (const member of group) {
+      member.compiled?.deps.forEach(dep => deps.add(dep))
+    }
+
+    let functions: CompiledFunction[] = []
+    let failed = compiled === null
+    if (!failed) {
+      try {
+        functions = group.map(member => this.instantiate(member))
+      } catch (e) {
+        failed = true
+      }
+    }
+
+    if (failed) {
+      for (const member of group) {
+        if (member.status === TierStatus.COMPILING) {
+          member.status = TierStatus.COUNTING
+          member.count = 0
+          member.compiled = null
+        }
+      }
+      state.status = TierStatus.REJECTED
+      this.restoreHandlers(state)
+      return
+    }
+
+    group.forEach((member, i) => {
+      const memberCompiled = member.compiled as CompiledMethod
+      memberCompiled.fn = functions[i]
+      memberCompiled.deps = Array.from(deps)
+      member.status = TierStatus.COMPILED
+      member.source = ''
+      member.constants = []
+      this.installEntries(member)
+    })
+  }
+
+  /**
+   * Translates the method to JS source, translating the static methods it calls.
+   * @returns the compiled method, with its function set once the whole group is translated
+   */
+  private translate(
+    thread: Thread,
+    state: MethodState,
+    group: MethodState[],
+    allowLoops: boolean
+  ): CompiledMethod | null {
+    // callees are called directly and cannot stop at a loop header, even if already compiled
+    if (!allowLoops && state.loopHeaders.length > 0) {
+      return null
+    }
+    if (state.status === TierStatus.COMPILED || state.status === TierStatus.COMPILING) {
+      return state.compiled
+    }
+    if (state.status === TierStatus.REJECTED) {
+      return null
+    }
+
+    const method = state.method
+    const compiled: CompiledMethod = {
+      fn: null,
+      deps: [],
+      isWide: parseMethodDescriptor(method.getDescriptor()).ret.type === 'D'
+    }
+    state.status = TierStatus.COMPILING
+    state.compiled = compiled
+    group.push(state)
+
+    const translator = new Translator(thread, state, compiled, (target: Method) =>
+      this.translate(thread, this.getState(target), group, false)
+    )
+    if (!translator.translate()) {
+      state.status = TierStatus.REJECTED
+      state.compiled = null
+      return null
+    }
+    return compiled
+  }
+
+  private instantiate(state: MethodState): CompiledFunction {
+    const factory = new Function('rt', 'h', 'k', 'EXIT', 'JavaException', state.source)
+    return factory(this.runtime, this.helpers, state.constants, EXIT, JavaException)
+  }
+
+  private installEntries(state: MethodState) {
+    const decoded = state.method._getDecoded() as DecodedCode
+    const compiled = state.compiled as CompiledMethod
+    const entries = new Set([0, ...state.loopHeaders])
+    for (const pc of entries) {
+      const fallback = state.originals.get(pc) ?? decoded.getHandler(pc)
+      state.originals.set(pc, fallback)
+      decoded.setHandler(pc, thread => this.enter(thread, compiled, pc, fallback))
+    }
+  }
+
+  private restoreHandlers(state: MethodState) {
+    const decoded = state.method._getDecoded() as DecodedCode
+    state.originals.forEach((handler, pc) => decoded.setHandler(pc, handler))
+  }
+
+  /**
+   * Runs the compiled code of the current frame from the given pc, either returning from the frame
+   * or stopping at a loop header.
+   */
+  private enter(
+    thread: Thread,
+    compiled: CompiledMethod,
+    pc: number,
+    fallback: InstructionHandler
+  ) {
+    const frame = thread.peekStackFrame()
+    const pending = this.pendingExceptions.get(frame)
+    if (pending !== undefined) {
+      this.pendingExceptions.delete(frame)
+      this.throwException(thread, frame, pending)
+      return
+    }
+
+    const deps = compiled.deps
+    for (let i = 0; i < deps.length; i++) {
+      if (!deps[i].isInitialized()) {
+        fallback(thread)
+        return
+      }
+    }
+
+    const rt = this.runtime
+    rt.budget = LOOP_BUDGET
+    rt.depth = thread.getFrames().length - 2
+    rt.maxDepth = thread.getMaxRecursionDepth()
+    let result
+    try {
+      result = (compiled.fn as CompiledFunction)(frame.locals, pc)
+    } catch (e) {
+      if (e instanceof JavaException) {
+        this.throwException(thread, frame, e)
+        return
+      }
+      if (e instanceof RangeError) {
+        this.throwException(thread, frame, this.helpers.overflow())
+        return
+      }
+      throw e
+    }
+    thread.useQuantum(LOOP_BUDGET - rt.budget)
+
+    if (result === EXIT) {
+      thread.setPc(rt.exitPc)
+      return
+    }
+    compiled.isWide ? thread.returnStackFrame64(result) : thread.returnStackFrame(result)
+  }
+
+  private throwException(thread: Thread, frame: StackFrame, exception: JavaException) {
+    if (exception.exception !== null) {
+      thread.throwException(exception.exception)
+      return
+    }
+    // compiled methods have no exception handlers, the frame is popped unless the exception class
+    // has to be initialized first
+    this.pendingExceptions.set(frame, exception)
+    thread.throwNewException(exception.className, exception.msg)
+  }
+}
+
+/**
+ * Replaced with the stores of all locals back into the locals array, once all locals are known.
+ */
+const WRITEBACK = '/* writeback */'
+
+const S = (slot: number) => 's' + slot
+const L = (index: number) => 'l' + index
+
+const IF_CONDITIONS: { [opcode: number]: string } = {
+  [OPCODE.IFEQ]: '=== 0',
+  [OPCODE.IFNE]: '!== 0',
+  [OPCODE.IFLT]: '< 0',
+  [OPCODE.IFGE]: '>= 0',
+  [OPCODE.IFGT]: '> 0',
+  [OPCODE.IFLE]: '<= 0',
+  [OPCODE.IFNULL]: '=== null',
+  [OPCODE.IFNONNULL]: '!== null'
+}
+
+const IF_CMP_OPERATORS: { [opcode: number]: string } = {
+  [OPCODE.IF_ICMPEQ]: '===',
+  [OPCODE.IF_ICMPNE]: '!==',
+  [OPCODE.IF_ICMPLT]: '<',
+  [OPCODE.IF_ICMPGE]: '>=',
+  [OPCODE.IF_ICMPGT]: '>',
+  [OPCODE.IF_ICMPLE]: '<=',
+  [OPCODE.IF_ACMPEQ]: '===',
+  [OPCODE.IF_ACMPNE]: '!=='
+}
+
+interface InvokeInfo {
+  target: CompiledMethod
+  args: string[]
+  ret: string
+}
+
+/**
+ * Translates the bytecode of one method into the body of a JS function factory.
+ *
+ * The generated function takes the locals array and the entry pc, and dispatches on the pc with a
+ * switch in a loop, jumping to a block by setting pc and continuing the loop.
+ * Operand stack slots are the variables s0, s1.. at fixed depths, wide values using the lower slot.
+ */
+class Translator {
+  private thread: Thread
+  private state: MethodState
+  private compiled: CompiledMethod
+  private translateCallee: (target: Method) => CompiledMethod | null
+
+  private constants: any[] = []
+  private resolved = new Map<number, any>()
+  private depths = new Map<number, number>()
+  private locals = new Set<number>()
+  private maxDepth = 0
+  private hasLoops: boolean
+
+  constructor(
+    thread: Thread,
+    state: MethodState,
+    compiled: CompiledMethod,
+    translateCallee: (target: Method) => CompiledMethod | null
+  ) {
+    this.thread = thread
+    this.state = state
+    this.compiled = compiled
+    this.translateCallee = translateCallee
+    this.hasLoops = state.loopHeaders.length > 0
+  }
+
+  translate(): boolean {
+    const instructions = this.state.instructions
+    for (const insn of instructions) {
+      if (!this.resolve(insn)) {
+        return false
+      }
+    }
+
+    if (!this.computeDepths()) {
+      return false
+    }
+
+    const leaders = new Set<number>([0])
+    for (const insn of instructions) {
+      insn.targets.forEach(target => leaders.add(target))
+    }
+
+    const body: string[] = []
+    for (const insn of instructions) {
+      const depth = this.depths.get(insn.pc)
+      if (depth === undefined) {
+        continue // unreachable
+      }
+      if (leaders.has(insn.pc)) {
+        body.push(`case ${insn.pc}:`)
+      }
+      body.push(this.emit(insn, depth))
+    }
+
+    const args = parseMethodDescriptor(this.state.method.getDescriptor()).args
+    let argSlots = this.state.method.checkStatic() ? 0 : 1
+    args.forEach(arg => (argSlots += slots(arg.type)))
+    for (let i = 0; i < argSlots; i++) {
+      this.locals.add(i)
+    }
+
+    const localNames = Array.from(this.locals).sort((a, b) => a - b)
+    const writeback = localNames.map(i => `locals[${i}] = ${L(i)};`).join(' ')
+    const stackNames: string[] = []
+    for (let i = 0; i < this.maxDepth + 2; i++) {
+      stackNames.push(S(i))
+    }
+
+    this.state.constants = this.constants
+    this.state.source = [
+      'const F = Math.fround, imul = Math.imul',
+      'const { fadd, fsub, f2i, d2i, cmp, idiv, irem } = h',
+      'const { aload, astore, alen, getfield, putfield, athrow } = h',
+      'return function compiled(locals, pc) {',
+      'if (rt.depth > rt.maxDepth) throw h.overflow()',
+      'rt.depth++',
+      ...localNames.map(i => `let ${L(i)} = locals[${i}]`),
+      `let t, ${stackNames.join(', ')}`,
+      this.hasLoops ? 'let budget = rt.budget' : '',
+      'for (;;) {',
+      'switch (pc) {',
+      ...body.map(line => line.split(WRITEBACK).join(writeback)),
+      `default: throw new Error('Invalid pc ' + pc)`,
+      '}',
+      '}',
+      '}'
+    ].join('\n')
+    return true
+  }
+
+  private constant(value: any): string {
+    this.constants.push(value)
+    return `k[${this.constants.length - 1}]`
+  }
+
+  /**
+   * Resolves the constants used by the instruction.
+   */
+  private resolve(insn: Instruction): boolean {
+    const cls = this.state.method.getClass()
+    switch (insn.opcode) {
+      case OPCODE.LDC:
+      case OPCODE.LDC_W: {
+        const constant = cls.getConstant(insn.operand)
+        if (ConstantInteger.check(constant)) {
+          this.resolved.set(insn.pc, `${constant.get()}`)
+        } else if (ConstantFloat.check(constant)) {
+          this.resolved.set(insn.pc, this.constant(constant.get()))
+        } else if (ConstantString.check(constant)) {
+          const res = constant.resolve(this.thread, cls.getLoader())
+          if (res.status !== ResultType.SUCCESS) {
+            return false
+          }
+          this.resolved.set(insn.pc, this.constant(res.result))
+        } else {
+          return false
+        }
+        return true
+      }
+      case OPCODE.LDC2_W: {
+        const constant = cls.getConstant(insn.operand)
+        if (!ConstantDouble.check(constant)) {
+          return false
+        }
+        this.resolved.set(insn.pc, this.constant(constant.get()))
+        return true
+      }
+      case OPCODE.GETSTATIC:
+      case OPCODE.PUTSTATIC:
+      case OPCODE.GETFIELD:
+      case OPCODE.PUTFIELD: {
+        const isStatic = insn.opcode === OPCODE.GETSTATIC || insn.opcode === OPCODE.PUTSTATIC
+        const res = (cls.getConstant(insn.operand) as ConstantFieldref).resolve()
+        if (res.status !== ResultType.SUCCESS) {
+          return false
+        }
+        const field = res.result
+        // access errors are left to the interpreter
+        if (
+          field.checkStatic() !== isStatic ||
+          (field.checkPrivate() && field.getClass() !== cls) ||
+          field.getFieldDesc() === 'J'
+        ) {
+          return false
+        }
+        if (isStatic) {
+          this.compiled.deps.push(field.getClass())
+        }
+        this.resolved.set(insn.pc, field)
+        return true
+      }
+      case OPCODE.INVOKESTATIC: {
+        const constant = cls.getConstant(insn.operand)
+        // signature polymorphic methods are linked by running java code
+        if (
+          !ConstantMethodref.check(constant) ||
+          constant.getClassName().startsWith('java/lang/invoke/')
+        ) {
+          return false
+        }
+        const res = constant.resolve(this.thread)
+        if (res.status !== ResultType.SUCCESS) {
+          return false
+        }
+        const target = res.result
+        if (
+          !target.checkStatic() ||
+          target.checkNative() ||
+          target.checkSynchronized() ||
+          target.checkSignaturePolymorphic() ||
+          (target.checkPrivate() && target.getClass() !== cls) ||
+          usesLong(target.getDescriptor())
+        ) {
+          return false
+        }
+        const compiledTarget = this.translateCallee(target)
+        if (compiledTarget === null) {
+          return false
+        }
+        this.compiled.deps.push(target.getClass(), ...compiledTarget.deps)
+
+        const desc = parseMethodDescriptor(target.getDescriptor())
+        const args: string[] = desc.args.map(arg => arg.type)
+        this.resolved.set(insn.pc, { target: compiledTarget, args, ret: desc.ret.type })
+        return true
+      }
+    }
+    return true
+  }
+
+  private stackEffect(insn: Instruction): [number, number] {
+    const info = this.resolved.get(insn.pc)
+    switch (insn.opcode) {
+      case OPCODE.GETSTATIC:
+        return [0, slots((info as Field).getFieldDesc())]
+      case OPCODE.PUTSTATIC:
+        return [slots((info as Field).getFieldDesc()), 0]
+      case OPCODE.GETFIELD:
+        return [1, slots((info as Field).getFieldDesc())]
+      case OPCODE.PUTFIELD:
+        return [1 + slots((info as Field).getFieldDesc()), 0]
+      case OPCODE.INVOKESTATIC: {
+        const invoke = info as InvokeInfo
+        let pop = 0
+        invoke.args.forEach(arg => (pop += slots(arg)))
+        return [pop, invoke.ret === 'V' ? 0 : slots(invoke.ret)]
+      }
+    }
+    return STACK_EFFECTS[insn.opcode]
+  }
+
+  /**
+   * Computes the operand stack depth at each reachable instruction.
+   * Loop headers must have an empty operand stack to be entered and exited at.
+   */
+  private computeDepths(): boolean {
+    const byPc = new Map<number, Instruction>()
+    this.state.instructions.forEach(insn => byPc.set(insn.pc, insn))
+
+    const worklist = [0]
+    this.depths.set(0, 0)
+    while (worklist.length > 0) {
+      const insn = byPc.get(worklist.pop() as number)
+      if (insn === undefined) {
+        return false
+      }
+      const depth = this.depths.get(insn.pc) as number
+      const [pop, push] = this.stackEffect(insn)
+      if (depth < pop) {
+        return false
+      }
+      const after = depth - pop + push
+      this.maxDepth = Math.max(this.maxDepth, depth + push)
+
+      const successors = TERMINAL.has(insn.opcode)
+        ? [...insn.targets]
+        : [insn.next, ...insn.targets]
+      for (const successor of successors) {
+        const known = this.depths.get(successor)
+        if (known === undefined) {
+          this.depths.set(successor, after)
+          worklist.push(successor)
+        } else if (known !== after) {
+          return false
+        }
+      }
+    }
+
+    return this.state.loopHeaders.every(pc => !this.depths.has(pc) || this.depths.get(pc) === 0)
+  }
+
+  private jump(from: number, target: number): string {
+    if (target > from) {
+      return `pc = ${target}; continue`
+    }
+    return (
+      `if (--budget === 0) { ${WRITEBACK} rt.budget = 0; rt.exitPc = ${target}; rt.depth--; ` +
+      `return EXIT } pc = ${target}; continue`
+    )
+  }
+
+  private ret(value: string): string {
+    return `${this.hasLoops ? 'rt.budget = budget; ' : ''}rt.depth--; return ${value}`
+  }
+
+  private load(index: number, depth: number): string {
+    this.locals.add(index)
+    return `${S(depth)} = ${L(index)}`
+  }
+
+  private store(index: number, value: string, isWide: boolean = false): string {
+    this.locals.add(index)
+    if (isWide) {
+      this.locals.add(index + 1)
+      return `${L(index)} = ${L(index + 1)} = ${value}`
+    }
+    return `${L(index)} = ${value}`
+  }
+
+  /**
+   * Emits the statement of one instruction, with the given operand stack depth before it.
+   */
+  private emit(insn: Instruction, d: number): string {
+    const pc = insn.pc
+    const a = insn.operand
+    const info = this.resolved.get(pc)
+    const top = S(d - 1)
+    const int2 = (expr: string) => `${S(d - 2)} = ${expr}`
+    const double2 = (op: string) => `${S(d - 4)} = ${S(d - 4)} ${op} ${S(d - 2)}`
+
+    switch (insn.opcode) {
+      case OPCODE.NOP:
+        return ''
+      case OPCODE.ACONST_NULL:
+        return `${S(d)} = null`
+      case OPCODE.ICONST_M1:
+        return `${S(d)} = -1`
+      case OPCODE.ICONST_0:
+      case OPCODE.ICONST_1:
+      case OPCODE.ICONST_2:
+      case OPCODE.ICONST_3:
+      case OPCODE.ICONST_4:
+      case OPCODE.ICONST_5:
+        return `${S(d)} = ${insn.opcode - OPCODE.ICONST_0}`
+      case OPCODE.FCONST_0:
+      case OPCODE.FCONST_1:
+      case OPCODE.FCONST_2:
+        return `${S(d)} = ${insn.opcode - OPCODE.FCONST_0}`
+      case OPCODE.DCONST_0:
+      case OPCODE.DCONST_1:
+        return `${S(d)} = ${insn.opcode - OPCODE.DCONST_0}`
+      case OPCODE.BIPUSH:
+      case OPCODE.SIPUSH:
+        return `${S(d)} = ${a}`
+      case OPCODE.LDC:
+      case OPCODE.LDC_W:
+      case OPCODE.LDC2_W:
+        return `${S(d)} = ${info}`
+
+      case OPCODE.ILOAD:
+      case OPCODE.FLOAD:
+      case OPCODE.DLOAD:
+      case OPCODE.ALOAD:
+        return this.load(a, d)
+      case OPCODE.ILOAD_0:
+      case OPCODE.ILOAD_1:
+      case OPCODE.ILOAD_2:
+      case OPCODE.ILOAD_3:
+        return this.load(insn.opcode - OPCODE.ILOAD_0, d)
+      case OPCODE.FLOAD_0:
+      case OPCODE.FLOAD_1:
+      case OPCODE.FLOAD_2:
+      case OPCODE.FLOAD_3:
+        return this.load(insn.opcode - OPCODE.FLOAD_0, d)
+      case OPCODE.DLOAD_0:
+      case OPCODE.DLOAD_1:
+      case OPCODE.DLOAD_2:
+      case OPCODE.DLOAD_3:
+        return this.load(insn.opcode - OPCODE.DLOAD_0, d)
+      case OPCODE.ALOAD_0:
+      case OPCODE.ALOAD_1:
+      case OPCODE.ALOAD_2:
+      case OPCODE.ALOAD_3:
+        return this.load(insn.opcode - OPCODE.ALOAD_0, d)
+
+      case OPCODE.IALOAD:
+      case OPCODE.FALOAD:
+      case OPCODE.DALOAD:
+      case OPCODE.AALOAD:
+      case OPCODE.BALOAD:
+      case OPCODE.CALOAD:
+      case OPCODE.SALOAD:
+        return int2(`aload(${S(d - 2)}, ${top})`)
+
+      case OPCODE.ISTORE:
+      case OPCODE.ASTORE:
+        return this.store(a, top)
+      case OPCODE.FSTORE:
+        return this.store(a, `F(${top})`)
+      case OPCODE.DSTORE:
+        return this.store(a, S(d - 2), true)
+      case OPCODE.ISTORE_0:
+      case OPCODE.ISTORE_1:
+      case OPCODE.ISTORE_2:
+      case OPCODE.ISTORE_3:
+        return this.store(insn.opcode - OPCODE.ISTORE_0, top)
+      case OPCODE.FSTORE_0:
+      case OPCODE.FSTORE_1:
+      case OPCODE.FSTORE_2:
+      case OPCODE.FSTORE_3:
+        return this.store(insn.opcode - OPCODE.FSTORE_0, `F(${top})`)
+      case OPCODE.DSTORE_0:
+      case OPCODE.DSTORE_1:
+      case OPCODE.DSTORE_2:
+      case OPCODE.DSTORE_3:
+        return this.store(insn.opcode - OPCODE.DSTORE_0, S(d - 2), true)
+      case OPCODE.ASTORE_0:
+      case OPCODE.ASTORE_1:
+      case OPCODE.ASTORE_2:
+      case OPCODE.ASTORE_3:
+        return this.store(insn.opcode - OPCODE.ASTORE_0, top)
+
+      case OPCODE.IASTORE:
+      case OPCODE.FASTORE:
+      case OPCODE.AASTORE:
+        return `astore(${S(d - 3)}, ${S(d - 2)}, ${top})`
+      case OPCODE.BASTORE:
+        return `astore(${S(d - 3)}, ${S(d - 2)}, (${top} << 24) >> 24)`
+      case OPCODE.CASTORE:
+        return `astore(${S(d - 3)}, ${S(d - 2)}, ${top} & 0xffff)`
+      case OPCODE.SASTORE:
+        return `astore(${S(d - 3)}, ${S(d - 2)}, (${top} << 16) >> 16)`
+      case OPCODE.DASTORE:
+        return `astore(${S(d - 4)}, ${S(d - 3)}, ${S(d - 2)})`
+
+      case OPCODE.POP:
+      case OPCODE.POP2:
+        return ''
+      case OPCODE.DUP:
+        return `${S(d)} = ${top}`
+      case OPCODE.DUP_X1:
+        return `${S(d)} = ${top}; ${top} = ${S(d - 2)}; ${S(d - 2)} = ${S(d)}`
+      case OPCODE.DUP_X2:
+        return (
+          `${S(d)} = ${top}; ${top} = ${S(d - 2)}; ${S(d - 2)} = ${S(d - 3)}; ` +
+          `${S(d - 3)} = ${S(d)}`
+        )
+      case OPCODE.DUP2:
+        return `${S(d)} = ${S(d - 2)}; ${S(d + 1)} = ${top}`
+      case OPCODE.DUP2_X1:
+        return (
+          `${S(d + 1)} = ${top}; ${S(d)} = ${S(d - 2)}; ${top} = ${S(d - 3)}; ` +
+          `${S(d - 3)} = ${S(d)}; ${S(d - 2)} = ${S(d + 1)}`
+        )
+      case OPCODE.DUP2_X2:
+        return (
+          `${S(d + 1)} = ${top}; ${S(d)} = ${S(d - 2)}; ${top} = ${S(d - 3)}; ` +
+          `${S(d - 2)} = ${S(d - 4)}; ${S(d - 4)} = ${S(d)}; ${S(d - 3)} = ${S(d + 1)}`
+        )
+      case OPCODE.SWAP:
+        return `t = ${top}; ${top} = ${S(d - 2)}; ${S(d - 2)} = t`
+
+      case OPCODE.IADD:
+        return int2(`(${S(d - 2)} + ${top}) | 0`)
+      case OPCODE.ISUB:
+        return int2(`(${S(d - 2)} - ${top}) | 0`)
+      case OPCODE.IMUL:
+        return int2(`imul(${S(d - 2)}, ${top}) | 0`)
+      case OPCODE.IDIV:
+        return int2(`idiv(${S(d - 2)}, ${top})`)
+      case OPCODE.IREM:
+        return int2(`irem(${S(d - 2)}, ${top})`)
+      case OPCODE.INEG:
+        return `${top} = -${top} | 0`
+      case OPCODE.ISHL:
+        return int2(`(${S(d - 2)} << (${top} & 0x1f)) | 0`)
+      case OPCODE.ISHR:
+        return int2(`(${S(d - 2)} >> (${top} & 0x1f)) | 0`)
+      case OPCODE.IUSHR:
+        return int2(`(${S(d - 2)} >>> ${top}) | 0`)
+      case OPCODE.IAND:
+        return int2(`(${S(d - 2)} & ${top}) | 0`)
+      case OPCODE.IOR:
+        return int2(`${S(d - 2)} | ${top} | 0`)
+      case OPCODE.IXOR:
+        return int2(`(${S(d - 2)} ^ ${top}) | 0`)
+      case OPCODE.IINC:
+        this.locals.add(a)
+        return `${L(a)} = (${L(a)} + ${insn.operand2}) | 0`
+
+      case OPCODE.FADD:
+        return int2(`fadd(${S(d - 2)}, ${top})`)
+      case OPCODE.FSUB:
+        return int2(`fsub(${S(d - 2)}, ${top})`)
+      case OPCODE.FMUL:
+        return int2(`F(F(${S(d - 2)}) * F(${top}))`)
+      case OPCODE.FDIV:
+        return int2(`F(F(${S(d - 2)}) / F(${top}))`)
+      case OPCODE.FREM:
+        return int2(`F(F(${S(d - 2)}) % F(${top}))`)
+      case OPCODE.FNEG:
+        return `${top} = F(-F(${top}))`
+
+      case OPCODE.DADD:
+        return double2('+')
+      case OPCODE.DSUB:
+        return double2('-')
+      case OPCODE.DMUL:
+        return double2('*')
+      case OPCODE.DDIV:
+        return double2('/')
+      case OPCODE.DREM:
+        return double2('%')
+      case OPCODE.DNEG:
+        return `${S(d - 2)} = -${S(d - 2)}`
+
+      case OPCODE.I2F:
+        return `${top} = F(${top})`
+      case OPCODE.I2D:
+      case OPCODE.F2D:
+        return ''
+      case OPCODE.F2I:
+        return `${top} = f2i(${top})`
+      case OPCODE.D2I:
+        return int2(`d2i(${S(d - 2)})`)
+      case OPCODE.D2F:
+        return int2(`F(${S(d - 2)})`)
+      case OPCODE.I2B:
+        return `${top} = (${top} << 24) >> 24`
+      case OPCODE.I2C:
+        return `${top} = ${top} & 0xffff`
+      case OPCODE.I2S:
+        return `${top} = (${top} << 16) >> 16`
+
+      case OPCODE.FCMPL:
+        return int2(`cmp(F(${S(d - 2)}), F(${top}), -1)`)
+      case OPCODE.FCMPG:
+        return int2(`cmp(F(${S(d - 2)}), F(${top}), 1)`)
+      case OPCODE.DCMPL:
+        return `${S(d - 4)} = cmp(${S(d - 4)}, ${S(d - 2)}, -1)`
+      case OPCODE.DCMPG:
+        return `${S(d - 4)} = cmp(${S(d - 4)}, ${S(d - 2)}, 1)`
+
+      case OPCODE.IFEQ:
+      case OPCODE.IFNE:
+      case OPCODE.IFLT:
+      case OPCODE.IFGE:
+      case OPCODE.IFGT:
+      case OPCODE.IFLE:
+      case OPCODE.IFNULL:
+      case OPCODE.IFNONNULL:
+        return `if (${top} ${IF_CONDITIONS[insn.opcode]}) { ${this.jump(pc, insn.targets[0])} }`
+      case OPCODE.IF_ICMPEQ:
+      case OPCODE.IF_ICMPNE:
+      case OPCODE.IF_ICMPLT:
+      case OPCODE.IF_ICMPGE:
+      case OPCODE.IF_ICMPGT:
+      case OPCODE.IF_ICMPLE:
+      case OPCODE.IF_ACMPEQ:
+      case OPCODE.IF_ACMPNE:
+        return (
+          `if (${S(d - 2)} ${IF_CMP_OPERATORS[insn.opcode]} ${top}) ` +
+          `{ ${this.jump(pc, insn.targets[0])} }`
+        )
+      case OPCODE.GOTO:
+      case OPCODE.GOTO_W:
+        return this.jump(pc, insn.targets[0])
+      case OPCODE.TABLESWITCH:
+      case OPCODE.LOOKUPSWITCH: {
+        const table = insn.switchTable as SwitchTable
+        const cases: string[] = []
+        if (table.offsets) {
+          table.offsets.forEach((offset, i) =>
+            cases.push(`case ${table.low + i}: pc = ${pc + offset}; continue`)
+          )
+        } else {
+          ;(table.pairs as Map<number, number>).forEach((offset, key) =>
+            cases.push(`case ${key}: pc = ${pc + offset}; continue`)
+          )
+        }
+        cases.push(`default: pc = ${pc + table.defaultOffset}; continue`)
+        return `switch (${top}) { ${cases.join('; ')} }`
+      }
+
+      case OPCODE.IRETURN:
+      case OPCODE.ARETURN:
+        return this.ret(top)
+      case OPCODE.FRETURN:
+        return this.ret(`F(${top})`)
+      case OPCODE.DRETURN:
+        return this.ret(S(d - 2))
+      case OPCODE.RETURN:
+        return this.ret('undefined')
+
+      case OPCODE.GETSTATIC:
+        return `${S(d)} = ${this.constant(info)}.getValue()`
+      case OPCODE.PUTSTATIC: {
+        const field = info as Field
+        const ref = this.constant(field)
+        switch (field.getFieldDesc()) {
+          case 'D':
+            return `${ref}.putValue(${S(d - 2)})`
+          case 'F':
+            return `${ref}.putValue(F(${top}))`
+          case 'Z':
+            return `${ref}.putValue(${top} & 1)`
+          default:
+            return `${ref}.putValue(${top})`
+        }
+      }
+      case OPCODE.GETFIELD:
+        return `${top} = getfield(${top}, ${this.constant(info)})`
+      case OPCODE.PUTFIELD: {
+        const field = info as Field
+        return slots(field.getFieldDesc()) === 2
+          ? `putfield(${S(d - 3)}, ${this.constant(field)}, ${S(d - 2)})`
+          : `putfield(${S(d - 2)}, ${this.constant(field)}, ${top})`
+      }
+      case OPCODE.INVOKESTATIC: {
+        const invoke = info as InvokeInfo
+        let slot = d
+        invoke.args.forEach(arg => (slot -= slots(arg)))
+        const base = slot
+        const args: string[] = []
+        for (const arg of invoke.args) {
+          const value = arg === 'F' ? `F(${S(slot)})` : S(slot)
+          args.push(value)
+          if (arg === 'D') {
+            args.push(value)
+          }
+          slot += slots(arg)
+        }
+        const call = `${this.constant(invoke.target)}.fn([${args.join(', ')}], 0)`
+        return invoke.ret === 'V' ? call : `${S(base)} = ${call}`
+      }
+
+      case OPCODE.ARRAYLENGTH:
+        return `${top} = alen(${top})`
+      case OPCODE.ATHROW:
+        return `throw athrow(${top})`
+    }
+    throw new Error(`Unsupported opcode ${insn.opcode}`)
+  }
+}
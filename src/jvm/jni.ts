@@ -12,11 +12,17 @@ export type Lib = {
 
 export class JNI {
   private classes: Lib
+  /**
+   * Natives passed in by the embedder, may be shared by several JVMs and is never written to.
+   * Entries are copied to classes on first use.
+   */
+  private stdlib: Lib
   private classPath: string
   private system: AbstractSystem
 
   constructor(classPath: string, system: AbstractSystem, stdlib?: Lib) {
-    this.classes = stdlib ?? {}
+    this.classes = {}
+    this.stdlib = stdlib ?? {}
     this.classPath = classPath
     this.system = system
   }
@@ -33,12 +39,9 @@ export class JNI {
     method: (thread: Thread, locals: any[]) => void
   ) {
     // TODO: should we try to load the class?
-    if (!this.classes[className]) {
-      this.classes[className] = {
-        methods: {}
-      }
-    }
-    this.classes[className].methods![methodName] = method
+    const lib = this.getLib(className)
+    // copied, the methods may belong to the shared stdlib
+    lib.methods = { ...lib.methods, [methodName]: method }
   }
 
   /**
@@ -54,39 +57,36 @@ export class JNI {
     className: string,
     methodName: string
   ): Result<(thread: Thread, locals: any[]) => void> {
-    // classname not found
-    if (!this.classes?.[className]) {
-      this.classes[className] = {}
-    }
+    const lib = this.getLib(className)
 
-    if (!this.classes?.[className]?.methods) {
+    if (!lib.methods) {
       // Methods not yet loaded
-      if (!this.classes[className].blocking) {
-        this.classes[className].blocking = [thread]
+      if (!lib.blocking) {
+        lib.blocking = [thread]
         thread.setStatus(ThreadStatus.WAITING)
         this.system
           .readFile(this.classPath ? this.classPath + '/' + className : className)
-          .then(lib => {
-            this.classes[className].methods = lib.default
+          .then(natives => {
+            lib.methods = natives.default
           })
           .catch(_ => {
-            this.classes[className].methods = {}
+            lib.methods = {}
           })
           .finally(() => {
-            this.classes[className].blocking?.forEach(thread => {
+            lib.blocking?.forEach(thread => {
               thread.setStatus(ThreadStatus.RUNNABLE)
             })
-            this.classes[className].blocking = []
+            lib.blocking = []
           })
       } else {
-        this.classes[className].blocking!.push(thread)
+        lib.blocking.push(thread)
         thread.setStatus(ThreadStatus.WAITING)
       }
       return { status: ResultType.DEFER }
     }
 
     // native method does not exist
-    if (!this.classes?.[className]?.methods?.[methodName]) {
+    if (!lib.methods[methodName]) {
       return {
         status: ResultType.ERROR,
         exceptionCls: 'java/lang/UnsatisfiedLinkError',
@@ -96,7 +96,19 @@ export class JNI {
 
     return {
       status: ResultType.SUCCESS,
-      result: (this.classes[className].methods as any)[methodName]
+      result: lib.methods[methodName]
+    }
+  }
+
+  /**
+   * Gets the natives of a class owned by this JNI, creating them from the stdlib if needed.
+   */
+  private getLib(className: string) {
+    let lib = this.classes[className]
+    if (!lib) {
+      lib = { methods: this.stdlib[className]?.methods }
+      this.classes[className] = lib
     }
+    return lib
   }
 }
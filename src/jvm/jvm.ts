@@ -1,10 +1,15 @@
+import { ClassFile } from '../ClassFile/types'
 import { ApplicationClassLoader } from './ClassLoader/AbstractClassLoader'
 import BootstrapClassLoader from './ClassLoader/BootstrapClassLoader'
 import { ThreadStatus } from './constants'
+import { JIT } from './jit'
 import { JNI, Lib } from './jni'
+import { Profiler } from './profiler'
+import { Quota, RunLimits } from './quota'
+import { JVMSnapshot } from './snapshot'
 import { InternalStackFrame, JavaStackFrame } from './stackframe'
 import Thread from './thread'
-import { RoundRobinThreadPool, ThreadPool } from './threadpool'
+import { AdaptiveThreadPool, ThreadPool } from './threadpool'
 import { ResultType } from './types/Result'
 import { ReferenceClassData } from './types/class/ClassData'
 import { JvmObject } from './types/reference/Object'
@@ -17,8 +22,20 @@ export default class JVM {
     javaClassPath: string
     userDir: string
     nativesPath: string
+    warmStart: boolean
+    profile: boolean
+    jit: boolean
   }
   private isInitialized = false
+  private snapshot: JVMSnapshot | null = null
+  private profiler: Profiler | null
+  private jit: JIT | null
+  private limits: RunLimits | null = null
+  private quota: Quota | null = null
+
+  // identity hashes handed out, rewound to the value at the snapshot on warm starts
+  private identityHashes = 0
+  private snapshotIdentityHashes = 0
 
   private bootstrapClassLoader: BootstrapClassLoader
   private applicationClassLoader: ApplicationClassLoader
@@ -26,7 +43,7 @@ export default class JVM {
   private jni: JNI
   private threadpool: ThreadPool
 
-  private internedStrings: { [key: string]: JvmObject } = {}
+  private internedStrings: Map<string, JvmObject> = new Map()
   private unsafeHeap: UnsafeHeap = new UnsafeHeap()
 
   constructor(
@@ -36,29 +53,74 @@ export default class JVM {
       userDir?: string
       nativesPath?: string
       natives?: Lib
+      warmStart?: boolean
+      profile?: boolean
+      jit?: boolean
+      maxInstructions?: number
+      timeLimit?: number
     }
   ) {
     this.jvmOptions = {
       javaClassPath: 'stdlib',
       userDir: 'example',
       nativesPath: 'src/stdlib',
+      warmStart: true,
+      profile: false,
+      jit: false,
       ...options
     }
+    if (options && (options.maxInstructions !== undefined || options.timeLimit !== undefined)) {
+      this.setLimits({ maxInstructions: options.maxInstructions, timeLimit: options.timeLimit })
+    }
+    this.profiler = this.jvmOptions.profile ? new Profiler() : null
+    this.jit = this.jvmOptions.jit ? new JIT() : null
     this.nativeSystem = nativeSystem
     this.bootstrapClassLoader = new BootstrapClassLoader(
       this.nativeSystem,
       this.jvmOptions.javaClassPath
     )
     this.jni = new JNI(this.jvmOptions.nativesPath, nativeSystem, options?.natives)
-    this.threadpool = new RoundRobinThreadPool(() => {})
+    this.threadpool = new AdaptiveThreadPool(() => {}, undefined, () => nativeSystem.flush())
     this.applicationClassLoader = new ApplicationClassLoader(
       this.nativeSystem,
       this.jvmOptions.userDir,
       this.bootstrapClassLoader
     )
+    this.bootstrapClassLoader._setProfiler(this.profiler)
+    this.applicationClassLoader._setProfiler(this.profiler)
   }
 
-  run(className: string, onFinish?: () => void) {
+  /**
+   * Runs the main method of a class.
+   * @param className main class, loaded by the application class loader
+   * @param onFinish called when all threads have terminated
+   * @param classFiles user classes to define directly in the application class loader,
+   * e.g. the output of the compiler, instead of reading them from the system
+   */
+  run(className: string, onFinish?: () => void, classFiles: ClassFile[] = []) {
+    const profiler = this.profiler
+    if (profiler !== null) {
+      const finish = onFinish
+      onFinish = () => {
+        profiler.endPhase('main')
+        finish?.()
+      }
+    }
+    this.quota = null
+    if (this.limits !== null) {
+      const finish = onFinish
+      onFinish = () => {
+        this.quota?.stop()
+        finish?.()
+      }
+    }
+
+    if (this.snapshot) {
+      this.warmStart(className, onFinish, classFiles)
+      return
+    }
+    profiler?.beginPhase('bootstrap')
+
     // #region load classes
     const objRes = this.bootstrapClassLoader.getClass('java/lang/Object')
     const tRes = this.bootstrapClassLoader.getClass('java/lang/Thread')
@@ -155,6 +217,18 @@ export default class JVM {
             loader.putNativeField('loader', this.applicationClassLoader)
 
             this.isInitialized = true
+            if (this.jvmOptions.warmStart) {
+              this.snapshotIdentityHashes = this.identityHashes
+              this.snapshot = new JVMSnapshot(
+                this.bootstrapClassLoader,
+                Array.from(this.internedStrings.values()),
+                loader,
+                javaThread
+              )
+            }
+            profiler?.endPhase('bootstrap')
+            profiler?.beginPhase('main')
+            this.startQuota()
             mainCls.initialize(mainThread)
           }
         )
@@ -165,6 +239,7 @@ export default class JVM {
 
     // #region run main
 
+    this.defineClasses(classFiles)
     // convert args to Java String[]
     const mainRes = this.applicationClassLoader.getClass(className)
     if (mainRes.status === ResultType.ERROR) {
@@ -189,12 +264,117 @@ export default class JVM {
     this.threadpool.run(onFinish)
   }
 
+  /**
+   * Runs the main class from the bootstrap snapshot taken by the first run.
+   */
+  private warmStart(className: string, onFinish?: () => void, classFiles: ClassFile[] = []) {
+    const snapshot = this.snapshot as JVMSnapshot
+    this.profiler?.beginPhase('restore')
+    this.applicationClassLoader = new ApplicationClassLoader(
+      this.nativeSystem,
+      this.jvmOptions.userDir,
+      this.bootstrapClassLoader
+    )
+    this.applicationClassLoader._setProfiler(this.profiler)
+    snapshot.restore(this.bootstrapClassLoader, this.applicationClassLoader)
+    this.identityHashes = this.snapshotIdentityHashes
+    this.profiler?.endPhase('restore')
+
+    const javaThread = snapshot.getMainThread()
+    const mainThread = new Thread(
+      javaThread.getClass() as ReferenceClassData,
+      this,
+      this.threadpool,
+      javaThread
+    )
+    javaThread.putNativeField('thread', mainThread)
+
+    this.defineClasses(classFiles)
+    const mainRes = this.applicationClassLoader.getClass(className)
+    if (mainRes.status === ResultType.ERROR) {
+      throw new Error('Main class not found')
+    }
+
+    const mainCls = mainRes.result
+    const mainMethod = mainCls.getMethod('main([Ljava/lang/String;)V')
+    if (!mainMethod) {
+      throw new Error('Main method not found')
+    }
+
+    this.profiler?.beginPhase('main')
+    this.startQuota()
+    mainThread.invokeStackFrame(new JavaStackFrame(mainCls, mainMethod, 0, []))
+    mainCls.initialize(mainThread)
+    mainThread.setStatus(ThreadStatus.RUNNABLE)
+
+    this.threadpool.addThread(mainThread)
+    this.threadpool.run(onFinish)
+  }
+
+  /**
+   * Starts counting the main phase of a run against the limits, if any.
+   */
+  private startQuota() {
+    if (this.limits === null) {
+      return
+    }
+    this.quota = new Quota(this.limits)
+    this.quota.start(() => this.halt())
+  }
+
+  /**
+   * Terminates all threads without running Thread::exit, e.g. when a quota is exceeded.
+   * The run finishes and onFinish is called as usual. Monitors held by the threads are not
+   * released, so a halted JVM should not be run again.
+   */
+  halt() {
+    this.threadpool
+      .getThreads()
+      .slice()
+      .forEach(thread => thread.setStatus(ThreadStatus.TERMINATED))
+  }
+
+  /**
+   * Defines classes in the application class loader, without a round trip through class file bytes.
+   */
+  private defineClasses(classFiles: ClassFile[]) {
+    classFiles.forEach(classFile => {
+      const res = this.applicationClassLoader.defineClass(classFile)
+      if (res.status === ResultType.ERROR) {
+        throw new Error(`Could not define class: ${res.exceptionCls} ${res.msg}`)
+      }
+    })
+  }
+
   getInternedString(str: string) {
-    if (this.internedStrings[str]) {
-      return this.internedStrings[str]
+    let interned = this.internedStrings.get(str)
+    if (interned === undefined) {
+      interned = js2jString(this.bootstrapClassLoader, str)
+      this.internedStrings.set(str, interned)
     }
-    this.internedStrings[str] = js2jString(this.bootstrapClassLoader, str)
-    return this.internedStrings[str]
+    return interned
+  }
+
+  /**
+   * Hands out the next identity hash, see JvmObject.hashCode.
+   */
+  nextIdentityHash() {
+    return this.identityHashes++
+  }
+
+  /**
+   * Limits the instructions and wall clock time of the following runs, null to remove limits.
+   * Only the main phase of a run is counted, the bootstrap is not.
+   */
+  setLimits(limits: RunLimits | null) {
+    this.limits = limits
+  }
+
+  /**
+   * Gets the quota of the current or last run, null if the JVM has no limits.
+   */
+  getQuota() {
+    return this.quota
   }
 
   getBootstrapClassLoader() {
@@ -213,6 +393,20 @@ export default class JVM {
     return this.jni
   }
 
+  /**
+   * Gets the profiler, null unless the JVM was created with the profile option.
+   */
+  getProfiler() {
+    return this.profiler
+  }
+
+  /**
+   * Gets the method compiler, null unless the JVM was created with the jit option.
+   */
+  getJIT() {
+    return this.jit
+  }
+
   checkInitialized() {
     return this.isInitialized
   }
@@ -1,22 +1,39 @@
 import { ThreadStatus } from './constants'
 import Thread from './thread'
+import { Deque } from './threadpool'
 
+interface MonitorWaiter {
+  thread: Thread
+  locks: number
+  callback?: () => void
+  cancelTimeout?: () => void
+}
+
+/**
+ * Inflated lock of an object, created by JvmObject under contention or for wait/notify.
+ * Uncontended locking uses the thin lock on the object instead.
+ */
 export default class Monitor {
-  notifyArray: {
-    thread: Thread
-    locks: number
-    timeout?: number
-    callback?: () => void
-  }[] = []
-  acquireArray: {
-    thread: Thread
-    locks: number
-    timeout?: number
-    callback?: () => void
-  }[] = []
+  /**
+   * Threads blocked on entering the monitor, in arrival order.
+   */
+  private entryQueue: Deque<MonitorWaiter> = new Deque<MonitorWaiter>()
+  /**
+   * Threads waiting for a notify, in wait order.
+   */
+  private waitSet: Set<MonitorWaiter> = new Set()
   owner: Thread | null = null
   entryCount: number = 0
 
+  /**
+   * @param owner current owner, when inflating a thin lock
+   * @param entryCount recursion count of the owner
+   */
+  constructor(owner: Thread | null = null, entryCount: number = 0) {
+    this.owner = owner
+    this.entryCount = entryCount
+  }
+
   /**
    * Enters the monitor. If the monitor is already owned, the thread is blocked.
    * @param thread
@@ -35,7 +52,7 @@ export default class Monitor {
       return true
     } else {
       thread.setStatus(ThreadStatus.BLOCKED)
-      this.acquireArray.push({ thread, locks: 1, callback: onEnter })
+      this.entryQueue.pushBack({ thread, locks: 1, callback: onEnter })
       return false
     }
   }
@@ -57,22 +74,23 @@ export default class Monitor {
   }
 
   /**
-   * Sets the thread to wait until notify or notifyAll is called.
+   * Releases the monitor and sets the thread to wait until notify or notifyAll is called,
+   * or the timeout expires. The thread reacquires the monitor before it runs again.
    * @param thread
+   * @param timeout milliseconds to wait for, 0 to wait indefinitely
+   * @returns false if the thread does not own the monitor
    */
-  wait(thread: Thread, timeout: number = 0, nanos: number = 0) {
+  wait(thread: Thread, timeout: number = 0, nanos: number = 0): boolean {
     if (this.owner !== thread) {
       thread.throwNewException(
-        'java.lang.IllegalMonitorStateException',
+        'java/lang/IllegalMonitorStateException',
         'current thread is not owner'
       )
+      return false
     }
 
-    const state: { thread: Thread; locks: number; timeout?: number } = {
-      thread,
-      locks: this.entryCount
-    }
-    this.notifyArray.push(state)
+    const waiter: MonitorWaiter = { thread, locks: this.entryCount }
+    this.waitSet.add(waiter)
 
     // revoke ownership
     this.owner = null
@@ -80,22 +98,53 @@ export default class Monitor {
 
     // wait for notify
     if (timeout > 0 || nanos > 0) {
-      timeout += Math.min(nanos, 1) // settimeout uses millis
-      state.timeout = setTimeout(() => {}, timeout) as any
-      thread.setStatus(ThreadStatus.TIMED_WAITING)
+      timeout += Math.min(nanos, 1) // timers use millis
+      waiter.cancelTimeout = thread
+        .getThreadPool()
+        .sleep(thread, timeout, () => this.reacquire(waiter))
     } else {
       thread.setStatus(ThreadStatus.WAITING)
     }
 
     this.unblock()
+    return true
+  }
+
+  /**
+   * Wakes the thread that has waited the longest on this monitor.
+   * @param thread notifying thread, must own the monitor
+   */
+  notify(thread: Thread): boolean {
+    if (!this.checkOwner(thread)) {
+      return false
+    }
+    const first = this.waitSet.values().next()
+    if (!first.done) {
+      this.reacquire(first.value)
+    }
+    return true
   }
 
   /**
-   * Unblocks a thread in the acquire array
+   * Wakes all threads waiting on this monitor.
+   * @param thread notifying thread, must own the monitor
+   */
+  notifyAll(thread: Thread): boolean {
+    if (!this.checkOwner(thread)) {
+      return false
+    }
+    for (const waiter of Array.from(this.waitSet)) {
+      this.reacquire(waiter)
+    }
+    return true
+  }
+
+  /**
+   * Unblocks the next thread in the entry queue
    */
   unblock() {
-    if (this.acquireArray.length > 0) {
-      const state = this.acquireArray.shift()!
+    if (!this.entryQueue.isEmpty()) {
+      const state = this.entryQueue.popFront()
       state.thread.setStatus(ThreadStatus.RUNNABLE)
       this.owner = state.thread
       this.entryCount = state.locks
@@ -104,14 +153,32 @@ export default class Monitor {
   }
 
   /**
-   * Sets all threads waiting on this monitor to runnable and calls the callback if provided.
-   * @param thread
+   * Moves a waiting thread to the entry queue, restoring its recursion count on entry.
    */
-  notifyAll() {
-    for (const state of this.notifyArray) {
-      const thread = state.thread
-      thread.setStatus(ThreadStatus.RUNNABLE)
-      state.callback && state.callback()
+  private reacquire(waiter: MonitorWaiter) {
+    if (!this.waitSet.delete(waiter)) {
+      return
+    }
+    waiter.cancelTimeout?.()
+
+    if (this.owner === null) {
+      this.owner = waiter.thread
+      this.entryCount = waiter.locks
+      waiter.thread.setStatus(ThreadStatus.RUNNABLE)
+    } else {
+      waiter.thread.setStatus(ThreadStatus.BLOCKED)
+      this.entryQueue.pushBack(waiter)
+    }
+  }
+
+  private checkOwner(thread: Thread) {
+    if (this.owner !== thread) {
+      thread.throwNewException(
+        'java/lang/IllegalMonitorStateException',
+        'current thread is not owner'
+      )
+      return false
     }
+    return true
   }
 }
@@ -0,0 +1,83 @@
+import { parentPort, workerData } from 'worker_threads'
+import JVM from './jvm'
+import { Lib } from './jni'
+import { JVMPoolResult, JVMPoolRun, JVMPoolWorkerData } from './pool'
+import ArchiveSystem from './utils/ArchiveSystem'
+import CustomSystem from './utils/CustomSystem'
+import { ClassArchive } from './utils/archive'
+
+/**
+ * Worker of a JVMPool. Runs one program at a time on a JVM that is kept between runs.
+ * The archive, the parsed class files and the natives are set up once per worker.
+ */
+
+const data = workerData as JVMPoolWorkerData
+const port = parentPort
+
+let stdout: string[] = []
+let stderr: string[] = []
+
+const system = new ArchiveSystem(
+  new ClassArchive(new Uint8Array(data.archive)),
+  new CustomSystem(
+    path => {
+      throw new Error(`Class file not found: ${path}`)
+    },
+    path => Promise.resolve().then(() => require(path)),
+    message => stdout.push(message),
+    message => stderr.push(message)
+  ),
+  data.javaClassPath
+)
+const natives: Lib = data.natives ? require(data.natives).default : {}
+
+let jvm: JVM | null = null
+
+const run = (request: JVMPoolRun) => {
+  stdout = []
+  stderr = []
+  const start = Date.now()
+  const reply = (result: Partial<JVMPoolResult>) => {
+    port?.postMessage({
+      stdout: stdout.join(''),
+      stderr: stderr.join(''),
+      instructions: 0,
+      time: Date.now() - start,
+      exceeded: null,
+      error: null,
+      ...result
+    })
+  }
+
+  if (jvm === null) {
+    jvm = new JVM(system, {
+      javaClassPath: data.javaClassPath,
+      nativesPath: data.nativesPath,
+      natives,
+      jit: data.jit
+    })
+  }
+  const current = jvm
+  current.setLimits({ maxInstructions: request.maxInstructions, timeLimit: request.timeLimit })
+
+  try {
+    current.run(
+      request.mainClass ?? 'Main',
+      () => {
+        const quota = current.getQuota()
+        const exceeded = quota ? quota.getExceeded() : null
+        if (exceeded !== null) {
+          // halted threads may still hold monitors of the bootstrap heap
+          jvm = null
+        }
+        reply({ instructions: quota ? quota.getInstructionCount() : 0, exceeded })
+      },
+      request.classFiles
+    )
+  } catch (e) {
+    jvm = null
+    reply({ error: String(e) })
+  }
+}
+
+port?.on('message', run)
@@ -0,0 +1,263 @@
+import * as os from 'os'
+import * as path from 'path'
+import { Worker } from 'worker_threads'
+import { ClassFile } from '../ClassFile/types'
+import { QuotaExceeded } from './quota'
+
+export interface JVMPoolOptions {
+  /**
+   * Packed class archive of the java class path. Copied once into shared memory and read by
+   * all workers without further copies.
+   */
+  archive: ArrayBuffer | Uint8Array | SharedArrayBuffer
+  /**
+   * Number of worker threads, defaults to the number of CPUs.
+   */
+  workers?: number
+  /**
+   * Class path of the archive entries, defaults to stdlib.
+   */
+  javaClassPath?: string
+  /**
+   * Directory of the native modules loaded on demand, defaults to the stdlib natives.
+   */
+  nativesPath?: string
+  /**
+   * Module exporting a Lib as default export, loaded once per worker and shared by its JVMs.
+   */
+  natives?: string
+  jit?: boolean
+  /**
+   * Milliseconds after a run's time limit before its worker is terminated, for runs that do
+   * not yield to the event loop, e.g. stuck in a native method. Covers the bootstrap as well,
+   * which is not counted against the time limit. Defaults to 5000.
+   */
+  killAfter?: number
+  /**
+   * Worker entry point, defaults to the compiled pool-worker module next to this one.
+   */
+  workerScript?: string
+}
+
+export interface JVMPoolRun {
+  mainClass?: string
+  /**
+   * User classes, e.g. the output of compile. Copied to the worker.
+   */
+  classFiles: ClassFile[]
+  maxInstructions?: number
+  /**
+   * Wall clock limit in milliseconds.
+   */
+  timeLimit?: number
+}
+
+export interface JVMPoolResult {
+  stdout: string
+  stderr: string
+  /**
+   * Instructions run by the program, not counting the bootstrap.
+   */
+  instructions: number
+  /**
+   * Wall clock time of the run in milliseconds, including the bootstrap.
+   */
+  time: number
+  /**
+   * Limit that halted the run, if any.
+   */
+  exceeded: QuotaExceeded | null
+  /**
+   * Set if the JVM failed, e.g. the main class was not found or the worker crashed.
+   */
+  error: string | null
+}
+
+/**
+ * Data passed to every worker, see pool-worker.
+ */
+export interface JVMPoolWorkerData {
+  archive: SharedArrayBuffer
+  javaClassPath: string
+  nativesPath: string
+  natives: string | null
+  jit: boolean
+}
+
+interface Job {
+  run: JVMPoolRun
+  resolve: (result: JVMPoolResult) => void
+  reject: (error: Error) => void
+}
+
+interface Slot {
+  worker: Worker
+  job: Job | null
+  start: number
+  killTimer: ReturnType<typeof setTimeout> | null
+}
+
+const toShared = (archive: ArrayBuffer | Uint8Array | SharedArrayBuffer) => {
+  if (archive instanceof SharedArrayBuffer) {
+    return archive
+  }
+  const bytes = archive instanceof Uint8Array ? archive : new Uint8Array(archive)
+  const shared = new SharedArrayBuffer(bytes.byteLength)
+  new Uint8Array(shared).set(bytes)
+  return shared
+}
+
+/**
+ * Runs programs on a fixed number of worker threads, one program per worker at a time.
+ *
+ * Each JVM instance lives in its own worker, so no JVM state is shared between concurrent runs.
+ * What is shared read only: the class archive bytes, between all workers, and within a worker
+ * the parsed class files, the natives and the bootstrapped JVM, which is reused between runs
+ * through its warm start snapshot. A JVM halted by a quota is replaced by a fresh one.
+ *
+ * The pool keeps the process alive until it is closed.
+ */
+export class JVMPool {
+  private workerData: JVMPoolWorkerData
+  private workerScript: string
+  private killAfter: number
+
+  private slots: Slot[] = []
+  private idle: Slot[] = []
+  private queue: Job[] = []
+  private closed = false
+
+  constructor(options: JVMPoolOptions) {
+    this.workerData = {
+      archive: toShared(options.archive),
+      javaClassPath: options.javaClassPath ?? 'stdlib',
+      nativesPath: options.nativesPath ?? path.join(__dirname, 'stdlib'),
+      natives: options.natives ?? null,
+      jit: options.jit ?? false
+    }
+    this.workerScript = options.workerScript ?? path.join(__dirname, 'pool-worker.js')
+    this.killAfter = options.killAfter ?? 5000
+
+    const count = options.workers ?? os.cpus().length
+    for (let i = 0; i < count; i++) {
+      this.spawn()
+    }
+  }
+
+  /**
+   * Queues a program, resolved when it finishes or is halted.
+   */
+  run(run: JVMPoolRun): Promise<JVMPoolResult> {
+    if (this.closed) {
+      return Promise.reject(new Error('JVMPool is closed'))
+    }
+    return new Promise((resolve, reject) => {
+      this.queue.push({ run, resolve, reject })
+      this.dispatch()
+    })
+  }
+
+  /**
+   * Terminates all workers. Queued and running programs are rejected.
+   */
+  close(): Promise<void> {
+    this.closed = true
+    const error = new Error('JVMPool is closed')
+    this.queue.forEach(job => job.reject(error))
+    this.queue = []
+
+    const slots = this.slots
+    this.slots = []
+    this.idle = []
+    return Promise.all(
+      slots.map(slot => {
+        this.clearKillTimer(slot)
+        slot.job?.reject(error)
+        slot.worker.removeAllListeners()
+        return slot.worker.terminate()
+      })
+    ).then(() => {})
+  }
+
+  private spawn() {
+    const slot: Slot = {
+      worker: new Worker(this.workerScript, { workerData: this.workerData }),
+      job: null,
+      start: 0,
+      killTimer: null
+    }
+    slot.worker.on('message', (result: JVMPoolResult) => this.finish(slot, result))
+    slot.worker.on('error', error => this.replace(slot, { error: String(error) }))
+    slot.worker.on('exit', code => this.replace(slot, { error: `Worker exited with ${code}` }))
+    this.slots.push(slot)
+    this.idle.push(slot)
+  }
+
+  private dispatch() {
+    while (this.idle.length > 0 && this.queue.length > 0) {
+      const slot = this.idle.pop() as Slot
+      const job = this.queue.shift() as Job
+      slot.job = job
+      slot.start = Date.now()
+
+      const timeLimit = job.run.timeLimit
+      if (timeLimit !== undefined) {
+        slot.killTimer = setTimeout(
+          () => this.replace(slot, { exceeded: QuotaExceeded.TIME }),
+          timeLimit + this.killAfter
+        )
+      }
+      slot.worker.postMessage(job.run)
+    }
+  }
+
+  private finish(slot: Slot, result: JVMPoolResult) {
+    const job = slot.job
+    this.clearKillTimer(slot)
+    slot.job = null
+    this.idle.push(slot)
+    job?.resolve(result)
+    this.dispatch()
+  }
+
+  /**
+   * Terminates a worker, e.g. when it crashed or overran its time limit, and starts a new one.
+   * The job of the worker is resolved with what is known about it; its output is lost.
+   */
+  private replace(slot: Slot, result: Partial<JVMPoolResult>) {
+    const index = this.slots.indexOf(slot)
+    if (index === -1) {
+      return
+    }
+    this.slots.splice(index, 1)
+    const idleIndex = this.idle.indexOf(slot)
+    if (idleIndex !== -1) {
+      this.idle.splice(idleIndex, 1)
+    }
+    this.clearKillTimer(slot)
+    slot.worker.removeAllListeners()
+    slot.worker.terminate()
+
+    slot.job?.resolve({
+      stdout: '',
+      stderr: '',
+      instructions: 0,
+      time: Date.now() - slot.start,
+      exceeded: null,
+      error: null,
+      ...result
+    })
+
+    if (!this.closed) {
+      this.spawn()
+      this.dispatch()
+    }
+  }
+
+  private clearKillTimer(slot: Slot) {
+    if (slot.killTimer !== null) {
+      clearTimeout(slot.killTimer)
+      slot.killTimer = null
+    }
+  }
+}
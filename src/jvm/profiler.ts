@@ -0,0 +1,274 @@
+import { OPCODE } from '../ClassFile/constants/instructions'
+import { StackFrame } from './stackframe'
+import Thread from './thread'
+import { ClassData } from './types/class/ClassData'
+import { Method } from './types/class/Method'
+
+const now: () => number =
+  typeof performance !== 'undefined' ? () => performance.now() : () => Date.now()
+
+export interface MethodProfile {
+  /**
+   * Class name, method name and descriptor, e.g. java/lang/String.charAt(I)C
+   */
+  method: string
+  invocations: number
+  /**
+   * Instructions executed in this method, excluding callees.
+   */
+  instructions: number
+  /**
+   * Milliseconds spent in this method, excluding callees.
+   */
+  selfTime: number
+  /**
+   * Milliseconds spent between invocation and return, including callees.
+   */
+  totalTime: number
+}
+
+export interface ProfileReport {
+  opcodes: { [opcode: string]: number }
+  methods: MethodProfile[]
+  allocations: { [className: string]: number }
+  classLoads: {
+    count: number
+    /**
+     * Milliseconds spent loading classes, nested loads are counted once.
+     */
+    time: number
+    classes: { [className: string]: number }
+  }
+  phases: { [phase: string]: number }
+}
+
+interface MethodRecord {
+  stats: MethodProfile
+  /**
+   * Name of the method in folded stacks, which use semicolons as separators.
+   */
+  label: string
+}
+
+interface PathProfile {
+  instructions: number
+  selfTime: number
+}
+
+interface ProfiledFrame {
+  frame: StackFrame
+  stats: MethodProfile
+  path: string
+  pathStats: PathProfile
+  start: number
+}
+
+interface ThreadProfile {
+  frames: ProfiledFrame[]
+  last: number
+}
+
+/**
+ * Collects execution statistics of a JVM. Only created when profiling is enabled,
+ * instrumented code checks for a null profiler and skips recording otherwise.
+ */
+export class Profiler {
+  private opcodes: Float64Array = new Float64Array(256)
+  private methods: Map<Method, MethodRecord> = new Map()
+  private paths: Map<string, PathProfile> = new Map()
+  private threads: Map<Thread, ThreadProfile> = new Map()
+  private allocations: Map<ClassData, number> = new Map()
+
+  private classLoadDepth = 0
+  private classLoadTime = 0
+  private classLoadCount = 0
+  private classLoads: { [className: string]: number } = {}
+
+  private phaseStarts: { [phase: string]: number } = {}
+  private phases: { [phase: string]: number } = {}
+
+  // #region recording
+
+  /**
+   * Called when a thread starts running a quantum.
+   */
+  onRunStart(thread: Thread) {
+    this.getThreadProfile(thread).last = now()
+  }
+
+  /**
+   * Called when a thread stops running a quantum. Time until the next quantum is not counted.
+   */
+  onRunEnd(thread: Thread) {
+    this.charge(this.getThreadProfile(thread), now())
+  }
+
+  onInstruction(thread: Thread, frame: StackFrame, opcode: number) {
+    this.opcodes[opcode] += 1
+    const frames = this.getThreadProfile(thread).frames
+    const top = frames[frames.length - 1]
+    if (top !== undefined && top.frame === frame) {
+      top.stats.instructions += 1
+      top.pathStats.instructions += 1
+    }
+  }
+
+  onInvoke(thread: Thread, frame: StackFrame) {
+    const profile = this.getThreadProfile(thread)
+    const time = now()
+    this.charge(profile, time)
+
+    const method = frame.method
+    let record = this.methods.get(method)
+    if (record === undefined) {
+      const name = method.getClass().getName() + '.' + method.getName() + method.getDescriptor()
+      record = {
+        stats: { method: name, invocations: 0, instructions: 0, selfTime: 0, totalTime: 0 },
+        label: name.replace(/;/g, '')
+      }
+      this.methods.set(method, record)
+    }
+    const stats = record.stats
+    stats.invocations += 1
+
+    const parent = profile.frames[profile.frames.length - 1]
+    const path = parent ? parent.path + ';' + record.label : record.label
+    let pathStats = this.paths.get(path)
+    if (pathStats === undefined) {
+      pathStats = { instructions: 0, selfTime: 0 }
+      this.paths.set(path, pathStats)
+    }
+
+    profile.frames.push({ frame, stats, path, pathStats, start: time })
+  }
+
+  onReturn(thread: Thread, frame: StackFrame) {
+    const profile = this.getThreadProfile(thread)
+    const top = profile.frames[profile.frames.length - 1]
+    if (top === undefined || top.frame !== frame) {
+      return
+    }
+    const time = now()
+    this.charge(profile, time)
+    top.stats.totalTime += time - top.start
+    profile.frames.pop()
+  }
+
+  onThreadExit(thread: Thread) {
+    this.threads.delete(thread)
+  }
+
+  onAllocate(cls: ClassData, count: number = 1) {
+    this.allocations.set(cls, (this.allocations.get(cls) ?? 0) + count)
+  }
+
+  /**
+   * Starts timing a class load.
+   * @returns start time, to be passed to endClassLoad
+   */
+  beginClassLoad(): number {
+    this.classLoadDepth += 1
+    return now()
+  }
+
+  endClassLoad(className: string, start: number) {
+    const time = now() - start
+    this.classLoadDepth -= 1
+    this.classLoadCount += 1
+    this.classLoads[className] = time
+    if (this.classLoadDepth === 0) {
+      this.classLoadTime += time
+    }
+  }
+
+  beginPhase(phase: string) {
+    this.phaseStarts[phase] = now()
+  }
+
+  endPhase(phase: string) {
+    const start = this.phaseStarts[phase]
+    if (start === undefined) {
+      return
+    }
+    delete this.phaseStarts[phase]
+    this.phases[phase] = (this.phases[phase] ?? 0) + now() - start
+  }
+
+  // #endregion
+
+  // #region export
+
+  /**
+   * Gets the recorded statistics. Methods are sorted by self time, descending.
+   */
+  getReport(): ProfileReport {
+    const opcodes: { [opcode: string]: number } = {}
+    this.opcodes.forEach((count, opcode) => {
+      if (count > 0) {
+        opcodes[OPCODE[opcode] ?? opcode] = count
+      }
+    })
+
+    const allocations: { [className: string]: number } = {}
+    this.allocations.forEach((count, cls) => {
+      allocations[cls.getName()] = count
+    })
+
+    return {
+      opcodes,
+      methods: Array.from(this.methods.values(), record => ({ ...record.stats })).sort(
+        (a, b) => b.selfTime - a.selfTime
+      ),
+      allocations,
+      classLoads: {
+        count: this.classLoadCount,
+        time: this.classLoadTime,
+        classes: { ...this.classLoads }
+      },
+      phases: { ...this.phases }
+    }
+  }
+
+  toJSON(): string {
+    return JSON.stringify(this.getReport())
+  }
+
+  /**
+   * Exports call stacks in the folded format used by flame graph tools,
+   * one `caller;callee weight` line per stack.
+   * @param weight 'time' for self time in microseconds, 'instructions' for instruction counts
+   */
+  toFoldedStacks(weight: 'time' | 'instructions' = 'time'): string {
+    const lines: string[] = []
+    this.paths.forEach((stats, path) => {
+      const value = weight === 'time' ? Math.round(stats.selfTime * 1000) : stats.instructions
+      if (value > 0) {
+        lines.push(path + ' ' + value)
+      }
+    })
+    return lines.join('\n')
+  }
+
+  // #endregion
+
+  private getThreadProfile(thread: Thread): ThreadProfile {
+    let profile = this.threads.get(thread)
+    if (profile === undefined) {
+      profile = { frames: [], last: now() }
+      this.threads.set(thread, profile)
+    }
+    return profile
+  }
+
+  /**
+   * Adds the time since the last event to the self time of the current frame.
+   */
+  private charge(profile: ThreadProfile, time: number) {
+    const top = profile.frames[profile.frames.length - 1]
+    if (top !== undefined) {
+      top.stats.selfTime += time - profile.last
+      top.pathStats.selfTime += time - profile.last
+    }
+    profile.last = time
+  }
+}
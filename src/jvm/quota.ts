@@ -0,0 +1,94 @@
+export enum QuotaExceeded {
+  INSTRUCTIONS = 'instructions',
+  TIME = 'time'
+}
+
+export interface RunLimits {
+  /**
+   * Maximum number of instructions run by all threads.
+   */
+  maxInstructions?: number
+  /**
+   * Maximum wall clock time in milliseconds.
+   */
+  timeLimit?: number
+}
+
+/**
+ * Instruction and wall clock budget of a single run.
+ * Instructions are charged by the threads after each quantum, so a run may overshoot the
+ * instruction limit by less than one quantum. The time limit is enforced with a timer, which
+ * also ends runs whose threads are all waiting or sleeping.
+ */
+export class Quota {
+  private instructionsLeft: number
+  private instructionCount = 0
+  private timeLimit: number
+  private timer: ReturnType<typeof setTimeout> | null = null
+  private exceeded: QuotaExceeded | null = null
+  private onExceeded: (reason: QuotaExceeded) => void = () => {}
+
+  constructor(limits: RunLimits) {
+    this.instructionsLeft = limits.maxInstructions ?? Infinity
+    this.timeLimit = limits.timeLimit ?? Infinity
+  }
+
+  /**
+   * Starts the wall clock.
+   * @param onExceeded called once, when the first limit is exceeded
+   */
+  start(onExceeded: (reason: QuotaExceeded) => void) {
+    this.onExceeded = onExceeded
+    if (this.timeLimit !== Infinity) {
+      this.timer = setTimeout(() => this.exceed(QuotaExceeded.TIME), this.timeLimit)
+    }
+  }
+
+  /**
+   * Stops the wall clock, e.g. when the run has finished.
+   */
+  stop() {
+    if (this.timer !== null) {
+      clearTimeout(this.timer)
+      this.timer = null
+    }
+  }
+
+  /**
+   * Limits a quantum to the instructions left.
+   */
+  clamp(quantum: number) {
+    return Math.max(1, Math.min(quantum, this.instructionsLeft))
+  }
+
+  /**
+   * Counts instructions run by a thread.
+   */
+  charge(count: number) {
+    this.instructionCount += count
+    this.instructionsLeft -= count
+    if (this.instructionsLeft <= 0) {
+      this.exceed(QuotaExceeded.INSTRUCTIONS)
+    }
+  }
+
+  getInstructionCount() {
+    return this.instructionCount
+  }
+
+  /**
+   * Gets the limit that ended the run, null if the run was not halted.
+   */
+  getExceeded() {
+    return this.exceeded
+  }
+
+  private exceed(reason: QuotaExceeded) {
+    if (this.exceeded !== null) {
+      return
+    }
+    this.exceeded = reason
+    this.stop()
+    this.onExceeded(reason)
+  }
+}
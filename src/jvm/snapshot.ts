@@ -0,0 +1,104 @@
+import AbstractClassLoader, { ApplicationClassLoader } from './ClassLoader/AbstractClassLoader'
+import { ClassData, ClassState } from './types/class/ClassData'
+import { JvmArray } from './types/reference/Array'
+import { JvmObject, ObjectState } from './types/reference/Object'
+
+/**
+ * In memory snapshot of the JVM state right after bootstrap, i.e. after System has been
+ * initialized and the system classloader has been created.
+ *
+ * Restoring the snapshot resets the heap reachable from the bootstrap classes, their static
+ * fields and initialization status, so a later run can skip the bootstrap.
+ * Objects keep their identity, only their contents are restored.
+ */
+export class JVMSnapshot {
+  private classStates: Map<ClassData, ClassState> = new Map()
+  private objectStates: Map<JvmObject, ObjectState> = new Map()
+  private systemClassLoader: JvmObject
+  private mainThread: JvmObject
+
+  /**
+   * @param loader bootstrap classloader
+   * @param roots additional objects to keep, e.g. interned strings
+   * @param systemClassLoader java/lang/ClassLoader object of the application classloader
+   * @param mainThread java/lang/Thread object of the thread that ran the bootstrap
+   */
+  constructor(
+    loader: AbstractClassLoader,
+    roots: JvmObject[],
+    systemClassLoader: JvmObject,
+    mainThread: JvmObject
+  ) {
+    this.systemClassLoader = systemClassLoader
+    this.mainThread = mainThread
+
+    const pending: any[] = [...roots, systemClassLoader, mainThread]
+    const visit = (values: ArrayLike<any>) => {
+      for (let i = 0; i < values.length; i++) {
+        if (values[i] instanceof JvmObject) {
+          pending.push(values[i])
+        }
+      }
+    }
+
+    for (const cls of loader._getLoadedClasses()) {
+      const state = cls._saveState()
+      this.classStates.set(cls, state)
+      pending.push(cls._getJavaObject())
+      visit(state.staticValues)
+    }
+
+    // walk the heap reachable from the roots
+    while (pending.length > 0) {
+      const value = pending.pop()
+      if (!(value instanceof JvmObject) || this.objectStates.has(value)) {
+        continue
+      }
+
+      const state = value._saveState()
+      this.objectStates.set(value, state)
+      visit(state.fieldValues)
+      visit(Object.values(state.nativeFields))
+      if (value instanceof JvmArray && value.getPrimitiveType() === null) {
+        visit(state.array as any[])
+      }
+    }
+  }
+
+  /**
+   * Restores the snapshot.
+   * Classes loaded after the snapshot was taken are kept, but reset to their uninitialized
+   * state so that constant pool references to them stay valid. Array classes of application
+   * classes are unloaded as the application classes are loaded again.
+   * @param bootstrapLoader bootstrap classloader
+   * @param loader application classloader for the next run
+   */
+  restore(bootstrapLoader: AbstractClassLoader, loader: ApplicationClassLoader) {
+    for (const cls of bootstrapLoader._getLoadedClasses()) {
+      const state = this.classStates.get(cls)
+      if (state) {
+        cls._restoreState(state)
+        continue
+      }
+
+      let elementCls = cls
+      while (elementCls.checkArray()) {
+        elementCls = elementCls.getComponentClass()
+      }
+      if (elementCls.getLoader() !== bootstrapLoader) {
+        bootstrapLoader._unloadClass(cls.getName())
+      } else {
+        cls._restoreState(null)
+      }
+    }
+
+    this.objectStates.forEach((state, obj) => obj._restoreState(state))
+
+    loader._setJavaClassLoader(this.systemClassLoader)
+    this.systemClassLoader.putNativeField('loader', loader)
+  }
+
+  getMainThread(): JvmObject {
+    return this.mainThread
+  }
+}
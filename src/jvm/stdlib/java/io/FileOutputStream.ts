@@ -1,7 +1,24 @@
 import { JvmArray } from '../../../types/reference/Array'
 import { JvmObject } from '../../../types/reference/Object'
 import Thread from '../../../thread'
-import { logger } from '../../../utils'
+import { fromCharCodes, logger } from '../../../utils'
+
+const decoder = typeof TextDecoder !== 'undefined' ? new TextDecoder() : null
+
+/**
+ * Decodes UTF-8 bytes. Plain ASCII, the common case for console output, is converted directly.
+ */
+const decodeUtf8 = (bytes: Int8Array) => {
+  for (let i = 0; i < bytes.length; i++) {
+    if (bytes[i] < 0) {
+      const view = new Uint8Array(bytes.buffer, bytes.byteOffset, bytes.length)
+      return decoder
+        ? decoder.decode(view)
+        : Buffer.from(view.buffer, view.byteOffset, view.length).toString('utf8')
+    }
+  }
+  return fromCharCodes(bytes)
+}
 
 const functions = {
   /**
@@ -17,6 +34,16 @@ const functions = {
     const offset = locals[2] as number
     const len = locals[3] as number
 
+    if (bytes === null) {
+      thread.throwNewException('java/lang/NullPointerException', '')
+      return
+    }
+    // the view below would be cut short at the end of the array
+    if (offset < 0 || len < 0 || offset + len > bytes.len()) {
+      thread.throwNewException('java/lang/IndexOutOfBoundsException', '')
+      return
+    }
+
     const javafd = stream._getField(
       'fd',
       'Ljava/io/FileDescriptor;',
@@ -31,8 +58,10 @@ const functions = {
 
     // stdout
     if (fd === 1 || fd === 2) {
-      const buf: Buffer = Buffer.from(bytes.getJsArray())
-      const str = buf.toString('utf8', offset, offset + len)
+      // view over the byte[] storage, no copy
+      const data = bytes.getJsArray() as Int8Array
+      const str = decodeUtf8(data.subarray(offset, offset + len))
+      // buffered by the system, flushed when the JVM yields
       const sys = thread.getJVM().getSystem()
       fd === 1 ? sys.stdout(str) : sys.stderr(str)
       thread.returnStackFrame()
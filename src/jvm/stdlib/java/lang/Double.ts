@@ -9,9 +9,9 @@ const functions = {
   },
 
   'longBitsToDouble(J)D': (thread: Thread, locals: any[]) => {
-    const long = locals[0]
+    const long = locals[0] as bigint | number
     const dataview = new DataView(new ArrayBuffer(8))
-    dataview.getBigInt64(0, long)
+    dataview.setBigInt64(0, BigInt(long))
     thread.returnStackFrame64(dataview.getFloat64(0))
   }
 }
@@ -21,20 +21,29 @@ const functions = {
   },
   'hashCode()I': (thread: Thread, locals: any[]) => {
     const obj = locals[0]
-    thread.returnStackFrame(obj.hashCode())
+    thread.returnStackFrame(obj.hashCode(thread))
   },
 
   'wait(J)V': (thread: Thread, locals: any[]) => {
     const obj = locals[0] as JvmObject
     const monitor = obj.getMonitor()
-    monitor.wait(thread, locals[1])
-    thread.returnStackFrame()
+    if (monitor.wait(thread, Number(locals[1] as bigint | number))) {
+      thread.returnStackFrame()
+    }
+  },
+  'notify()V': (thread: Thread, locals: any[]) => {
+    const obj = locals[0] as JvmObject
+    const monitor = obj.getMonitor()
+    if (monitor.notify(thread)) {
+      thread.returnStackFrame()
+    }
   },
   'notifyAll()V': (thread: Thread, locals: any[]) => {
     const obj = locals[0] as JvmObject
     const monitor = obj.getMonitor()
-    monitor.notifyAll()
-    thread.returnStackFrame()
+    if (monitor.notifyAll(thread)) {
+      thread.returnStackFrame()
+    }
   }
 }
 
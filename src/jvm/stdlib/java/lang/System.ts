@@ -53,23 +53,16 @@ const functions = {
       return
     }
 
-    const srcCls = src.getClass()
-    const destCls = dest.getClass()
-
-    // copy src data
-    const data = [...src.getJsArray()]
-
-    if (srcCls.checkCast(destCls)) {
-      // safe to copy
-      for (let i = 0; i < length; i++) {
-        dest.set(destPos + i, data[i + srcPos])
-      }
-    } else {
-      for (let i = 0; i < length; i++) {
-        dest.set(destPos + i, data[i + srcPos])
-      }
+    if (src.getPrimitiveType() !== dest.getPrimitiveType()) {
+      thread.throwNewException(
+        'java/lang/ArrayStoreException',
+        'src and dest arguments must be arrays of the same component type.'
+      )
+      return
     }
 
+    dest.copyFrom(src, srcPos, destPos, length)
+
     thread.returnStackFrame()
   },
   /**
@@ -43,14 +43,17 @@ const functions = {
   },
 
   'sleep(J)V': (thread: Thread, locals: any[]) => {
-    thread.setStatus(ThreadStatus.TIMED_WAITING)
     thread.returnStackFrame()
-    setTimeout(
-      () => {
-        thread.setStatus(ThreadStatus.RUNNABLE)
-      },
-      Number(locals[0] as bigint)
-    )
+    thread.getThreadPool().sleep(thread, Number(locals[0] as bigint | number))
+  },
+
+  'holdsLock(Ljava/lang/Object;)Z': (thread: Thread, locals: any[]) => {
+    const obj = locals[0] as JvmObject | null
+    if (obj === null) {
+      thread.throwNewException('java/lang/NullPointerException', '')
+      return
+    }
+    thread.returnStackFrame(obj.holdsLock(thread) ? 1 : 0)
   },
 
   'start0()V': (thread: Thread, locals: any[]) => {
@@ -118,10 +118,10 @@ const functions = {
         ).getNativeField('classRef') as ReferenceClassData
       ).getDescriptor()
       const ptypes = (
-        type._getField('ptypes', '[Ljava/lang/Class;', 'java/lang/invoke/MethodType') as JvmArray
-      )
-        .getJsArray()
-        .map((cls: JvmObject) => cls.getNativeField('classRef').getDescriptor())
+        (
+          type._getField('ptypes', '[Ljava/lang/Class;', 'java/lang/invoke/MethodType') as JvmArray
+        ).getJsArray() as JvmObject[]
+      ).map((cls: JvmObject) => cls.getNativeField('classRef').getDescriptor())
       const methodDesc = `(${ptypes.join('')})${rtype}`
 
       // method resolution
@@ -194,7 +194,7 @@ const functions = {
       const matchSig: string | null = locals[2] ? j2jsString(locals[2] as JvmObject) : locals[2]
       const matchFlags = locals[3] as number
       let skip = locals[5] as number
-      const results = (locals[6] as JvmArray).getJsArray()
+      const results = (locals[6] as JvmArray).getJsArray() as any[]
       let matched = 0
 
       const cls = defc.getNativeField('classRef') as ReferenceClassData
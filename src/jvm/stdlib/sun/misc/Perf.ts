@@ -6,7 +6,7 @@ import { ResultType } from '../../../types/Result'
 
 const functions = {
   'createLong(Ljava/lang/String;IIJ)Ljava/nio/ByteBuffer;': (thread: Thread, locals: any[]) => {
-    const value = locals[4] as bigint
+    const value = locals[4] as bigint | number
 
     const bbRes = thread.getMethod().getClass().getLoader().getClass('java/nio/DirectByteBuffer')
     if (bbRes.status === ResultType.ERROR) {
@@ -36,7 +36,7 @@ const functions = {
             thread.throwNewException(err.exceptionCls, err.msg)
             return
           }
-          heap.get(addr).setBigInt64(0, value)
+          heap.get(addr).setBigInt64(0, BigInt(value))
           thread.returnStackFrame(buff)
         }
       )
@@ -33,6 +33,20 @@ function getFieldInfo(thread: Thread, unsafe: JvmObject, obj: JvmObject, offset:
   }
 }
 
+/**
+ * Gets the value of a field returned by getFieldInfo.
+ */
+function getFieldValue(objBase: JvmObject | ReferenceClassData, field: Field) {
+  return field.checkStatic() ? field.getValue() : (objBase as JvmObject).getField(field)
+}
+
+/**
+ * Sets the value of a field returned by getFieldInfo.
+ */
+function putFieldValue(objBase: JvmObject | ReferenceClassData, field: Field, value: any) {
+  field.checkStatic() ? field.putValue(value) : (objBase as JvmObject).putField(field, value)
+}
+
 const setFromVMIndex = (thread: Thread, locals: any[]) => {
   const unsafe = locals[0] as JvmObject
   const obj = locals[1] as JvmObject
@@ -47,7 +61,7 @@ const setFromVMIndex = (thread: Thread, locals: any[]) => {
     thread.returnStackFrame()
     return
   }
-  ;(ref as Field).putValue(locals[3])
+  putFieldValue(objBase, ref as Field, locals[3])
   thread.returnStackFrame()
 }
 
@@ -64,7 +78,7 @@ const getFromVMIndex = (thread: Thread, locals: any[]) => {
     thread.returnStackFrame(objBase[ref])
     return
   }
-  thread.returnStackFrame((ref as Field).getValue())
+  thread.returnStackFrame(getFieldValue(objBase, ref as Field))
 }
 
 /**
@@ -105,10 +119,10 @@ function unsafeCompareAndSwap(
       return 0
     }
   }
-  const actual = (ref as Field).getValue()
+  const actual = getFieldValue(objBase, ref as Field)
 
   if (actual === expected) {
-    ref.putValue(newValue)
+    putFieldValue(objBase, ref as Field, newValue)
     return 1
   } else {
     return 0
@@ -222,10 +236,10 @@ const functions = {
    */
   'putLong(JJ)V': (thread: Thread, locals: any[]) => {
     const address = locals[1] as bigint
-    const value = locals[2] as bigint
+    const value = locals[2] as bigint | number
     const heap = thread.getJVM().getUnsafeHeap()
     const view = heap.get(address)
-    view.setBigInt64(0, value)
+    view.setBigInt64(0, BigInt(value))
     thread.returnStackFrame()
   },
   /**
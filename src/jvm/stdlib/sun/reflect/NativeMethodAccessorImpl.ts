@@ -28,7 +28,7 @@ const functions = {
     const paramJavaArray = locals[2] as JvmArray
     let params: any[] = []
     if (paramJavaArray != null) {
-      params = paramJavaArray.getJsArray().map(x => autoUnbox(x))
+      params = (paramJavaArray.getJsArray() as any[]).map(x => autoUnbox(x))
     }
 
     thread.invokeStackFrame(
@@ -1,21 +1,31 @@
 import JVM from './jvm'
+import { DecodedCode, SwitchTable } from './decoder'
 import { ThreadStatus } from './constants'
 import { StackFrame, InternalStackFrame, JavaStackFrame } from './stackframe'
 import { ThreadPool } from './threadpool'
+import { InlineCache } from './inline-cache'
+import { JIT } from './jit'
+import { Profiler } from './profiler'
 import { Code } from './types/class/Attributes'
 import { ReferenceClassData, ClassData } from './types/class/ClassData'
 import { Method } from './types/class/Method'
 import { JvmObject } from './types/reference/Object'
-import { ImmediateResult, ResultType } from './types/Result'
-import { INACCESSIBLE } from './utils'
-import { Field } from './types/class/Field'
+import { ResultType } from './types/Result'
+import { UNDERFLOW, asLong } from './utils'
 
 export default class Thread {
+  // never reset, so ids stay unique across the JVMs of a process
   private static threadIdCounter = 0
+  private static initialOperandsSize = 1024
 
   private status: ThreadStatus = ThreadStatus.NEW
   private stack: StackFrame[]
   private stackPointer: number
+  /**
+   * Operand stack storage of all frames on the stack, each frame's stack starting where the
+   * stack of the frame below it ends. Grown when a frame is invoked and never shrunk.
+   */
+  private operands: any[]
   private javaObject: JvmObject
   private threadClass: ReferenceClassData
   private jvm: JVM
@@ -24,6 +34,8 @@ export default class Thread {
   private maxRecursionDepth = 1000
   private quantumLeft: number = 0
   private tpool: ThreadPool
+  private profiler: Profiler | null
+  private jit: JIT | null
 
   private isShuttingDown = false
 
@@ -32,8 +44,11 @@ export default class Thread {
     this.threadClass = threadClass
     this.stack = []
     this.stackPointer = -1
+    this.operands = new Array(Thread.initialOperandsSize).fill(null)
     this.javaObject = threadObj
     this.tpool = tpool
+    this.profiler = jvm ? jvm.getProfiler() : null
+    this.jit = jvm ? jvm.getJIT() : null
 
     this.threadId = Thread.threadIdCounter
     Thread.threadIdCounter += 1
@@ -63,19 +78,50 @@ export default class Thread {
     if (this.quantumLeft > 0) {
       return
     }
+    const quota = this.jvm ? this.jvm.getQuota() : null
+    if (quota !== null) {
+      quantum = quota.clamp(quantum)
+    }
     this.quantumLeft = quantum
 
+    if (this.profiler !== null) {
+      this.runProfiled(this.profiler)
+    } else {
+      while (this.quantumLeft && this.stack.length > 0 && this.status === ThreadStatus.RUNNABLE) {
+        this.peekStackFrame().run(this)
+        this.quantumLeft -= 1
+
+        if (this.stack.length === 0 && !this.isShuttingDown) {
+          this._exit()
+        }
+      }
+    }
+
+    const executed = quantum - this.quantumLeft
+    this.quantumLeft = 0
+    this.tpool.quantumOver(this)
+    // may halt the JVM, after the thread pool is done with this thread
+    quota?.charge(executed)
+  }
+
+  /**
+   * Same as the run loop of runFor, recording each instruction with the profiler.
+   */
+  private runProfiled(profiler: Profiler) {
+    profiler.onRunStart(this)
     while (this.quantumLeft && this.stack.length > 0 && this.status === ThreadStatus.RUNNABLE) {
-      this.peekStackFrame().run(this)
+      const frame = this.peekStackFrame()
+      if (frame.decoded !== null) {
+        profiler.onInstruction(this, frame, frame.decoded.getOpcode(frame.pc))
+      }
+      frame.run(this)
       this.quantumLeft -= 1
 
       if (this.stack.length === 0 && !this.isShuttingDown) {
         this._exit()
       }
     }
-
-    this.quantumLeft = 0
-    this.tpool.quantumOver(this)
+    profiler.onRunEnd(this)
   }
 
   /**
@@ -107,16 +153,10 @@ export default class Thread {
 
       this.invokeStackFrame(
         new InternalStackFrame(this.threadClass, exitMethod, 0, [this.javaObject], () => {
-          // Reset static fields
-          // Classes are cached and not re-imported
-          // We need to reset so that the next run is clean
-          Field._exit()
-          Method._exit()
-          JvmObject._exit()
-
-          monitor.notifyAll()
+          monitor.notifyAll(this)
           monitor.exit(this)
           this.setStatus(ThreadStatus.TERMINATED)
+          this.profiler?.onThreadExit(this)
         })
       )
     })
@@ -148,6 +188,20 @@ export default class Thread {
     return this.tpool
   }
 
+  /**
+   * Gets the profiler of the JVM, null if profiling is disabled.
+   */
+  getProfiler(): Profiler | null {
+    return this.profiler
+  }
+
+  /**
+   * Gets the number of frames above which invoking a method throws StackOverflowError.
+   */
+  getMaxRecursionDepth(): number {
+    return this.maxRecursionDepth
+  }
+
   /**
    * Gets the declaring class of the method at the top of the stack.
    * @returns
@@ -164,6 +218,38 @@ export default class Thread {
     return (this.stack[this.stackPointer].method._getCode() as Code).code
   }
 
+  /**
+   * Gets the decoded first operand of the instruction at the current pc.
+   */
+  getOperand(): number {
+    const sf = this.stack[this.stackPointer]
+    return (sf.decoded as DecodedCode).operands[sf.pc]
+  }
+
+  /**
+   * Gets the decoded second operand of the instruction at the current pc.
+   */
+  getOperand2(): number {
+    const sf = this.stack[this.stackPointer]
+    return (sf.decoded as DecodedCode).operands2[sf.pc]
+  }
+
+  /**
+   * Gets the decoded jump table of the switch instruction at the current pc.
+   */
+  getSwitchTable(): SwitchTable {
+    const sf = this.stack[this.stackPointer]
+    return (sf.decoded as DecodedCode).switches[sf.pc] as SwitchTable
+  }
+
+  /**
+   * Gets the inline cache of the invoke instruction at the current pc.
+   */
+  getInlineCache(): InlineCache {
+    const sf = this.stack[this.stackPointer]
+    return (sf.decoded as DecodedCode).getInlineCache(sf.pc)
+  }
+
   getThreadId() {
     return this.threadId
   }
@@ -178,6 +264,16 @@ export default class Thread {
     this.tpool.updateStatus(this, oldStatus)
   }
 
+  /**
+   * Counts instructions run outside of the run loop, e.g. by compiled code, against the quantum.
+   * Leaves at least 1 instruction so the quantum still ends in the run loop.
+   */
+  useQuantum(count: number) {
+    if (this.quantumLeft > 1) {
+      this.quantumLeft = Math.max(this.quantumLeft - count, 1)
+    }
+  }
+
   offsetPc(pc: number) {
     const sf = this.stack[this.stackPointer]
 
@@ -214,80 +310,71 @@ export default class Thread {
    * @returns true if successful, false if stack overflow
    */
   pushStack(value: JvmObject | number | bigint | null): boolean {
-    if (
-      this.stack[this.stackPointer].maxStack >= 0 &&
-      this.stack[this.stackPointer].operandStack.length + 1 > this.stack[this.stackPointer].maxStack
-    ) {
+    const sf = this.stack[this.stackPointer]
+    if (sf.stackTop >= sf.stackLimit) {
       this.throwNewException('java/lang/StackOverflowError', '')
       return false
     }
 
-    this.stack[this.stackPointer].operandStack.push(value)
+    this.operands[sf.stackTop++] = value
     return true
   }
 
   /**
-   * Pushes a wide value onto the stack. Throws an error if the stack is full.
+   * Pushes a wide value onto the stack, taking up 2 slots. Throws an error if the stack is full.
+   * Bigint longs are narrowed to numbers when they fit in the safe integer range.
    * @param value
    * @returns true if successful, false if stack overflow
    */
   pushStack64(value: bigint | number): boolean {
-    if (
-      this.stack[this.stackPointer].maxStack >= 0 &&
-      this.stack[this.stackPointer].operandStack.length + 2 > this.stack[this.stackPointer].maxStack
-    ) {
+    const sf = this.stack[this.stackPointer]
+    if (sf.stackTop + 1 >= sf.stackLimit) {
       this.throwNewException('java/lang/StackOverflowError', '')
       return false
     }
-    this.stack[this.stackPointer].operandStack.push(value)
-    this.stack[this.stackPointer].operandStack.push(INACCESSIBLE)
+
+    // both slots hold the value, keeping the storage free of placeholder objects
+    const wide = typeof value === 'bigint' ? asLong(value) : value
+    this.operands[sf.stackTop++] = wide
+    this.operands[sf.stackTop++] = wide
     return true
   }
 
   /**
    * Pops a wide value from the stack. Throws an error if the stack is empty.
-   * @returns result of the pop
+   * @returns the value, or UNDERFLOW if the stack is empty
    */
-  popStack64(): ImmediateResult<any> {
-    if (
-      this.stackPointer >= this.stack.length ||
-      this.stack?.[this.stackPointer]?.operandStack?.length <= 1
-    ) {
+  popStack64(): any {
+    const sf = this.stack[this.stackPointer]
+    if (sf.stackTop - 1 <= sf.stackBase) {
       this.throwNewException('java/lang/RuntimeException', 'Stack Underflow')
-      return {
-        status: ResultType.ERROR,
-        exceptionCls: 'java/lang/RuntimeException',
-        msg: 'Stack Underflow'
-      }
+      return UNDERFLOW
     }
-    this.stack?.[this.stackPointer]?.operandStack?.pop()
-    const value = this.stack?.[this.stackPointer]?.operandStack?.pop()
-    return { status: ResultType.SUCCESS, result: value }
+
+    sf.stackTop -= 2
+    return this.operands[sf.stackTop]
   }
 
   /**
    * Pops a value from the stack. Throws an error if the stack is empty.
-   * @returns result of the pop
+   * @returns the value, or UNDERFLOW if the stack is empty
    */
-  popStack(): ImmediateResult<any> {
-    if (
-      this.stackPointer >= this.stack.length ||
-      this.stack?.[this.stackPointer]?.operandStack?.length <= 0
-    ) {
+  popStack(): any {
+    const sf = this.stack[this.stackPointer]
+    if (sf.stackTop <= sf.stackBase) {
       this.throwNewException('java/lang/RuntimeException', 'Stack Underflow')
-      return {
-        status: ResultType.ERROR,
-        exceptionCls: 'java/lang/RuntimeException',
-        msg: 'Stack Underflow'
-      }
+      return UNDERFLOW
     }
-    const value = this.stack?.[this.stackPointer]?.operandStack?.pop()
-    return { status: ResultType.SUCCESS, result: value }
+
+    return this.operands[--sf.stackTop]
   }
 
   private _returnSF(ret?: any, err?: JvmObject, isWide?: boolean) {
     const sf = this.stack.pop()
     this.stackPointer -= 1
+    if (this.profiler !== null && sf !== undefined) {
+      this.profiler.onReturn(this, sf)
+    }
 
     if (this.stackPointer < -1 || sf === undefined) {
       this.throwNewException('java/lang/RuntimeException', 'Stack Underflow')
@@ -319,14 +406,27 @@ export default class Thread {
 
     if (sf.method.checkSynchronized()) {
       if (sf.method.checkStatic()) {
-        sf.method.getClass().getJavaObject().getMonitor().enter(this)
+        sf.method.getClass().getJavaObject().monitorEnter(this)
       } else {
-        sf.locals[0].getMonitor().enter(this)
+        sf.locals[0].monitorEnter(this)
       }
     }
 
+    const base = this.stackPointer >= 0 ? this.stack[this.stackPointer].stackTop : 0
+    const end = base + Math.max(sf.maxStack, 0)
+    while (this.operands.length < end) {
+      this.operands.push(null)
+    }
+    sf.bindOperandStack(this.operands, base)
+
     if (sf) this.stack.push(sf)
     this.stackPointer += 1
+    if (this.profiler !== null) {
+      this.profiler.onInvoke(this, sf)
+    }
+    if (this.jit !== null && sf.decoded !== null) {
+      this.jit.onInvoke(this, sf)
+    }
   }
 
   /**
@@ -353,8 +453,9 @@ export default class Thread {
   }
 
   storeLocal64(index: number, value: JvmObject | number | bigint | null) {
-    this.stack[this.stackPointer].locals[index] = value
-    this.stack[this.stackPointer].locals[index + 1] = INACCESSIBLE
+    const locals = this.stack[this.stackPointer].locals
+    locals[index] = value
+    locals[index + 1] = value
   }
 
   loadLocal(index: number): JvmObject | number | bigint | null {
@@ -432,7 +533,9 @@ export default class Thread {
           (handlerCls === null || exceptionCls.checkCast(handlerCls))
         ) {
           // clear the operand stack and push exception
-          this.stack[this.stackPointer].operandStack = [exception]
+          const sf = this.stack[this.stackPointer]
+          this.operands[sf.stackBase] = exception
+          sf.stackTop = sf.stackBase + 1
           this.setPc(handler.handlerPc)
           return
         }
@@ -441,9 +544,9 @@ export default class Thread {
       // No handler found, unwind stack
       if (method.checkSynchronized()) {
         if (method.checkStatic()) {
-          method.getClass().getJavaObject().getMonitor().exit(this)
+          method.getClass().getJavaObject().monitorExit(this)
         } else {
-          ;(this.loadLocal(0) as JvmObject).getMonitor().exit(this)
+          ;(this.loadLocal(0) as JvmObject).monitorExit(this)
         }
       }
       this.returnStackFrame(null, exception)
@@ -82,6 +82,87 @@ export class Deque<T> {
   }
 }
 
+interface Timer {
+  deadline: number
+  thread: Thread
+  onWake?: () => void
+  cancelled?: boolean
+}
+
+/**
+ * Wakes a thread whose timer expired, unless it was woken by other means in the meantime.
+ * onWake may change the status of the thread, e.g. to BLOCKED to reacquire a monitor,
+ * otherwise the thread is made runnable.
+ */
+function fireTimer(thread: Thread, onWake?: () => void) {
+  if (thread.getStatus() !== ThreadStatus.TIMED_WAITING) {
+    return
+  }
+  onWake?.()
+  if (thread.getStatus() === ThreadStatus.TIMED_WAITING) {
+    thread.setStatus(ThreadStatus.RUNNABLE)
+  }
+}
+
+/**
+ * Binary min heap of timers ordered by deadline.
+ */
+export class TimerHeap {
+  private heap: Timer[] = []
+
+  push(timer: Timer): void {
+    const heap = this.heap
+    heap.push(timer)
+    let i = heap.length - 1
+    while (i > 0) {
+      const parent = (i - 1) >> 1
+      if (heap[parent].deadline <= timer.deadline) {
+        break
+      }
+      heap[i] = heap[parent]
+      i = parent
+    }
+    heap[i] = timer
+  }
+
+  peek(): Timer | null {
+    return this.heap.length > 0 ? this.heap[0] : null
+  }
+
+  pop(): Timer | null {
+    const heap = this.heap
+    if (heap.length === 0) {
+      return null
+    }
+
+    const top = heap[0]
+    const last = heap.pop() as Timer
+    if (heap.length === 0) {
+      return top
+    }
+
+    // sift the last timer down from the root
+    const n = heap.length
+    let i = 0
+    while (2 * i + 1 < n) {
+      const left = 2 * i + 1
+      const right = left + 1
+      const child = right < n && heap[right].deadline < heap[left].deadline ? right : left
+      if (heap[child].deadline >= last.deadline) {
+        break
+      }
+      heap[i] = heap[child]
+      i = child
+    }
+    heap[i] = last
+    return top
+  }
+
+  size(): number {
+    return this.heap.length
+  }
+}
+
 export abstract class ThreadPool {
   protected threads: Thread[] = []
   protected currentThread: Thread | null = null
@@ -123,6 +204,19 @@ export abstract class ThreadPool {
     return this.currentThread
   }
 
+  /**
+   * Sets the thread to TIMED_WAITING and makes it runnable again after the given delay.
+   * @param thread thread to put to sleep
+   * @param millis delay in milliseconds
+   * @param onWake called right before the thread is made runnable
+   * @returns function that cancels the timer, e.g. when a timed wait is notified
+   */
+  sleep(thread: Thread, millis: number, onWake?: () => void): () => void {
+    thread.setStatus(ThreadStatus.TIMED_WAITING)
+    const timeout = setTimeout(() => fireTimer(thread, onWake), millis)
+    return () => clearTimeout(timeout)
+  }
+
   /**
    * Returns true if there are any non terminated threads in the threadpool.
    */
@@ -221,3 +315,251 @@ export class RoundRobinThreadPool extends ThreadPool {
     }, 0)
   }
 }
+
+const now: () => number =
+  typeof performance !== 'undefined' ? () => performance.now() : () => Date.now()
+
+/**
+ * Returns a function that schedules a callback as a macrotask without the 4ms clamping of
+ * nested setTimeout/setInterval calls.
+ */
+function createYield(): (callback: () => void) => void {
+  if (typeof setImmediate === 'function') {
+    return callback => setImmediate(callback)
+  }
+
+  if (typeof MessageChannel !== 'undefined') {
+    const pending: (() => void)[] = []
+    const channel = new MessageChannel()
+    channel.port1.onmessage = () => {
+      const callback = pending.shift()
+      callback && callback()
+    }
+    return callback => {
+      pending.push(callback)
+      channel.port2.postMessage(null)
+    }
+  }
+
+  return callback => setTimeout(callback, 0)
+}
+
+/**
+ * Threadpool that runs threads for a wall clock time budget per event loop turn.
+ * The number of instructions per runFor call is adjusted so the clock is read only
+ * a few times per slice. Sleeping threads are kept in a timer heap and woken by the run loop
+ * instead of a timer per thread.
+ */
+export class AdaptiveThreadPool extends ThreadPool {
+  private static readonly MIN_QUANTUM = 1000
+  private static readonly MAX_QUANTUM = 1000000
+
+  private threadQueue: Deque<Thread> = new Deque<Thread>()
+  private queued: Set<Thread> = new Set()
+  private timers: TimerHeap = new TimerHeap()
+
+  private timeBudget: number
+  private quantum: number = 10000
+  private yieldToEventLoop = createYield()
+  private onYield: () => void
+
+  // set while the run loop is waiting for a thread to become runnable
+  private resume: (() => void) | null = null
+  private wakeTimer: ReturnType<typeof setTimeout> | null = null
+
+  /**
+   * @param onEmpty called when the last thread terminates
+   * @param timeBudget milliseconds to run threads for before yielding to the event loop
+   * @param onYield called whenever the run loop yields to the event loop or finishes,
+   * e.g. to flush buffered output
+   */
+  constructor(onEmpty: () => void, timeBudget: number = 10, onYield: () => void = () => {}) {
+    super(onEmpty)
+    this.timeBudget = timeBudget
+    this.onYield = onYield
+  }
+
+  addThread(thread: Thread): void {
+    this.threads.push(thread)
+    if (thread.getStatus() === ThreadStatus.RUNNABLE) {
+      this.schedule(thread)
+    }
+  }
+
+  updateStatus(thread: Thread, oldStatus: ThreadStatus): void {
+    const status = thread.getStatus()
+    if (status === oldStatus) {
+      return
+    }
+
+    if (status === ThreadStatus.TERMINATED) {
+      const index = this.threads.indexOf(thread)
+      if (index !== -1) {
+        this.threads.splice(index, 1)
+      }
+      if (this.currentThread === thread) {
+        this.currentThread = null
+      }
+      if (this.threads.length === 0) {
+        this.onEmpty()
+        // the run loop may be idle, e.g. when the threads were halted while waiting
+        this.wake()
+      }
+      return
+    }
+
+    if (status === ThreadStatus.RUNNABLE) {
+      this.schedule(thread)
+      this.wake()
+    } else if (thread === this.currentThread) {
+      this.currentThread = null
+    }
+  }
+
+  quantumOver(thread: Thread): void {
+    if (thread !== this.currentThread) {
+      return
+    }
+    this.currentThread = null
+    if (thread.getStatus() === ThreadStatus.RUNNABLE) {
+      this.schedule(thread)
+    }
+  }
+
+  sleep(thread: Thread, millis: number, onWake?: () => void): () => void {
+    thread.setStatus(ThreadStatus.TIMED_WAITING)
+    const timer: Timer = { deadline: now() + millis, thread, onWake }
+    this.timers.push(timer)
+    if (this.resume) {
+      // idle, re-arm the wake up timer for the new earliest deadline
+      this.armWakeTimer()
+    }
+    // cancelled timers are dropped when they reach the top of the heap
+    return () => {
+      timer.cancelled = true
+    }
+  }
+
+  hasThreads(): boolean {
+    return this.threads.length > 0
+  }
+
+  run(onFinish?: () => void): void {
+    const slice = () => {
+      this.resume = null
+      const start = now()
+      let time = start
+
+      while (time - start < this.timeBudget) {
+        this.wakeSleepers(time)
+        if (this.currentThread === null) {
+          this.nextThread()
+        }
+        const thread = this.currentThread
+        if (thread === null) {
+          break
+        }
+
+        thread.runFor(this.quantum)
+        const elapsed = now() - time
+        time += elapsed
+        this.adaptQuantum(elapsed)
+      }
+
+      this.onYield()
+      if (!this.hasThreads()) {
+        onFinish?.()
+        return
+      }
+
+      if (this.currentThread !== null || !this.threadQueue.isEmpty()) {
+        this.yieldToEventLoop(slice)
+        return
+      }
+
+      // nothing runnable, wait for a timer or a status change
+      this.resume = slice
+      this.armWakeTimer()
+    }
+
+    this.yieldToEventLoop(slice)
+  }
+
+  private schedule(thread: Thread) {
+    if (thread === this.currentThread || this.queued.has(thread)) {
+      return
+    }
+    this.queued.add(thread)
+    this.threadQueue.pushBack(thread)
+  }
+
+  private nextThread() {
+    while (!this.threadQueue.isEmpty()) {
+      const thread = this.threadQueue.popFront()
+      this.queued.delete(thread)
+      if (thread.getStatus() === ThreadStatus.RUNNABLE) {
+        this.currentThread = thread
+        return
+      }
+    }
+    this.currentThread = null
+  }
+
+  private wakeSleepers(time: number) {
+    let timer = this.timers.peek()
+    while (timer !== null && timer.deadline <= time) {
+      this.timers.pop()
+      if (!timer.cancelled) {
+        fireTimer(timer.thread, timer.onWake)
+      }
+      timer = this.timers.peek()
+    }
+  }
+
+  /**
+   * Keeps a single runFor call well below the time budget while reading the clock as
+   * rarely as possible.
+   */
+  private adaptQuantum(elapsed: number) {
+    const target = this.timeBudget / 4
+    if (elapsed < target / 2 && this.quantum < AdaptiveThreadPool.MAX_QUANTUM) {
+      this.quantum *= 2
+    } else if (elapsed > target && this.quantum > AdaptiveThreadPool.MIN_QUANTUM) {
+      this.quantum = Math.max(AdaptiveThreadPool.MIN_QUANTUM, this.quantum >> 1)
+    }
+  }
+
+  /**
+   * Resumes the run loop if it is idle.
+   */
+  private wake() {
+    const resume = this.resume
+    if (resume === null) {
+      return
+    }
+    this.resume = null
+    if (this.wakeTimer !== null) {
+      clearTimeout(this.wakeTimer)
+      this.wakeTimer = null
+    }
+    this.yieldToEventLoop(resume)
+  }
+
+  private armWakeTimer() {
+    if (this.wakeTimer !== null) {
+      clearTimeout(this.wakeTimer)
+      this.wakeTimer = null
+    }
+    const timer = this.timers.peek()
+    if (timer === null) {
+      return
+    }
+    this.wakeTimer = setTimeout(
+      () => {
+        this.wakeTimer = null
+        this.wake()
+      },
+      Math.max(0, timer.deadline - now())
+    )
+  }
+}
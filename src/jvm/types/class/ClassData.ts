@@ -1,5 +1,4 @@
 import { ACCESS_FLAGS, ClassFile } from '../../../ClassFile/types'
-import { AttributeInfo } from '../../../ClassFile/types/attributes'
 import AbstractClassLoader from '../../ClassLoader/AbstractClassLoader'
 import { ConstantPool } from '../../constant-pool'
 import { CLASS_STATUS, CLASS_TYPE, ThreadStatus } from '../../constants'
@@ -10,14 +9,8 @@ import { ImmediateResult, Result, SuccessResult, ErrorResult, ResultType } from
 import { JvmArray } from '../reference/Array'
 import { JvmObject } from '../reference/Object'
 import { IAttribute, BootstrapMethod, BootstrapMethods } from './Attributes'
-import {
-  Constant,
-  ConstantClass,
-  ConstantInterfaceMethodref,
-  ConstantMethodref,
-  ConstantUtf8
-} from './Constants'
-import { Field } from './Field'
+import { Constant, ConstantClass, ConstantInterfaceMethodref, ConstantMethodref } from './Constants'
+import { Field, getDefaultFieldValue } from './Field'
 import { Method } from './Method'
 
 class ClassLock {
@@ -50,6 +43,14 @@ class ClassLock {
   }
 }
 
+/**
+ * Mutable state of a class, saved and restored by JVM snapshots.
+ */
+export interface ClassState {
+  status: CLASS_STATUS
+  staticValues: any[]
+}
+
 export abstract class ClassData {
   protected loader: AbstractClassLoader
   protected accessFlags: number
@@ -66,11 +67,19 @@ export abstract class ClassData {
     [fieldName: string]: Field
   } = {}
   protected instanceFields: { [key: string]: Field } | null = null
+  protected fieldLayout: Field[] | null = null
+  protected fieldDefaults: any[] | null = null
   protected vmIndexFields?: Field[]
   protected staticFields: Field[] = []
   protected methods: {
     [methodName: string]: Method
   } = {}
+  /**
+   * Methods selected by invokevirtual/invokeinterface on instances of this class,
+   * keyed on the resolved method.
+   */
+  protected virtualTable: Map<Method, Method> = new Map()
+  protected interfaceTable: Map<Method, Method> = new Map()
   protected attributes: { [attributeName: string]: IAttribute } = {}
   constructor(
     loader: AbstractClassLoader,
@@ -90,6 +99,38 @@ export abstract class ClassData {
     return this.status === CLASS_STATUS.INITIALIZED
   }
 
+  /**
+   * Copies the initialization status and static field values of this class.
+   */
+  _saveState(): ClassState {
+    return {
+      status: this.status,
+      staticValues: this.getStaticFields().map(field => field.getValue())
+    }
+  }
+
+  /**
+   * Restores state copied by _saveState.
+   * If no state is given, the class is reset to its state before initialization.
+   */
+  _restoreState(state: ClassState | null) {
+    const staticFields = this.getStaticFields()
+    if (state) {
+      this.status = state.status
+      staticFields.forEach((field, index) => field.putValue(state.staticValues[index]))
+      return
+    }
+
+    if (this.status === CLASS_STATUS.INITIALIZED || this.status === CLASS_STATUS.INITIALIZING) {
+      this.status = CLASS_STATUS.PREPARED
+    }
+    staticFields.forEach(field => field._reset())
+  }
+
+  private getStaticFields(): Field[] {
+    return this.getDeclaredFields().filter(field => field.checkStatic())
+  }
+
   /**
    * Gets all fields, including private and protected fields but excluding inherited fields.
    */
@@ -162,26 +203,47 @@ export abstract class ClassData {
       return this.instanceFields
     }
 
-    let res: { [key: string]: Field } = {}
+    const res: { [key: string]: Field } = {}
+    for (const field of this.getFieldLayout()) {
+      res[`${field.getClass().getName()}.${field.getName()}${field.getFieldDesc()}`] = field
+    }
 
-    if (this.superClass) {
-      res = this.superClass.getInstanceFields()
+    this.instanceFields = res
+    return res
+  }
+
+  /**
+   * Gets all non static fields of the current class, including inherited fields, in object layout order.
+   * Superclass fields come first, so a field has the same layout slot in every subclass.
+   */
+  getFieldLayout(): Field[] {
+    if (this.fieldLayout !== null) {
+      return this.fieldLayout
     }
 
-    this.interfaces?.forEach(constantInterfaceCls => {
-      const fields = constantInterfaceCls.getInstanceFields()
-      for (const [fieldName, fieldRef] of Object.entries(fields)) {
-        res[fieldName] = fieldRef
+    const layout = this.superClass ? [...this.superClass.getFieldLayout()] : []
+    for (const field of Object.values(this.fields)) {
+      if (!field.checkStatic()) {
+        field._setLayoutSlot(layout.length)
+        layout.push(field)
       }
-    })
-
-    for (const [fieldName, fieldRef] of Object.entries(this.fields).filter(
-      ([_fn, fr]) => !fr.checkStatic()
-    )) {
-      res[`${this.thisClass}.${fieldName}`] = fieldRef
     }
 
-    return res
+    this.fieldLayout = layout
+    return layout
+  }
+
+  /**
+   * Gets the default values of the instance fields, indexed by layout slot.
+   * Used as the template for the field values of new objects.
+   */
+  getFieldDefaults(): any[] {
+    if (this.fieldDefaults === null) {
+      this.fieldDefaults = this.getFieldLayout().map(field =>
+        getDefaultFieldValue(field.getFieldDesc())
+      )
+    }
+    return this.fieldDefaults
   }
 
   /**
@@ -451,6 +513,42 @@ export abstract class ClassData {
     return this._lookupMethodInterface(signature, polySignature)
   }
 
+  /**
+   * Selects the method to invoke for invokevirtual/invokeinterface on an instance of this class.
+   * Selections are memoized in the class' method tables, so the class hierarchy is only walked
+   * once per resolved method.
+   * @param resolvedMethod method resolved from the symbolic reference
+   * @param isInterface true for invokeinterface
+   */
+  selectMethod(resolvedMethod: Method, isInterface: boolean): ImmediateResult<Method> {
+    const table = isInterface ? this.interfaceTable : this.virtualTable
+    const cached = table.get(resolvedMethod)
+    if (cached !== undefined) {
+      return { status: ResultType.SUCCESS, result: cached }
+    }
+
+    const lookupResult = this.lookupMethod(
+      resolvedMethod.getName() + resolvedMethod.getDescriptor(),
+      resolvedMethod,
+      !isInterface,
+      isInterface
+    )
+    if (lookupResult.status === ResultType.ERROR) {
+      return lookupResult
+    }
+
+    if (lookupResult.result.checkAbstract()) {
+      return {
+        status: ResultType.ERROR,
+        exceptionCls: 'java/lang/NoSuchMethodError',
+        msg: ''
+      }
+    }
+
+    table.set(resolvedMethod, lookupResult.result)
+    return lookupResult
+  }
+
   /**
    * Gets a method declared in the current class. does not search superclasses/interfaces.
    */
@@ -644,6 +742,13 @@ export abstract class ClassData {
     return this.javaClassObject
   }
 
+  /**
+   * Gets the java/lang/Class object for the current class if it has been created.
+   */
+  _getJavaObject(): JvmObject | null {
+    return this.javaClassObject ?? null
+  }
+
   /**
    * Gets the protection domain associated with this class.
    * Returns null if absent.
@@ -787,14 +892,6 @@ export class ReferenceClassData extends ClassData {
     // methods
     this.methods = {}
     classfile.methods.forEach((methodInfo, index) => {
-      const methodAttributes: { [attributeName: string]: AttributeInfo[] } = {}
-      methodInfo.attributes.forEach(attr => {
-        const attrName = (this.constantPool.get(attr.attributeNameIndex) as ConstantUtf8).get()
-        if (!methodAttributes[attrName]) {
-          methodAttributes[attrName] = []
-        }
-        methodAttributes[attrName].push(attr)
-      })
       const method = Method.fromInfo(this, methodInfo, index, this.constantPool)
 
       this.methods[method.getName() + method.getDescriptor()] = method
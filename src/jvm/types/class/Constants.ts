@@ -3,7 +3,7 @@ import AbstractClassLoader from '../../ClassLoader/AbstractClassLoader'
 import { MethodHandleReferenceKind } from '../../constants'
 import { InternalStackFrame } from '../../stackframe'
 import Thread from '../../thread'
-import { parseMethodDescriptor, js2jString, parseFieldDescriptor } from '../../utils'
+import { parseMethodDescriptor, js2jString, parseFieldDescriptor, asLong } from '../../utils'
 import { Result, ErrorResult, ImmediateResult, SuccessResult, ResultType } from '../Result'
 import { JvmArray } from '../reference/Array'
 import { JvmObject, JavaType } from '../reference/Object'
@@ -75,18 +75,18 @@ export class ConstantFloat extends Constant {
 }
 
 export class ConstantLong extends Constant {
-  private value: bigint
+  private value: bigint | number
 
   constructor(cls: ClassData, value: bigint) {
     super(CONSTANT_TAG.Long, cls)
-    this.value = value
+    this.value = asLong(value)
   }
 
   static check(c: Constant): c is ConstantLong {
     return c.getTag() === CONSTANT_TAG.Long
   }
 
-  public get(): bigint {
+  public get(): bigint | number {
     return this.value
   }
 
@@ -8,6 +8,26 @@ import { IAttribute, ConstantValue, NestHost } from './Attributes'
 import { ClassData, ReferenceClassData } from './ClassData'
 import { ConstantUtf8 } from './Constants'
 
+/**
+ * Gets the default value of a field with the given descriptor.
+ */
+export function getDefaultFieldValue(fieldDesc: string): any {
+  switch (fieldDesc) {
+    case JavaType.byte:
+    case JavaType.char:
+    case JavaType.double:
+    case JavaType.float:
+    case JavaType.int:
+    case JavaType.short:
+    case JavaType.boolean:
+      return 0
+    case JavaType.long:
+      return 0
+    default:
+      return null
+  }
+}
+
 export class Field {
   private cls: ReferenceClassData
   private fieldName: string
@@ -16,9 +36,9 @@ export class Field {
   private accessFlags: number
   private attributes: { [attributeName: string]: IAttribute } = {}
 
-  private static reflectedClass: ReferenceClassData | null = null
   private javaObject: JvmObject | null = null
   private slot: number
+  private layoutSlot: number = -1
 
   constructor(
     cls: ReferenceClassData,
@@ -34,36 +54,23 @@ export class Field {
     this.accessFlags = accessFlags
     this.attributes = attributes
     this.slot = slot
+    this.value = this.getInitialValue()
+  }
 
-    switch (fieldDesc) {
-      case JavaType.byte:
-      case JavaType.char:
-      case JavaType.double:
-      case JavaType.float:
-      case JavaType.int:
-      case JavaType.short:
-      case JavaType.boolean:
-        this.value = 0
-        break
-      case JavaType.long:
-        this.value = BigInt(0)
-        break
-      default:
-        this.value = null
-        break
-    }
-
+  /**
+   * Gets the value of the field before class initialization.
+   */
+  private getInitialValue() {
     if (this.checkStatic() && this.attributes['ConstantValue']) {
       const constantValue = (
         this.attributes['ConstantValue'] as ConstantValue
-      ).constantvalue.resolve(null as any, cls.getLoader()) // String resolution does not need thread
-      if (constantValue.status !== ResultType.SUCCESS) {
-        return
+      ).constantvalue.resolve(null as any, this.cls.getLoader()) // String resolution does not need thread
+      if (constantValue.status === ResultType.SUCCESS) {
+        return constantValue.result
       }
-
-      this.value = constantValue.result
-      return
     }
+
+    return getDefaultFieldValue(this.fieldDesc)
   }
 
   static fromFieldInfo(
@@ -97,6 +104,21 @@ export class Field {
     return this.slot
   }
 
+  /**
+   * Gets the index of this instance field in the field values of objects.
+   * The index is the same for the declaring class and all its subclasses.
+   */
+  getLayoutSlot(): number {
+    if (this.layoutSlot < 0) {
+      this.cls.getFieldLayout()
+    }
+    return this.layoutSlot
+  }
+
+  _setLayoutSlot(layoutSlot: number) {
+    this.layoutSlot = layoutSlot
+  }
+
   /**
    * Gets the reflected Method object.
    * @todo partially implemented, annotations and signature of reflected object using null values.
@@ -108,13 +130,11 @@ export class Field {
       return { status: ResultType.SUCCESS, result: this.javaObject }
     }
 
-    if (!Field.reflectedClass) {
-      const fRes = thread.getClass().getLoader().getClass('java/lang/reflect/Field')
-      if (fRes.status === ResultType.ERROR) {
-        return fRes
-      }
-      Field.reflectedClass = fRes.result as ReferenceClassData
+    const fRes = thread.getClass().getLoader().getClass('java/lang/reflect/Field')
+    if (fRes.status === ResultType.ERROR) {
+      return fRes
     }
+    const reflectedClass = fRes.result as ReferenceClassData
 
     const fieldClsName = parseFieldDescriptor(this.fieldDesc, 0)
     let ftRes: ImmediateResult<ClassData>
@@ -131,7 +151,7 @@ export class Field {
     }
     const fieldType = ftRes.result.getJavaObject()
 
-    this.javaObject = Field.reflectedClass.instantiate()
+    this.javaObject = reflectedClass.instantiate()
     this.javaObject.initialize(thread)
 
     this.javaObject._putField(
@@ -181,18 +201,6 @@ export class Field {
     this.value = value
   }
 
-  cloneField() {
-    const field = new Field(
-      this.cls,
-      this.fieldName,
-      this.fieldDesc,
-      this.accessFlags,
-      this.attributes,
-      this.slot
-    )
-    return field
-  }
-
   checkPublic() {
     return (this.accessFlags & FIELD_FLAGS.ACC_PUBLIC) !== 0
   }
@@ -323,7 +331,10 @@ export class Field {
     return { status: ResultType.SUCCESS, result: this }
   }
 
-  static _exit() {
-    Field.reflectedClass = null
+  /**
+   * Resets a static field to its value before class initialization.
+   */
+  _reset() {
+    this.value = this.getInitialValue()
   }
 }
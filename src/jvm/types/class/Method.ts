@@ -1,8 +1,11 @@
 import { OPCODE } from '../../../ClassFile/constants/instructions'
+import { AttributeInfo } from '../../../ClassFile/types/attributes'
 import { MethodInfo, METHOD_FLAGS } from '../../../ClassFile/types/methods'
 import { ConstantPool } from '../../constant-pool'
+import { DecodedCode } from '../../decoder'
 import Thread from '../../thread'
 import { attrInfo2Interface, parseMethodDescriptor, getArgs, logger } from '../../utils'
+import { isLazyAttribute } from '../../utils/disassembler/utils/readAttributes'
 import { ErrorResult, ImmediateResult, ResultType, SuccessResult } from '../Result'
 import { JavaType, JvmObject } from '../reference/Object'
 import { Code, Exceptions, IAttribute, NestHost, Signature } from './Attributes'
@@ -19,13 +22,16 @@ export interface MethodHandler {
 export class Method {
   private cls: ReferenceClassData
   private code: Code | null // native methods have no code
+  private decoded: DecodedCode | null = null
   private accessFlags: number
   private name: string
   private descriptor: string
   private attributes: { [attributeName: string]: IAttribute } = {}
+  /**
+   * Attributes of a lazily parsed class file, decoded on first use.
+   */
+  private lazyAttributes: { infos: AttributeInfo[]; constantPool: ConstantPool } | null = null
 
-  private static reflectMethodClass: ReferenceClassData | null = null
-  private static reflectConstructorClass: ReferenceClassData | null = null
   private bridgeCounter = 0
 
   private javaObject?: JvmObject
@@ -62,12 +68,29 @@ export class Method {
     const descriptor = (cls.getConstant(method.descriptorIndex) as ConstantUtf8).get()
     const accessFlags = method.accessFlags
 
+    // defer decoding, most methods are never invoked or reflected
+    if (method.attributes.some(isLazyAttribute)) {
+      const lazyMethod = new Method(cls, accessFlags, name, descriptor, {}, slot)
+      lazyMethod.lazyAttributes = { infos: method.attributes, constantPool }
+      return lazyMethod
+    }
+
     // get attributes
     const attributes = attrInfo2Interface(method.attributes, constantPool)
 
     return new Method(cls, accessFlags, name, descriptor, attributes, slot)
   }
 
+  private decodeAttributes() {
+    const { infos, constantPool } = this.lazyAttributes as {
+      infos: AttributeInfo[]
+      constantPool: ConstantPool
+    }
+    this.lazyAttributes = null
+    this.attributes = attrInfo2Interface(infos, constantPool)
+    this.code = (this.attributes['Code'] as Code) ?? null
+  }
+
   /**
    * Type guard function to check if an object is a Method.
    */
@@ -91,6 +114,9 @@ export class Method {
     if (this.javaObject) {
       return { status: ResultType.SUCCESS, result: this.javaObject }
     }
+    if (this.lazyAttributes) {
+      this.decodeAttributes()
+    }
 
     const loader = this.cls.getLoader()
     const caRes = loader.getClass('[Ljava/lang/Class;')
@@ -197,15 +223,12 @@ export class Method {
     const isConstructor = this.name === '<init>'
     if (isConstructor) {
       // load constructor class
-      if (!Method.reflectConstructorClass) {
-        const fRes = loader.getClass('java/lang/reflect/Constructor')
-        if (fRes.status === ResultType.ERROR) {
-          return fRes
-        }
-        Method.reflectConstructorClass = fRes.result as ReferenceClassData
+      const fRes = loader.getClass('java/lang/reflect/Constructor')
+      if (fRes.status === ResultType.ERROR) {
+        return fRes
       }
 
-      javaObject = Method.reflectConstructorClass.instantiate()
+      javaObject = (fRes.result as ReferenceClassData).instantiate()
       const initRes = javaObject.initialize(thread)
       if (initRes.status !== ResultType.SUCCESS) {
         if (initRes.status === ResultType.ERROR) {
@@ -214,15 +237,12 @@ export class Method {
         throw new Error('Reflected method should not have static initializer')
       }
     } else {
-      if (!Method.reflectMethodClass) {
-        const fRes = thread.getClass().getLoader().getClass('java/lang/reflect/Method')
-        if (fRes.status === ResultType.ERROR) {
-          return fRes
-        }
-        Method.reflectMethodClass = fRes.result as ReferenceClassData
+      const fRes = thread.getClass().getLoader().getClass('java/lang/reflect/Method')
+      if (fRes.status === ResultType.ERROR) {
+        return fRes
       }
 
-      javaObject = Method.reflectMethodClass.instantiate()
+      javaObject = (fRes.result as ReferenceClassData).instantiate()
       const initRes = javaObject.initialize(thread)
       if (initRes.status !== ResultType.SUCCESS) {
         if (initRes.status === ResultType.ERROR) {
@@ -327,10 +347,16 @@ export class Method {
 
   getMaxStack() {
     // we cannot determine max stack for native methods
+    if (this.lazyAttributes) {
+      this.decodeAttributes()
+    }
     return this.code ? this.code.maxStack : -1
   }
 
   getExceptionHandlers() {
+    if (this.lazyAttributes) {
+      this.decodeAttributes()
+    }
     if (!this.code) {
       return []
     }
@@ -636,11 +662,20 @@ export class Method {
   }
 
   _getCode() {
+    if (this.lazyAttributes) {
+      this.decodeAttributes()
+    }
     return this.code
   }
 
-  static _exit() {
-    Method.reflectMethodClass = null
-    Method.reflectConstructorClass = null
+  /**
+   * Gets the decoded instruction stream of this method, creating it on first use.
+   * Returns null for methods without code.
+   */
+  _getDecoded(): DecodedCode | null {
+    if (this.decoded === null && this._getCode()) {
+      this.decoded = new DecodedCode((this.code as Code).code)
+    }
+    return this.decoded
   }
 }
@@ -1,12 +1,27 @@
 import Thread from '../../thread'
 import { Result, ResultType, SuccessResult } from '../Result'
 import { ArrayClassData } from '../class/ClassData'
-import { JvmObject, JavaType } from './Object'
+import { JvmObject, JavaType, ObjectState } from './Object'
+import { asLong } from '../../utils'
+
+/**
+ * Backing storage of a {@link JvmArray}. Primitive arrays are stored in typed arrays of the
+ * matching width so that narrowing, copies and byte views come for free; reference and long
+ * arrays use a plain JS array.
+ */
+export type JvmArrayStorage =
+  | any[]
+  | Int8Array
+  | Uint16Array
+  | Int16Array
+  | Int32Array
+  | Float32Array
+  | Float64Array
 
 export class JvmArray extends JvmObject {
   private primitiveType: ArrayPrimitiveType | null
   private length: number
-  private array: any[]
+  private array: JvmArrayStorage
   constructor(cls: ArrayClassData) {
     super(cls)
     switch (cls.getName()[1]) {
@@ -45,46 +60,49 @@ export class JvmArray extends JvmObject {
     return this.initArray(rest[0], rest[1])
   }
 
-  initArray(length: number, arr?: any[]): SuccessResult<JvmArray> {
+  initArray(length: number, arr?: ArrayLike<any>): SuccessResult<JvmArray> {
     this.length = length
+    this.array = this.allocate(length, arr)
+    return { status: ResultType.SUCCESS, result: this }
+  }
 
-    if (arr) {
-      this.array = arr
-      return { status: ResultType.SUCCESS, result: this }
-    }
-
-    let def
+  /**
+   * Allocates the backing storage for this array, copying in the initial values if given.
+   * Typed arrays of the right kind are adopted as-is.
+   */
+  private allocate(length: number, arr?: ArrayLike<any>): JvmArrayStorage {
     switch (this.primitiveType) {
       case ArrayPrimitiveType.boolean:
-        def = 0
-        break
-      case ArrayPrimitiveType.char:
-        def = 0
-        break
-      case ArrayPrimitiveType.float:
-        def = 0.0
-        break
-      case ArrayPrimitiveType.double:
-        def = 0.0
-        break
       case ArrayPrimitiveType.byte:
-        def = 0
-        break
+        return arr instanceof Int8Array ? arr : arr ? Int8Array.from(arr) : new Int8Array(length)
+      case ArrayPrimitiveType.char:
+        return arr instanceof Uint16Array
+          ? arr
+          : arr
+          ? Uint16Array.from(arr)
+          : new Uint16Array(length)
       case ArrayPrimitiveType.short:
-        def = 0
-        break
+        return arr instanceof Int16Array ? arr : arr ? Int16Array.from(arr) : new Int16Array(length)
       case ArrayPrimitiveType.int:
-        def = 0
-        break
+        return arr instanceof Int32Array ? arr : arr ? Int32Array.from(arr) : new Int32Array(length)
+      case ArrayPrimitiveType.float:
+        return arr instanceof Float32Array
+          ? arr
+          : arr
+          ? Float32Array.from(arr)
+          : new Float32Array(length)
+      case ArrayPrimitiveType.double:
+        return arr instanceof Float64Array
+          ? arr
+          : arr
+          ? Float64Array.from(arr)
+          : new Float64Array(length)
       case ArrayPrimitiveType.long:
-        def = BigInt(0)
-        break
+        // longs are numbers or bigints, see asLong
+        return arr ? Array.from(arr, asLong) : new Array(length).fill(0)
       default:
-        def = null
+        return arr ? (arr as any[]) : new Array(length).fill(null)
     }
-
-    this.array = new Array(length).fill(def)
-    return { status: ResultType.SUCCESS, result: this }
   }
 
   get(index: number) {
@@ -99,21 +117,64 @@ export class JvmArray extends JvmObject {
     }
   }
 
-  getJsArray() {
+  /**
+   * Returns the backing storage. Primitive arrays are backed by typed arrays, reference arrays by
+   * a plain JS array.
+   */
+  getJsArray(): JvmArrayStorage {
     return this.array
   }
 
+  /**
+   * Returns the primitive type of the elements, or null if this is a reference array.
+   */
+  getPrimitiveType(): ArrayPrimitiveType | null {
+    return this.primitiveType
+  }
+
+  /**
+   * Copies length elements starting at srcPos in src into this array starting at destPos.
+   * Bounds and type compatibility must be checked by the caller.
+   */
+  copyFrom(src: JvmArray, srcPos: number, destPos: number, length: number) {
+    if (src === this) {
+      this.array.copyWithin(destPos, srcPos, srcPos + length)
+      return
+    }
+
+    if (Array.isArray(this.array)) {
+      const from = src.array
+      for (let i = 0; i < length; i++) {
+        this.array[destPos + i] = from[srcPos + i]
+      }
+      return
+    }
+
+    // same primitive type, so both storages are the same typed array kind
+    const dest = this.array as Int8Array
+    dest.set((src.array as Int8Array).subarray(srcPos, srcPos + length), destPos)
+  }
+
   len() {
     return this.length
   }
 
+  _saveState(): ObjectState {
+    const state = super._saveState()
+    state.array = this.array.slice()
+    return state
+  }
+
+  _restoreState(state: ObjectState) {
+    super._restoreState(state)
+    this.array = (state.array as JvmArrayStorage).slice()
+  }
+
   clone(): JvmArray {
     const clone = this.cls.instantiate() as JvmArray
-    clone.initArray(this.length, [...this.array]) // shallow copy
+    clone.initArray(this.length, this.array.slice()) // shallow copy
 
-    for (const [key, field] of Object.entries(this.fields)) {
-      clone.fields[key].putValue(field.getValue())
-    }
+    clone.fieldValues = this.fieldValues.slice()
 
     for (const [key, value] of Object.entries(this.nativeFields)) {
       clone.nativeFields[key] = value
@@ -4,31 +4,42 @@ import { Result, ResultType } from '../Result'
 import { ClassData, ReferenceClassData } from '../class/ClassData'
 import { Field } from '../class/Field'
 
+/**
+ * Mutable state of an object, saved and restored by JVM snapshots.
+ */
+export interface ObjectState {
+  fieldValues: any[]
+  nativeFields: { [key: string]: any }
+  initStatus: boolean
+  hash: number
+  array?: ArrayLike<any>
+}
+
 export class JvmObject {
   public initStatus = false
 
   protected cls: ClassData
-  protected fields: {
-    [key: string]: Field
-  }
+  /**
+   * Instance field values, indexed by the layout slot of the field.
+   */
+  protected fieldValues: any[]
   protected nativeFields: {
     [key: string]: any
   } = {}
+  /**
+   * Thin lock, used until the lock is contended or waited on.
+   */
+  private lockOwner: Thread | null = null
+  private lockCount = 0
   private monitor?: Monitor
-  private fieldArr: { name: string; ref: Field }[]
-  private static maxId = 0
-  private id
+  /**
+   * Identity hash, assigned by the JVM on first use. -1 if not yet assigned.
+   */
+  private hash = -1
 
   constructor(cls: ClassData) {
     this.cls = cls
-    this.fields = {}
-    this.fieldArr = []
-    this.id = JvmObject.maxId++
-
-    Object.entries(cls.getInstanceFields()).forEach(([fieldName, fieldRef], index) => {
-      this.fields[fieldName] = fieldRef.cloneField()
-      this.fieldArr[index] = { name: fieldName, ref: this.fields[fieldName] }
-    })
+    this.fieldValues = cls.getFieldDefaults().slice()
   }
 
   setInitialized() {
@@ -62,18 +73,81 @@ export class JvmObject {
     return this.cls
   }
 
+  /**
+   * Gets the monitor of this object, inflating the thin lock if needed.
+   */
   getMonitor() {
     if (!this.monitor) {
-      this.monitor = new Monitor()
+      this.monitor = new Monitor(this.lockOwner, this.lockCount)
+      this.lockOwner = null
+      this.lockCount = 0
     }
     return this.monitor
   }
 
+  /**
+   * Enters the lock of this object. Blocks the thread if the lock is owned by another thread.
+   * @param onEnter callback when the thread enters the lock
+   * @returns true if the lock was entered immediately
+   */
+  monitorEnter(thread: Thread, onEnter?: () => void): boolean {
+    if (this.monitor === undefined) {
+      if (this.lockOwner === null) {
+        this.lockOwner = thread
+        this.lockCount = 1
+        onEnter && onEnter()
+        return true
+      }
+      if (this.lockOwner === thread) {
+        this.lockCount++
+        onEnter && onEnter()
+        return true
+      }
+    }
+    // contended, queue on the monitor
+    return this.getMonitor().enter(thread, onEnter)
+  }
+
+  /**
+   * Exits the lock of this object.
+   * @param onExit callback when the thread exits the lock
+   */
+  monitorExit(thread: Thread, onExit?: () => void) {
+    if (this.monitor !== undefined) {
+      this.monitor.exit(thread, onExit)
+      return
+    }
+
+    if (this.lockOwner !== thread) {
+      thread.throwNewException(
+        'java/lang/IllegalMonitorStateException',
+        'Cannot exit a monitor that you do not own.'
+      )
+      return
+    }
+    if (--this.lockCount === 0) {
+      this.lockOwner = null
+    }
+    onExit && onExit()
+  }
+
+  /**
+   * Checks if the thread owns the lock of this object.
+   */
+  holdsLock(thread: Thread) {
+    return (this.monitor ? this.monitor.owner : this.lockOwner) === thread
+  }
+
+  /**
+   * Gets the value of an instance field. The field must be in the layout of the object's class,
+   * i.e. declared by the class or one of its superclasses.
+   */
   getField(fieldRef: Field): JvmObject | number | bigint | null {
-    const fieldName = fieldRef.getName()
-    const fieldDesc = fieldRef.getFieldDesc()
-    const fieldClass = fieldRef.getClass().getName()
-    return this._getField(fieldName, fieldDesc, fieldClass)
+    const slot = fieldRef.getLayoutSlot()
+    if (this.cls.getFieldLayout()[slot] !== fieldRef) {
+      throw new Error(`Invalid field`)
+    }
+    return this.fieldValues[slot]
   }
 
   _getField(
@@ -82,19 +156,27 @@ export class JvmObject {
     fieldClass: string
   ): JvmObject | number | bigint | null {
     const key = `${fieldClass}.${fieldName}${fieldDesc}`
+    const fieldRef = this.cls.getInstanceFields()[key]
 
-    if (key in this.fields) {
-      return this.fields[key].getValue()
+    if (fieldRef) {
+      return this.fieldValues[fieldRef.getLayoutSlot()]
     }
 
     throw new Error(`Invalid field`)
   }
 
+  /**
+   * Sets the value of an instance field, see getField.
+   */
   putField(fieldRef: Field, value: JvmObject | number | bigint | null) {
-    const fieldName = fieldRef.getName()
-    const fieldDesc = fieldRef.getFieldDesc()
-    const fieldClass = fieldRef.getClass().getName()
-    this._putField(fieldName, fieldDesc, fieldClass, value)
+    const slot = fieldRef.getLayoutSlot()
+    if (this.cls.getFieldLayout()[slot] !== fieldRef) {
+      throw new Error(`Invalid field`)
+    }
+    if (value === undefined) {
+      throw new Error('putValue: value is undefined')
+    }
+    this.fieldValues[slot] = value
   }
 
   _putField(
@@ -104,9 +186,10 @@ export class JvmObject {
     value: JvmObject | number | bigint | null
   ) {
     const key = `${fieldClass}.${fieldName}${fieldDesc}`
+    const fieldRef = this.cls.getInstanceFields()[key]
 
-    if (key in this.fields) {
-      this.fields[key].putValue(value)
+    if (fieldRef) {
+      this.putField(fieldRef, value)
       return
     }
     throw new Error(`Invalid field`)
@@ -121,10 +204,7 @@ export class JvmObject {
   }
 
   getFieldFromVMIndex(index: number): Field {
-    const res = this.fieldArr.filter(f => {
-      const slot = f.ref.getSlot()
-      return slot === index
-    })
+    const res = this.cls.getFieldLayout().filter(f => f.getSlot() === index)
 
     if (res.length > 1) {
       // will this happen?
@@ -135,15 +215,13 @@ export class JvmObject {
       throw new Error('Invalid slot')
     }
 
-    return res[0].ref
+    return res[0]
   }
 
   clone(): JvmObject {
     const clone = this.cls.instantiate()
 
-    for (const [key, field] of Object.entries(this.fields)) {
-      clone.fields[key].putValue(field.getValue())
-    }
+    clone.fieldValues = this.fieldValues.slice()
 
     for (const [key, value] of Object.entries(this.nativeFields)) {
       clone.nativeFields[key] = value
@@ -154,12 +232,38 @@ export class JvmObject {
     return clone
   }
 
-  hashCode(): number {
-    return this.id
+  /**
+   * Gets the identity hash of this object.
+   * Hashes are handed out by the JVM of the thread, so objects of separate JVMs in one process
+   * do not share a counter.
+   */
+  hashCode(thread: Thread): number {
+    if (this.hash < 0) {
+      this.hash = thread.getJVM().nextIdentityHash()
+    }
+    return this.hash
+  }
+
+  /**
+   * Copies the mutable state of this object.
+   */
+  _saveState(): ObjectState {
+    return {
+      fieldValues: this.fieldValues.slice(),
+      nativeFields: { ...this.nativeFields },
+      initStatus: this.initStatus,
+      hash: this.hash
+    }
   }
 
-  static _exit() {
-    JvmObject.maxId = 0
+  /**
+   * Restores state copied by _saveState. The state is copied again so it can be reused.
+   */
+  _restoreState(state: ObjectState) {
+    this.fieldValues = state.fieldValues.slice()
+    this.nativeFields = { ...state.nativeFields }
+    this.initStatus = state.initStatus
+    this.hash = state.hash
   }
 }
 
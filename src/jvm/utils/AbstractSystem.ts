@@ -8,4 +8,10 @@ export default abstract class AbstractSystem {
   abstract stdout(message: string): void
 
   abstract stderr(message: string): void
+
+  /**
+   * Writes out buffered stdout and stderr output. Called by the JVM when it yields to the
+   * event loop and when it finishes.
+   */
+  flush(): void {}
 }
@@ -0,0 +1,52 @@
+import { ClassFile } from '../../ClassFile/types'
+import AbstractSystem from './AbstractSystem'
+import { ClassArchive } from './archive'
+
+/**
+ * System that reads class files under a class path from a packed class archive.
+ * Classes are parsed on demand, directly from the archive bytes, and shared with other systems
+ * reading from the same archive.
+ * Other paths, e.g. user classes, and natives are read from the fallback system.
+ */
+export default class ArchiveSystem extends AbstractSystem {
+  private archive: ClassArchive
+  private fallback: AbstractSystem
+  private prefix: string
+
+  constructor(
+    archive: ClassArchive | ArrayBuffer | Uint8Array,
+    fallback: AbstractSystem,
+    classPath: string = 'stdlib'
+  ) {
+    super()
+    this.archive = archive instanceof ClassArchive ? archive : new ClassArchive(archive)
+    this.fallback = fallback
+    this.prefix = classPath ? classPath + '/' : ''
+  }
+
+  readFileSync(path: string): ClassFile {
+    if (path.startsWith(this.prefix)) {
+      const classFile = this.archive.getClassFile(path.slice(this.prefix.length))
+      if (classFile) {
+        return classFile
+      }
+    }
+    return this.fallback.readFileSync(path)
+  }
+
+  readFile(path: string): Promise<any> {
+    return this.fallback.readFile(path)
+  }
+
+  stdout(message: string): void {
+    this.fallback.stdout(message)
+  }
+
+  stderr(message: string): void {
+    this.fallback.stderr(message)
+  }
+
+  flush(): void {
+    this.fallback.flush()
+  }
+}
@@ -1,12 +1,24 @@
 import { ClassFile } from '../../ClassFile/types'
 import AbstractSystem from './AbstractSystem'
 
+// buffered characters after which output is written out without waiting for a flush
+const MAX_BUFFERED = 1 << 16
+
+/**
+ * System reading classes and natives with callbacks.
+ * Output is buffered and passed to the pipes in batches on flush. Only one stream is buffered
+ * at a time, so output of stdout and stderr keeps its order.
+ */
 export default class CustomSystem extends AbstractSystem {
   private readClassFile: (path: string) => ClassFile
   private readNatives: (path: string) => Promise<any>
   private stdoutPipe: (message: string) => void
   private stderrPipe: (message: string) => void
 
+  private buffer: string[] = []
+  private buffered = 0
+  private bufferedPipe: ((message: string) => void) | null = null
+
   constructor(
     readClassFile: (path: string) => ClassFile,
     readNatives: (path: string) => Promise<any>,
@@ -29,10 +41,34 @@ export default class CustomSystem extends AbstractSystem {
   }
 
   stdout(message: string): void {
-    this.stdoutPipe(message)
+    this.write(this.stdoutPipe, message)
   }
 
   stderr(message: string): void {
-    this.stderrPipe(message)
+    this.write(this.stderrPipe, message)
+  }
+
+  flush(): void {
+    const pipe = this.bufferedPipe
+    if (pipe === null) {
+      return
+    }
+    const message = this.buffer.join('')
+    this.buffer = []
+    this.buffered = 0
+    this.bufferedPipe = null
+    pipe(message)
+  }
+
+  private write(pipe: (message: string) => void, message: string) {
+    if (this.bufferedPipe !== pipe) {
+      this.flush()
+      this.bufferedPipe = pipe
+    }
+    this.buffer.push(message)
+    this.buffered += message.length
+    if (this.buffered >= MAX_BUFFERED) {
+      this.flush()
+    }
   }
 }
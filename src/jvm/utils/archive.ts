@@ -0,0 +1,186 @@
+/**
+ * Packed class archive: every class file of a library in a single binary blob,
+ * indexed by file name so single entries can be located without reading the rest.
+ *
+ * Layout (big endian):
+ * - header: magic u4, version u2, reserved u2, entry count u4
+ * - index: one 16 byte entry per class file, sorted by name:
+ *   name offset u4, name length u4 (UTF-16 code units), data offset u4, data length u4
+ * - name table: names as UTF-16 code units, u2 each
+ * - data: raw class files
+ *
+ * Names are stored as code units so the index can be binary searched by comparing
+ * against a JavaScript string directly, in the same order as `Array.prototype.sort`.
+ */
+
+import { ClassFile } from '../../ClassFile/types'
+import parseBin from './disassembler'
+
+export const ARCHIVE_MAGIC = 0x4a4c4941 // 'JLIA'
+export const ARCHIVE_VERSION = 1
+const HEADER_SIZE = 12
+const INDEX_ENTRY_SIZE = 16
+
+/**
+ * Packs class files into an archive.
+ * @param entries file name (e.g. java/lang/Object.class) to class file bytes
+ */
+export function packClassArchive(entries: { [name: string]: Uint8Array }): Uint8Array {
+  const names = Object.keys(entries).sort()
+  const nameTableOffset = HEADER_SIZE + names.length * INDEX_ENTRY_SIZE
+  let nameTableSize = 0
+  let dataSize = 0
+  for (const name of names) {
+    nameTableSize += name.length * 2
+    dataSize += entries[name].length
+  }
+  const dataOffset = nameTableOffset + nameTableSize
+
+  const bytes = new Uint8Array(dataOffset + dataSize)
+  const view = new DataView(bytes.buffer)
+  view.setUint32(0, ARCHIVE_MAGIC)
+  view.setUint16(4, ARCHIVE_VERSION)
+  view.setUint32(8, names.length)
+
+  let nameOffset = nameTableOffset
+  let offset = dataOffset
+  names.forEach((name, i) => {
+    const data = entries[name]
+    const entry = HEADER_SIZE + i * INDEX_ENTRY_SIZE
+    view.setUint32(entry, nameOffset)
+    view.setUint32(entry + 4, name.length)
+    view.setUint32(entry + 8, offset)
+    view.setUint32(entry + 12, data.length)
+
+    for (let j = 0; j < name.length; j++) {
+      view.setUint16(nameOffset, name.charCodeAt(j))
+      nameOffset += 2
+    }
+    bytes.set(data, offset)
+    offset += data.length
+  })
+
+  return bytes
+}
+
+/**
+ * Read only view of a packed class archive. Entries are returned as views into the archive;
+ * nothing is copied or parsed until a class is requested.
+ */
+export class ClassArchive {
+  private bytes: Uint8Array
+  private view: DataView
+  private count: number
+  private classFiles: Map<string, ClassFile> = new Map()
+
+  constructor(archive: ArrayBuffer | Uint8Array) {
+    this.bytes = archive instanceof Uint8Array ? archive : new Uint8Array(archive)
+    this.view = new DataView(this.bytes.buffer, this.bytes.byteOffset, this.bytes.byteLength)
+
+    if (this.bytes.byteLength < HEADER_SIZE || this.view.getUint32(0) !== ARCHIVE_MAGIC) {
+      throw new Error('Invalid class archive')
+    }
+    if (this.view.getUint16(4) !== ARCHIVE_VERSION) {
+      throw new Error(`Unsupported class archive version ${this.view.getUint16(4)}`)
+    }
+    this.count = this.view.getUint32(8)
+  }
+
+  size() {
+    return this.count
+  }
+
+  /**
+   * Gets the bytes of a class file, or null if the archive does not contain it.
+   * @param name file name, e.g. java/lang/Object.class
+   */
+  get(name: string): Uint8Array | null {
+    const index = this.find(name)
+    if (index < 0) {
+      return null
+    }
+    const entry = HEADER_SIZE + index * INDEX_ENTRY_SIZE
+    const offset = this.view.getUint32(entry + 8)
+    return this.bytes.subarray(offset, offset + this.view.getUint32(entry + 12))
+  }
+
+  /**
+   * Gets the parsed class file of an entry, or null if the archive does not contain it.
+   * Class files are parsed lazily and cached, so every JVM reading from this archive shares
+   * them. JVMs only read class files, they are never modified once parsed.
+   * @param name file name, e.g. java/lang/Object.class
+   */
+  getClassFile(name: string): ClassFile | null {
+    let classFile = this.classFiles.get(name)
+    if (classFile === undefined) {
+      const bytes = this.get(name)
+      if (bytes === null) {
+        return null
+      }
+      classFile = parseBin(new DataView(bytes.buffer, bytes.byteOffset, bytes.byteLength), true)
+      this.classFiles.set(name, classFile)
+    }
+    return classFile
+  }
+
+  has(name: string) {
+    return this.find(name) >= 0
+  }
+
+  /**
+   * Lists the names of all entries in sorted order.
+   */
+  names(): string[] {
+    const names = []
+    for (let i = 0; i < this.count; i++) {
+      names.push(this.getName(i))
+    }
+    return names
+  }
+
+  private getName(index: number) {
+    const entry = HEADER_SIZE + index * INDEX_ENTRY_SIZE
+    const offset = this.view.getUint32(entry)
+    const length = this.view.getUint32(entry + 4)
+    let name = ''
+    for (let i = 0; i < length; i++) {
+      name += String.fromCharCode(this.view.getUint16(offset + i * 2))
+    }
+    return name
+  }
+
+  /**
+   * Compares the name of an index entry with a string, in code unit order.
+   */
+  private compare(index: number, name: string) {
+    const entry = HEADER_SIZE + index * INDEX_ENTRY_SIZE
+    const offset = this.view.getUint32(entry)
+    const length = this.view.getUint32(entry + 4)
+    const common = Math.min(length, name.length)
+    for (let i = 0; i < common; i++) {
+      const diff = this.view.getUint16(offset + i * 2) - name.charCodeAt(i)
+      if (diff !== 0) {
+        return diff
+      }
+    }
+    return length - name.length
+  }
+
+  private find(name: string) {
+    let low = 0
+    let high = this.count - 1
+    while (low <= high) {
+      const mid = (low + high) >>> 1
+      const cmp = this.compare(mid, name)
+      if (cmp === 0) {
+        return mid
+      }
+      if (cmp < 0) {
+        low = mid + 1
+      } else {
+        high = mid - 1
+      }
+    }
+    return -1
+  }
+}
@@ -1,23 +1,21 @@
 import * as fs from 'node:fs'
+import { packClassArchive } from './archive'
 
 /**
- * Build script to convert all classfiles in a directory to base64 and write them to a file.
+ * Build script to pack all classfiles in a directory into files for distribution.
  * e.g. node dist/jvm/utils/build path/to/classfiles
  *
  * only includes classfiles with package names starting with the strings in the include array
- * writes to $OUTDIR/classfiles.js. OUTDIR can be changed by setting the OUTDIR variable below.
+ * writes to $OUTDIR. OUTDIR can be changed by setting the OUTDIR variable below.
+ * - classfiles.bin: packed class archive, read with ClassArchive/ArchiveSystem
+ * - classfiles.js: module of base64 strings, for integrations using loadCachedFiles
  */
 
 const CLASSFILE_PATH = process.argv[2] ?? ''
 const OUTDIR = 'dist/jvm/utils'
 const include = ['java', 'sun', 'modules', 'jdk']
 
-function cf2b64(path: string): string {
-  const buffer = fs.readFileSync(path, null)
-  return buffer.toString('base64')
-}
-
-const items: { [file: string]: string } = {}
+const items: { [file: string]: Buffer } = {}
 
 function _readAll(currentPath: string) {
   fs.readdirSync(currentPath).forEach(file => {
@@ -31,7 +29,7 @@ function _readAll(currentPath: string) {
       include.reduce(
         (accumulator, currentValue) => accumulator || pkg.startsWith(currentValue),
         false
-      ) && (items[`${pkg.length ? pkg + '/' : ''}${file}`] = cf2b64(filepath))
+      ) && (items[`${pkg.length ? pkg + '/' : ''}${file}`] = fs.readFileSync(filepath, null))
     }
   })
 }
@@ -39,17 +37,27 @@ function _readAll(currentPath: string) {
 export default function build() {
   console.log(process.argv)
   _readAll(CLASSFILE_PATH)
+
+  const archive = packClassArchive(items)
+  fs.writeFileSync(OUTDIR + '/classfiles.bin', archive)
+
+  const b64: { [file: string]: string } = {}
+  for (const [file, buffer] of Object.entries(items)) {
+    b64[file] = buffer.toString('base64')
+  }
   fs.writeFileSync(
     OUTDIR + '/classfiles.js',
     `"use strict";
   Object.defineProperty(exports, "__esModule", { value: true });
-  exports.default = ${JSON.stringify(items)};`
+  exports.default = ${JSON.stringify(b64)};`
   )
   fs.writeFileSync(
     OUTDIR + '/classfiles.d.ts',
     `declare const _default: {[key: string]: string;}; export default _default;`
   )
-  console.log(`Wrote ${Object.keys(items).length} classfiles to ${OUTDIR}`)
+  console.log(
+    `Wrote ${Object.keys(items).length} classfiles (${archive.byteLength} byte archive) to ${OUTDIR}`
+  )
 }
 
 build()
@@ -8,9 +8,10 @@ import { readMethod } from './utils/readMethod'
 /**
  * Parses a binary class file into a ClassFile object.
  * @param view Dataview of the classfile arraybuffer.
+ * @param lazy leaves method attributes (including Code) and utf8 constants undecoded until first use
  * @returns ClassFile object.
  */
-export default function parseBin(view: DataView) {
+export default function parseBin(view: DataView, lazy: boolean = false) {
   let offset = 0
 
   const cls: ClassFile = {
@@ -43,7 +44,7 @@ export default function parseBin(view: DataView) {
 
   const constantPoolCount = view.getUint16(offset)
   offset += 2
-  ;({ result: cls.constantPool, offset } = readConstants(view, offset, constantPoolCount))
+  ;({ result: cls.constantPool, offset } = readConstants(view, offset, constantPoolCount, lazy))
 
   cls.accessFlags = view.getUint16(offset)
   offset += 2
@@ -78,7 +79,7 @@ export default function parseBin(view: DataView) {
 
   cls.methods = []
   for (let i = 0; i < methodsCount; i += 1) {
-    const { result, offset: resultOffset } = readMethod(cls.constantPool, view, offset)
+    const { result, offset: resultOffset } = readMethod(cls.constantPool, view, offset, lazy)
     cls.methods.push(result)
     offset = resultOffset
   }
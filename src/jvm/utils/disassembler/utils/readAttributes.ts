@@ -4,6 +4,7 @@ import {
   CodeAttribute,
   ExceptionHandler,
   AttributeInfo,
+  LazyAttributeInfo,
   SignatureAttribute
 } from '../../../../ClassFile/types/attributes'
 import { ConstantInfo, ConstantUtf8Info } from '../../../../ClassFile/types/constants'
@@ -165,6 +166,33 @@ function readAttributeConstantValue(
   }
 }
 
+/**
+ * Reads the header of an attribute, leaving its contents as a byte range
+ * that is decoded with readAttribute on the first call to decode.
+ */
+export function readLazyAttribute(
+  constPool: Array<ConstantInfo>,
+  view: DataView,
+  offset: number
+): { result: LazyAttributeInfo; offset: number } {
+  const attributeNameIndex = view.getUint16(offset)
+  const attributeLength = view.getUint32(offset + 2)
+  const range = new DataView(view.buffer, view.byteOffset + offset, attributeLength + 6)
+
+  return {
+    result: {
+      attributeNameIndex,
+      attributeLength,
+      decode: () => readAttribute(constPool, range, 0).result as AttributeInfo
+    },
+    offset: offset + attributeLength + 6
+  }
+}
+
+export function isLazyAttribute(info: AttributeInfo): info is LazyAttributeInfo {
+  return (info as LazyAttributeInfo).decode !== undefined
+}
+
 function readCodeAttribute(
   constantPool: Array<ConstantInfo>,
   attributeNameIndex: number,
@@ -186,7 +214,7 @@ function readCodeAttribute(
     throw new Error('Class format error: Code attribute invalid length')
   }
 
-  const code = new DataView(view.buffer, offset, codeLength)
+  const code = new DataView(view.buffer, view.byteOffset + offset, codeLength)
   offset += codeLength
 
   const exceptionTableLength = view.getUint16(offset)
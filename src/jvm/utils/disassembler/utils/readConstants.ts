@@ -203,14 +203,10 @@ function readConstantNameAndType(
   }
 }
 
-function readConstantUtf8(
-  view: DataView,
-  offset: number,
-  tag: CONSTANT_TAG
-): { result: ConstantUtf8Info; offset: number } {
-  const length = view.getUint16(offset)
-  offset += 2
-
+/**
+ * Decodes a modified UTF-8 string of the given length in bytes.
+ */
+function decodeUtf8(view: DataView, offset: number, length: number): string {
   const bytes = []
 
   let u: number
@@ -264,15 +260,50 @@ function readConstantUtf8(
     i += 3
   }
 
-  const value = String.fromCharCode(...bytes)
+  return String.fromCharCode(...bytes)
+}
+
+function readConstantUtf8(
+  view: DataView,
+  offset: number,
+  tag: CONSTANT_TAG
+): { result: ConstantUtf8Info; offset: number } {
+  const length = view.getUint16(offset)
+  offset += 2
 
   return {
     result: {
       tag,
       length,
-      value
+      value: decodeUtf8(view, offset, length)
     },
-    offset
+    offset: offset + length
+  }
+}
+
+/**
+ * Reads a utf8 constant, decoding its value on first access.
+ */
+function readLazyConstantUtf8(
+  view: DataView,
+  offset: number,
+  tag: CONSTANT_TAG
+): { result: ConstantUtf8Info; offset: number } {
+  const length = view.getUint16(offset)
+  offset += 2
+  const start = offset
+
+  return {
+    result: {
+      tag,
+      length,
+      get value() {
+        const value = decodeUtf8(view, start, length)
+        Object.defineProperty(this, 'value', { value, enumerable: true })
+        return value
+      }
+    },
+    offset: offset + length
   }
 }
 
@@ -338,7 +369,8 @@ function readConstantInvokeDynamic(
 function readConstant(
   view: DataView,
   offset: number,
-  tag: CONSTANT_TAG
+  tag: CONSTANT_TAG,
+  lazy: boolean
 ): { result: any; offset: number } {
   switch (tag) {
     case CONSTANT_TAG.Class:
@@ -362,7 +394,7 @@ function readConstant(
     case CONSTANT_TAG.NameAndType:
       return readConstantNameAndType(view, offset, tag)
     case CONSTANT_TAG.Utf8:
-      return readConstantUtf8(view, offset, tag)
+      return lazy ? readLazyConstantUtf8(view, offset, tag) : readConstantUtf8(view, offset, tag)
     case CONSTANT_TAG.MethodHandle:
       return readConstantMethodHandle(view, offset, tag)
     case CONSTANT_TAG.MethodType:
@@ -377,14 +409,19 @@ function readConstant(
   }
 }
 
-export function readConstants(view: DataView, offset: number, constantPoolCount: number) {
+export function readConstants(
+  view: DataView,
+  offset: number,
+  constantPoolCount: number,
+  lazy: boolean = false
+) {
   // constant pool 1 indexed, dummy value at index 0
   const constantPool: ConstantInfo[] = [{ tag: CONSTANT_TAG.Class, nameIndex: 0 }]
 
   for (let i = 0; i < constantPoolCount - 1; i += 1) {
     const tag = constantTagMap[view.getUint8(offset)]
     offset += 1
-    const { result, offset: resultOffset } = readConstant(view, offset, tag)
+    const { result, offset: resultOffset } = readConstant(view, offset, tag, lazy)
     constantPool.push(result)
 
     // Longs and doubles take 2 indexes in the constant pool.
@@ -1,12 +1,13 @@
 import { AttributeInfo } from '../../../../ClassFile/types/attributes'
 import { ConstantInfo, ConstantUtf8Info } from '../../../../ClassFile/types/constants'
 import { MethodInfo } from '../../../../ClassFile/types/methods'
-import { readAttribute } from './readAttributes'
+import { readAttribute, readLazyAttribute } from './readAttributes'
 
 export function readMethod(
   constPool: Array<ConstantInfo>,
   view: DataView,
-  offset: number
+  offset: number,
+  lazy: boolean = false
 ): { result: MethodInfo; offset: number } {
   const accessFlags = view.getUint16(offset)
   offset += 2
@@ -20,7 +21,11 @@ export function readMethod(
   const attributes = []
 
   for (let i = 0; i < attributesCount; i += 1) {
-    const { result, offset: resultOffset } = readAttribute(constPool, view, offset)
+    const { result, offset: resultOffset } = (lazy ? readLazyAttribute : readAttribute)(
+      constPool,
+      view,
+      offset
+    )
 
     attributes.push(result as unknown as AttributeInfo)
     offset = resultOffset
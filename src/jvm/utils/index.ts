@@ -3,31 +3,56 @@ import AbstractClassLoader from '../ClassLoader/AbstractClassLoader'
 import { ConstantPool } from '../constant-pool'
 import Thread from '../thread'
 import { IAttribute, info2Attribute } from '../types/class/Attributes'
+import { isLazyAttribute } from './disassembler/utils/readAttributes'
 import { ArrayClassData, ReferenceClassData, ClassData } from '../types/class/ClassData'
 import { ConstantUtf8 } from '../types/class/Constants'
 import { Field } from '../types/class/Field'
 import { JvmArray } from '../types/reference/Array'
 import { JvmObject, JavaType } from '../types/reference/Object'
-import { SuccessResult, ResultType } from '../types/Result'
-
-const _ = {}
-export const INACCESSIBLE = new Proxy(_, {
-  get: () => {
-    throw new Error('Inaccessible')
-  },
-  set: () => {
-    throw new Error('Inaccessible')
+import { SuccessResult } from '../types/Result'
+
+/**
+ * Returned by the pops of Thread when the operand stack underflows, after the exception is thrown.
+ */
+export const UNDERFLOW = Symbol('underflow')
+
+/**
+ * JS strings of the char arrays backing Java Strings, keyed by the array storage.
+ * Strings are immutable and never write to their array once constructed.
+ */
+const jsStrings = new WeakMap<object, string>()
+
+// arguments per String.fromCharCode call, long strings would overflow the stack
+const FROM_CHAR_CODE_CHUNK = 8192
+
+/**
+ * Converts UTF-16 code units, or ASCII bytes, to a JS string.
+ */
+export const fromCharCodes = (chars: ArrayLike<number>) => {
+  if (chars.length <= FROM_CHAR_CODE_CHUNK) {
+    return String.fromCharCode.apply(null, chars as number[])
   }
-})
+  let result = ''
+  for (let i = 0; i < chars.length; i += FROM_CHAR_CODE_CHUNK) {
+    const chunk = Array.prototype.slice.call(chars, i, i + FROM_CHAR_CODE_CHUNK)
+    result += String.fromCharCode.apply(null, chunk)
+  }
+  return result
+}
 
 /**
- * Converts a Java String to a JS string
+ * Converts a Java String to a JS string. The result is cached, so converting the same String
+ * again does not copy its characters.
  * @param str Java String object
  */
 export const j2jsString = (str: JvmObject) => {
-  return String.fromCharCode(
-    ...(str._getField('value', '[C', 'java/lang/String') as JvmArray).getJsArray()
-  )
+  const chars = (str._getField('value', '[C', 'java/lang/String') as JvmArray).getJsArray()
+  let jsString = jsStrings.get(chars)
+  if (jsString === undefined) {
+    jsString = fromCharCodes(chars as ArrayLike<number>)
+    jsStrings.set(chars, jsString)
+  }
+  return jsString
 }
 
 function newCharArr(loader: AbstractClassLoader, str: string): JvmArray {
@@ -35,19 +60,21 @@ function newCharArr(loader: AbstractClassLoader, str: string): JvmArray {
   const cArrRes = loader.getClass('[C') as SuccessResult<ArrayClassData>
   const cArrCls = cArrRes.result
   const cArr = cArrCls.instantiate()
-  const jsArr = []
+  const chars = new Uint16Array(str.length)
   for (let i = 0; i < str.length; i++) {
-    jsArr.push(str.charCodeAt(i))
+    chars[i] = str.charCodeAt(i)
   }
-  cArr.initArray(str.length, jsArr)
+  cArr.initArray(str.length, chars)
   return cArr
 }
 
 /**
  * Converts a JS string to a Java String. Assumes java/lang/String and [C is loaded.
+ * The JS string is cached for j2jsString.
  */
 export function js2jString(loader: AbstractClassLoader, str: string): JvmObject {
   const charArr = newCharArr(loader, str)
+  jsStrings.set(charArr.getJsArray(), str)
   const strRes = loader.getClass('java/lang/String') as SuccessResult<ReferenceClassData>
   const strCls = strRes.result
   const strObj = strCls.instantiate()
@@ -164,29 +191,29 @@ export function getArgs(thread: Thread, descriptor: string, isNative: boolean):
         break // should not happen
       case 'D':
         popResult = thread.popStack64()
-        if (popResult.status === ResultType.ERROR) {
+        if (popResult === UNDERFLOW) {
           break
         }
-        args.push(asDouble(popResult.result))
+        args.push(asDouble(popResult))
         if (!isNative) {
-          args.push(asDouble(popResult.result))
+          args.push(asDouble(popResult))
         }
         break
       case 'F':
         popResult = thread.popStack()
-        if (popResult.status === ResultType.ERROR) {
+        if (popResult === UNDERFLOW) {
           break
         }
-        args.push(asFloat(popResult.result))
+        args.push(asFloat(popResult))
         break
       case 'J':
         popResult = thread.popStack64()
-        if (popResult.status === ResultType.ERROR) {
+        if (popResult === UNDERFLOW) {
           break
         }
-        args.push(popResult.result)
+        args.push(popResult)
         if (!isNative) {
-          args.push(popResult.result)
+          args.push(popResult)
         }
         break
       case '[':
@@ -197,10 +224,10 @@ export function getArgs(thread: Thread, descriptor: string, isNative: boolean):
       case 'Z':
       default: // also references + arrays
         popResult = thread.popStack()
-        if (popResult.status === ResultType.ERROR) {
+        if (popResult === UNDERFLOW) {
           break
         }
-        args.push(popResult.result)
+        args.push(popResult)
         break
     }
   }
@@ -220,6 +247,22 @@ export function asFloat(value: number): number {
   return Math.fround(value)
 }
 
+const MAX_SAFE_LONG = BigInt(Number.MAX_SAFE_INTEGER)
+const MIN_SAFE_LONG = BigInt(Number.MIN_SAFE_INTEGER)
+
+/**
+ * Wraps a value to a 64 bit long. Longs within the safe integer range are represented as plain
+ * numbers, only larger magnitudes are kept as bigints.
+ * Numbers passed in are assumed to already be safe integers.
+ */
+export function asLong(value: bigint | number): bigint | number {
+  if (typeof value === 'number') {
+    return value
+  }
+  const wrapped = BigInt.asIntN(64, value)
+  return wrapped >= MIN_SAFE_LONG && wrapped <= MAX_SAFE_LONG ? Number(wrapped) : wrapped
+}
+
 export function primitiveTypeToName(type: JavaType) {
   switch (type) {
     case JavaType.byte:
@@ -275,7 +318,10 @@ export function attrInfo2Interface(infoArr: AttributeInfo[], constantPool: Const
   // attributes
   infoArr.forEach(attr => {
     const attrName = (constantPool.get(attr.attributeNameIndex) as ConstantUtf8).get()
-    attributes[attrName] = info2Attribute(attr, constantPool)
+    attributes[attrName] = info2Attribute(
+      isLazyAttribute(attr) ? attr.decode() : attr,
+      constantPool
+    )
   })
   return attributes
 }
@@ -1,7 +1,80 @@
 import Thread from '../thread'
 import { JvmObject } from '../types/reference/Object'
 import { ResultType } from '../types/Result'
-import { j2jsString, js2jString } from '.'
+import { UNDERFLOW, j2jsString, js2jString } from '.'
+
+function openLibraryDB(indexedDB: IDBFactory) {
+  const open = indexedDB.open('Source Academy', 2)
+
+  // called when version changes/init
+  open.onupgradeneeded = function () {
+    const db = open.result
+    if (!db.objectStoreNames.contains('JavaLibrary')) {
+      const store = db.createObjectStore('JavaLibrary', { keyPath: 'name' })
+      store.createIndex('FileNameIndex', ['name'])
+    }
+    if (!db.objectStoreNames.contains('JavaLibraryArchive')) {
+      db.createObjectStore('JavaLibraryArchive', { keyPath: 'version' })
+    }
+  }
+  return open
+}
+
+/**
+ * Loads the packed class archive (classfiles.bin) from IndexedDB, stored as a single record.
+ * If missing, fetches it with the loader and caches it.
+ * The result can be passed to ArchiveSystem; classes are only parsed when loaded.
+ * @param loader fetches the archive, e.g. () => fetch(url).then(res => res.arrayBuffer())
+ * @param version cache key, change it to replace a cached archive
+ */
+export async function loadCachedArchive(
+  loader: () => Promise<ArrayBuffer>,
+  version: string = 'default'
+): Promise<ArrayBuffer> {
+  return new Promise((resolve, reject) => {
+    const open = openLibraryDB(window.indexedDB)
+    open.onerror = event => reject(event)
+
+    open.onsuccess = () => {
+      const db = open.result
+      const req = db
+        .transaction('JavaLibraryArchive', 'readonly')
+        .objectStore('JavaLibraryArchive')
+        .get(version)
+      req.onerror = event => {
+        db.close()
+        reject(event)
+      }
+      req.onsuccess = () => {
+        if (req.result) {
+          db.close()
+          resolve(req.result.content)
+          return
+        }
+
+        loader()
+          .then(archive => {
+            const putReq = db
+              .transaction('JavaLibraryArchive', 'readwrite')
+              .objectStore('JavaLibraryArchive')
+              .put({ version, content: archive })
+            putReq.onsuccess = () => {
+              db.close()
+              resolve(archive)
+            }
+            putReq.onerror = event => {
+              db.close()
+              reject(event)
+            }
+          })
+          .catch(e => {
+            db.close()
+            reject(e)
+          })
+      }
+    }
+  })
+}
 
 export async function loadCachedFiles(
   loader: () => Promise<{ [key: string]: string }>
@@ -10,14 +83,7 @@ export async function loadCachedFiles(
     const indexedDB = window.indexedDB
 
     // open db
-    const open = indexedDB.open('Source Academy', 1)
-
-    // called when version changes/init
-    open.onupgradeneeded = function () {
-      const db = open.result
-      const store = db.createObjectStore('JavaLibrary', { keyPath: 'name' })
-      store.createIndex('FileNameIndex', ['name'])
-    }
+    const open = openLibraryDB(indexedDB)
 
     open.onsuccess = () => {
       const db = open.result
@@ -111,10 +177,10 @@ export function createModuleProxy(
 
       let returnValue
 
-      if (thread.peekStackFrame().operandStack.length) {
+      if (thread.peekStackFrame().getStackSize()) {
         const popResult = thread.popStack()
-        if (popResult.status === ResultType.SUCCESS) {
-          returnValue = popResult.result
+        if (popResult !== UNDERFLOW) {
+          returnValue = popResult
         } else {
           throw new Error('Stack underflow')
         }
@@ -124,10 +190,10 @@ export function createModuleProxy(
 
       if (typeof returnValue === 'object') {
         let javaObject: JvmObject
-        if (thread.peekStackFrame().operandStack.length) {
+        if (thread.peekStackFrame().getStackSize()) {
           const popResult = thread.popStack()
-          if (popResult.status === ResultType.SUCCESS) {
-            javaObject = popResult.result
+          if (popResult !== UNDERFLOW) {
+            javaObject = popResult
           } else {
             // exception already thrown
             return
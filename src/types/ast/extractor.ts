@@ -37,11 +37,15 @@ class AstExtractor extends BaseJavaCstVisitor {
       }
     }
 
-    ctx.Dot = ctx.Dot.slice(0, ctx.Dot.length - 1)
-    ctx.Identifier = ctx.Identifier.slice(0, ctx.Identifier.length - 1)
+    // the syntax tree may be cached and shared, so the prefix is taken from a copy
+    const prefix: JavaParser.AmbiguousNameCtx = {
+      ...ctx,
+      Dot: ctx.Dot.slice(0, ctx.Dot.length - 1),
+      Identifier: ctx.Identifier.slice(0, ctx.Identifier.length - 1)
+    }
     return {
       kind: 'AmbiguousName',
-      ambiguousName: this.ambiguousName(ctx),
+      ambiguousName: this.ambiguousName(prefix),
       identifier: getIdentifier(lastIdentifier),
       location: getLocation(lastIdentifier)
     }
@@ -865,13 +869,17 @@ class AstExtractor extends BaseJavaCstVisitor {
     if (ctx.Dot && ctx.fqnOrRefTypePartRest && ctx.fqnOrRefTypePartRest.length > 0) {
       const lastPartIndex = ctx.fqnOrRefTypePartRest.length - 1
       const lastDot = ctx.Dot[lastPartIndex]
-      ctx.Dot = ctx.Dot.slice(0, lastPartIndex)
       const lastFqnOrRefTypePartRest = ctx.fqnOrRefTypePartRest[lastPartIndex]
-      ctx.fqnOrRefTypePartRest = ctx.fqnOrRefTypePartRest.slice(0, lastPartIndex)
+      // copied like in ambiguousName
+      const prefix: JavaParser.FqnOrRefTypeCtx = {
+        ...ctx,
+        Dot: ctx.Dot.slice(0, lastPartIndex),
+        fqnOrRefTypePartRest: ctx.fqnOrRefTypePartRest.slice(0, lastPartIndex)
+      }
       return {
         kind: 'FieldAccess',
         identifier: this.visit(lastFqnOrRefTypePartRest),
-        primary: this.fqnOrRefType(ctx),
+        primary: this.fqnOrRefType(prefix),
         location: getLocation(lastDot)
       }
     }
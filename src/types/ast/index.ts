@@ -1,4 +1,4 @@
-import { parse as parseToCst } from 'java-parser'
+import { parseToCst } from '../../ast/cst-cache'
 import { TypeCheckerError } from '../errors'
 import AstExtractor from './extractor'
 import { CompilationUnit, Node } from './specificationTypes'
@@ -0,0 +1,49 @@
+import { check } from '..'
+import { parse } from '../../ast'
+import { IncrementalChecker } from '../incremental'
+import { CompilationUnit } from '../../ast/specificationTypes'
+
+const program = (mainBody: string, helperParameter: string = 'int x') => `
+  public class Main {
+    public static void main(String[] args) {
+      ${mainBody}
+    }
+    public static int helper(${helperParameter}) {
+      return 1;
+    }
+  }
+`
+
+// Successive edits of a program, as typed in an editor.
+const edits = [
+  program('int x = helper(1);'),
+  program('int x = helper(1);'),
+  program('int x = helper("a");'),
+  program('int x = helper(1); String y = 1;'),
+  program('int x = helper(1);'),
+  program('int x = helper(1);', 'String x'),
+  program('int x = helper("a");', 'String x'),
+  program('int x = helper("a");', 'String x, String x')
+]
+
+describe('Incremental type checker', () => {
+  it('reports the same errors as a full check after every edit', () => {
+    const checker = new IncrementalChecker()
+    edits.forEach(edit => {
+      const ast = parse(edit) as CompilationUnit
+      const expected = check(parse(edit) as CompilationUnit)
+      const result = checker.check(ast)
+      expect(result.errors.map(error => error.message)).toEqual(
+        expected.errors.map(error => error.message)
+      )
+    })
+  })
+
+  it('reuses the results of unchanged declarations', () => {
+    const checker = new IncrementalChecker()
+    const first = checker.check(parse(edits[2]) as CompilationUnit)
+    const second = checker.check(parse(edits[2]) as CompilationUnit)
+    expect(first.errors.length).toBeGreaterThan(0)
+    expect(second.errors[0]).toBe(first.errors[0])
+  })
+})
@@ -7,6 +7,7 @@ import { Array } from '../types/arrays'
 import { Class, ClassType } from '../types/classes'
 import { Location } from '../ast/specificationTypes'
 import { isArrayType, removeArraySuffix } from './arrays'
+import { Result } from '.'
 
 const SYSTEM_CLASS = new ClassType('System')
 const PRINTSTREAM_CLASS = new ClassType('PrintStream')
@@ -44,6 +45,26 @@ const GLOBAL_TYPE_ENVIRONMENT: { [key: string]: Type } = {
   Exception: new NonPrimitives.Exception()
 }
 
+/**
+ * Results of method/constructor body checks of an incremental check, reused by the next check
+ * for declarations with the same key. Results not used by a check are dropped after it.
+ */
+export class DeclarationResults {
+  private _previous = new Map<string, Result>()
+  private _current = new Map<string, Result>()
+
+  public check(key: string, check: () => Result): Result {
+    const result = this._current.get(key) ?? this._previous.get(key) ?? check()
+    this._current.set(key, result)
+    return result
+  }
+
+  public endCheck(): void {
+    this._previous = this._current
+    this._current = new Map()
+  }
+}
+
 export class Frame {
   private _currentClass: Class
   private _methods = new Map<string, Method>()
@@ -53,7 +74,9 @@ export class Frame {
   private _returnType: Type | null = null
 
   private _parentFrame: Frame | null = null
-  private _childrenFrames: Frame[] = []
+
+  // Shared by every frame of an incremental check.
+  private _declarationResults: DeclarationResults | null = null
 
   private constructor() {}
 
@@ -104,12 +127,25 @@ export class Frame {
 
   public newChildFrame(): Frame {
     const childFrame = new Frame()
-    this._childrenFrames.push(childFrame)
     childFrame._parentFrame = this
     childFrame._currentClass = this._currentClass
+    childFrame._declarationResults = this._declarationResults
     return childFrame
   }
 
+  /**
+   * Checks the body of a method/constructor declaration, reusing the result of a previous
+   * check of the declaration with the same key if this frame belongs to an incremental check.
+   */
+  public checkDeclaration(key: string, check: () => Result): Result {
+    if (!this._declarationResults) return check()
+    return this._declarationResults.check(key, check)
+  }
+
+  public setDeclarationResults(results: DeclarationResults): void {
+    this._declarationResults = results
+  }
+
   public setClass(classType: Class): void {
     this._currentClass = classType
   }
@@ -0,0 +1,43 @@
+import { Node } from '../ast/specificationTypes'
+import { DeclarationResults, Frame } from './environment'
+import { precheck, Result, typeCheckBody } from '.'
+
+/**
+ * Serializes the declarations of a program without method/constructor bodies and locations,
+ * which is all that the classes, fields and methods added by precheck depend on.
+ */
+const getSkeleton = (node: Node): string =>
+  JSON.stringify(node, (key, value) =>
+    key === 'location' || key === 'methodBody' || key === 'constructorBody' ? undefined : value
+  )
+
+/**
+ * Type checker for successive versions of a program, e.g. on every edit in an editor.
+ * The classes, parents and methods added by precheck are reused while no declaration
+ * outside method/constructor bodies changes, and so are the results of checking the bodies
+ * of methods/constructors whose declaration, including its location, did not change.
+ */
+export class IncrementalChecker {
+  private _skeleton: string | null = null
+  private _frame: Frame
+  private _declarationResults = new DeclarationResults()
+
+  public check(node: Node): Result {
+    const skeleton = getSkeleton(node)
+    if (skeleton !== this._skeleton) {
+      this._skeleton = null
+      this._declarationResults = new DeclarationResults()
+      const frame = Frame.globalFrame().newChildFrame()
+      frame.setDeclarationResults(this._declarationResults)
+      const precheckResult = precheck(node, frame)
+      if (precheckResult.hasErrors) return precheckResult
+      this._skeleton = skeleton
+      this._frame = frame
+    }
+    try {
+      return typeCheckBody(node, this._frame)
+    } finally {
+      this._declarationResults.endCheck()
+    }
+  }
+}
@@ -54,13 +54,22 @@ export const OK_RESULT: Result = newResult(null)
 
 export const check = (node: Node, frame: Frame = Frame.globalFrame()): Result => {
   const typeCheckingFrame = frame.newChildFrame()
-  const addClassesResult = addClasses(node, typeCheckingFrame)
+  const precheckResult = precheck(node, typeCheckingFrame)
+  if (precheckResult.hasErrors) return precheckResult
+  return typeCheckBody(node, typeCheckingFrame)
+}
+
+/**
+ * Adds classes, their parents and their fields and methods to frame.
+ */
+export const precheck = (node: Node, frame: Frame): Result => {
+  const addClassesResult = addClasses(node, frame)
   if (addClassesResult.hasErrors) return addClassesResult
-  const addClassParentsResult = addClassParents(node, typeCheckingFrame)
+  const addClassParentsResult = addClassParents(node, frame)
   if (addClassParentsResult.hasErrors) return addClassParentsResult
-  const addClassMethodsResult = addClassMethods(node, typeCheckingFrame)
+  const addClassMethodsResult = addClassMethods(node, frame)
   if (addClassMethodsResult.hasErrors) return addClassMethodsResult
-  return typeCheckBody(node, typeCheckingFrame)
+  return OK_RESULT
 }
 
 export const typeCheckBody = (node: Node, frame: Frame = Frame.globalFrame()): Result => {
@@ -494,9 +503,9 @@ export const typeCheckBody = (node: Node, frame: Frame = Frame.globalFrame()): R
               errors.push(...constructorMethodErrors)
               break
             }
-            const { errors: checkErrors } = typeCheckBody(
-              bodyDeclaration.constructorBody,
-              methodFrame
+            const { errors: checkErrors } = methodFrame.checkDeclaration(
+              classType.name + JSON.stringify(bodyDeclaration),
+              () => typeCheckBody(bodyDeclaration.constructorBody, methodFrame)
             )
             if (checkErrors.length > 0) errors.push(...checkErrors)
             break
@@ -546,7 +555,10 @@ export const typeCheckBody = (node: Node, frame: Frame = Frame.globalFrame()): R
               errors.push(...methodErrors)
               break
             }
-            const { errors: checkErrors } = typeCheckBody(bodyDeclaration.methodBody, methodFrame)
+            const { errors: checkErrors } = methodFrame.checkDeclaration(
+              classType.name + JSON.stringify(bodyDeclaration),
+              () => typeCheckBody(bodyDeclaration.methodBody, methodFrame)
+            )
             if (checkErrors.length > 0) errors.push(...checkErrors)
             break
           }
@@ -1,5 +1,6 @@
-import { check } from './checker'
-import { parse } from './ast'
+import { check, Result } from './checker'
+import { IncrementalChecker } from './checker/incremental'
+import { AST, parse } from './ast'
 import { TypeCheckerError } from './errors'
 
 type TypeCheckResult = { hasTypeErrors: boolean; errorMsgs: string[] }
@@ -11,16 +12,35 @@ const convertErrorsToReadableMsgs = (program: string, errors: Error[]): string[]
   })
 }
 
-export const typeCheck = (program: string): TypeCheckResult => {
+const typeCheckWith = (
+  program: string,
+  checkAst: (ast: AST.CompilationUnit) => Result
+): TypeCheckResult => {
   const ast = parse(program)
   if (ast instanceof TypeCheckerError)
     return {
       hasTypeErrors: true,
       errorMsgs: convertErrorsToReadableMsgs(program, [ast])
     }
-  const result = check(ast)
+  const result = checkAst(ast)
   return {
     hasTypeErrors: result.errors.length > 0,
     errorMsgs: convertErrorsToReadableMsgs(program, result.errors)
   }
 }
+
+export const typeCheck = (program: string): TypeCheckResult => {
+  return typeCheckWith(program, ast => check(ast))
+}
+
+/**
+ * Type checker for an editor, which type checks the program on every edit.
+ * Declarations that did not change since the previous check are not checked again.
+ */
+export class IncrementalTypeChecker {
+  private checker = new IncrementalChecker()
+
+  public typeCheck(program: string): TypeCheckResult {
+    return typeCheckWith(program, ast => this.checker.check(ast))
+  }
+}